@@ -25,6 +25,10 @@ android {
             )
         }
     }
+    androidResources {
+        // GLBModelLoader memory-maps the AR models, which needs them stored uncompressed.
+        noCompress += "glb"
+    }
     compileOptions {
         sourceCompatibility = JavaVersion.VERSION_21
         targetCompatibility = JavaVersion.VERSION_21
@@ -36,6 +40,8 @@ dependencies {
     implementation(libs.appcompat)
     implementation(libs.material)
     testImplementation(libs.junit)
+    // org.json is part of the Android runtime but only stubbed in local unit tests.
+    testImplementation("org.json:json:20231013")
     androidTestImplementation(libs.ext.junit)
     androidTestImplementation(libs.espresso.core)
 
@@ -50,6 +56,7 @@ dependencies {
 
     // TensorFlow Lite
     implementation("org.tensorflow:tensorflow-lite:2.13.0")
+    implementation("org.tensorflow:tensorflow-lite-gpu:2.13.0")
     implementation("org.tensorflow:tensorflow-lite-support:0.4.4")
 
     // For reading EXIF data from images
@@ -0,0 +1,140 @@
+package com.example.jomexplore;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.net.Uri;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.jomexplore.classifier.BatchJob;
+import com.example.jomexplore.classifier.RecognitionResult;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Measures gallery classification throughput (images per second) on a device for different
+ * batch sizes and decoder thread counts. Results are written to logcat under this class's tag.
+ * Skipped when the model is not bundled.
+ */
+@RunWith(AndroidJUnit4.class)
+public class GalleryClassifierBenchmark {
+    private static final String TAG = "GalleryBenchmark";
+    private static final int PHOTOS = 32;
+    private static final int[] BATCH_SIZES = {1, 4, 8, 16};
+    private static final int[] DECODE_THREADS = {1, 2, 4};
+
+    private Context context;
+    private ImageClassifier classifier;
+    private final List<Uri> photos = new ArrayList<>();
+    private File photoDir;
+
+    @Before
+    public void setUp() throws IOException {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        classifier = new ImageClassifier(context);
+        photoDir = new File(context.getCacheDir(), "gallery_benchmark");
+        assertTrue(photoDir.isDirectory() || photoDir.mkdirs());
+        Random random = new Random(1);
+        for (int i = 0; i < PHOTOS; i++) {
+            photos.add(Uri.fromFile(writePhoto(new File(photoDir, "photo_" + i + ".jpg"), random)));
+        }
+    }
+
+    @After
+    public void tearDown() {
+        classifier.close();
+        File[] files = photoDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+    }
+
+    /** A 12 MP-class camera photo: 4000x3000 with coloured shapes, so it compresses realistically. */
+    private static File writePhoto(File file, Random random) throws IOException {
+        Bitmap bitmap = Bitmap.createBitmap(4000, 3000, Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(bitmap);
+        canvas.drawColor(Color.rgb(random.nextInt(256), random.nextInt(256), random.nextInt(256)));
+        Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        for (int i = 0; i < 200; i++) {
+            paint.setColor(Color.rgb(random.nextInt(256), random.nextInt(256), random.nextInt(256)));
+            canvas.drawCircle(random.nextInt(4000), random.nextInt(3000), 20 + random.nextInt(400), paint);
+        }
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            bitmap.compress(Bitmap.CompressFormat.JPEG, 90, out);
+        }
+        bitmap.recycle();
+        return file;
+    }
+
+    @Test
+    public void throughputByBatchSizeAndDecoderThreads() throws Exception {
+        Bitmap probe = Bitmap.createBitmap(classifier.getInputSize(), classifier.getInputSize(), Bitmap.Config.ARGB_8888);
+        RecognitionResult.Status status = classifier.classifyBatch(Collections.singletonList(probe)).get(0).status;
+        probe.recycle();
+        assumeTrue("Model not bundled", status != RecognitionResult.Status.MODEL_UNAVAILABLE);
+
+        // Warm up decoders, caches and the interpreter once before measuring.
+        run(4, 2);
+        for (int decodeThreads : DECODE_THREADS) {
+            for (int batchSize : BATCH_SIZES) {
+                double imagesPerSecond = run(batchSize, decodeThreads);
+                Log.i(TAG, String.format("batch %2d, %d decoder threads: %.1f images/s",
+                        batchSize, decodeThreads, imagesPerSecond));
+            }
+        }
+    }
+
+    private double run(int batchSize, int decodeThreads) throws InterruptedException {
+        CountDownLatch finished = new CountDownLatch(1);
+        int[] failures = new int[1];
+        BatchJob<Uri, Bitmap, RecognitionResult> job = GalleryClassifier.classify(context, classifier, photos,
+                batchSize, decodeThreads, new BatchJob.Listener<Uri, RecognitionResult>() {
+                    @Override
+                    public void onResult(int index, Uri source, RecognitionResult result) {
+                        if (result.status == RecognitionResult.Status.FAILED) {
+                            failures[0]++;
+                        }
+                    }
+
+                    @Override
+                    public void onError(int index, Uri source, Exception e) {
+                        failures[0]++;
+                    }
+
+                    @Override
+                    public void onProgress(int completed, int total) {
+                    }
+
+                    @Override
+                    public void onFinished(boolean cancelled) {
+                        finished.countDown();
+                    }
+                });
+        assertTrue(finished.await(5, TimeUnit.MINUTES));
+        assertEquals(0, failures[0]);
+        return job.getImagesPerSecond();
+    }
+}
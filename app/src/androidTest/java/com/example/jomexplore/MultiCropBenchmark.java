@@ -0,0 +1,148 @@
+package com.example.jomexplore;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.jomexplore.classifier.InputTensor;
+import com.example.jomexplore.classifier.MultiCrop;
+import com.example.jomexplore.classifier.RecognitionResult;
+import com.example.jomexplore.classifier.YuvTensorConverter;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Measures multi-crop classification on a device: the crops of one photo in a single batched
+ * interpreter call against one call per crop, and live frames interleaved with photos, which
+ * must not reallocate the interpreter on every switch. Results are written to logcat under this
+ * class's tag. Skipped when the model is not bundled.
+ */
+@RunWith(AndroidJUnit4.class)
+public class MultiCropBenchmark {
+    private static final String TAG = "MultiCropBenchmark";
+    private static final int WARM_UP_RUNS = 3;
+    private static final int TIMED_RUNS = 20;
+
+    private ImageClassifier classifier;
+    private Bitmap photo;
+    private List<MultiCrop.Crop> crops;
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        classifier = new ImageClassifier(context);
+        // Decoded like a captured photo: a short side of twice the model input.
+        int shortSide = classifier.getInputSize() * 2;
+        photo = createPhoto(shortSide * 4 / 3, shortSide, new Random(1));
+        crops = MultiCrop.plan(photo.getWidth(), photo.getHeight(), null);
+    }
+
+    @After
+    public void tearDown() {
+        classifier.close();
+        photo.recycle();
+    }
+
+    private static Bitmap createPhoto(int width, int height, Random random) {
+        Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(bitmap);
+        canvas.drawColor(Color.rgb(random.nextInt(256), random.nextInt(256), random.nextInt(256)));
+        Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        for (int i = 0; i < 50; i++) {
+            paint.setColor(Color.rgb(random.nextInt(256), random.nextInt(256), random.nextInt(256)));
+            canvas.drawCircle(random.nextInt(width), random.nextInt(height), 10 + random.nextInt(width / 4), paint);
+        }
+        return bitmap;
+    }
+
+    @Test
+    public void batchedCropsAgainstOneCallPerCrop() {
+        assumeTrue("Model not bundled",
+                classifier.classifyCrops(photo, crops).status != RecognitionResult.Status.MODEL_UNAVAILABLE);
+
+        List<Bitmap> cropBitmaps = new ArrayList<>(crops.size());
+        for (MultiCrop.Crop crop : crops) {
+            cropBitmaps.add(Bitmap.createBitmap(photo, crop.left, crop.top, crop.size, crop.size));
+        }
+
+        long batchedMicros = 0;
+        long sequentialMicros = 0;
+        for (int run = 0; run < WARM_UP_RUNS + TIMED_RUNS; run++) {
+            RecognitionResult batched = classifier.classifyCrops(photo, crops);
+            long sequential = 0;
+            for (Bitmap cropBitmap : cropBitmaps) {
+                sequential += classifier.classifyImage(cropBitmap).inferenceMicros;
+            }
+            if (run >= WARM_UP_RUNS) {
+                batchedMicros += batched.inferenceMicros;
+                sequentialMicros += sequential;
+            }
+        }
+        Log.i(TAG, String.format("%d crops: batched %d us, one call per crop %d us (inference per photo)",
+                crops.size(), batchedMicros / TIMED_RUNS, sequentialMicros / TIMED_RUNS));
+        for (Bitmap cropBitmap : cropBitmaps) {
+            cropBitmap.recycle();
+        }
+    }
+
+    @Test
+    public void liveFramesInterleavedWithPhotos() {
+        assumeTrue("Model not bundled",
+                classifier.classifyCrops(photo, crops).status != RecognitionResult.Status.MODEL_UNAVAILABLE);
+
+        // A 640x480 YUV_420_888 frame with interleaved chroma, as most cameras deliver it,
+        // converted and inferred the way the live pipeline stages do.
+        int width = 640;
+        int height = 480;
+        Random random = new Random(2);
+        byte[] luma = new byte[width * height];
+        byte[] chroma = new byte[width * height / 2];
+        random.nextBytes(luma);
+        random.nextBytes(chroma);
+        ByteBuffer yPlane = ByteBuffer.wrap(luma);
+        ByteBuffer uPlane = ByteBuffer.wrap(chroma, 0, chroma.length - 1).slice();
+        ByteBuffer vPlane = ByteBuffer.wrap(chroma, 1, chroma.length - 1).slice();
+        YuvTensorConverter converter = classifier.createFrameConverter();
+        InputTensor tensor = classifier.createInputTensor();
+        float[] scores = new float[classifier.getNumClasses()];
+
+        long framesOnlyNanos = 0;
+        long interleavedNanos = 0;
+        for (int run = 0; run < WARM_UP_RUNS + TIMED_RUNS; run++) {
+            converter.convert(yPlane, width, uPlane, vPlane, width, 2, width, height, 90, tensor);
+            long startNanos = System.nanoTime();
+            assertTrue(classifier.infer(tensor, scores));
+            long frameNanos = System.nanoTime() - startNanos;
+
+            classifier.classifyCrops(photo, crops);
+            converter.convert(yPlane, width, uPlane, vPlane, width, 2, width, height, 90, tensor);
+            startNanos = System.nanoTime();
+            assertTrue(classifier.infer(tensor, scores));
+            long afterPhotoNanos = System.nanoTime() - startNanos;
+            if (run >= WARM_UP_RUNS) {
+                framesOnlyNanos += frameNanos;
+                interleavedNanos += afterPhotoNanos;
+            }
+        }
+        // Both should match: the live path keeps its own interpreter at batch size 1.
+        Log.i(TAG, String.format("Live frame inference: %d us after a frame, %d us right after a photo",
+                framesOnlyNanos / TIMED_RUNS / 1000, interleavedNanos / TIMED_RUNS / 1000));
+    }
+}
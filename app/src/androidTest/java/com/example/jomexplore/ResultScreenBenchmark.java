@@ -0,0 +1,141 @@
+package com.example.jomexplore;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.Intent;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.util.Log;
+import android.widget.ImageView;
+
+import androidx.test.core.app.ActivityScenario;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.jomexplore.capture.CapturedImage;
+import com.example.jomexplore.capture.CapturedImageStore;
+import com.example.jomexplore.utils.ImageCache;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Measures the time to the first image on the result screen for a captured photo, from each
+ * ImageCache tier: a cold decode of the full photo (the behaviour without the cache), the disk
+ * thumbnail after the memory tier was dropped, and the memory tier. Results are written to
+ * logcat under this class's tag.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ResultScreenBenchmark {
+    private static final String TAG = "ResultScreenBenchmark";
+    private static final int RUNS = 5;
+
+    private Context context;
+    private byte[] jpeg;
+    // One capture time for every launch, so they all share the capture's cache key.
+    private long captureTimeMillis;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        jpeg = encodePhoto(new Random(1));
+        captureTimeMillis = System.currentTimeMillis();
+    }
+
+    @After
+    public void tearDown() {
+        clearThumbnails();
+        ImageCache.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_COMPLETE);
+    }
+
+    /** A 12 MP-class camera photo: 4000x3000 with coloured shapes, so it compresses realistically. */
+    private static byte[] encodePhoto(Random random) {
+        Bitmap bitmap = Bitmap.createBitmap(4000, 3000, Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(bitmap);
+        canvas.drawColor(Color.rgb(random.nextInt(256), random.nextInt(256), random.nextInt(256)));
+        Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        for (int i = 0; i < 200; i++) {
+            paint.setColor(Color.rgb(random.nextInt(256), random.nextInt(256), random.nextInt(256)));
+            canvas.drawCircle(random.nextInt(4000), random.nextInt(3000), 20 + random.nextInt(400), paint);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        bitmap.compress(Bitmap.CompressFormat.JPEG, 90, out);
+        bitmap.recycle();
+        return out.toByteArray();
+    }
+
+    private void clearThumbnails() {
+        File[] files = new File(context.getCacheDir(), "thumbnails").listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+    }
+
+    private boolean hasThumbnails() {
+        File[] files = new File(context.getCacheDir(), "thumbnails").listFiles();
+        return files != null && files.length > 0;
+    }
+
+    @Test
+    public void timeToFirstImageByCacheTier() throws Exception {
+        long coldMillis = 0;
+        long diskMillis = 0;
+        long memoryMillis = 0;
+        for (int run = 0; run < RUNS; run++) {
+            clearThumbnails();
+            ImageCache.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_COMPLETE);
+            coldMillis += timeToFirstImage();
+            // The thumbnail is written after the decoded preview is shown.
+            waitFor(this::hasThumbnails);
+
+            ImageCache.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_COMPLETE);
+            diskMillis += timeToFirstImage();
+
+            memoryMillis += timeToFirstImage();
+        }
+        Log.i(TAG, String.format("Time to first image: decode %d ms, disk thumbnail %d ms, memory %d ms",
+                coldMillis / RUNS, diskMillis / RUNS, memoryMillis / RUNS));
+    }
+
+    /**
+     * Opens the result screen for the photo, as CameraActivity does after a capture, and waits
+     * until it shows an image. The screen drops the capture when it finishes, so every launch
+     * stores it again.
+     * @return The milliseconds from the launch to the first image, including the launch itself.
+     */
+    private long timeToFirstImage() throws InterruptedException {
+        long captureHandle = CapturedImageStore.put(new CapturedImage(jpeg, 0, captureTimeMillis));
+        Intent intent = new Intent(context, RecognitionResultActivity.class)
+                .putExtra(RecognitionResultActivity.EXTRA_CAPTURE_HANDLE, captureHandle);
+        long startNanos = System.nanoTime();
+        try (ActivityScenario<RecognitionResultActivity> scenario = ActivityScenario.launch(intent)) {
+            boolean[] shown = new boolean[1];
+            waitFor(() -> {
+                scenario.onActivity(activity ->
+                        shown[0] = ((ImageView) activity.findViewById(R.id.captured_image)).getDrawable() != null);
+                return shown[0];
+            });
+            return (System.nanoTime() - startNanos) / 1_000_000;
+        }
+    }
+
+    private static void waitFor(java.util.function.BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (!condition.getAsBoolean()) {
+            assertTrue("Condition not reached", System.currentTimeMillis() < deadline);
+            Thread.sleep(5);
+        }
+    }
+}
@@ -12,6 +12,9 @@ import android.view.MotionEvent;
 import android.view.View;
 
 import com.example.jomexplore.ar.ARRenderer;
+import com.example.jomexplore.catalog.Landmark;
+import com.example.jomexplore.catalog.LandmarkCatalog;
+import com.example.jomexplore.classifier.RecognitionResult;
 import com.google.ar.core.ArCoreApk;
 import com.google.ar.core.exceptions.CameraNotAvailableException;
 
@@ -25,6 +28,8 @@ public class ARActivity extends AppCompatActivity {
     private static final String TAG = "ARActivity";
     
     private String modelName;
+    // The classification that led here, or null if the activity was opened directly.
+    private RecognitionResult recognitionResult;
     private TextView arStatusText;
     private Button backButton;
     private GLSurfaceView glSurfaceView;
@@ -39,6 +44,7 @@ public class ARActivity extends AppCompatActivity {
             
             // Retrieve the detected model name from the Intent.
             modelName = getIntent().getStringExtra("model_name");
+            recognitionResult = RecognitionResultActivity.getRecognitionResult(getIntent());
             Log.d(TAG, "Model name received: " + modelName);
             
             if (modelName == null || modelName.isEmpty()) {
@@ -217,18 +223,16 @@ public class ARActivity extends AppCompatActivity {
     }
 
     /**
-     * Determines the display name for the 3D model based on the model's filename.
+     * Determines the display name for the 3D model from the recognized landmark.
      * @return A user-friendly name for the detected heritage site model.
      */
     private String getModelDisplayName() {
-        if (modelName != null) {
-            if (modelName.contains("mosque")) {
-                return "Blue Mosque Model";
-            } else if (modelName.contains("caves")) {
-                return "Batu Caves Model";
-            } else if (modelName.contains("square")) {
-                return "Merdeka Square Model";
-            }
+        if (recognitionResult != null && recognitionResult.isRecognized()) {
+            return recognitionResult.label + " Model";
+        }
+        Landmark landmark = LandmarkCatalog.getInstance(this).get(modelName);
+        if (landmark != null) {
+            return landmark.label + " Model";
         }
         return "Heritage Site Model"; // Default name if no specific model is identified.
     }
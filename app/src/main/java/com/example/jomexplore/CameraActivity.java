@@ -3,8 +3,10 @@ package com.example.jomexplore;
 import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.camera.core.CameraSelector;
+import androidx.camera.core.ImageAnalysis;
 import androidx.camera.core.ImageCapture;
 import androidx.camera.core.ImageCaptureException;
+import androidx.camera.core.ImageProxy;
 import androidx.camera.core.Preview;
 import androidx.camera.lifecycle.ProcessCameraProvider;
 import androidx.camera.view.PreviewView;
@@ -16,33 +18,126 @@ import android.content.pm.PackageManager;
 import android.graphics.Bitmap;
 import android.os.Bundle;
 import android.util.Log;
+import android.util.Size;
+import android.view.MotionEvent;
+import android.view.View;
 import android.widget.Button;
+import android.widget.TextView;
 import android.widget.Toast;
 
+import com.example.jomexplore.capture.CapturedImage;
+import com.example.jomexplore.capture.CapturedImageStore;
+import com.example.jomexplore.classifier.InferenceScheduler;
+import com.example.jomexplore.classifier.InputTensor;
+import com.example.jomexplore.classifier.MultiCrop;
+import com.example.jomexplore.classifier.RecognitionAggregator;
+import com.example.jomexplore.classifier.RecognitionResult;
+import com.example.jomexplore.classifier.SharedInstance;
+import com.example.jomexplore.classifier.StagedPipeline;
+import com.example.jomexplore.classifier.YuvTensorConverter;
+import com.example.jomexplore.utils.BitmapPool;
 import com.example.jomexplore.utils.BitmapUtils;
 import com.google.common.util.concurrent.ListenableFuture;
 
-import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
 /**
  * CameraActivity manages the camera functionality for the application.
- * It handles camera permissions, displays a live camera preview, captures images,
- * and initiates the image classification process.
+ * It handles camera permissions, displays a live camera preview, captures images in memory,
+ * and initiates the image classification process. In live mode, frames from an
+ * ImageAnalysis stream are classified and smoothed until the prediction is stable. Live frames
+ * go through a preprocess, infer and aggregate pipeline with one thread per stage, so the next
+ * frame is converted while the current one is in the interpreter.
  */
 public class CameraActivity extends AppCompatActivity {
 
     private static final String TAG = "CameraActivity";
     private static final int CAMERA_PERMISSION_REQUEST_CODE = 100;
+    // Live mode reports a landmark once the moving average of its score is confident and clearly
+    // ahead of the runner-up. See RecognitionAggregatorTest for how these settings were chosen.
+    private static final float LIVE_SMOOTHING = 0.3f;
+    private static final float LIVE_MIN_CONFIDENCE = 0.6f;
+    private static final float LIVE_MIN_MARGIN = 0.3f;
+    private static final int LIVE_MIN_FRAMES = 3;
+    // Give up after this many frames instead of running inference indefinitely.
+    private static final int LIVE_MAX_FRAMES = 150;
+    // Frames that can be in the live pipeline at once. Each owns an input tensor, so this also
+    // bounds memory; frames arriving while all are busy are dropped.
+    private static final int LIVE_PIPELINE_FRAMES = 3;
+    // Photos are decoded with a short side of this many model inputs, so that the zoomed crops of
+    // multi-crop classification still have full detail.
+    private static final int CAPTURE_DECODE_SCALE = 2;
 
     private ListenableFuture<ProcessCameraProvider> cameraProviderFuture;
     private PreviewView previewView;
     private Button captureButton;
+    private Button liveButton;
+    private TextView liveStatusText;
     private ImageCapture imageCapture;
-    private ImageClassifier imageClassifier;
+    private ImageAnalysis imageAnalysis;
+    // Shared with other screens; set on the UI thread once the model is ready and read by worker threads.
+    private volatile ImageClassifier imageClassifier;
+    private SharedInstance<ImageClassifier>.Lease classifierLease;
     private ExecutorService cameraExecutor;
+    // Decodes and classifies captured photos, one at a time, newest first.
+    private ExecutorService inferenceExecutor;
+    private InferenceScheduler<RecognitionResult> captureScheduler;
+    // Set from the tap until the camera delivers the photo.
+    private volatile boolean captureInFlight;
+
+    // The current run of live recognition, or null when live mode is off. Written on the UI
+    // thread and read by the analyzer.
+    private volatile LiveSession liveSession;
+
+    /**
+     * One run of live recognition. Every run has its own pipeline, frame pool and aggregator, so
+     * stage threads of a stopped run that are still finishing a frame cannot touch the state of
+     * the run started after it.
+     */
+    private static class LiveSession {
+        final ImageClassifier classifier;
+        final BlockingQueue<LiveFrame> freeFrames = new ArrayBlockingQueue<>(LIVE_PIPELINE_FRAMES);
+        final RecognitionAggregator aggregator = RecognitionAggregator.ema(
+                LIVE_SMOOTHING, LIVE_MIN_CONFIDENCE, LIVE_MIN_MARGIN, LIVE_MIN_FRAMES, LIVE_MAX_FRAMES);
+        // Used by the preprocess stage thread only.
+        final YuvTensorConverter converter;
+        final long startNanos = System.nanoTime();
+        // Cleared once the run is stopped or has decided; stages then drop their frames.
+        volatile boolean active = true;
+        StagedPipeline<LiveFrame> pipeline;
+
+        LiveSession(ImageClassifier classifier) {
+            this.classifier = classifier;
+            this.converter = classifier.createFrameConverter();
+            for (int i = 0; i < LIVE_PIPELINE_FRAMES; i++) {
+                freeFrames.add(new LiveFrame(classifier.createInputTensor(), classifier.getNumClasses()));
+            }
+        }
+    }
+
+    /**
+     * One live frame on its way through the pipeline. Instances are pooled in a LiveSession.
+     */
+    private static class LiveFrame {
+        final InputTensor tensor;
+        final float[] scores;
+        // The camera frame until the preprocess stage has converted it.
+        ImageProxy image;
+        long preprocessNanos;
+        long inferenceNanos;
+
+        LiveFrame(InputTensor tensor, int numClasses) {
+            this.tensor = tensor;
+            this.scores = new float[numClasses];
+        }
+    }
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -55,29 +150,47 @@ public class CameraActivity extends AppCompatActivity {
             // Initialize UI components
             previewView = findViewById(R.id.preview_view);
             captureButton = findViewById(R.id.btn_capture);
+            liveButton = findViewById(R.id.btn_live);
+            liveStatusText = findViewById(R.id.live_status);
             
-            if (previewView == null || captureButton == null) {
+            if (previewView == null || captureButton == null || liveButton == null || liveStatusText == null) {
                 Log.e(TAG, "Failed to find UI components");
                 Toast.makeText(this, "UI components not found", Toast.LENGTH_LONG).show();
                 finish();
                 return;
             }
 
-            // Initialize the custom ImageClassifier with error handling
-            try {
-                imageClassifier = new ImageClassifier(this);
-                Log.d(TAG, "ImageClassifier initialized successfully");
-            } catch (Exception e) {
-                Log.e(TAG, "Failed to initialize ImageClassifier", e);
-                Toast.makeText(this, "Failed to initialize AI model", Toast.LENGTH_LONG).show();
-                // Continue without classifier - user can still use camera
-            }
+            // Borrow the shared ImageClassifier. It is normally already loaded and warmed up
+            // by the application; otherwise the callback runs once loading finishes.
+            classifierLease = ClassifierProvider.acquire(this, classifier -> {
+                if (classifier != null) {
+                    imageClassifier = classifier;
+                    Log.d(TAG, "ImageClassifier ready");
+                } else {
+                    Log.e(TAG, "Failed to initialize ImageClassifier");
+                    Toast.makeText(this, "Failed to initialize AI model", Toast.LENGTH_LONG).show();
+                    // Continue without classifier - user can still use camera
+                }
+            });
 
             // Create a single-threaded executor for camera operations.
             cameraExecutor = Executors.newSingleThreadExecutor();
+            inferenceExecutor = Executors.newSingleThreadExecutor();
+            captureScheduler = new InferenceScheduler<>(inferenceExecutor, ContextCompat.getMainExecutor(this));
 
             // Set a click listener for the capture button.
-            captureButton.setOnClickListener(v -> captureImage());
+            captureButton.setOnClickListener(v -> captureImage(null));
+            liveButton.setOnClickListener(v -> toggleLiveMode());
+            // Tapping the preview takes a photo and gives extra weight to the tapped region.
+            previewView.setOnTouchListener((v, event) -> {
+                if (event.getAction() == MotionEvent.ACTION_UP) {
+                    v.performClick();
+                    if (liveSession == null) {
+                        captureImage(new MultiCrop.Tap(event.getX(), event.getY(), v.getWidth(), v.getHeight()));
+                    }
+                }
+                return true;
+            });
 
             // Check for camera permissions before starting the camera.
             if (isCameraPermissionGranted()) {
@@ -143,7 +256,8 @@ public class CameraActivity extends AppCompatActivity {
 
     /**
      * Binds the camera preview to the PreviewView.
-     * This sets up the camera preview, image capture use case, and camera selector.
+     * This sets up the camera preview, image capture and image analysis use cases, and camera selector.
+     * If the camera cannot run analysis alongside capture, live mode is disabled.
      * @param cameraProvider The ProcessCameraProvider to bind the use cases to.
      */
     private void bindPreview(@NonNull ProcessCameraProvider cameraProvider) {
@@ -153,7 +267,19 @@ public class CameraActivity extends AppCompatActivity {
             Preview preview = new Preview.Builder().build();
 
             // Set up the ImageCapture use case.
-            imageCapture = new ImageCapture.Builder().build();
+            // Favour latency: the photo is classified in memory and only saved if the user keeps it.
+            imageCapture = new ImageCapture.Builder()
+                    .setCaptureMode(ImageCapture.CAPTURE_MODE_MINIMIZE_LATENCY)
+                    .build();
+
+            // Set up the ImageAnalysis use case for live recognition. Only the newest frame is kept,
+            // so a slow inference drops frames instead of queueing them. Frames stay in YUV and are
+            // converted straight into the model input by the classifier.
+            imageAnalysis = new ImageAnalysis.Builder()
+                    .setBackpressureStrategy(ImageAnalysis.STRATEGY_KEEP_ONLY_LATEST)
+                    .setOutputImageFormat(ImageAnalysis.OUTPUT_IMAGE_FORMAT_YUV_420_888)
+                    .setTargetResolution(new Size(640, 480))
+                    .build();
 
             // Select the back camera as the default.
             CameraSelector cameraSelector = new CameraSelector.Builder()
@@ -167,7 +293,14 @@ public class CameraActivity extends AppCompatActivity {
             cameraProvider.unbindAll();
             
             // Bind the camera provider to the activity's lifecycle.
-            cameraProvider.bindToLifecycle(this, cameraSelector, preview, imageCapture);
+            try {
+                cameraProvider.bindToLifecycle(this, cameraSelector, preview, imageCapture, imageAnalysis);
+            } catch (IllegalArgumentException e) {
+                Log.w(TAG, "Camera does not support live analysis together with capture", e);
+                imageAnalysis = null;
+                cameraProvider.unbindAll();
+                cameraProvider.bindToLifecycle(this, cameraSelector, preview, imageCapture);
+            }
             
             Log.d(TAG, "Camera preview bound successfully");
             
@@ -180,53 +313,41 @@ public class CameraActivity extends AppCompatActivity {
     }
 
     /**
-     * Captures an image and saves it to a file.
-     * Once the image is saved, it triggers the image processing step.
+     * Captures an image in memory and classifies it.
+     * The JPEG is not written to disk here; the result screen saves it only if the user keeps the photo.
+     * Taps while a capture is still in flight are coalesced into that capture.
+     * @param tap The point of the preview the user tapped, or null for the capture button.
      */
-    private void captureImage() {
+    private void captureImage(MultiCrop.Tap tap) {
         if (imageCapture == null) {
             Log.w(TAG, "ImageCapture not initialized");
             Toast.makeText(this, "Camera not ready yet", Toast.LENGTH_SHORT).show();
             return;
         }
+        if (captureInFlight) {
+            Log.d(TAG, "Capture already in progress, ignoring tap");
+            return;
+        }
 
         try {
             Log.d(TAG, "Capturing image");
-            
-            // Create a directory to store captured images.
-            File outputDirectory = new File(getExternalFilesDir(null), "captured_images");
-            if (!outputDirectory.exists()) {
-                boolean created = outputDirectory.mkdirs();
-                if (!created) {
-                    Log.e(TAG, "Failed to create output directory");
-                    Toast.makeText(this, "Failed to create image directory", Toast.LENGTH_SHORT).show();
-                    return;
-                }
-            }
-
-            // Create a file to save the captured image.
-            File photoFile = new File(outputDirectory, "captured_image_" + System.currentTimeMillis() + ".jpg");
+            final long startNanos = System.nanoTime();
+            captureInFlight = true;
 
-            // Set up output options for the image capture.
-            ImageCapture.OutputFileOptions outputOptions = new ImageCapture.OutputFileOptions.Builder(photoFile).build();
-
-            // Take the picture and handle the result in a callback.
+            // Take the picture and handle the in-memory result on the camera executor.
             imageCapture.takePicture(
-                    outputOptions,
                     cameraExecutor,
-                    new ImageCapture.OnImageSavedCallback() {
+                    new ImageCapture.OnImageCapturedCallback() {
                         @Override
-                        public void onImageSaved(@NonNull ImageCapture.OutputFileResults output) {
-                            Log.d(TAG, "Image saved successfully: " + photoFile.getAbsolutePath());
-                            // On successful save, process the image.
-                            runOnUiThread(() -> {
-                                Toast.makeText(CameraActivity.this, "Photo captured successfully", Toast.LENGTH_SHORT).show();
-                                processImage(photoFile.getAbsolutePath());
-                            });
+                        public void onCaptureSuccess(@NonNull ImageProxy image) {
+                            Log.d(TAG, "Image captured in " + (System.nanoTime() - startNanos) / 1_000_000 + " ms");
+                            processImage(image, tap);
+                            captureInFlight = false;
                         }
 
                         @Override
                         public void onError(@NonNull ImageCaptureException exception) {
+                            captureInFlight = false;
                             Log.e(TAG, "Photo capture failed", exception);
                             // Handle image capture errors.
                             runOnUiThread(() -> {
@@ -236,64 +357,290 @@ public class CameraActivity extends AppCompatActivity {
                     }
             );
         } catch (Exception e) {
+            captureInFlight = false;
             Log.e(TAG, "Error during image capture", e);
             Toast.makeText(this, "Error capturing image: " + e.getMessage(), Toast.LENGTH_SHORT).show();
         }
     }
 
     /**
-     * Processes the captured image to classify its content.
-     * This method runs on a background thread to avoid blocking the UI.
-     * @param imagePath The file path of the captured image.
+     * Hands a captured image to the inference scheduler and shows the result.
+     * Runs on the camera executor. The JPEG bytes are copied out and the ImageProxy is closed
+     * right away, so the camera can take the next picture while this one is decoded.
+     * If a newer capture arrives before this one is classified, this one is dropped.
+     * @param image The captured image in JPEG format.
+     * @param tap The point of the preview the user tapped, or null.
      */
-    private void processImage(String imagePath) {
-        // Run image processing on a background thread.
-        new Thread(() -> {
-            try {
-                Log.d(TAG, "Processing image: " + imagePath);
-                
-                // Load a scaled and correctly oriented bitmap for classification.
-                Bitmap bitmap = BitmapUtils.getCorrectlyOrientedBitmap(imagePath, 1024, 1024);
-                
-                if (bitmap == null) {
-                    Log.e(TAG, "Failed to load bitmap from: " + imagePath);
-                    runOnUiThread(() -> Toast.makeText(CameraActivity.this, "Failed to load image for processing.", Toast.LENGTH_SHORT).show());
-                    return;
-                }
-                
-                Log.d(TAG, "Bitmap loaded successfully, size: " + bitmap.getWidth() + "x" + bitmap.getHeight());
-                
-                String recognitionResult;
-                if (imageClassifier != null) {
-                    // Classify the image using the custom ImageClassifier.
-                    recognitionResult = imageClassifier.classifyImage(bitmap);
-                    Log.d(TAG, "Classification result: " + recognitionResult);
-                } else {
-                    Log.w(TAG, "ImageClassifier not available, using default message");
-                    recognitionResult = "Image captured successfully. AI model not available.";
-                }
-                
-                // Start the result activity to display the classification result.
-                runOnUiThread(() -> {
-                    try {
-                        Intent intent = new Intent(CameraActivity.this, RecognitionResultActivity.class);
-                        intent.putExtra("image_path", imagePath);
-                        intent.putExtra("recognition_result", recognitionResult);
-                        startActivity(intent);
-                        Log.d(TAG, "Started RecognitionResultActivity");
-                    } catch (Exception e) {
-                        Log.e(TAG, "Error starting RecognitionResultActivity", e);
-                        Toast.makeText(CameraActivity.this, "Error displaying results: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+    private void processImage(ImageProxy image, MultiCrop.Tap tap) {
+        byte[] jpeg;
+        int rotationDegrees;
+        try {
+            ByteBuffer buffer = image.getPlanes()[0].getBuffer();
+            jpeg = new byte[buffer.remaining()];
+            buffer.get(jpeg);
+            rotationDegrees = image.getImageInfo().getRotationDegrees();
+        } finally {
+            image.close();
+        }
+
+        captureScheduler.submit(token -> classifyCapture(jpeg, rotationDegrees, tap, token),
+                new InferenceScheduler.Callback<RecognitionResult>() {
+                    @Override
+                    public void onResult(RecognitionResult recognitionResult) {
+                        // Hand the image to the result screen in process instead of through a file.
+                        long captureHandle = CapturedImageStore.put(new CapturedImage(jpeg, rotationDegrees));
+                        showResult(captureHandle, recognitionResult);
+                    }
+
+                    @Override
+                    public void onError(Exception e) {
+                        Log.e(TAG, "Error processing image", e);
+                        Toast.makeText(CameraActivity.this, "Error processing image: " + e.getMessage(), Toast.LENGTH_SHORT).show();
                     }
                 });
-                
-            } catch (Exception e) {
-                Log.e(TAG, "Error processing image", e);
-                runOnUiThread(() -> {
-                    Toast.makeText(CameraActivity.this, "Error processing image: " + e.getMessage(), Toast.LENGTH_SHORT).show();
-                });
+    }
+
+    /**
+     * Decodes a captured JPEG and classifies it as several crops in one batch.
+     * Runs on the inference executor.
+     * @param jpeg The encoded image.
+     * @param rotationDegrees The clockwise rotation that makes the image upright.
+     * @param tap The point of the preview the user tapped, or null.
+     * @param token Stops the work between decoding and inference once the capture is superseded.
+     * @return The classification result.
+     * @throws IOException If the image cannot be decoded.
+     */
+    private RecognitionResult classifyCapture(byte[] jpeg, int rotationDegrees, MultiCrop.Tap tap,
+                                              InferenceScheduler.CancellationToken token) throws IOException {
+        ImageClassifier classifier = imageClassifier;
+        if (classifier == null) {
+            Log.w(TAG, "ImageClassifier not available");
+            return RecognitionResult.notClassified(RecognitionResult.Status.MODEL_UNAVAILABLE, null);
+        }
+
+        // Decode only as large as the crops need; the result screen decodes its own
+        // display-sized copy later, off the path to a result.
+        long decodeStartNanos = System.nanoTime();
+        Bitmap bitmap = BitmapUtils.decodeToShortSide(jpeg, rotationDegrees,
+                CAPTURE_DECODE_SCALE * classifier.getInputSize());
+        if (bitmap == null) {
+            throw new IOException("Failed to load image for processing.");
+        }
+        Log.d(TAG, "Decoded " + bitmap.getWidth() + "x" + bitmap.getHeight() + " in "
+                + (System.nanoTime() - decodeStartNanos) / 1_000_000 + " ms");
+
+        try {
+            token.throwIfCancelled();
+            List<MultiCrop.Crop> crops = MultiCrop.plan(bitmap.getWidth(), bitmap.getHeight(), tap);
+            return classifier.classifyCrops(bitmap, crops);
+        } finally {
+            BitmapPool.release(bitmap);
+            Log.d(TAG, "Bitmap pool: " + BitmapPool.getStats() + "; scheduler: " + captureScheduler);
+        }
+    }
+
+    /**
+     * Starts the result activity for a classification.
+     * Must be called on the UI thread.
+     * @param captureHandle The CapturedImageStore handle of the classified image, or NO_CAPTURE for live frames.
+     * @param recognitionResult The classification result.
+     */
+    private void showResult(long captureHandle, RecognitionResult recognitionResult) {
+        try {
+            Intent intent = new Intent(CameraActivity.this, RecognitionResultActivity.class);
+            intent.putExtra(RecognitionResultActivity.EXTRA_CAPTURE_HANDLE, captureHandle);
+            intent.putExtra("recognition_result", recognitionResult);
+            startActivity(intent);
+            Log.d(TAG, "Started RecognitionResultActivity");
+        } catch (Exception e) {
+            Log.e(TAG, "Error starting RecognitionResultActivity", e);
+            Toast.makeText(CameraActivity.this, "Error displaying results: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+        }
+    }
+
+    /**
+     * Switches live recognition on or off.
+     */
+    private void toggleLiveMode() {
+        if (liveSession != null) {
+            stopLiveMode();
+            return;
+        }
+
+        if (imageAnalysis == null) {
+            Toast.makeText(this, "Live scan is not supported on this camera", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        if (imageClassifier == null || imageClassifier.getNumClasses() <= 0) {
+            Toast.makeText(this, "AI model not available", Toast.LENGTH_SHORT).show();
+            return;
+        }
+
+        Log.d(TAG, "Starting live recognition");
+        LiveSession session = new LiveSession(imageClassifier);
+        // Queues of one frame per stage: a busy stage makes the one before it wait, and once all
+        // pooled frames are in use the analyzer drops new camera frames.
+        session.pipeline = new StagedPipeline.Builder<LiveFrame>()
+                .addStage("preprocess", 1, frame -> preprocessLiveFrame(session, frame))
+                .addStage("infer", 1, frame -> inferLiveFrame(session, frame))
+                .addStage("aggregate", 1, frame -> aggregateLiveFrame(session, frame))
+                .start((frame, error) -> recycleLiveFrame(session, frame, error));
+        liveSession = session;
+        // The analyzer only hands frames to the pipeline, so CameraX is never blocked on inference.
+        imageAnalysis.setAnalyzer(cameraExecutor, this::analyzeFrame);
+
+        liveButton.setText("Stop Live");
+        liveStatusText.setText("Scanning...");
+        liveStatusText.setVisibility(View.VISIBLE);
+    }
+
+    /**
+     * Stops delivering frames to the classifier and resets the live mode UI.
+     * Must be called on the UI thread.
+     */
+    private void stopLiveMode() {
+        endLiveSession();
+        liveButton.setText("Live Scan");
+        liveStatusText.setVisibility(View.GONE);
+        Log.d(TAG, "Live recognition stopped");
+    }
+
+    /**
+     * Stops the analyzer and the live pipeline and logs how each stage performed. Frames still
+     * in the pipeline are handed back to their pool and their camera images closed.
+     * Must be called on the UI thread.
+     */
+    private void endLiveSession() {
+        LiveSession session = liveSession;
+        liveSession = null;
+        if (imageAnalysis != null) {
+            imageAnalysis.clearAnalyzer();
+        }
+        if (session != null) {
+            session.active = false;
+            session.pipeline.close();
+            Log.d(TAG, "Live pipeline: " + session.pipeline);
+        }
+    }
+
+    /**
+     * Hands one live camera frame to the pipeline. Runs on the camera executor.
+     * If the pipeline is full the frame is dropped; CameraX keeps only the latest frame anyway.
+     * @param image The camera frame. It is closed here if dropped, otherwise by the pipeline.
+     */
+    private void analyzeFrame(@NonNull ImageProxy image) {
+        LiveSession session = liveSession;
+        LiveFrame frame = session != null && session.active ? session.freeFrames.poll() : null;
+        if (frame == null) {
+            image.close();
+            return;
+        }
+        frame.image = image;
+        if (!session.pipeline.offer(frame)) {
+            frame.image = null;
+            image.close();
+            session.freeFrames.offer(frame);
+        }
+    }
+
+    /**
+     * Preprocess stage: converts the camera frame into the frame's tensor and closes the image,
+     * which lets CameraX deliver the next frame while this one is inferred.
+     * @return false to drop the frame once live mode is off or decided.
+     */
+    private boolean preprocessLiveFrame(LiveSession session, LiveFrame frame) {
+        try {
+            if (!session.active) {
+                return false;
             }
-        }).start();
+            long startNanos = System.nanoTime();
+            session.classifier.preprocessFrame(frame.image, session.converter, frame.tensor);
+            frame.preprocessNanos = System.nanoTime() - startNanos;
+            return true;
+        } finally {
+            frame.image.close();
+            frame.image = null;
+        }
+    }
+
+    /**
+     * Infer stage: runs the model on the frame's tensor.
+     * @return false to drop the frame once live mode is off or inference did not run.
+     */
+    private boolean inferLiveFrame(LiveSession session, LiveFrame frame) {
+        if (!session.active) {
+            return false;
+        }
+        long startNanos = System.nanoTime();
+        boolean inferred = session.classifier.infer(frame.tensor, frame.scores);
+        frame.inferenceNanos = System.nanoTime() - startNanos;
+        return inferred;
+    }
+
+    /**
+     * Aggregate stage: feeds the frame's scores to the aggregator and shows the result once the
+     * prediction is stable. No further frames are inferred once the aggregator is final.
+     * @return Always true; the frame leaves the pipeline after this stage.
+     */
+    private boolean aggregateLiveFrame(LiveSession session, LiveFrame frame) {
+        RecognitionAggregator aggregator = session.aggregator;
+        if (!session.active || aggregator.isFinal()) {
+            return true;
+        }
+
+        int decision = aggregator.update(frame.scores);
+        if (!aggregator.isFinal()) {
+            return true;
+        }
+
+        // Ignore frames that were already in flight once a decision is made.
+        session.active = false;
+        long elapsedMs = (System.nanoTime() - session.startNanos) / 1_000_000;
+        int frames = aggregator.getFrameCount();
+        if (decision == RecognitionAggregator.GAVE_UP) {
+            Log.d(TAG, "Live recognition gave up after " + frames + " frames (" + elapsedMs + " ms)");
+            runOnUiThread(() -> {
+                // Live mode may have been stopped, or restarted, in the meantime.
+                if (liveSession != session) {
+                    return;
+                }
+                stopLiveMode();
+                Toast.makeText(this, "No landmark recognized. Try moving closer.", Toast.LENGTH_SHORT).show();
+            });
+            return true;
+        }
+
+        Log.d(TAG, "Live recognition settled on class " + decision + " after " + frames
+                + " frames (" + elapsedMs + " ms)");
+        // Report the smoothed scores the decision was based on rather than the last frame's.
+        aggregator.getSmoothedScores(frame.scores);
+        RecognitionResult recognitionResult = session.classifier.createResult(frame.scores,
+                frame.preprocessNanos, frame.inferenceNanos);
+        runOnUiThread(() -> {
+            if (liveSession != session) {
+                return;
+            }
+            stopLiveMode();
+            showResult(RecognitionResultActivity.NO_CAPTURE, recognitionResult);
+        });
+        return true;
+    }
+
+    /**
+     * Receives every frame that leaves the live pipeline and returns it to the pool.
+     * @param session The run the frame belongs to.
+     * @param frame The frame.
+     * @param error The exception a stage threw, or null.
+     */
+    private void recycleLiveFrame(LiveSession session, LiveFrame frame, Exception error) {
+        if (error != null) {
+            Log.e(TAG, "Error analyzing camera frame", error);
+        }
+        if (frame.image != null) {
+            frame.image.close();
+            frame.image = null;
+        }
+        session.freeFrames.offer(frame);
     }
 
     @Override
@@ -317,16 +664,25 @@ public class CameraActivity extends AppCompatActivity {
         super.onDestroy();
         Log.d(TAG, "onDestroy called");
         
+        endLiveSession();
+
         if (cameraExecutor != null) {
             cameraExecutor.shutdown();
         }
+
+        // Results of photos still being classified are no longer wanted.
+        if (captureScheduler != null) {
+            captureScheduler.close();
+        }
+        if (inferenceExecutor != null) {
+            inferenceExecutor.shutdown();
+        }
         
-        if (imageClassifier != null) {
-            try {
-                imageClassifier.close();
-            } catch (Exception e) {
-                Log.e(TAG, "Error closing ImageClassifier", e);
-            }
+        // The classifier itself stays loaded for the next visit; only our claim on it is released.
+        imageClassifier = null;
+        if (classifierLease != null) {
+            classifierLease.close();
+            classifierLease = null;
         }
     }
 } 
\ No newline at end of file
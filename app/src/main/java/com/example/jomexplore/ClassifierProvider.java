@@ -0,0 +1,93 @@
+package com.example.jomexplore;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.util.Log;
+
+import androidx.core.content.ContextCompat;
+
+import com.example.jomexplore.classifier.SharedInstance;
+
+import java.util.concurrent.Executors;
+
+/**
+ * ClassifierProvider owns the process-wide ImageClassifier.
+ * The model is loaded and warmed up once in the background when the app starts, and activities
+ * borrow the ready instance instead of creating their own. It is kept while the app runs and
+ * only released under memory pressure when no screen is using it.
+ */
+public final class ClassifierProvider {
+    private static final String TAG = "ClassifierProvider";
+
+    private static SharedInstance<ImageClassifier> shared;
+
+    private ClassifierProvider() {
+    }
+
+    private static synchronized SharedInstance<ImageClassifier> get(Context context) {
+        if (shared == null) {
+            Context appContext = context.getApplicationContext();
+            shared = new SharedInstance<>(
+                    () -> createClassifier(appContext),
+                    Executors.newSingleThreadExecutor(runnable -> {
+                        Thread thread = new Thread(runnable, "classifier-loader");
+                        thread.setPriority(Thread.NORM_PRIORITY - 1);
+                        return thread;
+                    }),
+                    ContextCompat.getMainExecutor(appContext));
+        }
+        return shared;
+    }
+
+    /**
+     * Loads the model and interpreter and runs one warm-up inference. Runs on the loader thread.
+     */
+    private static ImageClassifier createClassifier(Context context) {
+        long startNanos = System.nanoTime();
+        try {
+            ImageClassifier classifier = new ImageClassifier(context);
+            classifier.warmUp();
+            Log.d(TAG, "Classifier ready in " + (System.nanoTime() - startNanos) / 1_000_000 + " ms");
+            return classifier;
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to create ImageClassifier", e);
+            return null;
+        }
+    }
+
+    /**
+     * Starts loading the classifier in the background. Called from Application.onCreate.
+     * @param context Any context; the application context is retained.
+     */
+    public static void preload(Context context) {
+        get(context).preload();
+    }
+
+    /**
+     * Borrows the shared classifier.
+     * @param context Any context; the application context is retained.
+     * @param callback Called on the main thread with the classifier, or null if it failed to load.
+     * @return The lease to close in onDestroy.
+     */
+    public static SharedInstance<ImageClassifier>.Lease acquire(Context context, SharedInstance.Callback<ImageClassifier> callback) {
+        return get(context).acquire(callback);
+    }
+
+    /**
+     * Releases the classifier if it is unused and the system is low on memory.
+     * @param level The level passed to ComponentCallbacks2.onTrimMemory.
+     */
+    public static void onTrimMemory(int level) {
+        SharedInstance<ImageClassifier> instance;
+        synchronized (ClassifierProvider.class) {
+            instance = shared;
+        }
+        // TRIM_MEMORY_UI_HIDDEN only means the app went to the background; keep the model for the return.
+        boolean underPressure = level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND
+                || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW
+                || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL;
+        if (instance != null && underPressure && instance.trim()) {
+            Log.d(TAG, "Released classifier on memory trim level " + level);
+        }
+    }
+}
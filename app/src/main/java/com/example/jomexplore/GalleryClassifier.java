@@ -0,0 +1,133 @@
+package com.example.jomexplore;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.net.Uri;
+import android.util.Log;
+
+import androidx.core.content.ContextCompat;
+
+import com.example.jomexplore.classifier.BatchJob;
+import com.example.jomexplore.classifier.RecognitionResult;
+import com.example.jomexplore.utils.BitmapPool;
+import com.example.jomexplore.utils.BitmapUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * GalleryClassifier tags existing photos, e.g. the ones a user took on a trip, with the shared
+ * ImageClassifier. Photos are decoded on a small pool of threads and classified in batches
+ * (see BatchJob), and results are streamed to the listener on the main thread as they complete.
+ */
+public final class GalleryClassifier {
+    private static final String TAG = "GalleryClassifier";
+
+    // Throughput settings, see GalleryClassifierBenchmark.
+    public static final int DEFAULT_BATCH_SIZE = 8;
+    public static final int DEFAULT_DECODE_THREADS = 2;
+
+    private GalleryClassifier() {
+    }
+
+    /**
+     * Starts classifying photos with the default batch size and decoder threads.
+     * @see #classify(Context, ImageClassifier, List, int, int, BatchJob.Listener)
+     */
+    public static BatchJob<Uri, Bitmap, RecognitionResult> classify(
+            Context context, ImageClassifier classifier, List<Uri> photos,
+            BatchJob.Listener<Uri, RecognitionResult> listener) {
+        return classify(context, classifier, photos, DEFAULT_BATCH_SIZE, DEFAULT_DECODE_THREADS, listener);
+    }
+
+    /**
+     * Starts classifying photos. The threads of the job are stopped once it finishes.
+     * @param context Any context; used for the content resolver and the main thread.
+     * @param classifier The classifier, typically borrowed from ClassifierProvider for the whole job.
+     * @param photos Content or file Uris of the photos.
+     * @param batchSize The most photos classified in one interpreter call.
+     * @param decodeThreads The number of photos decoded in parallel.
+     * @param listener Receives results and progress on the main thread. Call cancel() on the
+     * returned job to stop early.
+     * @return The running job.
+     */
+    public static BatchJob<Uri, Bitmap, RecognitionResult> classify(
+            Context context, ImageClassifier classifier, List<Uri> photos, int batchSize, int decodeThreads,
+            BatchJob.Listener<Uri, RecognitionResult> listener) {
+        ContentResolver resolver = context.getApplicationContext().getContentResolver();
+        int inputSize = classifier.getInputSize();
+        ExecutorService decodeExecutor = Executors.newFixedThreadPool(decodeThreads, runnable -> {
+            Thread thread = new Thread(runnable, "gallery-decoder");
+            thread.setPriority(Thread.NORM_PRIORITY - 1);
+            return thread;
+        });
+        ExecutorService inferenceExecutor = Executors.newSingleThreadExecutor(
+                runnable -> new Thread(runnable, "gallery-inference"));
+
+        BatchJob.Listener<Uri, RecognitionResult> shutdownListener = new BatchJob.Listener<Uri, RecognitionResult>() {
+            @Override
+            public void onResult(int index, Uri source, RecognitionResult result) {
+                listener.onResult(index, source, result);
+            }
+
+            @Override
+            public void onError(int index, Uri source, Exception e) {
+                Log.w(TAG, "Could not classify " + source, e);
+                listener.onError(index, source, e);
+            }
+
+            @Override
+            public void onProgress(int completed, int total) {
+                listener.onProgress(completed, total);
+            }
+
+            @Override
+            public void onFinished(boolean cancelled) {
+                decodeExecutor.shutdown();
+                inferenceExecutor.shutdown();
+                listener.onFinished(cancelled);
+            }
+        };
+
+        BatchJob<Uri, Bitmap, RecognitionResult> job = new BatchJob.Builder<Uri, Bitmap, RecognitionResult>(
+                uri -> decode(resolver, uri, inputSize), classifier::classifyBatch)
+                .setBatchSize(batchSize)
+                .setDecodeThreads(decodeThreads)
+                .setRecycler(BitmapPool::release)
+                .start(photos, decodeExecutor, inferenceExecutor, ContextCompat.getMainExecutor(context), shutdownListener);
+        Log.d(TAG, "Classifying " + photos.size() + " photos in batches of " + batchSize
+                + " with " + decodeThreads + " decoder threads");
+        return job;
+    }
+
+    /**
+     * Decodes a photo just large enough for the model input, upright according to its EXIF data.
+     * @param resolver The content resolver.
+     * @param uri The photo.
+     * @param inputSize The width and height of the model input.
+     * @return The photo with a short side of at least inputSize, or null if it cannot be decoded.
+     * @throws IOException If the photo cannot be read.
+     */
+    static Bitmap decode(ContentResolver resolver, Uri uri, int inputSize) throws IOException {
+        byte[] data;
+        try (InputStream in = resolver.openInputStream(uri)) {
+            if (in == null) {
+                throw new IOException("Cannot open " + uri);
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(8192, in.available()));
+            byte[] chunk = new byte[64 * 1024];
+            int read;
+            while ((read = in.read(chunk)) != -1) {
+                out.write(chunk, 0, read);
+            }
+            data = out.toByteArray();
+        }
+        return BitmapUtils.getCorrectlyOrientedBitmap(ByteBuffer.wrap(data), inputSize, inputSize);
+    }
+}
@@ -3,45 +3,135 @@ package com.example.jomexplore;
 import android.content.Context;
 import android.content.res.AssetFileDescriptor;
 import android.graphics.Bitmap;
+
+import androidx.camera.core.ImageProxy;
+
+import com.example.jomexplore.catalog.Landmark;
+import com.example.jomexplore.catalog.LandmarkCatalog;
+import com.example.jomexplore.classifier.BackendConfig;
+import com.example.jomexplore.classifier.BackendSelector;
+import com.example.jomexplore.classifier.ImagePreprocessor;
+import com.example.jomexplore.classifier.InferenceBackend;
+import com.example.jomexplore.classifier.InputTensor;
+import com.example.jomexplore.classifier.Labels;
+import com.example.jomexplore.classifier.MultiCrop;
+import com.example.jomexplore.classifier.OutputTensor;
+import com.example.jomexplore.classifier.RecognitionResult;
+import com.example.jomexplore.classifier.ScorePostprocessor;
+import com.example.jomexplore.classifier.TensorType;
+import com.example.jomexplore.classifier.YuvTensorConverter;
+
+import org.tensorflow.lite.DataType;
 import org.tensorflow.lite.Interpreter;
+import org.tensorflow.lite.Tensor;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * ImageClassifier handles the loading of a TensorFlow Lite model and performs image classification.
  * It is responsible for preprocessing the input image, running inference with the model,
- * and processing the classification results to provide a user-friendly description.
+ * and processing the classification results into a structured RecognitionResult.
+ * The input and output tensor types are read from the model, so both float32 and
+ * quantized (uint8/int8) variants of the model are supported.
+ * Photos can also be classified as several crops in one batched interpreter call, see classifyCrops,
+ * and several photos can be classified together, see classifyBatch.
  */
-public class ImageClassifier {
+public class ImageClassifier implements AutoCloseable {
     // Constants for the TFLite model and image processing.
     private static final String MODEL_FILENAME = "heritage_model.tflite";
-    private static final int INPUT_SIZE = 224; // The input size of the model.
+    // Class names in model output order, one per line.
+    private static final String LABELS_FILENAME = "labels.txt";
+    // Activation, top-K and per-class confidence thresholds, see ScorePostprocessor.fromProperties.
+    private static final String POSTPROCESSING_FILENAME = "postprocessing.properties";
+    private static final int INPUT_SIZE = 224; // The expected input size of the model.
     private static final int PIXEL_SIZE = 3;   // The number of color channels (R, G, B).
     private static final int IMAGE_MEAN = 128;
     private static final float IMAGE_STD = 128.0f;
 
+    // Runs single images at batch size 1 and is never resized.
     private Interpreter interpreter;
+    private InferenceBackend backend;
+    // A second interpreter for batches, created on first use, so that alternating between live
+    // frames and photo crops does not reallocate tensors on every switch.
+    private Interpreter batchInterpreter;
+    private InferenceBackend batchBackend;
+    // Kept to create the batch interpreter.
+    private MappedByteBuffer model;
+    private BackendConfig backendConfig;
+    // The GPU delegate is bound to the thread that created it, so the interpreter is created, run
+    // and closed on this single thread; callers on other threads hand their interpreter calls to it.
+    private final ExecutorService interpreterExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "tflite-interpreter");
+        interpreterThread = thread;
+        return thread;
+    });
+    private volatile Thread interpreterThread;
     private Context context;
+    // Reused across calls so that classification does not allocate per image.
+    private InputTensor inputTensor;
+    // Element type and int8 quantization of the model input, for createInputTensor().
+    private TensorType inputType;
+    private float inputScale;
+    private int inputZeroPoint;
+    private ImagePreprocessor preprocessor;
+    private OutputTensor outputTensor;
+    private float outputScale;
+    private int outputZeroPoint;
+    private float[] scores;
+    // Batched tensors and per-image scores for classifyCrops and classifyBatch, sized for the last batch.
+    private InputTensor batchInput;
+    private OutputTensor batchOutput;
+    private float[][] cropScores;
+    // The batch size the batch interpreter input is allocated for, or 0 while a resize is in progress.
+    private int interpreterBatchSize = 1;
+    // Set once resizing the batch failed, e.g. on a delegate that only supports fixed shapes.
+    private boolean batchingUnsupported;
+    private final LandmarkCatalog catalog;
+    // Catalog entry of each output class, or null for classes the catalog does not know.
+    private Landmark[] classLandmarks = new Landmark[0];
+    private Labels labels = new Labels(Collections.<String>emptyList());
+    private ScorePostprocessor postprocessor;
+    private int[] topIndices;
 
     private static final String TAG = "ImageClassifier";
 
     /**
      * Constructor for the ImageClassifier.
      * Initializes the TFLite interpreter by loading the model from the assets folder.
+     * The execution backend (GPU, NNAPI or CPU, thread count and XNNPACK) is chosen by a short
+     * benchmark the first time the model is loaded on a device and cached afterwards, so the
+     * first construction can take noticeably longer and should not run on the main thread.
      * @param context The application context.
      */
     public ImageClassifier(Context context) {
         this.context = context;
+        this.catalog = LandmarkCatalog.getInstance(context);
         try {
             android.util.Log.d(TAG, "Initializing ImageClassifier");
             MappedByteBuffer model = loadModelFile();
             if (model != null) {
-                interpreter = new Interpreter(model);
-                android.util.Log.d(TAG, "TensorFlow Lite interpreter created successfully");
+                BackendConfig config = BackendSelector.select(context, model, MODEL_FILENAME + ":" + model.capacity());
+                this.model = model;
+                this.backendConfig = config;
+                runOnInterpreterThread(() -> {
+                    backend = InferenceBackend.create(model, config);
+                    interpreter = backend.getInterpreter();
+                    createTensors();
+                });
+                android.util.Log.d(TAG, "TensorFlow Lite interpreter created successfully (model: " + model.capacity() + " bytes)");
             } else {
                 android.util.Log.w(TAG, "Model file could not be loaded");
             }
@@ -52,6 +142,98 @@ public class ImageClassifier {
         }
     }
 
+    /**
+     * Inspects the model's input and output tensors and allocates matching buffers.
+     * Float inputs are normalized with IMAGE_MEAN/IMAGE_STD, uint8 inputs receive raw pixels and
+     * int8 inputs are quantized with the tensor's scale and zero point.
+     */
+    private void createTensors() {
+        Tensor input = interpreter.getInputTensor(0);
+        int[] inputShape = input.shape();
+        if (inputShape.length != 4 || inputShape[1] != inputShape[2] || inputShape[3] != PIXEL_SIZE) {
+            throw new IllegalStateException("Unsupported model input shape: " + Arrays.toString(inputShape));
+        }
+        if (inputShape[1] != INPUT_SIZE) {
+            android.util.Log.w(TAG, "Model input size is " + inputShape[1] + ", expected " + INPUT_SIZE);
+        }
+        int inputSize = inputShape[1];
+        inputType = toTensorType(input.dataType());
+        Tensor.QuantizationParams inputQuantization = input.quantizationParams();
+        inputScale = inputQuantization.getScale();
+        inputZeroPoint = inputQuantization.getZeroPoint();
+        inputTensor = new InputTensor(inputSize, inputSize, inputType, IMAGE_MEAN, IMAGE_STD,
+                inputScale, inputZeroPoint);
+        preprocessor = new ImagePreprocessor(inputTensor);
+
+        Tensor output = interpreter.getOutputTensor(0);
+        TensorType outputType = toTensorType(output.dataType());
+        Tensor.QuantizationParams outputQuantization = output.quantizationParams();
+        outputScale = outputQuantization.getScale();
+        outputZeroPoint = outputQuantization.getZeroPoint();
+        outputTensor = new OutputTensor(outputType, getOutputSize(), outputScale, outputZeroPoint);
+        scores = new float[outputTensor.getNumClasses()];
+        loadPostprocessing(outputTensor.getNumClasses());
+
+        android.util.Log.d(TAG, "Running on " + backend.getAccelerator() + " backend");
+        android.util.Log.d(TAG, "Input tensor: " + inputType + " " + Arrays.toString(inputShape)
+                + " (" + input.numBytes() + " bytes, scale " + inputQuantization.getScale()
+                + ", zero point " + inputQuantization.getZeroPoint() + ")");
+        android.util.Log.d(TAG, "Output tensor: " + outputType + " " + Arrays.toString(output.shape())
+                + " (scale " + outputQuantization.getScale() + ", zero point " + outputQuantization.getZeroPoint() + ")");
+    }
+
+    /**
+     * Loads the labels and the postprocessing configuration that ship next to the model.
+     * Missing files fall back to placeholder labels and the default settings.
+     * @param numClasses The number of model output classes.
+     */
+    private void loadPostprocessing(int numClasses) {
+        try (InputStream in = context.getAssets().open("models/" + LABELS_FILENAME)) {
+            labels = Labels.load(in);
+        } catch (IOException e) {
+            android.util.Log.w(TAG, "No " + LABELS_FILENAME + " found, classes will be unnamed", e);
+        }
+        if (labels.size() != numClasses) {
+            android.util.Log.w(TAG, "Model has " + numClasses + " classes but " + LABELS_FILENAME
+                    + " lists " + labels.size() + " labels");
+        }
+
+        Properties config = null;
+        try (InputStream in = context.getAssets().open("models/" + POSTPROCESSING_FILENAME)) {
+            config = ScorePostprocessor.loadProperties(in);
+        } catch (IOException e) {
+            android.util.Log.w(TAG, "No " + POSTPROCESSING_FILENAME + " found, using default postprocessing");
+        }
+        postprocessor = ScorePostprocessor.fromProperties(config, labels, numClasses);
+        topIndices = new int[postprocessor.getTopK()];
+
+        classLandmarks = new Landmark[numClasses];
+        for (int i = 0; i < numClasses; i++) {
+            classLandmarks[i] = catalog.get(labels.getId(i));
+            if (classLandmarks[i] == null) {
+                android.util.Log.w(TAG, "No catalog entry for class " + i + " (" + labels.get(i) + ")");
+            }
+        }
+    }
+
+    /**
+     * Maps a TFLite data type to the types the classifier can feed and read.
+     * @param dataType The tensor's data type.
+     * @return The matching TensorType.
+     */
+    private static TensorType toTensorType(DataType dataType) {
+        switch (dataType) {
+            case FLOAT32:
+                return TensorType.FLOAT32;
+            case UINT8:
+                return TensorType.UINT8;
+            case INT8:
+                return TensorType.INT8;
+            default:
+                throw new IllegalStateException("Unsupported tensor type: " + dataType);
+        }
+    }
+
     /**
      * Loads the TensorFlow Lite model from the assets directory.
      * @return A MappedByteBuffer containing the TFLite model.
@@ -72,39 +254,345 @@ public class ImageClassifier {
 
     /**
      * Classifies the given bitmap by running it through the TFLite model.
+     * Calls are serialized because the input and output buffers are shared.
      * @param bitmap The input image to classify.
-     * @return A string containing the classification result and description.
+     * @return The classification result. Use describe() to turn it into display text.
      */
-    public String classifyImage(Bitmap bitmap) {
+    public synchronized RecognitionResult classifyImage(Bitmap bitmap) {
         if (interpreter == null) {
             android.util.Log.w(TAG, "TensorFlow Lite interpreter not available");
-            return "Model not loaded. Please add the 'heritage_model.tflite' file to the 'assets/models/' directory.";
+            return RecognitionResult.notClassified(RecognitionResult.Status.MODEL_UNAVAILABLE, null);
         }
 
         try {
             android.util.Log.d(TAG, "Starting image classification");
             // Preprocess the image and run inference.
+            long startNanos = System.nanoTime();
             ByteBuffer byteBuffer = preprocessImage(bitmap);
             if (byteBuffer == null) {
                 android.util.Log.e(TAG, "Failed to preprocess image");
-                return "Failed to process image for classification.";
+                return RecognitionResult.notClassified(RecognitionResult.Status.FAILED,
+                        "Failed to process image for classification.");
             }
-            
-            float[][] result = new float[1][getOutputSize()];
-            interpreter.run(byteBuffer, result);
-            android.util.Log.d(TAG, "Classification completed");
-            
-            // Post-process the results to get a meaningful description.
-            return processResults(result[0]);
+            long preprocessedNanos = System.nanoTime();
+            runInference(byteBuffer);
+            long inferredNanos = System.nanoTime();
+
+            return createResult(scores, preprocessedNanos - startNanos, inferredNanos - preprocessedNanos);
         } catch (Exception e) {
             android.util.Log.e(TAG, "Error during image classification", e);
-            return "Error occurred during image classification: " + e.getMessage();
+            return RecognitionResult.notClassified(RecognitionResult.Status.FAILED, e.getMessage());
+        }
+    }
+
+    /**
+     * Classifies a photo as several undistorted crops in one batched interpreter call and fuses
+     * their scores, see MultiCrop. This finds landmarks that are small or off-centre, at the cost
+     * of one larger inference instead of a single 224x224 one. The batch is always padded to
+     * MultiCrop.MAX_CROPS, so photos with fewer crops do not resize the interpreter.
+     * @param bitmap The upright photo. It should be decoded large enough for the zoomed crops to
+     * keep their detail, i.e. with a short side of about twice the input size.
+     * @param crops The crops to classify, from MultiCrop.plan().
+     * @return The classification result for the fused scores.
+     */
+    public synchronized RecognitionResult classifyCrops(Bitmap bitmap, List<MultiCrop.Crop> crops) {
+        if (interpreter == null) {
+            android.util.Log.w(TAG, "TensorFlow Lite interpreter not available");
+            return RecognitionResult.notClassified(RecognitionResult.Status.MODEL_UNAVAILABLE, null);
+        }
+
+        try {
+            long startNanos = System.nanoTime();
+            int count = crops.size();
+            ensureBatchTensors(MultiCrop.MAX_CROPS);
+            for (int i = 0; i < count; i++) {
+                preprocessor.preprocessCrop(bitmap, crops.get(i), batchInput, i);
+            }
+            long preprocessedNanos = System.nanoTime();
+            // The padding images keep whatever they held before; their scores are not read.
+            runBatch(count, MultiCrop.MAX_CROPS);
+            long inferredNanos = System.nanoTime();
+
+            MultiCrop.fuse(cropScores, crops, scores);
+            android.util.Log.d(TAG, "Classified " + count + " crops " + (batchingUnsupported ? "one at a time" : "in one batch")
+                    + " in " + (inferredNanos - preprocessedNanos) / 1000 + " us");
+            return createResult(scores, preprocessedNanos - startNanos, inferredNanos - preprocessedNanos);
+        } catch (Exception e) {
+            android.util.Log.e(TAG, "Error during multi-crop classification", e);
+            return RecognitionResult.notClassified(RecognitionResult.Status.FAILED, e.getMessage());
+        }
+    }
+
+    /**
+     * Classifies several images in one batched interpreter call, e.g. photos imported from the
+     * gallery. Each image is centre-cropped, like classifyImage's input from the camera.
+     * The reported stage timings are the batch's timings divided by the number of images.
+     * @param bitmaps The upright images.
+     * @return One result per image, in the same order.
+     */
+    public synchronized List<RecognitionResult> classifyBatch(List<Bitmap> bitmaps) {
+        List<RecognitionResult> results = new ArrayList<>(bitmaps.size());
+        if (interpreter == null) {
+            android.util.Log.w(TAG, "TensorFlow Lite interpreter not available");
+            for (int i = 0; i < bitmaps.size(); i++) {
+                results.add(RecognitionResult.notClassified(RecognitionResult.Status.MODEL_UNAVAILABLE, null));
+            }
+            return results;
+        }
+        if (bitmaps.isEmpty()) {
+            return results;
+        }
+
+        try {
+            long startNanos = System.nanoTime();
+            int count = bitmaps.size();
+            ensureBatchTensors(count);
+            for (int i = 0; i < count; i++) {
+                Bitmap bitmap = bitmaps.get(i);
+                preprocessor.preprocessCrop(bitmap, MultiCrop.centre(bitmap.getWidth(), bitmap.getHeight()), batchInput, i);
+            }
+            long preprocessedNanos = System.nanoTime();
+            runBatch(count, count);
+            long inferredNanos = System.nanoTime();
+
+            android.util.Log.d(TAG, "Classified a batch of " + count + " images in "
+                    + (inferredNanos - preprocessedNanos) / 1000 + " us");
+            for (int i = 0; i < count; i++) {
+                results.add(createResult(cropScores[i], (preprocessedNanos - startNanos) / count,
+                        (inferredNanos - preprocessedNanos) / count));
+            }
+        } catch (Exception e) {
+            android.util.Log.e(TAG, "Error during batch classification", e);
+            results.clear();
+            for (int i = 0; i < bitmaps.size(); i++) {
+                results.add(RecognitionResult.notClassified(RecognitionResult.Status.FAILED, e.getMessage()));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Allocates the batched input and output tensors if the batch size changed.
+     * @param batchSize The number of crops.
+     */
+    private void ensureBatchTensors(int batchSize) {
+        if (batchInput != null && batchInput.getBatchSize() == batchSize) {
+            return;
+        }
+        int inputSize = getInputSize();
+        batchInput = new InputTensor(inputSize, inputSize, inputType, IMAGE_MEAN, IMAGE_STD,
+                inputScale, inputZeroPoint, batchSize);
+        batchOutput = new OutputTensor(outputTensor.getType(), outputTensor.getNumClasses(),
+                outputScale, outputZeroPoint, batchSize);
+        if (cropScores == null || cropScores.length < batchSize) {
+            cropScores = new float[Math.max(batchSize, MultiCrop.MAX_CROPS)][outputTensor.getNumClasses()];
+        }
+    }
+
+    /**
+     * Runs the batch interpreter on the batched input and reads the per-image probabilities.
+     * Falls back to one run per image on the single-image interpreter if the backend cannot
+     * resize its input.
+     * @param count The number of images whose scores are needed.
+     * @param batchSize The number of images in the batched input, at least count.
+     */
+    private void runBatch(int count, int batchSize) {
+        runOnInterpreterThread(() -> runBatchOnInterpreterThread(count, batchSize));
+    }
+
+    private void runBatchOnInterpreterThread(int count, int batchSize) {
+        if (!batchingUnsupported) {
+            try {
+                resizeBatch(batchSize);
+                batchInterpreter.run(batchInput.getBuffer(), batchOutput.getBuffer());
+                for (int i = 0; i < count; i++) {
+                    batchOutput.readScores(i, cropScores[i]);
+                    postprocessor.activate(cropScores[i]);
+                }
+                return;
+            } catch (IllegalArgumentException | IllegalStateException e) {
+                android.util.Log.w(TAG, "Batched inference not supported, classifying images one at a time", e);
+                batchingUnsupported = true;
+                closeBatchBackend();
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            interpreter.run(batchInput.getImageBuffer(i), outputTensor.getBuffer());
+            outputTensor.readScores(cropScores[i]);
+            postprocessor.activate(cropScores[i]);
+        }
+    }
+
+    /**
+     * Creates the batch interpreter if needed and resizes the batch dimension of its input.
+     * Reallocating the interpreter's tensors is not free, so this is a no-op while the batch
+     * size stays the same.
+     * @param batchSize The number of images per run.
+     */
+    private void resizeBatch(int batchSize) {
+        if (batchInterpreter == null) {
+            batchBackend = InferenceBackend.create(model, backendConfig);
+            batchInterpreter = batchBackend.getInterpreter();
+            interpreterBatchSize = 1;
+        }
+        if (interpreterBatchSize == batchSize) {
+            return;
+        }
+        int inputSize = getInputSize();
+        interpreterBatchSize = 0;
+        batchInterpreter.resizeInput(0, new int[]{batchSize, inputSize, inputSize, PIXEL_SIZE});
+        batchInterpreter.allocateTensors();
+        interpreterBatchSize = batchSize;
+    }
+
+    private void closeBatchBackend() {
+        if (batchBackend != null) {
+            batchBackend.close();
+            batchBackend = null;
+            batchInterpreter = null;
+        }
+    }
+
+    /**
+     * Creates an input tensor matching the model, for callers that fill tensors on their own
+     * thread (see preprocessFrame) while another tensor is being inferred.
+     * @return A new tensor, or null if the model is not loaded.
+     */
+    public InputTensor createInputTensor() {
+        if (inputTensor == null) {
+            return null;
+        }
+        int inputSize = getInputSize();
+        return new InputTensor(inputSize, inputSize, inputType, IMAGE_MEAN, IMAGE_STD, inputScale, inputZeroPoint);
+    }
+
+    /**
+     * Creates a YUV converter for preprocessFrame. A converter is not thread-safe, so each
+     * preprocessing thread needs its own.
+     * @return A new converter producing tensors of the model input size.
+     */
+    public YuvTensorConverter createFrameConverter() {
+        return new YuvTensorConverter(getInputSize(), YuvTensorConverter.Sampling.BILINEAR);
+    }
+
+    /**
+     * Converts a YUV_420_888 camera frame into a caller-owned input tensor: rotated upright,
+     * centre-cropped, resized and normalized, without a Bitmap in between. Does not touch the
+     * classifier's shared buffers, so it can run on a different thread than infer().
+     * @param image The camera frame. It is not closed by this method.
+     * @param converter The converter of the calling thread, see createFrameConverter().
+     * @param tensor The tensor to fill, see createInputTensor().
+     */
+    public void preprocessFrame(ImageProxy image, YuvTensorConverter converter, InputTensor tensor) {
+        ImageProxy.PlaneProxy[] planes = image.getPlanes();
+        ImageProxy.PlaneProxy yPlane = planes[0];
+        ImageProxy.PlaneProxy uPlane = planes[1];
+        ImageProxy.PlaneProxy vPlane = planes[2];
+        converter.convert(
+                yPlane.getBuffer(), yPlane.getRowStride(),
+                uPlane.getBuffer(), vPlane.getBuffer(), uPlane.getRowStride(), uPlane.getPixelStride(),
+                image.getWidth(), image.getHeight(), image.getImageInfo().getRotationDegrees(),
+                tensor);
+    }
+
+    /**
+     * Runs inference on a tensor filled by preprocessFrame and copies the scores out.
+     * @param tensor The filled input tensor.
+     * @param scores An array of at least getNumClasses() entries that receives the scores.
+     * @return true if inference ran, false if the model is unavailable.
+     */
+    public synchronized boolean infer(InputTensor tensor, float[] scores) {
+        if (interpreter == null) {
+            return false;
+        }
+        runInference(tensor.getBuffer());
+        System.arraycopy(this.scores, 0, scores, 0, this.scores.length);
+        return true;
+    }
+
+    /**
+     * Runs one inference on a blank input so that the first real classification does not pay
+     * for delegate compilation, memory allocation and cold caches. Should run off the main thread.
+     */
+    public synchronized void warmUp() {
+        if (interpreter == null) {
+            return;
+        }
+        long startNanos = System.nanoTime();
+        // Not activated: a blank input must not decide the AUTO activation for the model.
+        runOnInterpreterThread(() -> interpreter.run(inputTensor.getBuffer(), outputTensor.getBuffer()));
+        android.util.Log.d(TAG, "Warm-up inference took " + (System.nanoTime() - startNanos) / 1000 + " us");
+    }
+
+    /**
+     * Runs the interpreter on a filled input buffer and reads the (dequantized) scores.
+     * Logits are converted to probabilities here, so every caller sees the same scale.
+     * @param input The input tensor buffer.
+     */
+    private void runInference(ByteBuffer input) {
+        runOnInterpreterThread(() -> {
+            interpreter.run(input, outputTensor.getBuffer());
+            outputTensor.readScores(scores);
+            postprocessor.activate(scores);
+        });
+    }
+
+    /**
+     * Runs a task on the interpreter thread and waits for it. Like a direct interpreter call the
+     * wait is not interruptible; the interrupt status is kept for the caller.
+     * @param task The task. A RuntimeException or Error it throws is rethrown here.
+     */
+    private void runOnInterpreterThread(Runnable task) {
+        if (Thread.currentThread() == interpreterThread) {
+            task.run();
+            return;
         }
+        Future<?> future = interpreterExecutor.submit(task);
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    future.get();
+                    return;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Gets the width and height of the model input in pixels.
+     * @return The input size, or the expected size if the model is not loaded.
+     */
+    public int getInputSize() {
+        return inputTensor != null ? inputTensor.getWidth() : INPUT_SIZE;
+    }
+
+    /**
+     * Gets the number of classes the loaded model predicts.
+     * @return The number of output classes.
+     */
+    public int getNumClasses() {
+        return outputTensor != null ? outputTensor.getNumClasses() : getOutputSize();
     }
 
     /**
      * Preprocesses the input bitmap to prepare it for the TFLite model.
-     * This includes resizing the image and converting it to a ByteBuffer.
+     * The image is resized into a reusable target and normalized into the shared input tensor.
      * @param bitmap The bitmap to preprocess.
      * @return A ByteBuffer containing the preprocessed image data.
      */
@@ -115,34 +603,7 @@ public class ImageClassifier {
                 return null;
             }
             
-            android.util.Log.d(TAG, "Preprocessing image of size: " + bitmap.getWidth() + "x" + bitmap.getHeight());
-            
-            ByteBuffer byteBuffer = ByteBuffer.allocateDirect(4 * INPUT_SIZE * INPUT_SIZE * PIXEL_SIZE);
-            byteBuffer.order(ByteOrder.nativeOrder());
-            
-            Bitmap resizedBitmap = Bitmap.createScaledBitmap(bitmap, INPUT_SIZE, INPUT_SIZE, true);
-            if (resizedBitmap == null) {
-                android.util.Log.e(TAG, "Failed to resize bitmap");
-                return null;
-            }
-            
-            int[] intValues = new int[INPUT_SIZE * INPUT_SIZE];
-            resizedBitmap.getPixels(intValues, 0, resizedBitmap.getWidth(), 0, 0, resizedBitmap.getWidth(), resizedBitmap.getHeight());
-            
-            // Iterate over each pixel and convert it to a float value.
-            int pixel = 0;
-            for (int i = 0; i < INPUT_SIZE; ++i) {
-                for (int j = 0; j < INPUT_SIZE; ++j) {
-                    final int val = intValues[pixel++];
-                    // Normalize the pixel values.
-                    byteBuffer.putFloat((((val >> 16) & 0xFF) - IMAGE_MEAN) / IMAGE_STD);
-                    byteBuffer.putFloat((((val >> 8) & 0xFF) - IMAGE_MEAN) / IMAGE_STD);
-                    byteBuffer.putFloat(((val & 0xFF) - IMAGE_MEAN) / IMAGE_STD);
-                }
-            }
-            
-            android.util.Log.d(TAG, "Image preprocessing completed");
-            return byteBuffer;
+            return preprocessor.preprocess(bitmap);
         } catch (Exception e) {
             android.util.Log.e(TAG, "Error preprocessing image", e);
             return null;
@@ -161,60 +622,101 @@ public class ImageClassifier {
     }
 
     /**
-     * Processes the raw output from the TFLite model to determine the final classification.
+     * Processes the scores of an inference to determine the final classification.
+     * The top class is reported as recognized if its confidence passes that class's threshold.
      * @param results An array of floats representing the confidence scores for each class.
-     * @return A formatted string with the landmark name and description if confidence is high enough.
-     */
-    private String processResults(float[] results) {
-        // The labels corresponding to the model's output classes.
-        String[] labels = {
-                "Batu Caves",
-                "Blue Mosque",
-                "Merdeka Square",
-        };
-        
-        // Find the class with the highest confidence.
-        int maxIndex = 0;
-        float maxConfidence = results[0];
-        for (int i = 1; i < results.length && i < labels.length; i++) {
-            if (results[i] > maxConfidence) {
-                maxConfidence = results[i];
-                maxIndex = i;
-            }
+     * @param preprocessNanos The time spent preparing the input tensor.
+     * @param inferenceNanos The time spent in the interpreter.
+     * @return The classification result with the top K classes.
+     */
+    public synchronized RecognitionResult createResult(float[] results, long preprocessNanos, long inferenceNanos) {
+        long startNanos = System.nanoTime();
+        int count = postprocessor.topK(results, topIndices);
+        List<RecognitionResult.Candidate> candidates = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int classIndex = topIndices[i];
+            candidates.add(new RecognitionResult.Candidate(classIndex, getLabel(classIndex), results[classIndex]));
         }
-        
-        // Check if the highest confidence is above a certain threshold.
-        if (maxConfidence > 0.5f) {
-            return generateDescription(labels[maxIndex], maxConfidence);
-        } else {
-            return "Unable to identify this attraction. Please try taking a clearer photo.";
+
+        RecognitionResult.Candidate top = candidates.isEmpty() ? null : candidates.get(0);
+        boolean recognized = top != null && top.confidence > postprocessor.thresholdFor(top.classIndex);
+        long postprocessNanos = System.nanoTime() - startNanos;
+
+        RecognitionResult result = new RecognitionResult(
+                recognized ? RecognitionResult.Status.RECOGNIZED : RecognitionResult.Status.UNRECOGNIZED,
+                recognized ? top.classIndex : -1,
+                recognized ? labels.getId(top.classIndex) : null,
+                recognized ? top.label : null,
+                top != null ? top.confidence : 0f,
+                candidates,
+                preprocessNanos / 1000, inferenceNanos / 1000, postprocessNanos / 1000, null);
+        android.util.Log.d(TAG, "Classification result: " + result);
+        return result;
+    }
+
+    /**
+     * Gets the display name of an output class, preferring the landmark catalog over the label file.
+     * @param classIndex The class index.
+     * @return The display name.
+     */
+    private String getLabel(int classIndex) {
+        Landmark landmark = classIndex < classLandmarks.length ? classLandmarks[classIndex] : null;
+        return landmark != null ? landmark.label : labels.get(classIndex);
+    }
+
+    /**
+     * Builds the user-facing text for a classification result.
+     * @param result The classification result.
+     * @param catalog The landmark catalog the description is taken from.
+     * @return A formatted string with the landmark name and description, or an explanation.
+     */
+    public static String describe(RecognitionResult result, LandmarkCatalog catalog) {
+        switch (result.status) {
+            case RECOGNIZED:
+                return generateDescription(result.label, catalog.get(result.landmarkId), result.confidence);
+            case UNRECOGNIZED:
+                return "Unable to identify this attraction. Please try taking a clearer photo.";
+            case MODEL_UNAVAILABLE:
+                return "Model not loaded. Please add the '" + MODEL_FILENAME + "' file to the 'assets/models/' directory.";
+            case FAILED:
+            default:
+                return "Error occurred during image classification: " + result.errorMessage;
         }
     }
 
     /**
      * Generates a descriptive string for the identified landmark.
-     * @param landmark The name of the landmark.
+     * @param label The name of the landmark.
+     * @param landmark The catalog entry of the landmark, or null if it has none.
      * @param confidence The confidence score of the classification.
      * @return A formatted string containing details about the landmark.
      */
-    private String generateDescription(String landmark, float confidence) {
+    private static String generateDescription(String label, Landmark landmark, float confidence) {
         String confidenceString = String.format("%.1f%%", confidence * 100);
-        switch (landmark) {
-            case "Batu Caves":
-                return "Batu Caves\n\nOne of the most popular Hindu shrines outside India, dedicated to Lord Murugan. A large statue of the Hindu God can be seen at the entrance, and visitors must climb a steep flight of 272 steps to reach the main cave.\n\nConfidence: " + confidenceString;
-            case "Blue Mosque":
-                return "Blue Mosque\n\nA symbol of Islamic architecture in Malaysia, this mosque has a capacity of 15,000 people and is situated among 13 acres of beautiful gardens.\n\nConfidence: " + confidenceString;
-            default:
-                return landmark + "\n\nThis is an important cultural heritage landmark in Malaysia.\n\nConfidence: " + confidenceString;
-        }
+        String description = landmark != null && !landmark.description.isEmpty()
+                ? landmark.description
+                : "This is an important cultural heritage landmark in Malaysia.";
+        return label + "\n\n" + description + "\n\nConfidence: " + confidenceString;
     }
 
     /**
-     * Closes the TFLite interpreter to release resources.
+     * Closes the TFLite interpreter and its delegate to release resources.
      */
-    public void close() {
-        if (interpreter != null) {
-            interpreter.close();
+    @Override
+    public synchronized void close() {
+        if (backend != null) {
+            InferenceBackend closing = backend;
+            backend = null;
+            interpreter = null;
+            runOnInterpreterThread(() -> {
+                closing.close();
+                closeBatchBackend();
+            });
+        }
+        interpreterExecutor.shutdown();
+        if (preprocessor != null) {
+            preprocessor.close();
+            preprocessor = null;
         }
     }
 } 
\ No newline at end of file
@@ -0,0 +1,40 @@
+package com.example.jomexplore;
+
+import android.app.Application;
+import android.content.ComponentCallbacks2;
+import android.util.Log;
+
+import com.example.jomexplore.utils.BitmapPool;
+import com.example.jomexplore.utils.ImageCache;
+
+/**
+ * JomExploreApplication starts loading the recognition model as soon as the process starts,
+ * so it is usually ready by the time the user opens the camera.
+ */
+public class JomExploreApplication extends Application {
+
+    private static final String TAG = "JomExploreApplication";
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        Log.d(TAG, "Preloading image classifier");
+        ClassifierProvider.preload(this);
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        ClassifierProvider.onTrimMemory(level);
+        BitmapPool.onTrimMemory(level);
+        ImageCache.onTrimMemory(level);
+    }
+
+    @Override
+    public void onLowMemory() {
+        super.onLowMemory();
+        ClassifierProvider.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_COMPLETE);
+        BitmapPool.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_COMPLETE);
+        ImageCache.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_COMPLETE);
+    }
+}
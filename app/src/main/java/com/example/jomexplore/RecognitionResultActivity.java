@@ -9,46 +9,77 @@ import android.widget.TextView;
 import android.widget.Toast;
 import android.graphics.Bitmap;
 import android.content.Intent;
+import android.os.Build;
 
+import com.example.jomexplore.capture.CapturedImage;
+import com.example.jomexplore.capture.CapturedImageStore;
+import com.example.jomexplore.capture.CaptureStorage;
+import com.example.jomexplore.capture.CaptureStorageProvider;
+import com.example.jomexplore.catalog.LandmarkCatalog;
+import com.example.jomexplore.classifier.RecognitionResult;
+import com.example.jomexplore.utils.BitmapPool;
 import com.example.jomexplore.utils.BitmapUtils;
+import com.example.jomexplore.utils.ImageCache;
 
+import java.io.File;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
 /**
  * RecognitionResultActivity displays the results of the image classification.
- * It shows the captured image, the name of the recognized landmark, and provides an option
- * to view the landmark in Augmented Reality (AR).
+ * It shows the captured image, the name of the recognized landmark, and provides options
+ * to keep the photo and to view the landmark in Augmented Reality (AR).
+ * Photos taken by CameraActivity arrive as an in-memory CapturedImageStore handle and are only
+ * written to disk when the user keeps them.
  */
 public class RecognitionResultActivity extends AppCompatActivity {
 
+    // Intent extra with the CapturedImageStore handle of the classified photo.
+    static final String EXTRA_CAPTURE_HANDLE = "capture_handle";
+    static final long NO_CAPTURE = -1;
+
     private ImageView imageView;
     private TextView resultText;
     private Button btnViewAR;
+    private Button btnKeepPhoto;
+    private long captureHandle = NO_CAPTURE;
+    // For the time-to-first-image log.
+    private long createdNanos;
+    private boolean firstImageShown;
     private final ExecutorService executor = Executors.newSingleThreadExecutor();
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        createdNanos = System.nanoTime();
         setContentView(R.layout.activity_recognition_result);
 
         // Initialize UI components.
         imageView = findViewById(R.id.captured_image);
         resultText = findViewById(R.id.recognition_result);
         btnViewAR = findViewById(R.id.btn_view_ar);
+        btnKeepPhoto = findViewById(R.id.btn_keep_photo);
 
         // Retrieve data from the intent.
-        String imagePath = getIntent().getStringExtra("image_path");
-        String recognitionResult = getIntent().getStringExtra("recognition_result");
+        captureHandle = getIntent().getLongExtra(EXTRA_CAPTURE_HANDLE, NO_CAPTURE);
+        CapturedImage capturedImage = CapturedImageStore.get(captureHandle);
+        RecognitionResult recognitionResult = getRecognitionResult(getIntent());
+
+        // Load and display the captured image. Live-mode results arrive without one.
+        if (capturedImage != null) {
+            loadAndDisplayImage(capturedImage);
+        }
 
-        // Load and display the captured image.
-        if (imagePath != null) {
-            loadAndDisplayImage(imagePath);
+        // Only an unsaved capture can be kept.
+        if (capturedImage != null) {
+            btnKeepPhoto.setOnClickListener(v -> keepPhoto(capturedImage));
+        } else {
+            btnKeepPhoto.setVisibility(android.view.View.GONE);
         }
 
         // Display the recognition result text.
         if (recognitionResult != null) {
-            resultText.setText(recognitionResult);
+            resultText.setText(ImageClassifier.describe(recognitionResult, LandmarkCatalog.getInstance(this)));
         }
 
         // Set a click listener for the "View in AR" button.
@@ -57,12 +88,13 @@ public class RecognitionResultActivity extends AppCompatActivity {
                 android.util.Log.d("RecognitionResultActivity", "View AR button clicked");
                 android.util.Log.d("RecognitionResultActivity", "Recognition result: " + recognitionResult);
                 
-                String modelName = getModelNameFromResult(recognitionResult);
+                String modelName = recognitionResult != null ? recognitionResult.landmarkId : null;
                 if (modelName != null) {
                     android.util.Log.d("RecognitionResultActivity", "Starting ARActivity with model: " + modelName);
                     // If a model is available, start the ARActivity.
                     Intent intent = new Intent(RecognitionResultActivity.this, ARActivity.class);
                     intent.putExtra("model_name", modelName);
+                    intent.putExtra("recognition_result", recognitionResult);
                     startActivity(intent);
                     android.util.Log.d("RecognitionResultActivity", "ARActivity start requested");
                 } else {
@@ -78,35 +110,55 @@ public class RecognitionResultActivity extends AppCompatActivity {
     }
 
     /**
-     * Determines the model name based on the recognition result string.
-     * @param result The string containing the name of the recognized landmark.
-     * @return The model identifier, or null if not found.
+     * Reads the classification result passed by CameraActivity.
+     * @param intent The intent that started this activity.
+     * @return The result, or null if none was passed.
      */
-    private String getModelNameFromResult(String result) {
-        if (result == null) return null;
-        
-        android.util.Log.d("RecognitionResultActivity", "Getting model name for result: " + result);
-        
-        String modelName = null;
-        if (result.contains("Merdeka Square")) {
-            modelName = "merdeka_square";
-        } else if (result.contains("Blue Mosque")) {
-            modelName = "blue_mosque";
-        } else if (result.contains("Batu Caves")) {
-            modelName = "batu_caves";
+    @SuppressWarnings("deprecation")
+    static RecognitionResult getRecognitionResult(Intent intent) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU) {
+            return intent.getParcelableExtra("recognition_result", RecognitionResult.class);
         }
-        
-        android.util.Log.d("RecognitionResultActivity", "Model name determined: " + modelName);
-        return modelName;
+        return intent.getParcelableExtra("recognition_result");
+    }
+
+    /**
+     * Saves the captured photo to the captured_images directory on a background thread.
+     * CaptureStorage then compacts the directory back into its budget in the background.
+     * @param capturedImage The in-memory capture to save.
+     */
+    private void keepPhoto(CapturedImage capturedImage) {
+        btnKeepPhoto.setEnabled(false);
+        executor.execute(() -> {
+            try {
+                CaptureStorage storage = CaptureStorageProvider.get(this);
+                File photoFile = storage.newCaptureFile();
+                BitmapUtils.saveJpeg(capturedImage.jpeg, capturedImage.rotationDegrees, photoFile);
+                storage.onCaptureSaved();
+                android.util.Log.d("RecognitionResultActivity", "Photo saved: " + photoFile.getAbsolutePath());
+                runOnUiThread(() -> Toast.makeText(this, "Photo saved", Toast.LENGTH_SHORT).show());
+            } catch (Exception e) {
+                android.util.Log.e("RecognitionResultActivity", "Error saving photo", e);
+                runOnUiThread(() -> {
+                    btnKeepPhoto.setEnabled(true);
+                    Toast.makeText(this, "Failed to save photo.", Toast.LENGTH_SHORT).show();
+                });
+            }
+        });
     }
 
     /**
-     * Loads the captured image from the given path and displays it in the ImageView.
-     * This method uses a ViewTreeObserver to get the dimensions of the ImageView
-     * and then loads a properly scaled and oriented bitmap on a background thread.
-     * @param path The file path of the image to load.
+     * Loads the captured image and displays it in the ImageView.
+     * This method uses a ViewTreeObserver to get the dimensions of the ImageView. A preview
+     * already in the ImageCache memory tier is shown at once; otherwise the disk thumbnail is shown
+     * first and replaced by a properly scaled and oriented bitmap decoded on a background thread.
+     * The time from onCreate to the first image is logged together with the tier it came from.
+     * @param capturedImage The in-memory capture.
      */
-    private void loadAndDisplayImage(String path) {
+    private void loadAndDisplayImage(CapturedImage capturedImage) {
+        ImageCache cache = ImageCache.getInstance(this);
+        String cacheKey = capturedImage.getCacheKey();
+
         // Use a ViewTreeObserver to wait for the layout to be complete to get the view's dimensions.
         imageView.getViewTreeObserver().addOnGlobalLayoutListener(new ViewTreeObserver.OnGlobalLayoutListener() {
             @Override
@@ -126,20 +178,48 @@ public class RecognitionResultActivity extends AppCompatActivity {
                 final int finalTargetW = targetW;
                 final int finalTargetH = targetH;
 
+                // A rotation or a return to this screen finds the preview in memory.
+                Bitmap cached = cache.getBitmap(cacheKey, finalTargetW, finalTargetH);
+                if (cached != null) {
+                    showImage(cached, "memory");
+                    return;
+                }
+
                 // Load the bitmap on a background thread.
                 executor.execute(() -> {
                     try {
-                        final Bitmap bitmap = BitmapUtils.getCorrectlyOrientedBitmap(path, finalTargetW, finalTargetH);
+                        Bitmap thumbnail = cache.getThumbnail(cacheKey);
+                        if (thumbnail != null) {
+                            // A thumbnail that already covers the view needs no upgrade. It stays
+                            // shown, so it goes to the memory tier like a decoded preview would.
+                            if (thumbnail.getWidth() >= finalTargetW && thumbnail.getHeight() >= finalTargetH) {
+                                cache.putBitmap(cacheKey, finalTargetW, finalTargetH, thumbnail);
+                                runOnUiThread(() -> showImage(thumbnail, "disk thumbnail"));
+                                return;
+                            }
+                            runOnUiThread(() -> showImage(thumbnail, "disk thumbnail"));
+                        }
+
+                        final Bitmap bitmap = BitmapUtils.decodeJpeg(capturedImage.jpeg, capturedImage.rotationDegrees,
+                                finalTargetW, finalTargetH);
+                        if (bitmap == null) {
+                            runOnUiThread(() -> Toast.makeText(RecognitionResultActivity.this, "Failed to decode image.", Toast.LENGTH_SHORT).show());
+                            return;
+                        }
+                        cache.putBitmap(cacheKey, finalTargetW, finalTargetH, bitmap);
                         // Update the UI on the main thread.
                         runOnUiThread(() -> {
-                            if (bitmap != null) {
-                                imageView.setImageBitmap(bitmap);
-                            } else {
-                                Toast.makeText(RecognitionResultActivity.this, "Failed to decode image.", Toast.LENGTH_SHORT).show();
+                            showImage(bitmap, "decode");
+                            // The thumbnail is no longer shown and was never shared.
+                            if (thumbnail != null) {
+                                BitmapPool.release(thumbnail);
                             }
                         });
+                        if (thumbnail == null) {
+                            cache.putThumbnail(cacheKey, bitmap);
+                        }
                     } catch (Exception e) {
-                        e.printStackTrace();
+                        android.util.Log.e("RecognitionResultActivity", "Error loading image", e);
                         runOnUiThread(() -> Toast.makeText(RecognitionResultActivity.this, "Failed to load image.", Toast.LENGTH_SHORT).show());
                     }
                 });
@@ -147,12 +227,34 @@ public class RecognitionResultActivity extends AppCompatActivity {
         });
     }
 
+    /**
+     * Shows an image and logs the time to the first image on this screen.
+     * Must be called on the UI thread.
+     * @param bitmap The image to show.
+     * @param source Where the image came from, for the log.
+     */
+    private void showImage(Bitmap bitmap, String source) {
+        if (isDestroyed()) {
+            return;
+        }
+        imageView.setImageBitmap(bitmap);
+        if (!firstImageShown) {
+            firstImageShown = true;
+            android.util.Log.d("RecognitionResultActivity", "Time to first image: "
+                    + (System.nanoTime() - createdNanos) / 1_000_000 + " ms (" + source + ")");
+        }
+    }
+
     @Override
     protected void onDestroy() {
         super.onDestroy();
-        // Shutdown the executor service to release resources.
+        // Shutdown the executor service to release resources. A pending save still completes.
         if (executor != null && !executor.isShutdown()) {
             executor.shutdown();
         }
+        // The capture is no longer needed once this screen is gone for good.
+        if (isFinishing()) {
+            CapturedImageStore.remove(captureHandle);
+        }
     }
 } 
\ No newline at end of file
@@ -710,7 +710,9 @@ public class ARRenderer implements GLSurfaceView.Renderer {
         private int mModelViewProjectionUniform;
         private int mModelUniform;
         private int mColorUniform;
-        private ModelLoader.ModelData mModelData;
+        private ModelData mModelData;
+        // Interleaved vertex and index buffer objects
+        private final int[] mBuffers = new int[2];
 
         public void createOnGlThread(Context context, String modelName) throws IOException {
             Log.d(TAG, "ModelRenderer.createOnGlThread called with model: " + modelName);
@@ -757,7 +759,16 @@ public class ARRenderer implements GLSurfaceView.Renderer {
                     Log.i(TAG, "Using procedural model for: " + modelName);
                 }
                 
-                Log.d(TAG, "Model has " + mModelData.vertexCount + " vertices");
+                // The context is OpenGL ES 2.0, where 32-bit indices are only an extension; without
+                // it a draw with them fails with GL_INVALID_ENUM and nothing shows up
+                if (mModelData.indexType == MeshOptimizer.UNSIGNED_INT && !supportsIntIndices()) {
+                    Log.w(TAG, "No 32-bit index support for a model with " + mModelData.vertexCount
+                            + " vertices, using the procedural model for: " + modelName);
+                    mModelData = ModelLoader.createProceduralModel(context, modelName);
+                }
+
+                Log.d(TAG, "Model has " + mModelData.vertexCount + " vertices, " + mModelData.indexCount / 3 + " triangles");
+                uploadModel();
                 
             } catch (Exception e) {
                 Log.e(TAG, "Error in ModelRenderer.createOnGlThread", e);
@@ -765,6 +776,30 @@ public class ARRenderer implements GLSurfaceView.Renderer {
             }
         }
 
+        /**
+         * Upload the vertices, normals and indices to buffer objects, so draws only bind them
+         */
+        private void uploadModel() {
+            PackedVertices vertexData = mModelData.vertexData;
+            GLES20.glGenBuffers(mBuffers.length, mBuffers, 0);
+            GLES20.glBindBuffer(GLES20.GL_ARRAY_BUFFER, mBuffers[0]);
+            GLES20.glBufferData(GLES20.GL_ARRAY_BUFFER, vertexData.vertexCount * vertexData.stride, vertexData.data, GLES20.GL_STATIC_DRAW);
+            GLES20.glBindBuffer(GLES20.GL_ARRAY_BUFFER, 0);
+
+            int indexSize = mModelData.indexType == MeshOptimizer.UNSIGNED_INT ? 4 : 2;
+            GLES20.glBindBuffer(GLES20.GL_ELEMENT_ARRAY_BUFFER, mBuffers[1]);
+            GLES20.glBufferData(GLES20.GL_ELEMENT_ARRAY_BUFFER, mModelData.indexCount * indexSize, mModelData.indices, GLES20.GL_STATIC_DRAW);
+            GLES20.glBindBuffer(GLES20.GL_ELEMENT_ARRAY_BUFFER, 0);
+        }
+
+        /**
+         * Whether the current context can draw with GL_UNSIGNED_INT indices. Must be called on the GL thread
+         */
+        private static boolean supportsIntIndices() {
+            String extensions = GLES20.glGetString(GLES20.GL_EXTENSIONS);
+            return extensions != null && extensions.contains("GL_OES_element_index_uint");
+        }
+
         public void draw(float[] viewMatrix, float[] projectionMatrix, float[] modelMatrix) {
             if (mModelData == null) {
                 Log.w(TAG, "ModelRenderer: mModelData is null, cannot draw");
@@ -776,35 +811,47 @@ public class ARRenderer implements GLSurfaceView.Renderer {
                 return;
             }
             
-            // Check for valid vertex count
-            if (mModelData.vertexCount <= 0) {
-                Log.w(TAG, "ModelRenderer: No vertices to draw (count: " + mModelData.vertexCount + ")");
+            // Check for valid index count
+            if (mModelData.indexCount <= 0) {
+                Log.w(TAG, "ModelRenderer: No triangles to draw (indices: " + mModelData.indexCount + ")");
                 return;
             }
             
+            // Quantized positions are mapped back to model space before the model matrix; the
+            // dequantization is a scale and translation, so u_Model still transforms the normals
+            PackedVertices vertexData = mModelData.vertexData;
             float[] modelViewProjectionMatrix = new float[16];
             float[] temp = new float[16];
-            Matrix.multiplyMM(temp, 0, viewMatrix, 0, modelMatrix, 0);
-            Matrix.multiplyMM(modelViewProjectionMatrix, 0, projectionMatrix, 0, temp, 0);
+            Matrix.multiplyMM(temp, 0, modelMatrix, 0, vertexData.dequantize, 0);
+            Matrix.multiplyMM(modelViewProjectionMatrix, 0, viewMatrix, 0, temp, 0);
+            Matrix.multiplyMM(temp, 0, projectionMatrix, 0, modelViewProjectionMatrix, 0);
+            System.arraycopy(temp, 0, modelViewProjectionMatrix, 0, 16);
 
             GLES20.glUseProgram(mProgram);
 
+            GLES20.glBindBuffer(GLES20.GL_ARRAY_BUFFER, mBuffers[0]);
             GLES20.glEnableVertexAttribArray(mPositionAttribute);
-            GLES20.glVertexAttribPointer(mPositionAttribute, 3, GLES20.GL_FLOAT, false, 0, mModelData.vertices);
+            GLES20.glVertexAttribPointer(mPositionAttribute, 3, GLES20.GL_SHORT, true,
+                    vertexData.stride, PackedVertices.POSITION_OFFSET);
 
             GLES20.glEnableVertexAttribArray(mNormalAttribute);
-            GLES20.glVertexAttribPointer(mNormalAttribute, 3, GLES20.GL_FLOAT, false, 0, mModelData.normals);
+            GLES20.glVertexAttribPointer(mNormalAttribute, 3, GLES20.GL_BYTE, true,
+                    vertexData.stride, PackedVertices.NORMAL_OFFSET);
+            // The shader does not sample textures, so texture coordinates are not bound
 
             GLES20.glUniformMatrix4fv(mModelViewProjectionUniform, 1, false, modelViewProjectionMatrix, 0);
             GLES20.glUniformMatrix4fv(mModelUniform, 1, false, modelMatrix, 0);
             GLES20.glUniform4fv(mColorUniform, 1, mModelData.color, 0);
 
             // Log the draw call for debugging
-            Log.v(TAG, "Drawing model with " + mModelData.vertexCount + " vertices");
-            GLES20.glDrawArrays(GLES20.GL_TRIANGLES, 0, mModelData.vertexCount);
+            Log.v(TAG, "Drawing model with " + mModelData.indexCount / 3 + " triangles");
+            GLES20.glBindBuffer(GLES20.GL_ELEMENT_ARRAY_BUFFER, mBuffers[1]);
+            GLES20.glDrawElements(GLES20.GL_TRIANGLES, mModelData.indexCount, mModelData.indexType, 0);
 
             GLES20.glDisableVertexAttribArray(mPositionAttribute);
             GLES20.glDisableVertexAttribArray(mNormalAttribute);
+            GLES20.glBindBuffer(GLES20.GL_ARRAY_BUFFER, 0);
+            GLES20.glBindBuffer(GLES20.GL_ELEMENT_ARRAY_BUFFER, 0);
         }
     }
 
@@ -1,55 +1,39 @@
 package com.example.jomexplore.ar;
 
 import android.content.Context;
+import android.content.res.AssetFileDescriptor;
 import android.content.res.AssetManager;
 import android.util.Log;
 
+import com.example.jomexplore.catalog.Landmark;
+import com.example.jomexplore.catalog.LandmarkCatalog;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
-import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
  * GLBModelLoader handles loading of GLB (GLTF Binary) 3D models for AR rendering.
- * This class loads GLB files from assets and provides enhanced 3D models.
+ * GLB files are read from assets and parsed with GlbParser; landmarks whose file cannot be
+ * parsed get a procedural model of their shape instead.
  */
 public class GLBModelLoader {
     private static final String TAG = "GLBModelLoader";
     
     private Context context;
+    private final LandmarkCatalog catalog;
     private Map<String, ModelData> loadedModels = new HashMap<>();
     
     public GLBModelLoader(Context context) {
         this.context = context;
-    }
-
-    /**
-     * Data structure to hold processed model information for OpenGL rendering
-     */
-    public static class ModelData {
-        public FloatBuffer vertices;
-        public FloatBuffer normals;
-        public int vertexCount;
-        public float[] color;
-        public String modelPath;
-        
-        public ModelData(float[] vertexArray, float[] normalArray, float[] modelColor, String path) {
-            vertexCount = vertexArray.length / 3;
-            
-            vertices = ByteBuffer.allocateDirect(vertexArray.length * 4)
-                    .order(ByteOrder.nativeOrder()).asFloatBuffer();
-            vertices.put(vertexArray).position(0);
-            
-            normals = ByteBuffer.allocateDirect(normalArray.length * 4)
-                    .order(ByteOrder.nativeOrder()).asFloatBuffer();
-            normals.put(normalArray).position(0);
-            
-            color = modelColor;
-            modelPath = path;
-        }
+        this.catalog = LandmarkCatalog.getInstance(context);
     }
 
     /**
@@ -80,37 +64,71 @@ public class GLBModelLoader {
     }
 
     /**
-     * Get the asset path for the GLB model based on the model name
+     * Get the asset path for the GLB model from the landmark catalog
      */
     private String getModelPath(String modelName) {
-        if (modelName != null) {
-            if (modelName.contains("mosque") || modelName.contains("blue")) {
-                return "ar_assets/blue_mosque.glb";
-            } else if (modelName.contains("caves") || modelName.contains("batu")) {
-                return "ar_assets/batu_caves.glb";
-            } else if (modelName.contains("square") || modelName.contains("merdeka")) {
-                return "ar_assets/merdeka_square.glb";
-            }
-        }
-        return null;
+        Landmark landmark = catalog.get(modelName);
+        return landmark != null ? landmark.arModelPath : null;
     }
 
     /**
      * Load GLB model from assets and convert to OpenGL-compatible format
      */
     private ModelData loadGLBFromAssets(String assetPath, String modelName) throws IOException {
+        long startNanos = System.nanoTime();
+        ByteBuffer glbData = mapAsset(assetPath);
+        Log.i(TAG, "Loaded GLB file: " + assetPath + " (" + glbData.remaining() + " bytes)");
+
+        Landmark landmark = catalog.get(modelName);
+        float[] color = landmark != null ? landmark.color : new float[]{1.0f, 0.4f, 0.0f, 1.0f};
+        ModelData modelData;
+        try {
+            List<GlbParser.Primitive> primitives = GlbParser.parsePrimitives(glbData);
+            modelData = ModelData.fromPrimitives(primitives, color, assetPath);
+            if (modelData == null) {
+                // Normals have to be computed from the merged mesh
+                modelData = ModelData.fromMesh(GlbParser.merge(primitives), color, assetPath);
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "Could not parse GLB file: " + assetPath + ", using procedural model", e);
+            return createProceduralModel(modelName, assetPath);
+        }
+        Log.i(TAG, "Parsed GLB file: " + assetPath + " (" + modelData.vertexCount + " vertices) in "
+                + (System.nanoTime() - startNanos) / 1000000 + " ms");
+        return modelData;
+    }
+
+    /**
+     * Memory-map an asset, the same way ImageClassifier maps its model. Only assets stored
+     * uncompressed can be mapped (build.gradle.kts lists glb under noCompress); others are read.
+     */
+    private ByteBuffer mapAsset(String assetPath) throws IOException {
+        try (AssetFileDescriptor fileDescriptor = context.getAssets().openFd(assetPath);
+             FileInputStream inputStream = new FileInputStream(fileDescriptor.getFileDescriptor())) {
+            FileChannel fileChannel = inputStream.getChannel();
+            long startOffset = fileDescriptor.getStartOffset();
+            long declaredLength = fileDescriptor.getDeclaredLength();
+            return fileChannel.map(FileChannel.MapMode.READ_ONLY, startOffset, declaredLength);
+        } catch (FileNotFoundException e) {
+            Log.w(TAG, "GLB file is compressed and cannot be mapped: " + assetPath);
+            return ByteBuffer.wrap(readAsset(assetPath));
+        }
+    }
+
+    /**
+     * Read an asset completely. InputStream.available() is only an estimate for compressed
+     * assets, so the stream is read until it ends.
+     */
+    private byte[] readAsset(String assetPath) throws IOException {
         AssetManager assetManager = context.getAssets();
-        
         try (InputStream inputStream = assetManager.open(assetPath)) {
-            // Read the GLB file into a byte buffer
-            byte[] buffer = new byte[inputStream.available()];
-            inputStream.read(buffer);
-            
-            Log.i(TAG, "Loaded GLB file: " + assetPath + " (" + buffer.length + " bytes)");
-            
-            // Create enhanced model based on the actual GLB file presence
-            return createEnhancedModelFromGLB(buffer, modelName, assetPath);
-            
+            ByteArrayOutputStream output = new ByteArrayOutputStream(Math.max(inputStream.available(), 8192));
+            byte[] chunk = new byte[8192];
+            int read;
+            while ((read = inputStream.read(chunk)) != -1) {
+                output.write(chunk, 0, read);
+            }
+            return output.toByteArray();
         } catch (IOException e) {
             Log.e(TAG, "Failed to read GLB file: " + assetPath, e);
             throw e;
@@ -118,18 +136,21 @@ public class GLBModelLoader {
     }
 
     /**
-     * Create enhanced model based on GLB file presence
+     * Create a procedural model for a landmark whose GLB file could not be parsed
      */
-    private ModelData createEnhancedModelFromGLB(byte[] glbData, String modelName, String assetPath) {
-        Log.i(TAG, "Creating enhanced model from GLB: " + assetPath + " (" + glbData.length + " bytes)");
-        
-        // Since we have actual GLB data, create more detailed models
-        if (modelName.contains("mosque") || modelName.contains("blue")) {
-            return createDetailedMosqueModel(assetPath);
-        } else if (modelName.contains("caves") || modelName.contains("batu")) {
-            return createDetailedCavesModel(assetPath);
-        } else if (modelName.contains("square") || modelName.contains("merdeka")) {
-            return createDetailedSquareModel(assetPath);
+    private ModelData createProceduralModel(String modelName, String assetPath) {
+        Landmark landmark = catalog.get(modelName);
+        if (landmark != null) {
+            switch (landmark.shape) {
+                case MOSQUE:
+                    return createDetailedMosqueModel(assetPath, landmark.color);
+                case CAVES:
+                    return createDetailedCavesModel(assetPath, landmark.color);
+                case SQUARE:
+                    return createDetailedSquareModel(assetPath, landmark.color);
+                default:
+                    break;
+            }
         }
         
         return createFallbackModel(modelName);
@@ -138,7 +159,7 @@ public class GLBModelLoader {
     /**
      * Create a detailed mosque model inspired by the GLB file
      */
-    private ModelData createDetailedMosqueModel(String assetPath) {
+    private ModelData createDetailedMosqueModel(String assetPath, float[] color) {
         float[] vertices = {
             // Main building base (larger and more detailed)
             -0.4f, 0.0f, -0.3f,   0.4f, 0.0f, -0.3f,   0.4f, 0.3f, -0.3f,
@@ -197,14 +218,13 @@ public class GLBModelLoader {
         float[] normals = new float[vertices.length];
         calculateDetailedNormals(vertices, normals);
         
-        float[] color = {0.15f, 0.35f, 0.7f, 1.0f}; // Deep blue for mosque
         return new ModelData(vertices, normals, color, assetPath);
     }
 
     /**
      * Create a detailed caves model
      */
-    private ModelData createDetailedCavesModel(String assetPath) {
+    private ModelData createDetailedCavesModel(String assetPath, float[] color) {
         float[] vertices = {
             // Cave entrance (detailed arch)
             -0.4f, 0.0f,  0.0f,  -0.3f, 0.5f,  0.0f,  -0.2f, 0.4f,  0.0f,
@@ -243,14 +263,13 @@ public class GLBModelLoader {
         float[] normals = new float[vertices.length];
         calculateDetailedNormals(vertices, normals);
         
-        float[] color = {0.9f, 0.7f, 0.2f, 1.0f}; // Golden color for caves
         return new ModelData(vertices, normals, color, assetPath);
     }
 
     /**
      * Create a detailed square model
      */
-    private ModelData createDetailedSquareModel(String assetPath) {
+    private ModelData createDetailedSquareModel(String assetPath, float[] color) {
         float[] vertices = {
             // Main flagpole (taller and more detailed)
             -0.02f, 0.0f, 0.0f,   0.02f, 0.0f, 0.0f,   0.02f, 1.0f, 0.0f,
@@ -299,7 +318,6 @@ public class GLBModelLoader {
         float[] normals = new float[vertices.length];
         calculateDetailedNormals(vertices, normals);
         
-        float[] color = {0.3f, 0.6f, 0.3f, 1.0f}; // Patriotic green for square
         return new ModelData(vertices, normals, color, assetPath);
     }
 
@@ -386,21 +404,24 @@ public class GLBModelLoader {
     }
 
     /**
-     * Check if a GLB file exists in assets and has content
+     * Check if a GLB file exists in assets and starts with a valid GLB header
      */
     public boolean hasGLBModel(String modelName) {
         String modelPath = getModelPath(modelName);
         if (modelPath == null) return false;
         
-        try {
-            InputStream inputStream = context.getAssets().open(modelPath);
-            int fileSize = inputStream.available();
-            inputStream.close();
+        try (InputStream inputStream = context.getAssets().open(modelPath)) {
+            byte[] header = new byte[GlbParser.HEADER_LENGTH];
+            int length = 0;
+            int read;
+            while (length < header.length && (read = inputStream.read(header, length, header.length - length)) != -1) {
+                length += read;
+            }
             
-            // Check if file exists and has meaningful content (> 1KB)
-            boolean hasContent = fileSize > 1024;
-            Log.d(TAG, "GLB file " + modelPath + " size: " + fileSize + " bytes, hasContent: " + hasContent);
-            return hasContent;
+            // The shipped placeholders are empty files, which fail this check
+            boolean isGlb = length == header.length && GlbParser.isGlb(ByteBuffer.wrap(header));
+            Log.d(TAG, "GLB file " + modelPath + " header: " + length + " bytes, valid: " + isGlb);
+            return isGlb;
             
         } catch (IOException e) {
             Log.w(TAG, "GLB file not found or not readable: " + modelPath, e);
@@ -0,0 +1,806 @@
+package com.example.jomexplore.ar;
+
+import android.util.Base64;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * GlbParser reads the triangle geometry of a binary glTF 2.0 (.glb) file.
+ * The 12-byte header is validated, then the JSON and BIN chunks are walked, and accessors are
+ * resolved through their buffer views into the BIN chunk without copying it. The triangle
+ * primitives of the default scene are returned by parsePrimitives() as little-endian slices of the
+ * input together with their node transforms, so a memory-mapped file can be read in place, or
+ * merged by parse() into one MeshData with positions, normals, texture coordinates (TEXCOORD_0)
+ * and triangle indices. Point and line primitives are skipped. Materials, textures, skins and
+ * animations are ignored.
+ */
+public final class GlbParser {
+    // "glTF", little endian.
+    static final int MAGIC = 0x46546C67;
+    static final int VERSION = 2;
+    static final int HEADER_LENGTH = 12;
+    // "JSON" and "BIN\0", little endian.
+    static final int CHUNK_JSON = 0x4E4F534A;
+    static final int CHUNK_BIN = 0x004E4942;
+
+    // Accessor component types, the same values as the GL constants.
+    public static final int BYTE = 5120;
+    public static final int UNSIGNED_BYTE = 5121;
+    public static final int SHORT = 5122;
+    public static final int UNSIGNED_SHORT = 5123;
+    public static final int UNSIGNED_INT = 5125;
+    public static final int FLOAT = 5126;
+
+    // Primitive modes, the same values as the GL constants.
+    public static final int MODE_TRIANGLES = 4;
+    public static final int MODE_TRIANGLE_STRIP = 5;
+    public static final int MODE_TRIANGLE_FAN = 6;
+
+    /**
+     * The elements of an accessor, in place in the file.
+     */
+    public static final class Accessor {
+        // Little endian; element i starts at i * stride.
+        public final ByteBuffer data;
+        public final int componentType;
+        public final int components;
+        public final int count;
+        // Bytes from the start of one element to the next.
+        public final int stride;
+        public final boolean normalized;
+
+        Accessor(ByteBuffer data, int componentType, int components, int count, int stride, boolean normalized) {
+            this.data = data;
+            this.componentType = componentType;
+            this.components = components;
+            this.count = count;
+            this.stride = stride;
+            this.normalized = normalized;
+        }
+
+        /**
+         * @return A component as a float, with normalized integers mapped to [0, 1] or [-1, 1].
+         */
+        public float getFloat(int element, int component) {
+            int offset = element * stride + component * componentSize(componentType);
+            switch (componentType) {
+                case FLOAT:
+                    return data.getFloat(offset);
+                case BYTE:
+                    return Math.max(data.get(offset) / 127f, -1f);
+                case UNSIGNED_BYTE:
+                    return (data.get(offset) & 0xFF) / 255f;
+                case SHORT:
+                    return Math.max(data.getShort(offset) / 32767f, -1f);
+                default:
+                    return (data.getShort(offset) & 0xFFFF) / 65535f;
+            }
+        }
+
+        /**
+         * @return An unsigned integer element of an index accessor.
+         */
+        public int getIndex(int element) {
+            int offset = element * stride;
+            switch (componentType) {
+                case UNSIGNED_BYTE:
+                    return data.get(offset) & 0xFF;
+                case UNSIGNED_SHORT:
+                    return data.getShort(offset) & 0xFFFF;
+                default:
+                    return data.getInt(offset);
+            }
+        }
+
+        /**
+         * @return All elements as floats, components per element.
+         */
+        public float[] toFloatArray() {
+            float[] values = new float[count * components];
+            for (int e = 0; e < count; e++) {
+                for (int c = 0; c < components; c++) {
+                    values[e * components + c] = getFloat(e, c);
+                }
+            }
+            return values;
+        }
+    }
+
+    /**
+     * One triangle primitive of the scene, with the world transform of the node that uses it.
+     * The same mesh used by several nodes yields one Primitive per node.
+     */
+    public static final class Primitive {
+        public final int mode;
+        // Float or normalized VEC3.
+        public final Accessor positions;
+        // Float or normalized VEC3, or null if the normals have to be computed.
+        public final Accessor normals;
+        // Float or normalized VEC2, or null.
+        public final Accessor texCoords;
+        // Unsigned SCALAR indices, checked against the vertex count, or null for sequential vertices.
+        public final Accessor indices;
+        // Column-major 4x4 node transform.
+        public final float[] transform;
+
+        Primitive(int mode, Accessor positions, Accessor normals, Accessor texCoords, Accessor indices, float[] transform) {
+            this.mode = mode;
+            this.positions = positions;
+            this.normals = normals;
+            this.texCoords = texCoords;
+            this.indices = indices;
+            this.transform = transform;
+        }
+
+        /**
+         * @return The primitive's vertex indices as a counter-clockwise triangle list.
+         */
+        public int[] getTriangles() {
+            int count = indices != null ? indices.count : positions.count;
+            int[] vertexIndices = new int[count];
+            for (int i = 0; i < count; i++) {
+                vertexIndices[i] = indices != null ? indices.getIndex(i) : i;
+            }
+            int[] triangles = toTriangles(vertexIndices, mode);
+            if (Matrix4.determinant3(transform) < 0) {
+                // A mirroring transform flips the winding order.
+                for (int i = 0; i < triangles.length; i += 3) {
+                    int swap = triangles[i + 1];
+                    triangles[i + 1] = triangles[i + 2];
+                    triangles[i + 2] = swap;
+                }
+            }
+            return triangles;
+        }
+    }
+
+    private final JSONObject json;
+    private final ByteBuffer bin;
+    private final List<ByteBuffer> buffers = new ArrayList<>();
+    private final List<Primitive> primitives = new ArrayList<>();
+
+    private GlbParser(JSONObject json, ByteBuffer bin) {
+        this.json = json;
+        this.bin = bin;
+    }
+
+    /**
+     * Checks whether data starts with a GLB version 2 header, e.g. before reading a whole file.
+     * @param header At least the first 8 bytes of the file, from its position. The position is not changed.
+     * @return true if the magic and version match.
+     */
+    public static boolean isGlb(ByteBuffer header) {
+        if (header.remaining() < 8) {
+            return false;
+        }
+        ByteBuffer data = header.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        return data.getInt() == MAGIC && data.getInt() == VERSION;
+    }
+
+    /**
+     * Parses a GLB file into one merged mesh.
+     * @param glb The file contents, from its position to its limit. The position is not changed.
+     * @return The merged triangle mesh of the default scene.
+     * @throws IOException If the file is not a valid GLB 2.0 file, uses unsupported features
+     * (external buffers, sparse accessors) or contains no triangles.
+     */
+    public static MeshData parse(ByteBuffer glb) throws IOException {
+        return merge(parsePrimitives(glb));
+    }
+
+    /**
+     * Parses a GLB file without copying its vertex data.
+     * @param glb The file contents, from its position to its limit, e.g. a mapped file. The
+     * position is not changed. The returned accessors are slices of it and keep it alive.
+     * @return The triangle primitives of the default scene, at least one.
+     * @throws IOException If the file is not a valid GLB 2.0 file, uses unsupported features
+     * (external buffers, sparse accessors) or contains no triangles.
+     */
+    public static List<Primitive> parsePrimitives(ByteBuffer glb) throws IOException {
+        ByteBuffer data = glb.slice().order(ByteOrder.LITTLE_ENDIAN);
+        if (data.remaining() < HEADER_LENGTH) {
+            throw new IOException("Not a GLB file: " + data.remaining() + " bytes");
+        }
+        int magic = data.getInt();
+        int version = data.getInt();
+        long length = data.getInt() & 0xFFFFFFFFL;
+        if (magic != MAGIC) {
+            throw new IOException("Not a GLB file: bad magic 0x" + Integer.toHexString(magic));
+        }
+        if (version != VERSION) {
+            throw new IOException("Unsupported GLB version " + version);
+        }
+        if (length > data.capacity()) {
+            throw new IOException("GLB header declares " + length + " bytes but only " + data.capacity() + " are present");
+        }
+        data.limit((int) length);
+
+        JSONObject json = null;
+        ByteBuffer bin = null;
+        while (data.remaining() >= 8) {
+            long chunkLength = data.getInt() & 0xFFFFFFFFL;
+            int chunkType = data.getInt();
+            if (chunkLength > data.remaining()) {
+                throw new IOException("Chunk of " + chunkLength + " bytes overruns the file");
+            }
+            ByteBuffer chunk = data.slice().order(ByteOrder.LITTLE_ENDIAN);
+            chunk.limit((int) chunkLength);
+            data.position(data.position() + (int) chunkLength);
+
+            if (json == null) {
+                if (chunkType != CHUNK_JSON) {
+                    throw new IOException("The first chunk must be JSON");
+                }
+                json = parseJson(chunk);
+            } else if (chunkType == CHUNK_BIN && bin == null) {
+                bin = chunk;
+            }
+            // Other chunk types are reserved for extensions and skipped.
+        }
+        if (json == null) {
+            throw new IOException("GLB file has no JSON chunk");
+        }
+
+        GlbParser parser = new GlbParser(json, bin);
+        try {
+            return parser.readScene();
+        } catch (JSONException e) {
+            throw new IOException("Malformed glTF JSON: " + e.getMessage(), e);
+        }
+    }
+
+    private static JSONObject parseJson(ByteBuffer chunk) throws IOException {
+        byte[] bytes = new byte[chunk.remaining()];
+        chunk.get(bytes);
+        try {
+            JSONObject json = new JSONObject(new String(bytes, StandardCharsets.UTF_8).trim());
+            String version = json.getJSONObject("asset").getString("version");
+            if (!version.startsWith("2.")) {
+                throw new IOException("Unsupported glTF version " + version);
+            }
+            return json;
+        } catch (JSONException e) {
+            throw new IOException("Malformed glTF JSON: " + e.getMessage(), e);
+        }
+    }
+
+    private List<Primitive> readScene() throws IOException, JSONException {
+        JSONArray buffers = json.optJSONArray("buffers");
+        for (int i = 0; buffers != null && i < buffers.length(); i++) {
+            this.buffers.add(resolveBuffer(i, buffers.getJSONObject(i)));
+        }
+
+        JSONArray nodes = json.optJSONArray("nodes");
+        JSONArray scenes = json.optJSONArray("scenes");
+        if (nodes == null) {
+            // No scene graph: emit every mesh untransformed.
+            JSONArray meshes = json.optJSONArray("meshes");
+            for (int i = 0; meshes != null && i < meshes.length(); i++) {
+                readMesh(i, Matrix4.identity());
+            }
+        } else {
+            List<Integer> roots = new ArrayList<>();
+            if (scenes != null && scenes.length() > 0) {
+                JSONArray sceneNodes = scenes.getJSONObject(json.optInt("scene", 0)).optJSONArray("nodes");
+                for (int i = 0; sceneNodes != null && i < sceneNodes.length(); i++) {
+                    roots.add(sceneNodes.getInt(i));
+                }
+            } else {
+                roots.addAll(findRootNodes(nodes));
+            }
+            for (int root : roots) {
+                readNode(nodes, root, Matrix4.identity(), 0);
+            }
+        }
+
+        if (primitives.isEmpty()) {
+            throw new IOException("GLB file contains no triangles");
+        }
+        return primitives;
+    }
+
+    private ByteBuffer resolveBuffer(int index, JSONObject buffer) throws IOException, JSONException {
+        int byteLength = buffer.getInt("byteLength");
+        ByteBuffer data;
+        if (!buffer.has("uri")) {
+            if (index != 0 || bin == null) {
+                throw new IOException("Buffer " + index + " has no uri and there is no BIN chunk");
+            }
+            data = bin;
+        } else {
+            String uri = buffer.getString("uri");
+            int comma = uri.indexOf(',');
+            if (!uri.startsWith("data:") || comma < 0 || !uri.substring(0, comma).endsWith(";base64")) {
+                throw new IOException("External buffers are not supported: " + uri);
+            }
+            try {
+                // android.util.Base64: java.util.Base64 needs API 26 and minSdk is 24.
+                data = ByteBuffer.wrap(Base64.decode(uri.substring(comma + 1), Base64.DEFAULT));
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Malformed data uri in buffer " + index, e);
+            }
+        }
+        if (byteLength > data.remaining()) {
+            throw new IOException("Buffer " + index + " declares " + byteLength + " bytes but has " + data.remaining());
+        }
+        return data.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static List<Integer> findRootNodes(JSONArray nodes) throws JSONException {
+        boolean[] isChild = new boolean[nodes.length()];
+        for (int i = 0; i < nodes.length(); i++) {
+            JSONArray children = nodes.getJSONObject(i).optJSONArray("children");
+            for (int c = 0; children != null && c < children.length(); c++) {
+                int child = children.getInt(c);
+                if (child >= 0 && child < isChild.length) {
+                    isChild[child] = true;
+                }
+            }
+        }
+        List<Integer> roots = new ArrayList<>();
+        for (int i = 0; i < isChild.length; i++) {
+            if (!isChild[i]) {
+                roots.add(i);
+            }
+        }
+        return roots;
+    }
+
+    private void readNode(JSONArray nodes, int index, float[] parent, int depth) throws IOException, JSONException {
+        if (depth > nodes.length()) {
+            throw new IOException("Node hierarchy contains a cycle");
+        }
+        JSONObject node = nodes.getJSONObject(index);
+        float[] world = Matrix4.multiply(parent, localTransform(node));
+        if (node.has("mesh")) {
+            readMesh(node.getInt("mesh"), world);
+        }
+        JSONArray children = node.optJSONArray("children");
+        for (int i = 0; children != null && i < children.length(); i++) {
+            readNode(nodes, children.getInt(i), world, depth + 1);
+        }
+    }
+
+    private static float[] localTransform(JSONObject node) throws JSONException {
+        JSONArray matrix = node.optJSONArray("matrix");
+        if (matrix != null) {
+            return readFloats(matrix, 16, null);
+        }
+        float[] translation = readFloats(node.optJSONArray("translation"), 3, new float[]{0, 0, 0});
+        float[] rotation = readFloats(node.optJSONArray("rotation"), 4, new float[]{0, 0, 0, 1});
+        float[] scale = readFloats(node.optJSONArray("scale"), 3, new float[]{1, 1, 1});
+        return Matrix4.fromTrs(translation, rotation, scale);
+    }
+
+    private static float[] readFloats(JSONArray array, int count, float[] fallback) throws JSONException {
+        if (array == null) {
+            return fallback;
+        }
+        if (array.length() != count) {
+            throw new JSONException("Expected " + count + " numbers: " + array);
+        }
+        float[] values = new float[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = (float) array.getDouble(i);
+        }
+        return values;
+    }
+
+    private void readMesh(int meshIndex, float[] transform) throws IOException, JSONException {
+        JSONArray primitives = json.getJSONArray("meshes").getJSONObject(meshIndex).getJSONArray("primitives");
+        for (int p = 0; p < primitives.length(); p++) {
+            JSONObject primitive = primitives.getJSONObject(p);
+            int mode = primitive.optInt("mode", MODE_TRIANGLES);
+            if (mode != MODE_TRIANGLES && mode != MODE_TRIANGLE_STRIP && mode != MODE_TRIANGLE_FAN) {
+                continue;
+            }
+            JSONObject attributes = primitive.getJSONObject("attributes");
+            if (!attributes.has("POSITION")) {
+                continue;
+            }
+            readPrimitive(primitive, attributes, mode, transform);
+        }
+    }
+
+    private void readPrimitive(JSONObject primitive, JSONObject attributes, int mode, float[] transform)
+            throws IOException, JSONException {
+        Accessor positions = readAccessor(attributes.getInt("POSITION"), 3, false);
+        Accessor normals = attributes.has("NORMAL") ? readAccessor(attributes.getInt("NORMAL"), 3, false) : null;
+        Accessor texCoords = attributes.has("TEXCOORD_0") ? readAccessor(attributes.getInt("TEXCOORD_0"), 2, false) : null;
+        if ((normals != null && normals.count != positions.count)
+                || (texCoords != null && texCoords.count != positions.count)) {
+            throw new IOException("Attributes of a primitive have different counts");
+        }
+
+        Accessor indices = null;
+        if (primitive.has("indices")) {
+            indices = readAccessor(primitive.getInt("indices"), 1, true);
+            for (int i = 0; i < indices.count; i++) {
+                int index = indices.getIndex(i);
+                if (index < 0 || index >= positions.count) {
+                    throw new IOException("Index " + (index & 0xFFFFFFFFL) + " out of range for "
+                            + positions.count + " vertices");
+                }
+            }
+        }
+        int vertexCount = indices != null ? indices.count : positions.count;
+        if (vertexCount >= 3) {
+            primitives.add(new Primitive(mode, positions, normals, texCoords, indices, transform));
+        }
+    }
+
+    /**
+     * Merges primitives into one mesh in model space. Primitives without normals get smooth
+     * normals computed from their triangles.
+     * @throws IOException If the primitives contain no non-degenerate triangles.
+     */
+    public static MeshData merge(List<Primitive> primitives) throws IOException {
+        FloatList positions = new FloatList();
+        FloatList normals = new FloatList();
+        FloatList texCoords = new FloatList();
+        IntList indices = new IntList();
+        boolean hasTexCoords = false;
+
+        for (Primitive primitive : primitives) {
+            int[] triangles = primitive.getTriangles();
+            if (triangles.length == 0) {
+                continue;
+            }
+            float[] primitivePositions = primitive.positions.toFloatArray();
+            Matrix4.transformPoints(primitive.transform, primitivePositions);
+            float[] primitiveNormals;
+            if (primitive.normals != null) {
+                primitiveNormals = primitive.normals.toFloatArray();
+                Matrix4.transformNormals(primitive.transform, primitiveNormals);
+            } else {
+                primitiveNormals = computeNormals(primitivePositions, triangles);
+            }
+
+            if (primitive.texCoords != null && !hasTexCoords) {
+                // Earlier primitives had none; give them zeros so the arrays stay aligned.
+                texCoords.addZeros(2 * (positions.size() / 3));
+                hasTexCoords = true;
+            }
+            int base = positions.size() / 3;
+            positions.addAll(primitivePositions);
+            normals.addAll(primitiveNormals);
+            if (hasTexCoords) {
+                if (primitive.texCoords != null) {
+                    texCoords.addAll(primitive.texCoords.toFloatArray());
+                } else {
+                    texCoords.addZeros(2 * primitive.positions.count);
+                }
+            }
+            for (int index : triangles) {
+                indices.add(base + index);
+            }
+        }
+
+        if (indices.size() == 0) {
+            throw new IOException("GLB file contains no triangles");
+        }
+        return new MeshData(positions.toArray(), normals.toArray(), hasTexCoords ? texCoords.toArray() : null,
+                indices.toArray());
+    }
+
+    /**
+     * Converts strip and fan indices to a triangle list, dropping degenerate triangles of strips.
+     * A complete triangle list is returned as is.
+     */
+    static int[] toTriangles(int[] vertexIndices, int mode) {
+        if (mode == MODE_TRIANGLES) {
+            if (vertexIndices.length % 3 == 0) {
+                return vertexIndices;
+            }
+            int count = vertexIndices.length - vertexIndices.length % 3;
+            int[] triangles = new int[count];
+            System.arraycopy(vertexIndices, 0, triangles, 0, count);
+            return triangles;
+        }
+        IntList triangles = new IntList();
+        for (int i = 2; i < vertexIndices.length; i++) {
+            int a;
+            int b;
+            int c = vertexIndices[i];
+            if (mode == MODE_TRIANGLE_FAN) {
+                a = vertexIndices[0];
+                b = vertexIndices[i - 1];
+            } else if (i % 2 == 0) {
+                a = vertexIndices[i - 2];
+                b = vertexIndices[i - 1];
+            } else {
+                // Every other strip triangle is flipped to keep a consistent winding.
+                a = vertexIndices[i - 1];
+                b = vertexIndices[i - 2];
+            }
+            if (a != b && b != c && a != c) {
+                triangles.add(a);
+                triangles.add(b);
+                triangles.add(c);
+            }
+        }
+        return triangles.toArray();
+    }
+
+    /**
+     * Computes smooth vertex normals as the area-weighted sum of the adjacent face normals.
+     */
+    static float[] computeNormals(float[] positions, int[] triangles) {
+        float[] normals = new float[positions.length];
+        for (int t = 0; t < triangles.length; t += 3) {
+            int a = 3 * triangles[t];
+            int b = 3 * triangles[t + 1];
+            int c = 3 * triangles[t + 2];
+            float e1x = positions[b] - positions[a];
+            float e1y = positions[b + 1] - positions[a + 1];
+            float e1z = positions[b + 2] - positions[a + 2];
+            float e2x = positions[c] - positions[a];
+            float e2y = positions[c + 1] - positions[a + 1];
+            float e2z = positions[c + 2] - positions[a + 2];
+            // The cross product's length is twice the triangle area, which weights the sum.
+            float nx = e1y * e2z - e1z * e2y;
+            float ny = e1z * e2x - e1x * e2z;
+            float nz = e1x * e2y - e1y * e2x;
+            for (int v : new int[]{a, b, c}) {
+                normals[v] += nx;
+                normals[v + 1] += ny;
+                normals[v + 2] += nz;
+            }
+        }
+        for (int i = 0; i < normals.length; i += 3) {
+            float length = (float) Math.sqrt(normals[i] * normals[i] + normals[i + 1] * normals[i + 1] + normals[i + 2] * normals[i + 2]);
+            if (length > 0f) {
+                normals[i] /= length;
+                normals[i + 1] /= length;
+                normals[i + 2] /= length;
+            } else {
+                normals[i + 1] = 1f;
+            }
+        }
+        return normals;
+    }
+
+    /**
+     * Resolves an accessor through its buffer view and checks that every element lies inside it.
+     * @param index The accessor index.
+     * @param components The expected number of components per element.
+     * @param isIndices true for an index accessor, which must hold unsigned integers; otherwise
+     * the accessor must hold floats or normalized integers.
+     */
+    private Accessor readAccessor(int index, int components, boolean isIndices) throws IOException, JSONException {
+        JSONObject accessor = json.getJSONArray("accessors").getJSONObject(index);
+        int actual = componentsOf(accessor.getString("type"));
+        if (actual != components) {
+            throw new IOException("Accessor " + index + " has " + actual + " components, expected " + components);
+        }
+        int componentType = accessor.getInt("componentType");
+        boolean normalized = accessor.optBoolean("normalized", false);
+        // 5124 (signed int) is not a valid accessor component type.
+        if (componentType < BYTE || componentType > FLOAT || componentType == 5124) {
+            throw new IOException("Unsupported component type " + componentType);
+        }
+        if (isIndices) {
+            if (componentType != UNSIGNED_BYTE && componentType != UNSIGNED_SHORT && componentType != UNSIGNED_INT) {
+                throw new IOException("Accessor " + index + " is not an index accessor");
+            }
+        } else if (componentType == UNSIGNED_INT || (componentType != FLOAT && !normalized)) {
+            throw new IOException("Accessor " + index + " has non-normalized integer vertex data");
+        }
+        if (accessor.has("sparse")) {
+            throw new IOException("Sparse accessors are not supported (accessor " + index + ")");
+        }
+
+        int count = accessor.getInt("count");
+        int elementSize = componentSize(componentType) * components;
+        if (!accessor.has("bufferView")) {
+            // All elements are zero.
+            ByteBuffer zeros = ByteBuffer.allocate(count * elementSize).order(ByteOrder.LITTLE_ENDIAN);
+            return new Accessor(zeros, componentType, components, count, elementSize, normalized);
+        }
+
+        JSONObject bufferView = json.getJSONArray("bufferViews").getJSONObject(accessor.getInt("bufferView"));
+        int bufferIndex = bufferView.getInt("buffer");
+        if (bufferIndex < 0 || bufferIndex >= buffers.size()) {
+            throw new IOException("Buffer view refers to missing buffer " + bufferIndex);
+        }
+        ByteBuffer buffer = buffers.get(bufferIndex);
+        long viewOffset = bufferView.optLong("byteOffset", 0);
+        long viewLength = bufferView.getLong("byteLength");
+        if (viewOffset < 0 || viewLength < 0 || viewOffset + viewLength > buffer.remaining()) {
+            throw new IOException("Buffer view of accessor " + index + " lies outside its buffer");
+        }
+        int stride = bufferView.optInt("byteStride", 0) > 0 ? bufferView.getInt("byteStride") : elementSize;
+        long accessorOffset = accessor.optLong("byteOffset", 0);
+        long end = accessorOffset + (count > 0 ? (long) stride * (count - 1) + elementSize : 0);
+        if (accessorOffset < 0 || end > viewLength) {
+            throw new IOException("Accessor " + index + " reads past the end of its buffer view");
+        }
+
+        ByteBuffer data = buffer.duplicate();
+        data.position(buffer.position() + (int) (viewOffset + accessorOffset));
+        data.limit(buffer.position() + (int) (viewOffset + end));
+        return new Accessor(data.slice().order(ByteOrder.LITTLE_ENDIAN), componentType, components, count, stride,
+                normalized);
+    }
+
+    private static int componentSize(int componentType) {
+        switch (componentType) {
+            case BYTE:
+            case UNSIGNED_BYTE:
+                return 1;
+            case SHORT:
+            case UNSIGNED_SHORT:
+                return 2;
+            default:
+                return 4;
+        }
+    }
+
+    private static int componentsOf(String type) throws IOException {
+        switch (type) {
+            case "SCALAR":
+                return 1;
+            case "VEC2":
+                return 2;
+            case "VEC3":
+                return 3;
+            case "VEC4":
+                return 4;
+            case "MAT4":
+                return 16;
+            default:
+                throw new IOException("Unsupported accessor type " + type);
+        }
+    }
+
+    /**
+     * Column-major 4x4 matrices, as glTF stores them.
+     */
+    static final class Matrix4 {
+        private Matrix4() {
+        }
+
+        static float[] identity() {
+            return new float[]{1, 0, 0, 0, 0, 1, 0, 0, 0, 0, 1, 0, 0, 0, 0, 1};
+        }
+
+        static float[] multiply(float[] a, float[] b) {
+            float[] result = new float[16];
+            for (int column = 0; column < 4; column++) {
+                for (int row = 0; row < 4; row++) {
+                    float sum = 0f;
+                    for (int k = 0; k < 4; k++) {
+                        sum += a[k * 4 + row] * b[column * 4 + k];
+                    }
+                    result[column * 4 + row] = sum;
+                }
+            }
+            return result;
+        }
+
+        /**
+         * @param t The translation.
+         * @param q The rotation as a unit quaternion x, y, z, w.
+         * @param s The scale.
+         * @return T * R * S.
+         */
+        static float[] fromTrs(float[] t, float[] q, float[] s) {
+            float x = q[0], y = q[1], z = q[2], w = q[3];
+            return new float[]{
+                    (1 - 2 * (y * y + z * z)) * s[0], (2 * (x * y + z * w)) * s[0], (2 * (x * z - y * w)) * s[0], 0,
+                    (2 * (x * y - z * w)) * s[1], (1 - 2 * (x * x + z * z)) * s[1], (2 * (y * z + x * w)) * s[1], 0,
+                    (2 * (x * z + y * w)) * s[2], (2 * (y * z - x * w)) * s[2], (1 - 2 * (x * x + y * y)) * s[2], 0,
+                    t[0], t[1], t[2], 1
+            };
+        }
+
+        static void transformPoints(float[] m, float[] points) {
+            for (int i = 0; i < points.length; i += 3) {
+                float x = points[i], y = points[i + 1], z = points[i + 2];
+                points[i] = m[0] * x + m[4] * y + m[8] * z + m[12];
+                points[i + 1] = m[1] * x + m[5] * y + m[9] * z + m[13];
+                points[i + 2] = m[2] * x + m[6] * y + m[10] * z + m[14];
+            }
+        }
+
+        /**
+         * Transforms normals by the inverse transpose of the upper 3x3 and renormalizes them.
+         */
+        static void transformNormals(float[] m, float[] normals) {
+            // The cofactor matrix is the inverse transpose up to a scale, which normalizing removes.
+            float c00 = m[5] * m[10] - m[6] * m[9];
+            float c01 = m[6] * m[8] - m[4] * m[10];
+            float c02 = m[4] * m[9] - m[5] * m[8];
+            float c10 = m[9] * m[2] - m[10] * m[1];
+            float c11 = m[10] * m[0] - m[8] * m[2];
+            float c12 = m[8] * m[1] - m[9] * m[0];
+            float c20 = m[1] * m[6] - m[2] * m[5];
+            float c21 = m[2] * m[4] - m[0] * m[6];
+            float c22 = m[0] * m[5] - m[1] * m[4];
+            float sign = determinant3(m) < 0 ? -1f : 1f;
+            for (int i = 0; i < normals.length; i += 3) {
+                float x = normals[i], y = normals[i + 1], z = normals[i + 2];
+                float nx = c00 * x + c10 * y + c20 * z;
+                float ny = c01 * x + c11 * y + c21 * z;
+                float nz = c02 * x + c12 * y + c22 * z;
+                float length = (float) Math.sqrt(nx * nx + ny * ny + nz * nz);
+                if (length > 0f) {
+                    normals[i] = sign * nx / length;
+                    normals[i + 1] = sign * ny / length;
+                    normals[i + 2] = sign * nz / length;
+                }
+            }
+        }
+
+        static float determinant3(float[] m) {
+            return m[0] * (m[5] * m[10] - m[6] * m[9])
+                    - m[4] * (m[1] * m[10] - m[2] * m[9])
+                    + m[8] * (m[1] * m[6] - m[2] * m[5]);
+        }
+    }
+
+    /**
+     * A growable float array.
+     */
+    private static final class FloatList {
+        private float[] values = new float[256];
+        private int size;
+
+        void addAll(float[] source) {
+            ensure(size + source.length);
+            System.arraycopy(source, 0, values, size, source.length);
+            size += source.length;
+        }
+
+        void addZeros(int count) {
+            ensure(size + count);
+            size += count;
+        }
+
+        private void ensure(int capacity) {
+            if (capacity > values.length) {
+                values = java.util.Arrays.copyOf(values, Math.max(capacity, 2 * values.length));
+            }
+        }
+
+        int size() {
+            return size;
+        }
+
+        float[] toArray() {
+            return java.util.Arrays.copyOf(values, size);
+        }
+    }
+
+    /**
+     * A growable int array.
+     */
+    private static final class IntList {
+        private int[] values = new int[256];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = java.util.Arrays.copyOf(values, 2 * values.length);
+            }
+            values[size++] = value;
+        }
+
+        int size() {
+            return size;
+        }
+
+        int[] toArray() {
+            return java.util.Arrays.copyOf(values, size);
+        }
+    }
+}
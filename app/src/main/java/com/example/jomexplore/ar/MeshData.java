@@ -0,0 +1,63 @@
+package com.example.jomexplore.ar;
+
+/**
+ * MeshData is an indexed triangle mesh as read from a model file, before it is uploaded for
+ * rendering. All primitives of the model are merged into one vertex list, in model space with
+ * node transforms applied. Arrays are owned by the mesh and must not be modified.
+ */
+public class MeshData {
+    // x, y, z per vertex.
+    public final float[] positions;
+    // Unit normal x, y, z per vertex.
+    public final float[] normals;
+    // u, v per vertex, or null if the model has no texture coordinates.
+    public final float[] texCoords;
+    // Three vertex indices per triangle, counter-clockwise.
+    public final int[] indices;
+    public final int vertexCount;
+    // Axis-aligned bounds of the positions, x, y, z.
+    public final float[] min;
+    public final float[] max;
+
+    /**
+     * @param positions x, y, z per vertex.
+     * @param normals x, y, z per vertex.
+     * @param texCoords u, v per vertex, or null.
+     * @param indices Three vertex indices per triangle.
+     * @throws IllegalArgumentException If the arrays do not describe the same vertices.
+     */
+    public MeshData(float[] positions, float[] normals, float[] texCoords, int[] indices) {
+        if (positions.length % 3 != 0 || normals.length != positions.length
+                || (texCoords != null && texCoords.length / 2 != positions.length / 3)
+                || indices.length % 3 != 0) {
+            throw new IllegalArgumentException("Inconsistent mesh attributes");
+        }
+        this.positions = positions;
+        this.normals = normals;
+        this.texCoords = texCoords;
+        this.indices = indices;
+        this.vertexCount = positions.length / 3;
+        for (int index : indices) {
+            if (index < 0 || index >= vertexCount) {
+                throw new IllegalArgumentException("Index " + index + " out of range for " + vertexCount + " vertices");
+            }
+        }
+
+        min = new float[]{Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY};
+        max = new float[]{Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY};
+        for (int i = 0; i < positions.length; i++) {
+            min[i % 3] = Math.min(min[i % 3], positions[i]);
+            max[i % 3] = Math.max(max[i % 3], positions[i]);
+        }
+    }
+
+    public int getTriangleCount() {
+        return indices.length / 3;
+    }
+
+    @Override
+    public String toString() {
+        return vertexCount + " vertices, " + getTriangleCount() + " triangles"
+                + (texCoords != null ? ", with texture coordinates" : "");
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.jomexplore.ar;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ModelData holds a model ready for OpenGL rendering: welded vertices packed into a compact
+ * interleaved format, drawn through the index buffer. GLBModelLoader and ModelLoader both
+ * produce it and ModelRenderer uploads it as is. Instances are immutable and shared between
+ * loads from the model caches, so the buffers must not be written or have their position moved.
+ */
+public final class ModelData {
+    public final PackedVertices vertexData;
+    public final int vertexCount;
+    // ShortBuffer or IntBuffer of triangle indices, as given by indexType
+    public final Buffer indices;
+    public final int indexCount;
+    public final int indexType;
+    public final float[] color;
+    public final String modelPath;
+
+    public ModelData(float[] vertexArray, float[] normalArray, float[] modelColor) {
+        this(vertexArray, normalArray, modelColor, "procedural");
+    }
+
+    /**
+     * Weld a triangle soup into an indexed mesh
+     */
+    public ModelData(float[] vertexArray, float[] normalArray, float[] modelColor, String path) {
+        this(MeshOptimizer.index(toDirectBuffer(vertexArray), toDirectBuffer(normalArray),
+                vertexArray.length / 3, null), modelColor, path);
+    }
+
+    private ModelData(MeshOptimizer.IndexedMesh mesh, float[] modelColor, String path) {
+        // The float buffers are only needed until the vertices are packed
+        vertexData = PackedVertices.pack(mesh.vertices, mesh.normals, null, mesh.vertexCount);
+        vertexCount = mesh.vertexCount;
+        indices = mesh.indices;
+        indexCount = mesh.indexCount;
+        indexType = mesh.indexType;
+        color = modelColor;
+        modelPath = path;
+    }
+
+    /**
+     * Copy GLB primitives straight from their accessor slices into the direct buffers the
+     * renderer uploads, applying the node transforms, without intermediate float arrays.
+     * @return The model, or null if a primitive has no normals and they must be computed.
+     */
+    static ModelData fromPrimitives(List<GlbParser.Primitive> primitives, float[] modelColor, String path) {
+        List<int[]> triangles = new ArrayList<>(primitives.size());
+        int vertexCount = 0;
+        int indexCount = 0;
+        for (GlbParser.Primitive primitive : primitives) {
+            if (primitive.normals == null) {
+                return null;
+            }
+            int[] primitiveTriangles = primitive.getTriangles();
+            triangles.add(primitiveTriangles);
+            vertexCount += primitive.positions.count;
+            indexCount += primitiveTriangles.length;
+        }
+
+        FloatBuffer vertexBuffer = ByteBuffer.allocateDirect(vertexCount * 3 * 4)
+                .order(ByteOrder.nativeOrder()).asFloatBuffer();
+        FloatBuffer normalBuffer = ByteBuffer.allocateDirect(vertexCount * 3 * 4)
+                .order(ByteOrder.nativeOrder()).asFloatBuffer();
+        int[] indices = new int[indexCount];
+        int base = 0;
+        int indexOffset = 0;
+        float[] vertex = new float[3];
+        for (int p = 0; p < primitives.size(); p++) {
+            GlbParser.Primitive primitive = primitives.get(p);
+            for (int v = 0; v < primitive.positions.count; v++) {
+                for (int c = 0; c < 3; c++) {
+                    vertex[c] = primitive.positions.getFloat(v, c);
+                }
+                GlbParser.Matrix4.transformPoints(primitive.transform, vertex);
+                vertexBuffer.put(vertex);
+                for (int c = 0; c < 3; c++) {
+                    vertex[c] = primitive.normals.getFloat(v, c);
+                }
+                GlbParser.Matrix4.transformNormals(primitive.transform, vertex);
+                normalBuffer.put(vertex);
+            }
+            for (int index : triangles.get(p)) {
+                indices[indexOffset++] = base + index;
+            }
+            base += primitive.positions.count;
+        }
+        vertexBuffer.position(0);
+        normalBuffer.position(0);
+        return new ModelData(MeshOptimizer.index(vertexBuffer, normalBuffer, vertexCount, indices), modelColor, path);
+    }
+
+    /**
+     * Weld and index a parsed mesh for drawing with glDrawElements
+     */
+    static ModelData fromMesh(MeshData mesh, float[] modelColor, String path) {
+        return new ModelData(MeshOptimizer.index(toDirectBuffer(mesh.positions), toDirectBuffer(mesh.normals),
+                mesh.vertexCount, mesh.indices.clone()), modelColor, path);
+    }
+
+    private static FloatBuffer toDirectBuffer(float[] values) {
+        FloatBuffer buffer = ByteBuffer.allocateDirect(values.length * 4)
+                .order(ByteOrder.nativeOrder()).asFloatBuffer();
+        buffer.put(values).position(0);
+        return buffer;
+    }
+}
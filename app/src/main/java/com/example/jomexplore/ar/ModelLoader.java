@@ -3,54 +3,50 @@ package com.example.jomexplore.ar;
 import android.content.Context;
 import android.util.Log;
 
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
-import java.nio.FloatBuffer;
+import com.example.jomexplore.catalog.Landmark;
+import com.example.jomexplore.catalog.LandmarkCatalog;
+
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * ModelLoader handles loading of different 3D model types for AR rendering.
  * This class now uses GLBModelLoader to load actual GLB files from assets when available,
- * falling back to procedural models when needed.
+ * falling back to procedural models when needed. Loaded models are cached and shared by
+ * reference, so placing a landmark again reuses its vertex and index buffers.
  */
 public class ModelLoader {
     private static final String TAG = "ModelLoader";
     private static GLBModelLoader glbLoader;
+    // Models by landmark id; package-private so tests can seed it
+    static final Map<String, ModelData> loadedModels = new HashMap<>();
 
     /**
-     * Data structure to hold model information (compatible with GLBModelLoader)
+     * Load model data based on the model name
+     * Now prioritizes GLB files from assets, falls back to procedural models
      */
-    public static class ModelData {
-        public FloatBuffer vertices;
-        public FloatBuffer normals;
-        public int vertexCount;
-        public float[] color;
-        public String modelPath;
-        
-        public ModelData(float[] vertexArray, float[] normalArray, float[] modelColor) {
-            this(vertexArray, normalArray, modelColor, "procedural");
-        }
-        
-        public ModelData(float[] vertexArray, float[] normalArray, float[] modelColor, String path) {
-            vertexCount = vertexArray.length / 3;
-            
-            vertices = ByteBuffer.allocateDirect(vertexArray.length * 4)
-                    .order(ByteOrder.nativeOrder()).asFloatBuffer();
-            vertices.put(vertexArray).position(0);
-            
-            normals = ByteBuffer.allocateDirect(normalArray.length * 4)
-                    .order(ByteOrder.nativeOrder()).asFloatBuffer();
-            normals.put(normalArray).position(0);
-            
-            color = modelColor;
-            modelPath = path;
+    public static ModelData loadModel(Context context, String modelName) {
+        // A cached model is returned without touching assets or allocating
+        ModelData cached = loadedModels.get(modelName);
+        if (cached != null) {
+            return cached;
         }
+        ModelData result = createModel(context, modelName);
+        loadedModels.put(modelName, result);
+        return result;
     }
 
     /**
-     * Load model data based on the model name
-     * Now prioritizes GLB files from assets, falls back to procedural models
+     * Clear cached models to free memory
      */
-    public static ModelData loadModel(Context context, String modelName) {
+    public static void clearCache() {
+        loadedModels.clear();
+        if (glbLoader != null) {
+            glbLoader.clearCache();
+        }
+    }
+
+    private static ModelData createModel(Context context, String modelName) {
         // Initialize GLB loader if not already done
         if (glbLoader == null) {
             glbLoader = new GLBModelLoader(context);
@@ -64,29 +60,39 @@ public class ModelLoader {
         
         if (hasGLB) {
             Log.i(TAG, "Loading GLB model from assets for: " + modelName);
-            GLBModelLoader.ModelData glbModel = glbLoader.loadGLBModel(modelName);
-            
-            // Convert GLBModelLoader.ModelData to our ModelData format
-            ModelData result = convertGLBModelData(glbModel);
+            ModelData result = glbLoader.loadGLBModel(modelName);
             Log.i(TAG, "Successfully loaded GLB model with " + result.vertexCount + " vertices");
             return result;
         }
         
         // Fallback to procedural models
         Log.i(TAG, "GLB model not found, using procedural model for: " + modelName);
+        return createProceduralModel(context, modelName);
+    }
+
+    /**
+     * Create the procedural model of a landmark, or the default cube for unknown landmarks.
+     * Procedural models are small enough for 16-bit indices on every GPU. Not cached.
+     */
+    static ModelData createProceduralModel(Context context, String modelName) {
         ModelData result = null;
         String modelType = "unknown";
         
-        if (modelName != null) {
-            if (modelName.contains("mosque") || modelName.contains("blue")) {
-                result = createBlueMosqueModel();
-                modelType = "Blue Mosque";
-            } else if (modelName.contains("caves") || modelName.contains("batu")) {
-                result = createBatuCavesModel();
-                modelType = "Batu Caves";
-            } else if (modelName.contains("square") || modelName.contains("merdeka")) {
-                result = createMerdekaSquareModel();
-                modelType = "Merdeka Square";
+        Landmark landmark = LandmarkCatalog.getInstance(context).get(modelName);
+        if (landmark != null) {
+            modelType = landmark.label;
+            switch (landmark.shape) {
+                case MOSQUE:
+                    result = createBlueMosqueModel(landmark.color);
+                    break;
+                case CAVES:
+                    result = createBatuCavesModel(landmark.color);
+                    break;
+                case SQUARE:
+                    result = createMerdekaSquareModel(landmark.color);
+                    break;
+                default:
+                    break;
             }
         }
         
@@ -103,27 +109,10 @@ public class ModelLoader {
         return result;
     }
     
-    /**
-     * Convert GLBModelLoader.ModelData to our ModelData format
-     */
-    private static ModelData convertGLBModelData(GLBModelLoader.ModelData glbData) {
-        // Extract vertex data from GLB model
-        float[] vertices = new float[glbData.vertices.capacity()];
-        glbData.vertices.position(0);
-        glbData.vertices.get(vertices);
-        
-        // Extract normal data from GLB model
-        float[] normals = new float[glbData.normals.capacity()];
-        glbData.normals.position(0);
-        glbData.normals.get(normals);
-        
-        return new ModelData(vertices, normals, glbData.color, glbData.modelPath);
-    }
-
     /**
      * Create a simplified Blue Mosque model
      */
-    private static ModelData createBlueMosqueModel() {
+    static ModelData createBlueMosqueModel(float[] color) {
         float[] vertices = {
             // Base structure (rectangular base)
             -0.2f, 0.0f, -0.15f,   0.2f, 0.0f, -0.15f,   0.2f, 0.2f, -0.15f,
@@ -149,14 +138,13 @@ public class ModelLoader {
         float[] normals = new float[vertices.length];
         calculateNormals(vertices, normals);
         
-        float[] color = {0.3f, 0.6f, 1.0f, 1.0f}; // Blue color for Blue Mosque
         return new ModelData(vertices, normals, color);
     }
 
     /**
      * Create a simplified Batu Caves model
      */
-    private static ModelData createBatuCavesModel() {
+    static ModelData createBatuCavesModel(float[] color) {
         float[] vertices = {
             // Cave entrance (large arch)
             -0.25f, 0.0f,  0.0f,  -0.15f, 0.3f,  0.0f,  -0.05f, 0.2f,  0.0f,
@@ -175,14 +163,13 @@ public class ModelLoader {
         float[] normals = new float[vertices.length];
         calculateNormals(vertices, normals);
         
-        float[] color = {0.8f, 0.7f, 0.5f, 1.0f}; // Sandy/cave color
         return new ModelData(vertices, normals, color);
     }
 
     /**
      * Create a simplified Merdeka Square model
      */
-    private static ModelData createMerdekaSquareModel() {
+    static ModelData createMerdekaSquareModel(float[] color) {
         float[] vertices = {
             // Flagpole
             -0.01f, 0.0f, 0.0f,   0.01f, 0.0f, 0.0f,   0.01f, 0.6f, 0.0f,
@@ -206,14 +193,13 @@ public class ModelLoader {
         float[] normals = new float[vertices.length];
         calculateNormals(vertices, normals);
         
-        float[] color = {0.6f, 0.8f, 0.4f, 1.0f}; // Green/patriotic color
         return new ModelData(vertices, normals, color);
     }
 
     /**
      * Create a default cube model
      */
-    private static ModelData createDefaultModel() {
+    static ModelData createDefaultModel() {
         float[] vertices = {
             // Front face
             -0.1f, -0.1f,  0.1f,   0.1f, -0.1f,  0.1f,   0.1f,  0.1f,  0.1f,
@@ -0,0 +1,195 @@
+package com.example.jomexplore.ar;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+/**
+ * PackedVertices stores mesh vertices interleaved in a compact format for upload to one vertex
+ * buffer object:
+ * <pre>
+ * offset 0:  position, 3 x GL_SHORT normalized, quantized to the mesh bounds, plus 2 bytes padding
+ * offset 8:  normal, 3 x GL_BYTE normalized, plus 1 byte padding
+ * offset 12: texture coordinates, 2 x GL_HALF_FLOAT, only if the mesh has them
+ * </pre>
+ * That is 12 bytes per vertex (16 with texture coordinates) instead of 24 (32) for float
+ * attributes. Quantized positions are mapped back to model space by the dequantize matrix,
+ * which the renderer multiplies into the model-view-projection matrix; it is only a scale and
+ * translation, so normals are not affected. Positions keep 1/65534 of the mesh extent as
+ * precision, normals about half a degree.
+ */
+public final class PackedVertices {
+    // Attribute types, the same values as the GL constants. Half floats are core in OpenGL ES 3.0.
+    public static final int BYTE = 0x1400;
+    public static final int SHORT = 0x1402;
+    public static final int HALF_FLOAT = 0x140B;
+
+    public static final int POSITION_OFFSET = 0;
+    public static final int NORMAL_OFFSET = 8;
+    public static final int TEX_COORD_OFFSET = 12;
+
+    private static final float SHORT_SCALE = 32767f;
+    private static final float BYTE_SCALE = 127f;
+
+    // Interleaved vertices, native byte order.
+    public final ByteBuffer data;
+    public final int vertexCount;
+    // Bytes per vertex: 12, or 16 with texture coordinates.
+    public final int stride;
+    public final boolean hasTexCoords;
+    // Column-major 4x4 matrix from normalized positions to model space.
+    public final float[] dequantize;
+
+    private PackedVertices(ByteBuffer data, int vertexCount, boolean hasTexCoords, float[] dequantize) {
+        this.data = data;
+        this.vertexCount = vertexCount;
+        this.stride = hasTexCoords ? 16 : 12;
+        this.hasTexCoords = hasTexCoords;
+        this.dequantize = dequantize;
+    }
+
+    /**
+     * Packs float attributes.
+     * @param positions x, y, z per vertex, from index 0.
+     * @param normals Unit x, y, z per vertex, from index 0.
+     * @param texCoords u, v per vertex from index 0, or null.
+     * @param vertexCount The number of vertices.
+     */
+    public static PackedVertices pack(FloatBuffer positions, FloatBuffer normals, FloatBuffer texCoords, int vertexCount) {
+        float[] center = new float[3];
+        float[] halfExtent = new float[3];
+        for (int c = 0; c < 3; c++) {
+            float min = Float.POSITIVE_INFINITY;
+            float max = Float.NEGATIVE_INFINITY;
+            for (int v = 0; v < vertexCount; v++) {
+                float value = positions.get(v * 3 + c);
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+            }
+            if (vertexCount == 0) {
+                min = 0f;
+                max = 0f;
+            }
+            center[c] = (min + max) / 2f;
+            // A flat axis still needs a non-zero scale.
+            halfExtent[c] = max > min ? (max - min) / 2f : 1f;
+        }
+
+        boolean hasTexCoords = texCoords != null;
+        PackedVertices packed = new PackedVertices(
+                ByteBuffer.allocateDirect(vertexCount * (hasTexCoords ? 16 : 12)).order(ByteOrder.nativeOrder()),
+                vertexCount, hasTexCoords, new float[]{
+                halfExtent[0], 0, 0, 0,
+                0, halfExtent[1], 0, 0,
+                0, 0, halfExtent[2], 0,
+                center[0], center[1], center[2], 1});
+
+        ByteBuffer data = packed.data;
+        for (int v = 0; v < vertexCount; v++) {
+            int base = v * packed.stride;
+            for (int c = 0; c < 3; c++) {
+                float normalized = (positions.get(v * 3 + c) - center[c]) / halfExtent[c];
+                data.putShort(base + POSITION_OFFSET + 2 * c, (short) quantize(normalized, SHORT_SCALE));
+                data.put(base + NORMAL_OFFSET + c, (byte) quantize(normals.get(v * 3 + c), BYTE_SCALE));
+            }
+            if (hasTexCoords) {
+                data.putShort(base + TEX_COORD_OFFSET, toHalf(texCoords.get(v * 2)));
+                data.putShort(base + TEX_COORD_OFFSET + 2, toHalf(texCoords.get(v * 2 + 1)));
+            }
+        }
+        return packed;
+    }
+
+    private static int quantize(float value, float scale) {
+        return Math.round(Math.max(-1f, Math.min(1f, value)) * scale);
+    }
+
+    /**
+     * Decodes a position into model space, as the GPU does.
+     * @param out Receives x, y, z.
+     */
+    public void getPosition(int vertex, float[] out) {
+        for (int c = 0; c < 3; c++) {
+            float normalized = Math.max(data.getShort(vertex * stride + POSITION_OFFSET + 2 * c) / SHORT_SCALE, -1f);
+            out[c] = dequantize[c * 5] * normalized + dequantize[12 + c];
+        }
+    }
+
+    /**
+     * Decodes a normal, as the GPU does before normalizing it.
+     * @param out Receives x, y, z.
+     */
+    public void getNormal(int vertex, float[] out) {
+        for (int c = 0; c < 3; c++) {
+            out[c] = Math.max(data.get(vertex * stride + NORMAL_OFFSET + c) / BYTE_SCALE, -1f);
+        }
+    }
+
+    /**
+     * Decodes texture coordinates.
+     * @param out Receives u, v.
+     */
+    public void getTexCoord(int vertex, float[] out) {
+        out[0] = fromHalf(data.getShort(vertex * stride + TEX_COORD_OFFSET));
+        out[1] = fromHalf(data.getShort(vertex * stride + TEX_COORD_OFFSET + 2));
+    }
+
+    /**
+     * Converts a float to IEEE 754 half precision, rounding to nearest even.
+     */
+    static short toHalf(float value) {
+        int bits = Float.floatToIntBits(value);
+        int sign = (bits >>> 16) & 0x8000;
+        int exponent = (bits >>> 23) & 0xFF;
+        int mantissa = bits & 0x7FFFFF;
+
+        if (exponent == 0xFF) {
+            // Infinity stays infinity, NaN stays NaN.
+            return (short) (sign | 0x7C00 | (mantissa != 0 ? 0x200 : 0));
+        }
+        int halfExponent = exponent - 127 + 15;
+        if (halfExponent >= 0x1F) {
+            return (short) (sign | 0x7C00);
+        }
+        if (halfExponent <= 0) {
+            if (halfExponent < -10) {
+                return (short) sign;
+            }
+            // Subnormal: shift the mantissa, with its implicit leading one, into place.
+            mantissa |= 0x800000;
+            int shift = 14 - halfExponent;
+            int half = mantissa >> shift;
+            int remainder = mantissa & ((1 << shift) - 1);
+            int halfway = 1 << (shift - 1);
+            if (remainder > halfway || (remainder == halfway && (half & 1) != 0)) {
+                half++;
+            }
+            return (short) (sign | half);
+        }
+        int half = (halfExponent << 10) | (mantissa >> 13);
+        int remainder = mantissa & 0x1FFF;
+        // A carry out of the mantissa correctly rounds up into the exponent.
+        if (remainder > 0x1000 || (remainder == 0x1000 && (half & 1) != 0)) {
+            half++;
+        }
+        return (short) (sign | half);
+    }
+
+    /**
+     * Converts IEEE 754 half precision to a float.
+     */
+    static float fromHalf(short value) {
+        int sign = (value & 0x8000) << 16;
+        int exponent = (value >>> 10) & 0x1F;
+        int mantissa = value & 0x3FF;
+        if (exponent == 0) {
+            // Zero or subnormal: mantissa * 2^-24.
+            float magnitude = mantissa * (1f / (1 << 24));
+            return sign != 0 ? -magnitude : magnitude;
+        }
+        if (exponent == 0x1F) {
+            return Float.intBitsToFloat(sign | 0x7F800000 | (mantissa << 13));
+        }
+        return Float.intBitsToFloat(sign | ((exponent - 15 + 127) << 23) | (mantissa << 13));
+    }
+}
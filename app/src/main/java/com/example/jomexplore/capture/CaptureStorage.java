@@ -0,0 +1,172 @@
+package com.example.jomexplore.capture;
+
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executor;
+
+/**
+ * CaptureStorage owns the directory of kept photos and keeps it within a byte and a file count
+ * budget. Kept photos are never opened again by the app, so there is no use to track: files are
+ * ordered by modification time and the oldest are deleted first; the newest photo is never
+ * deleted. Optionally, large photos are re-encoded to a smaller format before anything is
+ * evicted; re-encoding keeps a photo's modification time, so it keeps its place in the order.
+ * Compaction runs on the given executor, so saving a photo never waits for it.
+ */
+public class CaptureStorage {
+    private static final String TAG = "CaptureStorage";
+
+    /**
+     * Re-encodes a photo into a smaller file.
+     */
+    public interface Recompressor {
+        /**
+         * @param source The photo to re-encode. It is not modified.
+         * @param target The file to write.
+         * @throws IOException If the photo cannot be re-encoded.
+         */
+        void recompress(File source, File target) throws IOException;
+
+        /**
+         * @return The file extension of the re-encoded format, without the dot.
+         */
+        String getExtension();
+    }
+
+    static final String PREFIX = "captured_image_";
+    // Re-encoded photos carry this marker so they are not re-encoded again.
+    static final String COMPACTED_MARKER = "_c";
+
+    private final File directory;
+    private final long maxBytes;
+    private final int maxCount;
+    private final Recompressor recompressor;
+    private final long recompressAboveBytes;
+    private final Executor executor;
+
+    /**
+     * @param directory The photo directory.
+     * @param maxBytes The total size the photos may take.
+     * @param maxCount The number of photos to keep.
+     * @param recompressor Re-encodes large photos, or null to keep photos as they are.
+     * @param recompressAboveBytes Photos larger than this are re-encoded.
+     * @param executor Runs compaction.
+     */
+    public CaptureStorage(File directory, long maxBytes, int maxCount, Recompressor recompressor,
+                          long recompressAboveBytes, Executor executor) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        this.maxCount = maxCount;
+        this.recompressor = recompressor;
+        this.recompressAboveBytes = recompressAboveBytes;
+        this.executor = executor;
+    }
+
+    /**
+     * Creates the directory if needed and picks a name for a new photo.
+     * @return The file to write the photo to.
+     * @throws IOException If the directory cannot be created.
+     */
+    public File newCaptureFile() throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Failed to create " + directory);
+        }
+        return new File(directory, PREFIX + System.currentTimeMillis() + ".jpg");
+    }
+
+    /**
+     * Schedules a compaction after a photo was written.
+     */
+    public void onCaptureSaved() {
+        executor.execute(() -> {
+            try {
+                compact();
+            } catch (RuntimeException e) {
+                // Compaction is best effort; a failure must not take the app down.
+                Log.e(TAG, "Compaction failed", e);
+            }
+        });
+    }
+
+    /**
+     * Re-encodes large photos and then deletes the oldest ones until the directory
+     * is within budget. Runs on the calling thread.
+     * @return The number of photos deleted.
+     */
+    public synchronized int compact() {
+        List<File> photos = listPhotos();
+        if (recompressor != null) {
+            for (int i = 0; i < photos.size(); i++) {
+                photos.set(i, recompressIfLarge(photos.get(i)));
+            }
+        }
+
+        long totalBytes = 0;
+        for (File photo : photos) {
+            totalBytes += photo.length();
+        }
+        // Oldest first; the last entry is the newest photo and always survives.
+        photos.sort(Comparator.comparingLong(File::lastModified));
+        int deleted = 0;
+        for (int i = 0; i < photos.size() - 1; i++) {
+            if (photos.size() - deleted <= maxCount && totalBytes <= maxBytes) {
+                break;
+            }
+            File photo = photos.get(i);
+            long length = photo.length();
+            if (photo.delete()) {
+                totalBytes -= length;
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * @return The photos in the directory, in no particular order.
+     */
+    public List<File> listPhotos() {
+        File[] files = directory.listFiles((dir, name) -> name.startsWith(PREFIX) && !name.endsWith(".tmp"));
+        return files != null ? new ArrayList<>(Arrays.asList(files)) : new ArrayList<>();
+    }
+
+    private File recompressIfLarge(File photo) {
+        String name = photo.getName();
+        int dot = name.lastIndexOf('.');
+        String baseName = dot > 0 ? name.substring(0, dot) : name;
+        if (baseName.endsWith(COMPACTED_MARKER) || photo.length() <= recompressAboveBytes) {
+            return photo;
+        }
+
+        long lastModified = photo.lastModified();
+        File temp = new File(directory, baseName + COMPACTED_MARKER + ".tmp");
+        String extension = recompressor.getExtension().toLowerCase(Locale.ROOT);
+        File target = new File(directory, baseName + COMPACTED_MARKER + "." + extension);
+        try {
+            recompressor.recompress(photo, temp);
+            if (temp.length() > 0 && temp.length() < photo.length() && temp.renameTo(target)) {
+                photo.delete();
+                target.setLastModified(lastModified);
+                return target;
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to re-encode " + photo, e);
+        } finally {
+            temp.delete();
+        }
+
+        // Not worth it: keep the original, but mark it so it is not tried again.
+        File marked = new File(directory, baseName + COMPACTED_MARKER + name.substring(Math.max(dot, 0)));
+        if (dot > 0 && photo.renameTo(marked)) {
+            marked.setLastModified(lastModified);
+            return marked;
+        }
+        return photo;
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.jomexplore.capture;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.os.Build;
+
+import com.example.jomexplore.utils.BitmapPool;
+import com.example.jomexplore.utils.BitmapUtils;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * CaptureStorageProvider holds the app's CaptureStorage for the captured_images directory.
+ * Kept photos are capped at MAX_BYTES and MAX_COUNT, and photos above RECOMPRESS_ABOVE_BYTES are
+ * re-encoded to at most RECOMPRESS_MAX_SIZE pixels, as WebP where lossy WebP is available.
+ */
+public final class CaptureStorageProvider {
+    private static final long MAX_BYTES = 200L * 1024 * 1024;
+    private static final int MAX_COUNT = 300;
+    private static final long RECOMPRESS_ABOVE_BYTES = 3L * 1024 * 1024;
+    private static final int RECOMPRESS_MAX_SIZE = 2048;
+    private static final int RECOMPRESS_QUALITY = 85;
+
+    private static CaptureStorage storage;
+
+    private CaptureStorageProvider() {
+    }
+
+    /**
+     * @param context Any context.
+     * @return The process-wide capture storage.
+     */
+    public static synchronized CaptureStorage get(Context context) {
+        if (storage == null) {
+            File directory = new File(context.getApplicationContext().getExternalFilesDir(null), "captured_images");
+            ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+                Thread thread = new Thread(r, "capture-storage");
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            });
+            storage = new CaptureStorage(directory, MAX_BYTES, MAX_COUNT, new BitmapRecompressor(),
+                    RECOMPRESS_ABOVE_BYTES, executor);
+        }
+        return storage;
+    }
+
+    /**
+     * Decodes a photo upright and downscaled, then encodes it with a smaller format or quality.
+     * The orientation is baked into the pixels, so the result needs no EXIF tag.
+     */
+    private static class BitmapRecompressor implements CaptureStorage.Recompressor {
+        @Override
+        public void recompress(File source, File target) throws IOException {
+            Bitmap bitmap = BitmapUtils.getCorrectlyOrientedBitmap(source.getAbsolutePath(),
+                    RECOMPRESS_MAX_SIZE, RECOMPRESS_MAX_SIZE);
+            if (bitmap == null) {
+                throw new IOException("Failed to decode " + source);
+            }
+            try (OutputStream out = new FileOutputStream(target)) {
+                if (!bitmap.compress(getFormat(), RECOMPRESS_QUALITY, out)) {
+                    throw new IOException("Failed to encode " + target);
+                }
+            } finally {
+                BitmapPool.release(bitmap);
+            }
+        }
+
+        @Override
+        public String getExtension() {
+            return Build.VERSION.SDK_INT >= Build.VERSION_CODES.R ? "webp" : "jpg";
+        }
+
+        private static Bitmap.CompressFormat getFormat() {
+            return Build.VERSION.SDK_INT >= Build.VERSION_CODES.R
+                    ? Bitmap.CompressFormat.WEBP_LOSSY : Bitmap.CompressFormat.JPEG;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.jomexplore.capture;
+
+/**
+ * CapturedImage is a photo taken in memory: the encoded JPEG exactly as the camera produced it
+ * and its rotation. Nothing is written to disk until the user decides to keep the photo.
+ */
+public class CapturedImage {
+    // The encoded image as delivered by ImageCapture, in sensor orientation.
+    public final byte[] jpeg;
+    // The clockwise rotation that makes the JPEG upright.
+    public final int rotationDegrees;
+    // When the photo was taken; identifies the capture across process restarts.
+    public final long captureTimeMillis;
+
+    public CapturedImage(byte[] jpeg, int rotationDegrees) {
+        this(jpeg, rotationDegrees, System.currentTimeMillis());
+    }
+
+    public CapturedImage(byte[] jpeg, int rotationDegrees, long captureTimeMillis) {
+        this.jpeg = jpeg;
+        this.rotationDegrees = rotationDegrees;
+        this.captureTimeMillis = captureTimeMillis;
+    }
+
+    /**
+     * @return The ImageCache key of this capture.
+     */
+    public String getCacheKey() {
+        return "capture:" + captureTimeMillis + ":" + jpeg.length;
+    }
+}
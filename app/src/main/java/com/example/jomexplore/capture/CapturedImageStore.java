@@ -0,0 +1,58 @@
+package com.example.jomexplore.capture;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * CapturedImageStore hands in-memory captures from CameraActivity to RecognitionResultActivity.
+ * Bitmaps are too large for an Intent, so only the handle returned by put() is passed as an extra
+ * and the image stays in this process. At most MAX_ENTRIES captures are kept; the oldest is
+ * dropped first. A handle can therefore be missing, e.g. after process death, and callers must
+ * handle a null get().
+ */
+public final class CapturedImageStore {
+    static final int MAX_ENTRIES = 3;
+
+    private static final Map<Long, CapturedImage> entries = new LinkedHashMap<>();
+    private static long nextHandle = 1;
+
+    private CapturedImageStore() {
+    }
+
+    /**
+     * Stores a capture.
+     * @param image The capture to keep.
+     * @return The handle to pass to get() and remove().
+     */
+    public static synchronized long put(CapturedImage image) {
+        long handle = nextHandle++;
+        entries.put(handle, image);
+        Iterator<Long> oldest = entries.keySet().iterator();
+        while (entries.size() > MAX_ENTRIES) {
+            oldest.next();
+            oldest.remove();
+        }
+        return handle;
+    }
+
+    /**
+     * @param handle A handle returned by put().
+     * @return The capture, or null if it was removed or evicted.
+     */
+    public static synchronized CapturedImage get(long handle) {
+        return entries.get(handle);
+    }
+
+    /**
+     * Releases a capture once the screen showing it is finished.
+     * @param handle A handle returned by put().
+     */
+    public static synchronized void remove(long handle) {
+        entries.remove(handle);
+    }
+
+    static synchronized void clear() {
+        entries.clear();
+    }
+}
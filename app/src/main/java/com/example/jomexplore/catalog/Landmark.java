@@ -0,0 +1,37 @@
+package com.example.jomexplore.catalog;
+
+/**
+ * Landmark holds everything the app knows about one heritage site: its display name,
+ * description and how to show it in AR.
+ */
+public class Landmark {
+
+    /**
+     * The procedural model drawn when no GLB asset with content is available.
+     */
+    public enum Shape {
+        MOSQUE,
+        CAVES,
+        SQUARE,
+        CUBE
+    }
+
+    // Identifier shared by the classifier labels and asset names, e.g. "batu_caves".
+    public final String id;
+    public final String label;
+    public final String description;
+    // Asset path of the GLB model, or null if the landmark has none.
+    public final String arModelPath;
+    public final Shape shape;
+    // RGBA color the AR model is drawn with.
+    public final float[] color;
+
+    public Landmark(String id, String label, String description, String arModelPath, Shape shape, float[] color) {
+        this.id = id;
+        this.label = label;
+        this.description = description;
+        this.arModelPath = arModelPath;
+        this.shape = shape;
+        this.color = color;
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.jomexplore.catalog;
+
+import android.content.Context;
+import android.util.Log;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * LandmarkCatalog is the single source of landmark data for the classifier, the result screen
+ * and the AR loaders. It is read from assets/landmarks.json once per process and indexed by id,
+ * so adding a site is a data change and lookups are a hash map access.
+ */
+public class LandmarkCatalog {
+    private static final String TAG = "LandmarkCatalog";
+    private static final String CATALOG_ASSET = "landmarks.json";
+
+    private static LandmarkCatalog instance;
+
+    private final List<Landmark> landmarks;
+    private final Map<String, Landmark> byId;
+
+    public LandmarkCatalog(List<Landmark> landmarks) {
+        this.landmarks = Collections.unmodifiableList(new ArrayList<>(landmarks));
+        Map<String, Landmark> index = new HashMap<>();
+        for (Landmark landmark : landmarks) {
+            if (index.put(landmark.id, landmark) != null) {
+                throw new IllegalArgumentException("Duplicate landmark id: " + landmark.id);
+            }
+        }
+        this.byId = index;
+    }
+
+    /**
+     * Returns the process-wide catalog, reading it from assets on first use.
+     * If the asset is missing or malformed, the catalog is empty and the error is logged.
+     * @param context Any context.
+     * @return The catalog.
+     */
+    public static synchronized LandmarkCatalog getInstance(Context context) {
+        if (instance == null) {
+            long startNanos = System.nanoTime();
+            try (InputStream in = context.getApplicationContext().getAssets().open(CATALOG_ASSET)) {
+                instance = parse(in);
+                Log.d(TAG, "Loaded " + instance.size() + " landmarks in "
+                        + (System.nanoTime() - startNanos) / 1000 + " us");
+            } catch (IOException | JSONException | IllegalArgumentException e) {
+                Log.e(TAG, "Failed to load " + CATALOG_ASSET, e);
+                instance = new LandmarkCatalog(Collections.<Landmark>emptyList());
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Parses a catalog file:
+     * <pre>
+     * {"landmarks": [{"id": "batu_caves", "label": "Batu Caves", "description": "...",
+     *                 "arModel": "ar_assets/batu_caves.glb", "shape": "caves",
+     *                 "color": [0.8, 0.7, 0.5, 1.0]}]}
+     * </pre>
+     * Only "id" and "label" are required.
+     * @param in The JSON file contents, UTF-8 encoded. It is not closed.
+     * @return The catalog.
+     * @throws IOException If the stream cannot be read.
+     * @throws JSONException If the file is malformed.
+     */
+    public static LandmarkCatalog parse(InputStream in) throws IOException, JSONException {
+        JSONArray entries = new JSONObject(readFully(in)).getJSONArray("landmarks");
+        List<Landmark> landmarks = new ArrayList<>(entries.length());
+        for (int i = 0; i < entries.length(); i++) {
+            JSONObject entry = entries.getJSONObject(i);
+            landmarks.add(new Landmark(
+                    entry.getString("id"),
+                    entry.getString("label"),
+                    entry.optString("description", ""),
+                    entry.has("arModel") ? entry.getString("arModel") : null,
+                    Landmark.Shape.valueOf(entry.optString("shape", "cube").toUpperCase(Locale.ROOT)),
+                    parseColor(entry.optJSONArray("color"))));
+        }
+        return new LandmarkCatalog(landmarks);
+    }
+
+    private static float[] parseColor(JSONArray color) throws JSONException {
+        if (color == null) {
+            return new float[]{1.0f, 0.5f, 0.0f, 1.0f};
+        }
+        if (color.length() != 4) {
+            throw new JSONException("Color must have 4 components: " + color);
+        }
+        float[] rgba = new float[4];
+        for (int i = 0; i < 4; i++) {
+            rgba[i] = (float) color.getDouble(i);
+        }
+        return rgba;
+    }
+
+    private static String readFully(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param id The landmark id, e.g. "merdeka_square".
+     * @return The landmark, or null if the catalog has no entry for the id.
+     */
+    public Landmark get(String id) {
+        return id != null ? byId.get(id) : null;
+    }
+
+    /**
+     * @return All landmarks in file order.
+     */
+    public List<Landmark> getAll() {
+        return landmarks;
+    }
+
+    public int size() {
+        return landmarks.size();
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.jomexplore.classifier;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * BackendConfig describes how the TFLite interpreter should execute: the CPU thread count,
+ * whether the XNNPACK CPU delegate is used, and the order in which hardware delegates are
+ * tried. The CPU is always the last entry, so creating an interpreter can always fall back to it.
+ */
+public class BackendConfig {
+
+    /**
+     * The execution backends the classifier can use.
+     */
+    public enum Accelerator {
+        GPU,
+        NNAPI,
+        CPU
+    }
+
+    public final int numThreads;
+    public final boolean useXnnpack;
+    public final List<Accelerator> fallbackOrder;
+
+    /**
+     * @param numThreads The number of CPU threads for the interpreter.
+     * @param useXnnpack Whether the XNNPACK delegate is used for CPU execution.
+     * @param fallbackOrder The accelerators to try, most preferred first. CPU is appended if missing.
+     */
+    public BackendConfig(int numThreads, boolean useXnnpack, List<Accelerator> fallbackOrder) {
+        this.numThreads = Math.max(1, numThreads);
+        this.useXnnpack = useXnnpack;
+
+        List<Accelerator> order = new ArrayList<>();
+        for (Accelerator accelerator : fallbackOrder) {
+            if (accelerator != Accelerator.CPU && !order.contains(accelerator)) {
+                order.add(accelerator);
+            }
+        }
+        order.add(Accelerator.CPU);
+        this.fallbackOrder = Collections.unmodifiableList(order);
+    }
+
+    /**
+     * Creates a configuration that tries one accelerator before falling back to the CPU.
+     * @param preferred The accelerator to try first.
+     * @param numThreads The number of CPU threads.
+     * @param useXnnpack Whether XNNPACK is used on the CPU.
+     */
+    public static BackendConfig preferring(Accelerator preferred, int numThreads, boolean useXnnpack) {
+        return new BackendConfig(numThreads, useXnnpack, Collections.singletonList(preferred));
+    }
+
+    /**
+     * Creates a configuration that tries accelerators in the order of their benchmark times, so a
+     * winner that later fails to initialize degrades to the next fastest instead of straight to
+     * the CPU.
+     * @param nanos The time per inference of each accelerator that ran. Accelerators that failed
+     * to run are left out and never tried, and so are those slower than the CPU.
+     * @param numThreads The number of CPU threads.
+     * @param useXnnpack Whether XNNPACK is used on the CPU.
+     */
+    public static BackendConfig ranked(Map<Accelerator, Long> nanos, int numThreads, boolean useXnnpack) {
+        List<Accelerator> order = new ArrayList<>(nanos.keySet());
+        Collections.sort(order, (a, b) -> Long.compare(nanos.get(a), nanos.get(b)));
+        int cpuIndex = order.indexOf(Accelerator.CPU);
+        if (cpuIndex >= 0) {
+            order = order.subList(0, cpuIndex);
+        }
+        return new BackendConfig(numThreads, useXnnpack, order);
+    }
+
+    /**
+     * @return The accelerator tried first.
+     */
+    public Accelerator preferred() {
+        return fallbackOrder.get(0);
+    }
+
+    /**
+     * Serializes the configuration for caching, e.g. "GPU,CPU;4;xnnpack".
+     */
+    public String encode() {
+        StringBuilder builder = new StringBuilder();
+        for (Accelerator accelerator : fallbackOrder) {
+            if (builder.length() > 0) {
+                builder.append(',');
+            }
+            builder.append(accelerator.name());
+        }
+        builder.append(';').append(numThreads).append(';').append(useXnnpack ? "xnnpack" : "plain");
+        return builder.toString();
+    }
+
+    /**
+     * Parses a configuration written by encode().
+     * @param encoded The cached string.
+     * @return The configuration, or null if the string is missing or malformed.
+     */
+    public static BackendConfig decode(String encoded) {
+        if (encoded == null) {
+            return null;
+        }
+        String[] parts = encoded.split(";");
+        if (parts.length != 3) {
+            return null;
+        }
+        try {
+            List<Accelerator> order = new ArrayList<>();
+            for (String name : parts[0].split(",")) {
+                order.add(Accelerator.valueOf(name));
+            }
+            return new BackendConfig(Integer.parseInt(parts[1]), "xnnpack".equals(parts[2]), order);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return encode();
+    }
+}
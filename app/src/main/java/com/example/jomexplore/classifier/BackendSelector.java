@@ -0,0 +1,126 @@
+package com.example.jomexplore.classifier;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Build;
+import android.util.Log;
+
+import org.tensorflow.lite.Interpreter;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * BackendSelector picks the fastest inference backend for this device and model.
+ * The first time a model is loaded on a device, every accelerator is timed with a short
+ * micro-benchmark; the ranking, fastest first, is cached in SharedPreferences so later
+ * launches skip it.
+ */
+public class BackendSelector {
+    private static final String TAG = "BackendSelector";
+    private static final String PREFS_NAME = "inference_backend";
+    private static final int WARM_UP_RUNS = 2;
+    private static final int TIMED_RUNS = 5;
+
+    private BackendSelector() {
+    }
+
+    /**
+     * Returns the cached backend choice for the model, running the benchmark if there is none.
+     * This can take a second on the first run and must not be called on the main thread.
+     * @param context The application context.
+     * @param model The TFLite model.
+     * @param modelKey A key identifying the model, e.g. its file name and size.
+     * @return The configuration to create the interpreter with.
+     */
+    public static BackendConfig select(Context context, ByteBuffer model, String modelKey) {
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        // A system update can change GPU and NNAPI drivers, so the fingerprint is part of the key.
+        String cacheKey = modelKey + "|" + Build.FINGERPRINT;
+        BackendConfig cached = BackendConfig.decode(prefs.getString(cacheKey, null));
+        if (cached != null) {
+            Log.d(TAG, "Using cached backend " + cached + " for " + modelKey);
+            return cached;
+        }
+
+        BackendConfig selected = benchmark(model, CpuTopology.recommendedThreadCount());
+        prefs.edit().putString(cacheKey, selected.encode()).apply();
+        return selected;
+    }
+
+    /**
+     * Times each accelerator (and the CPU with and without XNNPACK) and ranks them.
+     * @param model The TFLite model.
+     * @param numThreads The CPU thread count to use.
+     * @return The accelerators that ran, fastest first, with the CPU as the last fallback.
+     */
+    private static BackendConfig benchmark(ByteBuffer model, int numThreads) {
+        Map<BackendConfig.Accelerator, Long> nanosByAccelerator = new EnumMap<>(BackendConfig.Accelerator.class);
+        boolean useXnnpack = true;
+
+        for (BackendConfig.Accelerator accelerator : BackendConfig.Accelerator.values()) {
+            boolean[] xnnpackOptions = accelerator == BackendConfig.Accelerator.CPU
+                    ? new boolean[]{true, false} : new boolean[]{true};
+            for (boolean xnnpack : xnnpackOptions) {
+                long nanos = timeBackend(model, accelerator, numThreads, xnnpack);
+                Log.d(TAG, "Benchmark " + accelerator + (xnnpack ? "" : " (no XNNPACK)") + ": "
+                        + (nanos == Long.MAX_VALUE ? "unavailable" : (nanos / 1000) + " us/inference"));
+                if (nanos == Long.MAX_VALUE) {
+                    continue;
+                }
+                Long best = nanosByAccelerator.get(accelerator);
+                if (best == null || nanos < best) {
+                    nanosByAccelerator.put(accelerator, nanos);
+                    if (accelerator == BackendConfig.Accelerator.CPU) {
+                        useXnnpack = xnnpack;
+                    }
+                }
+            }
+        }
+
+        BackendConfig ranked = BackendConfig.ranked(nanosByAccelerator, numThreads, useXnnpack);
+        Log.i(TAG, "Selected backend " + ranked);
+        return ranked;
+    }
+
+    /**
+     * Runs a few dummy inferences on one backend.
+     * @return The average time per inference in nanoseconds, or Long.MAX_VALUE if unavailable.
+     */
+    private static long timeBackend(ByteBuffer model, BackendConfig.Accelerator accelerator,
+                                    int numThreads, boolean useXnnpack) {
+        InferenceBackend backend = null;
+        try {
+            backend = InferenceBackend.createFor(model, accelerator, numThreads, useXnnpack);
+            Interpreter interpreter = backend.getInterpreter();
+            ByteBuffer input = ByteBuffer.allocateDirect(interpreter.getInputTensor(0).numBytes())
+                    .order(ByteOrder.nativeOrder());
+            ByteBuffer output = ByteBuffer.allocateDirect(interpreter.getOutputTensor(0).numBytes())
+                    .order(ByteOrder.nativeOrder());
+
+            for (int i = 0; i < WARM_UP_RUNS; i++) {
+                runOnce(interpreter, input, output);
+            }
+            long start = System.nanoTime();
+            for (int i = 0; i < TIMED_RUNS; i++) {
+                runOnce(interpreter, input, output);
+            }
+            return (System.nanoTime() - start) / TIMED_RUNS;
+        } catch (Exception e) {
+            Log.w(TAG, accelerator + " backend failed during benchmark", e);
+            return Long.MAX_VALUE;
+        } finally {
+            if (backend != null) {
+                backend.close();
+            }
+        }
+    }
+
+    private static void runOnce(Interpreter interpreter, ByteBuffer input, ByteBuffer output) {
+        input.rewind();
+        output.rewind();
+        interpreter.run(input, output);
+    }
+}
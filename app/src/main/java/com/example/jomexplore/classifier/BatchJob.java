@@ -0,0 +1,368 @@
+package com.example.jomexplore.classifier;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * BatchJob classifies a list of image sources, e.g. photos imported from the gallery.
+ * Several decode workers turn sources into model inputs in parallel, and one inference worker
+ * packs whatever is decoded into batches of up to batchSize inputs, so the interpreter runs once
+ * per batch instead of once per image. Decoded inputs wait in a bounded queue, which keeps at
+ * most batchSize + decodeThreads of them in memory; decoders wait while it is full.
+ * <p>
+ * Results are streamed to the Listener as each batch finishes, in completion order, followed by
+ * onFinished(). After cancel() no further results are delivered, inputs still queued are
+ * recycled and onFinished(true) is the last callback.
+ * @param <S> The source type, e.g. a content Uri.
+ * @param <I> The decoded input type, e.g. a Bitmap.
+ * @param <R> The result type.
+ */
+public class BatchJob<S, I, R> {
+
+    /**
+     * Turns a source into a model input. Runs on a decode worker, possibly several at once.
+     */
+    public interface Decoder<S, I> {
+        /**
+         * @return The input, or null if the source cannot be decoded.
+         */
+        I decode(S source) throws Exception;
+    }
+
+    /**
+     * Classifies a batch of inputs. Runs on the inference worker.
+     */
+    public interface Classifier<I, R> {
+        /**
+         * @param inputs Between 1 and batchSize inputs.
+         * @return One result per input, in the same order.
+         */
+        List<R> classify(List<I> inputs) throws Exception;
+    }
+
+    /**
+     * Releases an input once it is no longer needed, e.g. to a bitmap pool.
+     */
+    public interface Recycler<I> {
+        void recycle(I input);
+    }
+
+    /**
+     * Receives the progress of a job. Runs on the callback executor.
+     */
+    public interface Listener<S, R> {
+        /**
+         * @param index The position of the source in the job's list.
+         */
+        void onResult(int index, S source, R result);
+
+        /**
+         * Called for a source that could not be decoded or classified.
+         */
+        void onError(int index, S source, Exception e);
+
+        /**
+         * @param completed The number of sources with a result or an error so far.
+         * @param total The number of sources in the job.
+         */
+        void onProgress(int completed, int total);
+
+        /**
+         * The last callback of the job.
+         * @param cancelled true if the job was cancelled before every source completed.
+         */
+        void onFinished(boolean cancelled);
+    }
+
+    /**
+     * Configures and starts a job.
+     */
+    public static class Builder<S, I, R> {
+        private final Decoder<S, I> decoder;
+        private final Classifier<I, R> classifier;
+        private Recycler<I> recycler = input -> { };
+        private int batchSize = 8;
+        private int decodeThreads = 2;
+
+        public Builder(Decoder<S, I> decoder, Classifier<I, R> classifier) {
+            this.decoder = decoder;
+            this.classifier = classifier;
+        }
+
+        /**
+         * @param batchSize The most inputs classified in one call.
+         */
+        public Builder<S, I, R> setBatchSize(int batchSize) {
+            this.batchSize = Math.max(1, batchSize);
+            return this;
+        }
+
+        /**
+         * @param decodeThreads The number of decode workers. The decode executor should be able to
+         * run this many tasks at once.
+         */
+        public Builder<S, I, R> setDecodeThreads(int decodeThreads) {
+            this.decodeThreads = Math.max(1, decodeThreads);
+            return this;
+        }
+
+        public Builder<S, I, R> setRecycler(Recycler<I> recycler) {
+            this.recycler = recycler;
+            return this;
+        }
+
+        /**
+         * Starts the job.
+         * @param sources The sources to classify.
+         * @param decodeExecutor Runs the decode workers.
+         * @param inferenceExecutor Runs the inference worker.
+         * @param callbackExecutor Runs the Listener, e.g. the main thread.
+         * @param listener Receives results and progress.
+         * @return The running job.
+         */
+        public BatchJob<S, I, R> start(List<S> sources, Executor decodeExecutor, Executor inferenceExecutor,
+                                       Executor callbackExecutor, Listener<S, R> listener) {
+            BatchJob<S, I, R> job = new BatchJob<>(this, sources, callbackExecutor, listener);
+            for (int i = 0; i < Math.min(decodeThreads, sources.size()); i++) {
+                decodeExecutor.execute(job::decodeLoop);
+            }
+            inferenceExecutor.execute(job::inferenceLoop);
+            return job;
+        }
+    }
+
+    /**
+     * One decoded source, or the reason it could not be decoded.
+     */
+    private static class Decoded<I> {
+        final int index;
+        final I input;
+        final Exception error;
+
+        Decoded(int index, I input, Exception error) {
+            this.index = index;
+            this.input = input;
+            this.error = error;
+        }
+    }
+
+    // Wakes the inference worker after cancel().
+    private static final Decoded<?> WAKE_UP = new Decoded<>(-1, null, null);
+
+    private final List<S> sources;
+    private final Decoder<S, I> decoder;
+    private final Classifier<I, R> classifier;
+    private final Recycler<I> recycler;
+    private final int batchSize;
+    private final Executor callbackExecutor;
+    private final Listener<S, R> listener;
+
+    private final BlockingQueue<Decoded<I>> decoded;
+    private final AtomicInteger nextIndex = new AtomicInteger();
+    private volatile boolean cancelled;
+
+    // Statistics, written by the inference worker.
+    private final long startNanos = System.nanoTime();
+    private volatile long finishNanos;
+    private volatile int completed;
+    private volatile int batches;
+
+    private BatchJob(Builder<S, I, R> builder, List<S> sources, Executor callbackExecutor, Listener<S, R> listener) {
+        this.sources = Collections.unmodifiableList(new ArrayList<>(sources));
+        this.decoder = builder.decoder;
+        this.classifier = builder.classifier;
+        this.recycler = builder.recycler;
+        this.batchSize = builder.batchSize;
+        this.callbackExecutor = callbackExecutor;
+        this.listener = listener;
+        this.decoded = new ArrayBlockingQueue<>(builder.batchSize + builder.decodeThreads);
+    }
+
+    private void decodeLoop() {
+        boolean finished = false;
+        try {
+            int index;
+            while (!cancelled && (index = nextIndex.getAndIncrement()) < sources.size()) {
+                Decoded<I> item = decode(index);
+                try {
+                    decoded.put(item);
+                } catch (InterruptedException e) {
+                    recycle(item);
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                if (cancelled) {
+                    // The inference worker may already have drained the queue.
+                    drain();
+                }
+            }
+            finished = true;
+        } finally {
+            if (!finished) {
+                // The sources this worker claimed will never be queued, so the inference worker
+                // would wait for them forever. Stop the job instead.
+                cancel();
+            }
+        }
+    }
+
+    private Decoded<I> decode(int index) {
+        S source = sources.get(index);
+        try {
+            I input = decoder.decode(source);
+            return input != null ? new Decoded<>(index, input, null)
+                    : new Decoded<>(index, null, new IOException("Could not decode " + source));
+        } catch (Exception e) {
+            return new Decoded<>(index, null, e);
+        } catch (Throwable t) {
+            // E.g. an OutOfMemoryError on one huge photo: report it for this source and go on.
+            return new Decoded<>(index, null, new ExecutionException("Could not decode " + source, t));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void inferenceLoop() {
+        List<Decoded<I>> batch = new ArrayList<>(batchSize);
+        List<I> inputs = new ArrayList<>(batchSize);
+        int received = 0;
+        try {
+            while (received < sources.size() && !cancelled) {
+                batch.clear();
+                batch.add(decoded.take());
+                decoded.drainTo(batch, batchSize - 1);
+                batch.removeIf(item -> item == WAKE_UP);
+                received += batch.size();
+                if (cancelled) {
+                    batch.forEach(this::recycle);
+                    break;
+                }
+                if (!batch.isEmpty()) {
+                    classifyBatch(batch, inputs);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            boolean finishedEarly = received < sources.size();
+            if (finishedEarly) {
+                // Stops the decoders, e.g. after an Error escaped the classifier.
+                cancelled = true;
+            }
+            drain();
+            finishNanos = System.nanoTime();
+            callbackExecutor.execute(() -> listener.onFinished(finishedEarly));
+        }
+    }
+
+    private void classifyBatch(List<Decoded<I>> batch, List<I> inputs) {
+        inputs.clear();
+        for (Decoded<I> item : batch) {
+            if (item.input != null) {
+                inputs.add(item.input);
+            }
+        }
+
+        List<R> results = Collections.emptyList();
+        Exception error = null;
+        if (!inputs.isEmpty()) {
+            try {
+                results = classifier.classify(inputs);
+                if (results.size() != inputs.size()) {
+                    throw new IllegalStateException("Got " + results.size() + " results for " + inputs.size() + " inputs");
+                }
+            } catch (Exception e) {
+                error = e;
+            } catch (Throwable t) {
+                error = new ExecutionException("Could not classify a batch of " + inputs.size(), t);
+            }
+            batches++;
+        }
+        final List<R> batchResults = results;
+        final Exception batchError = error;
+        batch.forEach(this::recycle);
+
+        int resultIndex = 0;
+        for (Decoded<I> item : batch) {
+            int index = item.index;
+            S source = sources.get(index);
+            if (item.error != null) {
+                deliver(() -> listener.onError(index, source, item.error));
+            } else if (batchError != null) {
+                deliver(() -> listener.onError(index, source, batchError));
+            } else {
+                R result = batchResults.get(resultIndex++);
+                deliver(() -> listener.onResult(index, source, result));
+            }
+        }
+        completed += batch.size();
+        int progress = completed;
+        deliver(() -> listener.onProgress(progress, sources.size()));
+    }
+
+    /**
+     * Posts a callback that is dropped if the job is cancelled before it runs.
+     */
+    private void deliver(Runnable callback) {
+        callbackExecutor.execute(() -> {
+            if (!cancelled) {
+                callback.run();
+            }
+        });
+    }
+
+    private void recycle(Decoded<I> item) {
+        if (item.input != null) {
+            recycler.recycle(item.input);
+        }
+    }
+
+    private void drain() {
+        Decoded<I> item;
+        while ((item = decoded.poll()) != null) {
+            recycle(item);
+        }
+    }
+
+    /**
+     * Stops the job. Sources that are being decoded or classified finish, but their results are
+     * not delivered. Only onFinished(true) follows, unless the job had already finished.
+     */
+    @SuppressWarnings("unchecked")
+    public void cancel() {
+        cancelled = true;
+        decoded.offer((Decoded<I>) WAKE_UP);
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * @return The number of sources in the job.
+     */
+    public int getTotal() {
+        return sources.size();
+    }
+
+    /**
+     * @return The number of sources completed per second, measured until the job finished.
+     */
+    public double getImagesPerSecond() {
+        long end = finishNanos != 0 ? finishNanos : System.nanoTime();
+        return completed * 1e9 / Math.max(1, end - startNanos);
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "%d/%d images in %d batches, %.1f images/s%s",
+                completed, sources.size(), batches, getImagesPerSecond(), cancelled ? " (cancelled)" : "");
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.jomexplore.classifier;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+
+/**
+ * CpuTopology sizes the inference thread pool to the device's performance cores.
+ * On big.LITTLE devices, running TFLite threads on the efficiency cores usually slows
+ * inference down, so only cores faster than the slowest cluster are counted.
+ */
+public final class CpuTopology {
+    // Beyond four threads, a 224x224 classifier rarely gets faster on phones.
+    private static final int MAX_THREADS = 4;
+
+    private CpuTopology() {
+    }
+
+    /**
+     * @return The number of interpreter threads to use on this device.
+     */
+    public static int recommendedThreadCount() {
+        int processors = Runtime.getRuntime().availableProcessors();
+        return recommendedThreadCount(readMaxFrequencies(new File("/sys/devices/system/cpu"), processors), processors);
+    }
+
+    /**
+     * Counts the cores outside the slowest cluster, capped to MAX_THREADS.
+     * @param maxFrequencies The maximum frequency of each core, or 0 where it is unknown.
+     * @param availableProcessors The number of processors available to the VM.
+     * @return The recommended thread count, at least 1.
+     */
+    static int recommendedThreadCount(long[] maxFrequencies, int availableProcessors) {
+        long slowest = Long.MAX_VALUE;
+        int known = 0;
+        for (long frequency : maxFrequencies) {
+            if (frequency > 0) {
+                slowest = Math.min(slowest, frequency);
+                known++;
+            }
+        }
+
+        int bigCores;
+        if (known == 0) {
+            // No cpufreq information: assume half of the cores are performance cores.
+            bigCores = availableProcessors / 2;
+        } else {
+            bigCores = 0;
+            for (long frequency : maxFrequencies) {
+                if (frequency > slowest) {
+                    bigCores++;
+                }
+            }
+            if (bigCores == 0) {
+                // Homogeneous CPU: every core is a performance core.
+                bigCores = known;
+            }
+        }
+        return Math.max(1, Math.min(MAX_THREADS, bigCores));
+    }
+
+    /**
+     * Reads cpuinfo_max_freq for each core from sysfs.
+     * @param cpuDir The sysfs cpu directory.
+     * @param processors The number of cores to read.
+     * @return The maximum frequency of each core in kHz, or 0 where it could not be read.
+     */
+    static long[] readMaxFrequencies(File cpuDir, int processors) {
+        long[] frequencies = new long[processors];
+        for (int i = 0; i < processors; i++) {
+            File file = new File(cpuDir, "cpu" + i + "/cpufreq/cpuinfo_max_freq");
+            try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+                String line = reader.readLine();
+                frequencies[i] = line != null ? Long.parseLong(line.trim()) : 0;
+            } catch (IOException | NumberFormatException e) {
+                frequencies[i] = 0;
+            }
+        }
+        return frequencies;
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.jomexplore.classifier;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.PorterDuff;
+import android.graphics.PorterDuffXfermode;
+
+import java.nio.ByteBuffer;
+
+/**
+ * ImagePreprocessor turns an arbitrary bitmap into the model's input tensor.
+ * It keeps one scaled-bitmap target, one pixel scratch array and one InputTensor for its
+ * whole lifetime, so steady-state preprocessing does not allocate. An instance is meant to
+ * be owned by a single interpreter and is not thread-safe.
+ */
+public class ImagePreprocessor {
+    private final Bitmap scaledBitmap;
+    private final Canvas canvas;
+    private final Paint paint;
+    private final Matrix matrix = new Matrix();
+    private final int[] pixels;
+    private final InputTensor inputTensor;
+
+    /**
+     * @param inputTensor The tensor the preprocessed pixels are written into.
+     */
+    public ImagePreprocessor(InputTensor inputTensor) {
+        int inputSize = inputTensor.getWidth();
+        scaledBitmap = Bitmap.createBitmap(inputSize, inputSize, Bitmap.Config.ARGB_8888);
+        canvas = new Canvas(scaledBitmap);
+        paint = new Paint(Paint.FILTER_BITMAP_FLAG);
+        // Overwrite the previous frame instead of blending with it.
+        paint.setXfermode(new PorterDuffXfermode(PorterDuff.Mode.SRC));
+        pixels = new int[inputSize * inputSize];
+        this.inputTensor = inputTensor;
+    }
+
+    /**
+     * Scales the bitmap into the reusable target and normalizes it into the input tensor.
+     * @param bitmap The bitmap to preprocess.
+     * @return The input buffer, rewound and ready for inference. It is overwritten by the next call.
+     */
+    public ByteBuffer preprocess(Bitmap bitmap) {
+        return preprocess(bitmap, 0);
+    }
+
+    /**
+     * Rotates and scales the bitmap into the reusable target and normalizes it into the input tensor.
+     * This is used for camera frames, which arrive in sensor orientation.
+     * @param bitmap The bitmap to preprocess.
+     * @param rotationDegrees The clockwise rotation (0, 90, 180 or 270) that makes the bitmap upright.
+     * @return The input buffer, rewound and ready for inference. It is overwritten by the next call.
+     */
+    public ByteBuffer preprocess(Bitmap bitmap, int rotationDegrees) {
+        int size = scaledBitmap.getWidth();
+        boolean swapsAxes = rotationDegrees % 180 != 0;
+        float rotatedWidth = swapsAxes ? bitmap.getHeight() : bitmap.getWidth();
+        float rotatedHeight = swapsAxes ? bitmap.getWidth() : bitmap.getHeight();
+
+        // Rotate around the centre, then stretch the upright image over the whole target.
+        matrix.setTranslate(-bitmap.getWidth() / 2f, -bitmap.getHeight() / 2f);
+        matrix.postRotate(rotationDegrees);
+        matrix.postScale(size / rotatedWidth, size / rotatedHeight);
+        matrix.postTranslate(size / 2f, size / 2f);
+        canvas.drawBitmap(bitmap, matrix, paint);
+
+        scaledBitmap.getPixels(pixels, 0, size, 0, 0, size, size);
+        inputTensor.loadPixels(pixels);
+        return inputTensor.getBuffer();
+    }
+
+    /**
+     * Scales a square region of an upright bitmap, without distortion, into one image of a
+     * batched tensor. Used for multi-crop classification.
+     * @param bitmap The upright bitmap.
+     * @param crop The region to draw. It must lie inside the bitmap.
+     * @param tensor The tensor to write, with the same image size as this preprocessor.
+     * @param index The image of the batch to write.
+     */
+    public void preprocessCrop(Bitmap bitmap, MultiCrop.Crop crop, InputTensor tensor, int index) {
+        int size = scaledBitmap.getWidth();
+        matrix.setTranslate(-crop.left, -crop.top);
+        matrix.postScale(size / (float) crop.size, size / (float) crop.size);
+        canvas.drawBitmap(bitmap, matrix, paint);
+
+        scaledBitmap.getPixels(pixels, 0, size, 0, 0, size, size);
+        tensor.selectImage(index);
+        tensor.loadPixels(pixels);
+    }
+
+    /**
+     * Releases the pixel memory of the scaled-bitmap target.
+     */
+    public void close() {
+        scaledBitmap.recycle();
+    }
+}
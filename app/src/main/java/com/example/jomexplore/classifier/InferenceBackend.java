@@ -0,0 +1,123 @@
+package com.example.jomexplore.classifier;
+
+import android.os.Build;
+import android.util.Log;
+
+import org.tensorflow.lite.Delegate;
+import org.tensorflow.lite.Interpreter;
+import org.tensorflow.lite.gpu.CompatibilityList;
+import org.tensorflow.lite.gpu.GpuDelegate;
+import org.tensorflow.lite.nnapi.NnApiDelegate;
+
+import java.nio.ByteBuffer;
+
+/**
+ * InferenceBackend is an Interpreter together with the delegate it runs on.
+ * It walks a BackendConfig's fallback order and keeps the first accelerator that initializes,
+ * so a missing or broken GPU/NNAPI driver degrades to the CPU instead of failing.
+ */
+public class InferenceBackend {
+    private static final String TAG = "InferenceBackend";
+
+    private final Interpreter interpreter;
+    private final Delegate delegate;
+    private final BackendConfig.Accelerator accelerator;
+
+    private InferenceBackend(Interpreter interpreter, Delegate delegate, BackendConfig.Accelerator accelerator) {
+        this.interpreter = interpreter;
+        this.delegate = delegate;
+        this.accelerator = accelerator;
+    }
+
+    /**
+     * Creates an interpreter on the first accelerator in the config that works.
+     * @param model The TFLite model.
+     * @param config The backend configuration.
+     * @return The backend. CPU execution is always attempted last.
+     * @throws IllegalStateException If not even the CPU backend could be created.
+     */
+    public static InferenceBackend create(ByteBuffer model, BackendConfig config) {
+        Exception lastError = null;
+        for (BackendConfig.Accelerator accelerator : config.fallbackOrder) {
+            try {
+                InferenceBackend backend = createFor(model, accelerator, config.numThreads, config.useXnnpack);
+                Log.d(TAG, "Using " + accelerator + " backend (" + config.numThreads + " threads, XNNPACK "
+                        + config.useXnnpack + ")");
+                return backend;
+            } catch (Exception e) {
+                Log.w(TAG, accelerator + " backend unavailable, trying next", e);
+                lastError = e;
+            }
+        }
+        throw new IllegalStateException("No inference backend could be created", lastError);
+    }
+
+    /**
+     * Creates an interpreter on exactly one accelerator, without fallback.
+     * @param model The TFLite model.
+     * @param accelerator The accelerator to use.
+     * @param numThreads The number of CPU threads.
+     * @param useXnnpack Whether XNNPACK is used for CPU execution.
+     * @return The backend.
+     * @throws Exception If the accelerator is not supported or fails to initialize.
+     */
+    public static InferenceBackend createFor(ByteBuffer model, BackendConfig.Accelerator accelerator,
+                                             int numThreads, boolean useXnnpack) throws Exception {
+        Interpreter.Options options = new Interpreter.Options()
+                .setNumThreads(numThreads)
+                .setUseXNNPACK(useXnnpack);
+
+        Delegate delegate = null;
+        switch (accelerator) {
+            case GPU:
+                try (CompatibilityList compatibilityList = new CompatibilityList()) {
+                    if (!compatibilityList.isDelegateSupportedOnThisDevice()) {
+                        throw new UnsupportedOperationException("GPU delegate is not supported on this device");
+                    }
+                    delegate = new GpuDelegate(compatibilityList.getBestOptionsForThisDevice());
+                }
+                break;
+            case NNAPI:
+                // NNAPI before Android 8.1 lacks most operations and is slower than the CPU.
+                if (Build.VERSION.SDK_INT < Build.VERSION_CODES.O_MR1) {
+                    throw new UnsupportedOperationException("NNAPI requires Android 8.1");
+                }
+                delegate = new NnApiDelegate();
+                break;
+            case CPU:
+            default:
+                break;
+        }
+        if (delegate != null) {
+            options.addDelegate(delegate);
+        }
+
+        try {
+            return new InferenceBackend(new Interpreter(model, options), delegate, accelerator);
+        } catch (RuntimeException e) {
+            // The delegate owns native resources even if the interpreter could not use it.
+            if (delegate != null) {
+                delegate.close();
+            }
+            throw e;
+        }
+    }
+
+    public Interpreter getInterpreter() {
+        return interpreter;
+    }
+
+    public BackendConfig.Accelerator getAccelerator() {
+        return accelerator;
+    }
+
+    /**
+     * Closes the interpreter and then its delegate.
+     */
+    public void close() {
+        interpreter.close();
+        if (delegate != null) {
+            delegate.close();
+        }
+    }
+}
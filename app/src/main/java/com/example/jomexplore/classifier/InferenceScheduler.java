@@ -0,0 +1,203 @@
+package com.example.jomexplore.classifier;
+
+import java.util.concurrent.Executor;
+
+/**
+ * InferenceScheduler runs classification requests one at a time with latest-wins semantics.
+ * At most one request runs and at most one waits: a new request replaces the waiting one and
+ * cancels the running one, so a burst of requests costs two inferences instead of one per request
+ * and only the newest result is delivered. close() cancels everything, e.g. when the owning
+ * screen is destroyed; results of cancelled requests are never delivered.
+ * @param <R> The result type.
+ */
+public class InferenceScheduler<R> implements AutoCloseable {
+
+    /**
+     * The work of one request. Runs on the worker executor.
+     */
+    public interface Task<R> {
+        /**
+         * @param token Checked between expensive stages; the task should stop once it is cancelled.
+         * @return The result.
+         */
+        R run(CancellationToken token) throws Exception;
+    }
+
+    /**
+     * Receives the outcome of a request. Runs on the callback executor.
+     */
+    public interface Callback<R> {
+        void onResult(R result);
+
+        void onError(Exception e);
+    }
+
+    /**
+     * Tells a running task that its result is no longer wanted.
+     */
+    public static class CancellationToken {
+        private volatile boolean cancelled;
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        /**
+         * @throws java.util.concurrent.CancellationException If the request was cancelled.
+         */
+        public void throwIfCancelled() {
+            if (cancelled) {
+                throw new java.util.concurrent.CancellationException();
+            }
+        }
+
+        void cancel() {
+            cancelled = true;
+        }
+    }
+
+    /**
+     * A submitted request.
+     */
+    public final class Request {
+        private final Task<R> task;
+        private final Callback<R> callback;
+        private final CancellationToken token = new CancellationToken();
+
+        private Request(Task<R> task, Callback<R> callback) {
+            this.task = task;
+            this.callback = callback;
+        }
+
+        public void cancel() {
+            synchronized (InferenceScheduler.this) {
+                token.cancel();
+                if (pending == this) {
+                    pending = null;
+                }
+            }
+        }
+
+        public boolean isCancelled() {
+            return token.isCancelled();
+        }
+    }
+
+    private final Executor workerExecutor;
+    private final Executor callbackExecutor;
+
+    private Request running;
+    private Request pending;
+    private boolean closed;
+
+    private int submitted;
+    private int superseded;
+
+    /**
+     * @param workerExecutor Runs the tasks. Only one task is handed to it at a time.
+     * @param callbackExecutor Delivers results, typically the main thread.
+     */
+    public InferenceScheduler(Executor workerExecutor, Executor callbackExecutor) {
+        this.workerExecutor = workerExecutor;
+        this.callbackExecutor = callbackExecutor;
+    }
+
+    /**
+     * Submits a request.
+     * @param task The work.
+     * @param callback Receives the result unless the request is cancelled or superseded.
+     * @return The request.
+     */
+    public synchronized Request submit(Task<R> task, Callback<R> callback) {
+        submitted++;
+        Request request = new Request(task, callback);
+        if (closed) {
+            request.token.cancel();
+            return request;
+        }
+        // Latest wins: the waiting request is dropped and the running one will not be delivered.
+        if (pending != null) {
+            pending.token.cancel();
+            superseded++;
+        }
+        if (running != null && !running.token.isCancelled()) {
+            running.token.cancel();
+            superseded++;
+        }
+        pending = request;
+        if (running == null) {
+            startNext();
+        }
+        return request;
+    }
+
+    private void startNext() {
+        running = pending;
+        pending = null;
+        if (running == null) {
+            return;
+        }
+        Request request = running;
+        workerExecutor.execute(() -> execute(request));
+    }
+
+    private void execute(Request request) {
+        R result = null;
+        Exception error = null;
+        if (!request.token.isCancelled()) {
+            try {
+                result = request.task.run(request.token);
+            } catch (Exception e) {
+                error = e;
+            }
+        }
+
+        synchronized (this) {
+            running = null;
+            startNext();
+        }
+        if (request.token.isCancelled()) {
+            return;
+        }
+        final R finalResult = result;
+        final Exception finalError = error;
+        callbackExecutor.execute(() -> {
+            // The owner may have closed the scheduler while the result was in flight.
+            synchronized (this) {
+                if (closed || request.token.isCancelled()) {
+                    return;
+                }
+            }
+            if (finalError != null) {
+                request.callback.onError(finalError);
+            } else {
+                request.callback.onResult(finalResult);
+            }
+        });
+    }
+
+    /**
+     * Cancels the running and waiting requests and rejects new ones. The worker executor is not
+     * shut down; its owner does that.
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        if (pending != null) {
+            pending.token.cancel();
+            pending = null;
+        }
+        if (running != null) {
+            running.token.cancel();
+        }
+    }
+
+    public synchronized boolean isIdle() {
+        return running == null && pending == null;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return submitted + " submitted, " + superseded + " superseded";
+    }
+}
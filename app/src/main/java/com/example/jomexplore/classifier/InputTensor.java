@@ -0,0 +1,225 @@
+package com.example.jomexplore.classifier;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+/**
+ * InputTensor owns the preallocated input buffer that is handed to the TFLite interpreter.
+ * Pixels are converted row by row into a small scratch array and copied into the buffer in bulk,
+ * so filling the tensor allocates nothing after construction.
+ * <p>
+ * Float models receive (value - mean) / std through a FloatBuffer view. Quantized models receive
+ * one byte per channel: raw pixel values for uint8, and the normalized value quantized with the
+ * tensor's scale and zero point for int8.
+ * <p>
+ * A tensor can hold a batch of images, e.g. several crops of one photo that are classified in a
+ * single interpreter call. selectImage() picks the image that loadPixels() and putRow() write.
+ */
+public class InputTensor {
+    private final int width;
+    private final int height;
+    private final int channels;
+    private final TensorType type;
+    private final int batchSize;
+    // Element offset of the image that is currently written.
+    private int imageOffset;
+
+    private final ByteBuffer buffer;
+    private final FloatBuffer floatView;
+    private final float[] floatRow;
+    private final byte[] byteRow;
+    // Converted value for every possible 8-bit channel value.
+    private final float[] floatTable;
+    private final byte[] byteTable;
+
+    /**
+     * Creates a float32 input tensor for an RGB image of the given size.
+     * @param width The width of the model input.
+     * @param height The height of the model input.
+     * @param mean The mean subtracted from every channel value.
+     * @param std The standard deviation each channel value is divided by.
+     */
+    public InputTensor(int width, int height, float mean, float std) {
+        this(width, height, TensorType.FLOAT32, mean, std, 0f, 0);
+    }
+
+    /**
+     * Creates an input tensor of the given element type for an RGB image.
+     * @param width The width of the model input.
+     * @param height The height of the model input.
+     * @param type The element type the model expects.
+     * @param mean The mean used to normalize channel values (float32 and int8).
+     * @param std The standard deviation used to normalize channel values (float32 and int8).
+     * @param scale The quantization scale of an int8 input. If 0, values are centred on 128 instead.
+     * @param zeroPoint The quantization zero point of an int8 input.
+     */
+    public InputTensor(int width, int height, TensorType type, float mean, float std, float scale, int zeroPoint) {
+        this(width, height, type, mean, std, scale, zeroPoint, 1);
+    }
+
+    /**
+     * Creates an input tensor holding a batch of RGB images.
+     * @param batchSize The number of images.
+     * @see #InputTensor(int, int, TensorType, float, float, float, int)
+     */
+    public InputTensor(int width, int height, TensorType type, float mean, float std, float scale, int zeroPoint,
+                       int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+        this.width = width;
+        this.height = height;
+        this.channels = 3;
+        this.type = type;
+        this.batchSize = batchSize;
+
+        buffer = ByteBuffer.allocateDirect(type.byteSize() * width * height * channels * batchSize);
+        buffer.order(ByteOrder.nativeOrder());
+
+        if (type == TensorType.FLOAT32) {
+            floatView = buffer.asFloatBuffer();
+            floatRow = new float[width * channels];
+            floatTable = new float[256];
+            for (int i = 0; i < floatTable.length; i++) {
+                floatTable[i] = (i - mean) / std;
+            }
+            byteRow = null;
+            byteTable = null;
+        } else {
+            floatView = null;
+            floatRow = null;
+            floatTable = null;
+            byteRow = new byte[width * channels];
+            byteTable = new byte[256];
+            for (int i = 0; i < byteTable.length; i++) {
+                byteTable[i] = quantize(i, type, mean, std, scale, zeroPoint);
+            }
+        }
+    }
+
+    /**
+     * Computes the stored byte for one 8-bit channel value of a quantized input.
+     */
+    static byte quantize(int value, TensorType type, float mean, float std, float scale, int zeroPoint) {
+        if (type == TensorType.UINT8) {
+            return (byte) value;
+        }
+        int q;
+        if (scale > 0f) {
+            q = Math.round(((value - mean) / std) / scale) + zeroPoint;
+        } else {
+            q = value - 128;
+        }
+        return (byte) Math.max(-128, Math.min(127, q));
+    }
+
+    /**
+     * Selects the image of the batch that subsequent loadPixels() and putRow() calls write.
+     * @param index The image index, in [0, getBatchSize()).
+     */
+    public void selectImage(int index) {
+        if (index < 0 || index >= batchSize) {
+            throw new IndexOutOfBoundsException("Image " + index + " of a batch of " + batchSize);
+        }
+        imageOffset = index * width * height * channels;
+    }
+
+    /**
+     * Converts a full frame of ARGB pixels into the tensor.
+     * @param pixels The pixels in row-major order, at least width * height entries long.
+     */
+    public void loadPixels(int[] pixels) {
+        if (pixels.length < width * height) {
+            throw new IllegalArgumentException("Expected " + (width * height) + " pixels but got " + pixels.length);
+        }
+
+        for (int y = 0; y < height; y++) {
+            putRow(y, pixels, y * width);
+        }
+        buffer.rewind();
+    }
+
+    /**
+     * Converts one row of ARGB pixels into the tensor.
+     * Converters that produce the image row by row use this to fill the tensor without a full-frame buffer.
+     * @param y The row of the tensor to write.
+     * @param pixels The source pixels.
+     * @param offset The index of the row's first pixel in the source array.
+     */
+    public void putRow(int y, int[] pixels, int offset) {
+        if (type == TensorType.FLOAT32) {
+            putFloatRow(y, pixels, offset);
+        } else {
+            putByteRow(y, pixels, offset);
+        }
+    }
+
+    private void putFloatRow(int y, int[] pixels, int offset) {
+        final float[] table = floatTable;
+        final float[] row = floatRow;
+        int pixel = offset;
+        int out = 0;
+        for (int x = 0; x < width; x++) {
+            final int val = pixels[pixel++];
+            row[out++] = table[(val >> 16) & 0xFF];
+            row[out++] = table[(val >> 8) & 0xFF];
+            row[out++] = table[val & 0xFF];
+        }
+        floatView.position(imageOffset + y * out);
+        floatView.put(row, 0, out);
+    }
+
+    private void putByteRow(int y, int[] pixels, int offset) {
+        final byte[] table = byteTable;
+        final byte[] row = byteRow;
+        int pixel = offset;
+        int out = 0;
+        for (int x = 0; x < width; x++) {
+            final int val = pixels[pixel++];
+            row[out++] = table[(val >> 16) & 0xFF];
+            row[out++] = table[(val >> 8) & 0xFF];
+            row[out++] = table[val & 0xFF];
+        }
+        buffer.position(imageOffset + y * out);
+        buffer.put(row, 0, out);
+    }
+
+    /**
+     * Returns the backing buffer, rewound and ready to be passed to the interpreter.
+     */
+    public ByteBuffer getBuffer() {
+        buffer.rewind();
+        return buffer;
+    }
+
+    /**
+     * Returns a view of one image of the batch, for running the images one at a time.
+     * @param index The image index, in [0, getBatchSize()).
+     */
+    public ByteBuffer getImageBuffer(int index) {
+        if (index < 0 || index >= batchSize) {
+            throw new IndexOutOfBoundsException("Image " + index + " of a batch of " + batchSize);
+        }
+        int imageBytes = buffer.capacity() / batchSize;
+        ByteBuffer image = buffer.duplicate();
+        image.position(index * imageBytes).limit((index + 1) * imageBytes);
+        return image.slice().order(buffer.order());
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public TensorType getType() {
+        return type;
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.jomexplore.classifier;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Labels maps the model's output classes to landmark names.
+ * The names are read from a text file with one label per line, in the order of the model output.
+ * Classes beyond the end of the file get a placeholder name instead of being dropped, so a model
+ * with more classes than labels still reports every class.
+ */
+public class Labels {
+    private final List<String> labels;
+
+    public Labels(List<String> labels) {
+        this.labels = Collections.unmodifiableList(new ArrayList<>(labels));
+    }
+
+    /**
+     * Reads a label file. Blank lines and lines starting with '#' are skipped.
+     * @param in The label file contents, UTF-8 encoded. It is not closed.
+     * @return The labels in file order.
+     * @throws IOException If the stream cannot be read.
+     */
+    public static Labels load(InputStream in) throws IOException {
+        List<String> labels = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            line = line.trim();
+            if (!line.isEmpty() && !line.startsWith("#")) {
+                labels.add(line);
+            }
+        }
+        return new Labels(labels);
+    }
+
+    /**
+     * @param classIndex The output class.
+     * @return The label of the class, or "Class N" if the label file has no entry for it.
+     */
+    public String get(int classIndex) {
+        return classIndex >= 0 && classIndex < labels.size() ? labels.get(classIndex) : "Class " + classIndex;
+    }
+
+    /**
+     * @param classIndex The output class.
+     * @return The identifier of the class, see toId().
+     */
+    public String getId(int classIndex) {
+        return toId(get(classIndex));
+    }
+
+    /**
+     * @return The number of labels in the file.
+     */
+    public int size() {
+        return labels.size();
+    }
+
+    /**
+     * Converts a display label to an asset identifier: lower case, with runs of other characters as "_".
+     * For example "Merdeka Square" becomes "merdeka_square".
+     */
+    public static String toId(String label) {
+        return label.trim().toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]+", "_");
+    }
+}
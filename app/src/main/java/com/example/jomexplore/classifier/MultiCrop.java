@@ -0,0 +1,168 @@
+package com.example.jomexplore.classifier;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * MultiCrop plans the square crops that are classified together for one photo, and fuses their
+ * scores. Squashing a whole photo to the model input distorts it and shrinks distant landmarks,
+ * so instead the photo is cut into undistorted squares: the centre, squares centred on the
+ * thirds of the long side, a zoomed centre for distant landmarks and, if the user tapped the
+ * preview, a zoomed square around the tap. The crops are classified as one batch and their
+ * probabilities averaged, with the tapped region weighted higher.
+ */
+public class MultiCrop {
+
+    // The most crops plan() returns, i.e. the largest batch.
+    public static final int MAX_CROPS = 5;
+    // Side of the zoomed crops relative to the short side of the image.
+    static final float ZOOM = 0.5f;
+    // Weight of the tapped region in the fused scores; every other crop has weight 1.
+    static final float ROI_WEIGHT = 2f;
+    // Thirds crops closer than this fraction of their size to the centre crop add nothing and are skipped.
+    static final float MIN_SHIFT = 0.15f;
+
+    /**
+     * A square region of the upright image.
+     */
+    public static class Crop {
+        public final int left;
+        public final int top;
+        public final int size;
+        public final float weight;
+
+        public Crop(int left, int top, int size, float weight) {
+            this.left = left;
+            this.top = top;
+            this.size = size;
+            this.weight = weight;
+        }
+
+        @Override
+        public String toString() {
+            return size + "x" + size + "@" + left + "," + top + " (weight " + weight + ")";
+        }
+    }
+
+    /**
+     * A tap on a view that shows the image scaled to fill and centred, like PreviewView's
+     * default FILL_CENTER. Assumes the view shows the same field of view as the photo.
+     */
+    public static class Tap {
+        public final float x;
+        public final float y;
+        public final int viewWidth;
+        public final int viewHeight;
+
+        public Tap(float x, float y, int viewWidth, int viewHeight) {
+            this.x = x;
+            this.y = y;
+            this.viewWidth = viewWidth;
+            this.viewHeight = viewHeight;
+        }
+
+        /**
+         * Maps the tap to image pixels.
+         * @param imageWidth The width of the upright image.
+         * @param imageHeight The height of the upright image.
+         * @return The x and y coordinates in the image, clamped to its bounds.
+         */
+        public float[] toImage(int imageWidth, int imageHeight) {
+            float scale = Math.max(viewWidth / (float) imageWidth, viewHeight / (float) imageHeight);
+            float imageX = (x - viewWidth / 2f) / scale + imageWidth / 2f;
+            float imageY = (y - viewHeight / 2f) / scale + imageHeight / 2f;
+            return new float[]{clamp(imageX, 0, imageWidth), clamp(imageY, 0, imageHeight)};
+        }
+    }
+
+    private MultiCrop() {
+    }
+
+    /**
+     * Plans the crops for an image.
+     * @param width The width of the upright image.
+     * @param height The height of the upright image.
+     * @param tap The region the user tapped, or null.
+     * @return Between 2 and MAX_CROPS crops, the centre crop first.
+     */
+    public static List<Crop> plan(int width, int height, Tap tap) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Invalid image size " + width + "x" + height);
+        }
+        List<Crop> crops = new ArrayList<>(MAX_CROPS);
+        int shortSide = Math.min(width, height);
+        Crop centre = centre(width, height);
+        crops.add(centre);
+
+        // Squares centred on the first and second third of the long side.
+        boolean landscape = width >= height;
+        int longSide = landscape ? width : height;
+        for (int third = 1; third <= 2; third++) {
+            float along = longSide * third / 3f;
+            Crop crop = landscape
+                    ? square(along, height / 2f, shortSide, width, height, 1f)
+                    : square(width / 2f, along, shortSide, width, height, 1f);
+            int shift = Math.abs(landscape ? crop.left - centre.left : crop.top - centre.top);
+            if (shift >= MIN_SHIFT * shortSide) {
+                crops.add(crop);
+            }
+        }
+
+        int zoomSize = Math.max(1, Math.round(shortSide * ZOOM));
+        crops.add(square(width / 2f, height / 2f, zoomSize, width, height, 1f));
+        if (tap != null) {
+            float[] point = tap.toImage(width, height);
+            crops.add(square(point[0], point[1], zoomSize, width, height, ROI_WEIGHT));
+        }
+        return Collections.unmodifiableList(crops);
+    }
+
+    /**
+     * @param width The width of the upright image.
+     * @param height The height of the upright image.
+     * @return The largest centred square, the crop used when an image is classified on its own.
+     */
+    public static Crop centre(int width, int height) {
+        return square(width / 2f, height / 2f, Math.min(width, height), width, height, 1f);
+    }
+
+    /**
+     * Places a square around a centre point, shifted as needed to stay inside the image.
+     */
+    private static Crop square(float centreX, float centreY, int size, int width, int height, float weight) {
+        int left = Math.round(clamp(centreX - size / 2f, 0, width - size));
+        int top = Math.round(clamp(centreY - size / 2f, 0, height - size));
+        return new Crop(left, top, size, weight);
+    }
+
+    private static float clamp(float value, float min, float max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    /**
+     * Fuses the probabilities of the crops into one score per class: their weighted mean.
+     * @param scores The probabilities of each crop, in the order of crops.
+     * @param crops The crops the scores belong to.
+     * @param fused Receives the fused probabilities.
+     */
+    public static void fuse(float[][] scores, List<Crop> crops, float[] fused) {
+        float totalWeight = 0f;
+        for (int i = 0; i < fused.length; i++) {
+            fused[i] = 0f;
+        }
+        for (int c = 0; c < crops.size(); c++) {
+            float weight = crops.get(c).weight;
+            totalWeight += weight;
+            float[] cropScores = scores[c];
+            for (int i = 0; i < fused.length; i++) {
+                fused[i] += weight * cropScores[i];
+            }
+        }
+        if (totalWeight > 0f) {
+            for (int i = 0; i < fused.length; i++) {
+                fused[i] /= totalWeight;
+            }
+        }
+    }
+}
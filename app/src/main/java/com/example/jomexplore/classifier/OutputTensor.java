@@ -0,0 +1,106 @@
+package com.example.jomexplore.classifier;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+/**
+ * OutputTensor owns the preallocated buffer the interpreter writes class scores into and
+ * turns it back into float scores. Quantized outputs are dequantized as scale * (q - zeroPoint).
+ * For batched inference the buffer holds the scores of every image, one after the other.
+ */
+public class OutputTensor {
+    private final TensorType type;
+    private final int numClasses;
+    private final int batchSize;
+    private final float scale;
+    private final int zeroPoint;
+
+    private final ByteBuffer buffer;
+    private final FloatBuffer floatView;
+
+    /**
+     * @param type The element type of the model output.
+     * @param numClasses The number of class scores per image.
+     * @param scale The quantization scale of a quantized output. If 0, uint8 scores are read as q / 255.
+     * @param zeroPoint The quantization zero point of a quantized output.
+     */
+    public OutputTensor(TensorType type, int numClasses, float scale, int zeroPoint) {
+        this(type, numClasses, scale, zeroPoint, 1);
+    }
+
+    /**
+     * Creates an output tensor for a batch of images.
+     * @param batchSize The number of images.
+     * @see #OutputTensor(TensorType, int, float, int)
+     */
+    public OutputTensor(TensorType type, int numClasses, float scale, int zeroPoint, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+        this.type = type;
+        this.numClasses = numClasses;
+        this.batchSize = batchSize;
+        this.scale = scale;
+        this.zeroPoint = zeroPoint;
+
+        buffer = ByteBuffer.allocateDirect(type.byteSize() * numClasses * batchSize);
+        buffer.order(ByteOrder.nativeOrder());
+        floatView = type == TensorType.FLOAT32 ? buffer.asFloatBuffer() : null;
+    }
+
+    /**
+     * Returns the backing buffer, rewound and ready to be passed to the interpreter as output.
+     */
+    public ByteBuffer getBuffer() {
+        buffer.rewind();
+        return buffer;
+    }
+
+    /**
+     * Copies the scores of the last inference into the given array, dequantizing if needed.
+     * @param scores An array of at least getNumClasses() entries.
+     */
+    public void readScores(float[] scores) {
+        readScores(0, scores);
+    }
+
+    /**
+     * Copies the scores of one image of the last batched inference into the given array.
+     * @param index The image index, in [0, getBatchSize()).
+     * @param scores An array of at least getNumClasses() entries.
+     */
+    public void readScores(int index, float[] scores) {
+        if (index < 0 || index >= batchSize) {
+            throw new IndexOutOfBoundsException("Image " + index + " of a batch of " + batchSize);
+        }
+        int offset = index * numClasses;
+        if (type == TensorType.FLOAT32) {
+            floatView.clear();
+            floatView.position(offset);
+            floatView.get(scores, 0, numClasses);
+            return;
+        }
+
+        for (int i = 0; i < numClasses; i++) {
+            int q = type == TensorType.UINT8 ? buffer.get(offset + i) & 0xFF : buffer.get(offset + i);
+            if (scale > 0f) {
+                scores[i] = scale * (q - zeroPoint);
+            } else {
+                scores[i] = type == TensorType.UINT8 ? q / 255f : (q + 128) / 255f;
+            }
+        }
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public int getNumClasses() {
+        return numClasses;
+    }
+
+    public TensorType getType() {
+        return type;
+    }
+}
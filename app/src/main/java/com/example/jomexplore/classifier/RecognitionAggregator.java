@@ -0,0 +1,208 @@
+package com.example.jomexplore.classifier;
+
+import java.util.Arrays;
+
+/**
+ * RecognitionAggregator combines the scores of consecutive live frames into one decision.
+ * Single frames are noisy, so scores are either smoothed with an exponential moving average or
+ * each frame casts a vote for its confident top class over a sliding window. A decision is
+ * emitted as soon as the stability criterion holds, after which the aggregator is final and
+ * callers should stop running inference until reset(). If no decision is reached within
+ * maxFrames, the aggregator gives up and becomes final without a class.
+ * <p>
+ * Buffers are sized on the first frame and reused, so update() does not allocate.
+ */
+public class RecognitionAggregator {
+
+    /**
+     * Returned by update() while more frames are needed.
+     */
+    public static final int UNDECIDED = -1;
+    /**
+     * Returned by update() when maxFrames passed without a decision.
+     */
+    public static final int GAVE_UP = -2;
+
+    /**
+     * How frames are combined.
+     */
+    public enum Mode {
+        // Exponential moving average of the per-class scores.
+        EMA,
+        // Majority vote of the confident top class over the last frames.
+        VOTE
+    }
+
+    private final Mode mode;
+    private final float alpha;
+    private final float minConfidence;
+    private final float minMargin;
+    private final int minFrames;
+    private final int windowSize;
+    private final int minVotes;
+    private final int maxFrames;
+
+    private float[] smoothed;
+    private int[] window;
+    private int[] votes;
+    private int frameCount;
+    private int decision = UNDECIDED;
+
+    private RecognitionAggregator(Mode mode, float alpha, float minConfidence, float minMargin, int minFrames,
+                                  int windowSize, int minVotes, int maxFrames) {
+        this.mode = mode;
+        this.alpha = alpha;
+        this.minConfidence = minConfidence;
+        this.minMargin = minMargin;
+        this.minFrames = minFrames;
+        this.windowSize = windowSize;
+        this.minVotes = minVotes;
+        this.maxFrames = maxFrames;
+    }
+
+    /**
+     * Creates an aggregator that decides on the moving average of the scores.
+     * @param alpha The weight of the newest frame, in (0, 1]. Smaller values smooth more.
+     * @param minConfidence The averaged score the top class needs.
+     * @param minMargin The lead the top class needs over the runner-up.
+     * @param minFrames The number of frames to see before deciding.
+     * @param maxFrames The number of frames after which the aggregator gives up, or 0 for no limit.
+     */
+    public static RecognitionAggregator ema(float alpha, float minConfidence, float minMargin, int minFrames, int maxFrames) {
+        if (alpha <= 0f || alpha > 1f) {
+            throw new IllegalArgumentException("alpha must be in (0, 1]: " + alpha);
+        }
+        return new RecognitionAggregator(Mode.EMA, alpha, minConfidence, minMargin, Math.max(1, minFrames),
+                0, 0, maxFrames);
+    }
+
+    /**
+     * Creates an aggregator that decides once a class wins enough of the recent frames.
+     * Frames whose top class is below minConfidence vote for nothing.
+     * @param windowSize The number of recent frames that vote.
+     * @param minVotes The number of votes a class needs within the window.
+     * @param minConfidence The score a frame's top class needs to vote.
+     * @param maxFrames The number of frames after which the aggregator gives up, or 0 for no limit.
+     */
+    public static RecognitionAggregator vote(int windowSize, int minVotes, float minConfidence, int maxFrames) {
+        if (minVotes < 1 || minVotes > windowSize) {
+            throw new IllegalArgumentException("minVotes must be in [1, windowSize]: " + minVotes);
+        }
+        return new RecognitionAggregator(Mode.VOTE, 0f, minConfidence, 0f, minVotes,
+                windowSize, minVotes, maxFrames);
+    }
+
+    /**
+     * Feeds the scores of one frame. Frames fed after the aggregator is final are ignored.
+     * @param scores The per-class probabilities of the frame.
+     * @return The decided class index, UNDECIDED, or GAVE_UP.
+     */
+    public int update(float[] scores) {
+        if (isFinal()) {
+            return decision;
+        }
+        if (smoothed == null || smoothed.length != scores.length) {
+            allocate(scores.length);
+        }
+        frameCount++;
+
+        int candidate = mode == Mode.EMA ? updateAverage(scores) : updateVotes(scores);
+        if (candidate >= 0 && frameCount >= minFrames) {
+            decision = candidate;
+        } else if (maxFrames > 0 && frameCount >= maxFrames) {
+            decision = GAVE_UP;
+        }
+        return decision;
+    }
+
+    private void allocate(int numClasses) {
+        smoothed = new float[numClasses];
+        votes = new int[numClasses];
+        window = new int[Math.max(1, windowSize)];
+        frameCount = 0;
+    }
+
+    private int updateAverage(float[] scores) {
+        int best = -1;
+        int second = -1;
+        for (int i = 0; i < scores.length; i++) {
+            // The first frame initializes the average instead of being damped towards zero.
+            smoothed[i] = frameCount == 1 ? scores[i] : smoothed[i] + alpha * (scores[i] - smoothed[i]);
+            if (best < 0 || smoothed[i] > smoothed[best]) {
+                second = best;
+                best = i;
+            } else if (second < 0 || smoothed[i] > smoothed[second]) {
+                second = i;
+            }
+        }
+        if (best < 0 || smoothed[best] < minConfidence) {
+            return UNDECIDED;
+        }
+        float runnerUp = second >= 0 ? smoothed[second] : 0f;
+        return smoothed[best] - runnerUp >= minMargin ? best : UNDECIDED;
+    }
+
+    private int updateVotes(float[] scores) {
+        int top = 0;
+        for (int i = 1; i < scores.length; i++) {
+            if (scores[i] > scores[top]) {
+                top = i;
+            }
+        }
+        int ballot = scores.length > 0 && scores[top] >= minConfidence ? top : UNDECIDED;
+
+        // Replace the vote of the frame that falls out of the window.
+        int slot = (frameCount - 1) % windowSize;
+        if (frameCount > windowSize && window[slot] >= 0) {
+            votes[window[slot]]--;
+        }
+        window[slot] = ballot;
+        if (ballot < 0) {
+            return UNDECIDED;
+        }
+        votes[ballot]++;
+        return votes[ballot] >= minVotes ? ballot : UNDECIDED;
+    }
+
+    /**
+     * @return true once a class was decided or the aggregator gave up.
+     */
+    public boolean isFinal() {
+        return decision != UNDECIDED;
+    }
+
+    /**
+     * @return The decided class, UNDECIDED or GAVE_UP.
+     */
+    public int getDecision() {
+        return decision;
+    }
+
+    /**
+     * @return The number of frames fed since the last reset.
+     */
+    public int getFrameCount() {
+        return frameCount;
+    }
+
+    /**
+     * Copies the moving average of the scores (EMA mode) into the given array.
+     * @param scores An array with one entry per class.
+     */
+    public void getSmoothedScores(float[] scores) {
+        if (smoothed != null) {
+            System.arraycopy(smoothed, 0, scores, 0, Math.min(scores.length, smoothed.length));
+        }
+    }
+
+    /**
+     * Forgets all frames, e.g. when live recognition is restarted.
+     */
+    public void reset() {
+        frameCount = 0;
+        decision = UNDECIDED;
+        if (votes != null) {
+            Arrays.fill(votes, 0);
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.jomexplore.classifier;
+
+import android.os.Parcel;
+import android.os.Parcelable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * RecognitionResult is the outcome of one classification: the recognized landmark, its
+ * confidence, the best alternatives and how long each stage took. It is passed between
+ * activities as a Parcelable, so screens downstream of the camera never parse display text.
+ */
+public class RecognitionResult implements Parcelable {
+
+    /**
+     * Whether the classification produced a landmark.
+     */
+    public enum Status {
+        // The top class passed the confidence threshold.
+        RECOGNIZED,
+        // Inference ran, but no class was confident enough.
+        UNRECOGNIZED,
+        // The model file is missing or could not be loaded.
+        MODEL_UNAVAILABLE,
+        // Preprocessing or inference failed.
+        FAILED
+    }
+
+    /**
+     * One scored class.
+     */
+    public static class Candidate implements Parcelable {
+        public final int classIndex;
+        public final String label;
+        public final float confidence;
+
+        public Candidate(int classIndex, String label, float confidence) {
+            this.classIndex = classIndex;
+            this.label = label;
+            this.confidence = confidence;
+        }
+
+        protected Candidate(Parcel in) {
+            classIndex = in.readInt();
+            label = in.readString();
+            confidence = in.readFloat();
+        }
+
+        @Override
+        public void writeToParcel(Parcel dest, int flags) {
+            dest.writeInt(classIndex);
+            dest.writeString(label);
+            dest.writeFloat(confidence);
+        }
+
+        @Override
+        public int describeContents() {
+            return 0;
+        }
+
+        public static final Creator<Candidate> CREATOR = new Creator<Candidate>() {
+            @Override
+            public Candidate createFromParcel(Parcel in) {
+                return new Candidate(in);
+            }
+
+            @Override
+            public Candidate[] newArray(int size) {
+                return new Candidate[size];
+            }
+        };
+    }
+
+    public final Status status;
+    // The recognized class, or -1 if nothing was recognized.
+    public final int classIndex;
+    // The landmark catalog id and display name of the recognized class.
+    public final String landmarkId;
+    public final String label;
+    public final float confidence;
+    // The highest scoring classes in descending order, including the recognized one.
+    public final List<Candidate> candidates;
+    // Per-stage latency of the classification that produced this result.
+    public final long preprocessMicros;
+    public final long inferenceMicros;
+    public final long postprocessMicros;
+    // Details for FAILED results.
+    public final String errorMessage;
+
+    public RecognitionResult(Status status, int classIndex, String landmarkId, String label, float confidence,
+                             List<Candidate> candidates, long preprocessMicros, long inferenceMicros,
+                             long postprocessMicros, String errorMessage) {
+        this.status = status;
+        this.classIndex = classIndex;
+        this.landmarkId = landmarkId;
+        this.label = label;
+        this.confidence = confidence;
+        this.candidates = Collections.unmodifiableList(new ArrayList<>(candidates));
+        this.preprocessMicros = preprocessMicros;
+        this.inferenceMicros = inferenceMicros;
+        this.postprocessMicros = postprocessMicros;
+        this.errorMessage = errorMessage;
+    }
+
+    /**
+     * Creates a result for a classification that did not run.
+     * @param status MODEL_UNAVAILABLE or FAILED.
+     * @param errorMessage The reason, or null.
+     */
+    public static RecognitionResult notClassified(Status status, String errorMessage) {
+        return new RecognitionResult(status, -1, null, null, 0f, Collections.<Candidate>emptyList(), 0, 0, 0, errorMessage);
+    }
+
+    protected RecognitionResult(Parcel in) {
+        status = Status.values()[in.readInt()];
+        classIndex = in.readInt();
+        landmarkId = in.readString();
+        label = in.readString();
+        confidence = in.readFloat();
+        List<Candidate> list = new ArrayList<>();
+        in.readTypedList(list, Candidate.CREATOR);
+        candidates = Collections.unmodifiableList(list);
+        preprocessMicros = in.readLong();
+        inferenceMicros = in.readLong();
+        postprocessMicros = in.readLong();
+        errorMessage = in.readString();
+    }
+
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        dest.writeInt(status.ordinal());
+        dest.writeInt(classIndex);
+        dest.writeString(landmarkId);
+        dest.writeString(label);
+        dest.writeFloat(confidence);
+        dest.writeTypedList(candidates);
+        dest.writeLong(preprocessMicros);
+        dest.writeLong(inferenceMicros);
+        dest.writeLong(postprocessMicros);
+        dest.writeString(errorMessage);
+    }
+
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+
+    public static final Creator<RecognitionResult> CREATOR = new Creator<RecognitionResult>() {
+        @Override
+        public RecognitionResult createFromParcel(Parcel in) {
+            return new RecognitionResult(in);
+        }
+
+        @Override
+        public RecognitionResult[] newArray(int size) {
+            return new RecognitionResult[size];
+        }
+    };
+
+    public boolean isRecognized() {
+        return status == Status.RECOGNIZED;
+    }
+
+    @Override
+    public String toString() {
+        return status + " " + label + " (" + confidence + "), preprocess " + preprocessMicros
+                + " us, inference " + inferenceMicros + " us, postprocess " + postprocessMicros + " us";
+    }
+}
@@ -0,0 +1,242 @@
+package com.example.jomexplore.classifier;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Properties;
+
+/**
+ * ScorePostprocessor turns raw model outputs into ranked, thresholded predictions.
+ * It converts logits to probabilities (softmax with an optional temperature), picks the top K
+ * classes with a fixed-size heap, and looks up a per-class confidence threshold.
+ * All buffers are preallocated, so processing a frame does not allocate.
+ * One instance serves one model, so the AUTO activation is decided once and every output of
+ * the model, live frames and photo crops alike, ends up on the same scale.
+ */
+public class ScorePostprocessor {
+
+    /**
+     * How raw outputs are turned into probabilities.
+     */
+    public enum Activation {
+        // The model already outputs probabilities.
+        NONE,
+        // The model outputs logits.
+        SOFTMAX,
+        // Decided once, from the first output: softmax unless it is already in [0, 1].
+        AUTO
+    }
+
+    public static final float DEFAULT_THRESHOLD = 0.5f;
+    public static final int DEFAULT_TOP_K = 3;
+
+    private final Activation activation;
+    // The activation actually applied; AUTO until the first output decides it.
+    private volatile Activation applied;
+    private final float temperature;
+    private final int topK;
+    private final float[] thresholds;
+
+    // Min-heap of class indices: the root is the weakest of the current top K.
+    private final int[] heap;
+
+    /**
+     * @param activation How raw outputs are turned into probabilities.
+     * @param temperature The softmax temperature. Values above 1 soften the distribution.
+     * @param topK The number of classes to rank.
+     * @param thresholds The confidence threshold of each class.
+     */
+    public ScorePostprocessor(Activation activation, float temperature, int topK, float[] thresholds) {
+        if (temperature <= 0f) {
+            throw new IllegalArgumentException("Temperature must be positive: " + temperature);
+        }
+        this.activation = activation;
+        this.applied = activation;
+        this.temperature = temperature;
+        this.topK = Math.max(1, topK);
+        this.thresholds = thresholds.clone();
+        this.heap = new int[this.topK];
+    }
+
+    /**
+     * Creates a postprocessor from a properties file:
+     * <pre>
+     * activation=auto|none|softmax
+     * temperature=1.0
+     * top_k=3
+     * default_threshold=0.5
+     * threshold.batu_caves=0.6
+     * </pre>
+     * Per-class thresholds are keyed by label id (see Labels.toId). Missing keys use the defaults.
+     * @param properties The configuration, or null for the defaults.
+     * @param labels The model's labels.
+     * @param numClasses The number of model output classes.
+     * @return The configured postprocessor.
+     * @throws IllegalArgumentException If a value is malformed.
+     */
+    public static ScorePostprocessor fromProperties(Properties properties, Labels labels, int numClasses) {
+        Properties config = properties != null ? properties : new Properties();
+        Activation activation = Activation.valueOf(config.getProperty("activation", "auto").trim().toUpperCase(Locale.ROOT));
+        float temperature = Float.parseFloat(config.getProperty("temperature", "1.0").trim());
+        int topK = Integer.parseInt(config.getProperty("top_k", String.valueOf(DEFAULT_TOP_K)).trim());
+        float defaultThreshold = Float.parseFloat(config.getProperty("default_threshold", String.valueOf(DEFAULT_THRESHOLD)).trim());
+
+        float[] thresholds = new float[numClasses];
+        Arrays.fill(thresholds, defaultThreshold);
+        for (int i = 0; i < numClasses; i++) {
+            String value = config.getProperty("threshold." + labels.getId(i));
+            if (value != null) {
+                thresholds[i] = Float.parseFloat(value.trim());
+            }
+        }
+        return new ScorePostprocessor(activation, temperature, topK, thresholds);
+    }
+
+    /**
+     * Reads a properties file for fromProperties().
+     * @param in The file contents. It is not closed.
+     */
+    public static Properties loadProperties(InputStream in) throws IOException {
+        Properties properties = new Properties();
+        properties.load(in);
+        return properties;
+    }
+
+    /**
+     * Converts raw outputs to probabilities in place, according to the configured activation.
+     * With AUTO, the first output decides whether softmax is applied to this and every later one.
+     * @param scores The raw outputs of one inference.
+     */
+    public void activate(float[] scores) {
+        Activation activation = applied;
+        if (activation == Activation.AUTO) {
+            activation = decide(scores);
+        }
+        if (activation == Activation.SOFTMAX) {
+            softmax(scores, temperature);
+        }
+    }
+
+    private synchronized Activation decide(float[] firstScores) {
+        if (applied == Activation.AUTO) {
+            applied = isProbabilityRange(firstScores) ? Activation.NONE : Activation.SOFTMAX;
+        }
+        return applied;
+    }
+
+    /**
+     * @return The activation applied to outputs; AUTO if no output has decided it yet.
+     */
+    public Activation getActivation() {
+        return applied;
+    }
+
+    private static boolean isProbabilityRange(float[] scores) {
+        for (float score : scores) {
+            if (score < 0f || score > 1f) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Applies softmax(x / temperature) in place, subtracting the maximum for numerical stability.
+     */
+    static void softmax(float[] scores, float temperature) {
+        float max = Float.NEGATIVE_INFINITY;
+        for (float score : scores) {
+            max = Math.max(max, score);
+        }
+        double sum = 0;
+        for (int i = 0; i < scores.length; i++) {
+            float e = (float) Math.exp((scores[i] - max) / temperature);
+            scores[i] = e;
+            sum += e;
+        }
+        for (int i = 0; i < scores.length; i++) {
+            scores[i] = (float) (scores[i] / sum);
+        }
+    }
+
+    /**
+     * Finds the highest scoring classes. Ties are broken in favour of the lower class index.
+     * @param scores The class scores.
+     * @param indices Receives the class indices in descending order of score; at least getTopK() long.
+     * @return The number of indices written, min(getTopK(), scores.length).
+     */
+    public int topK(float[] scores, int[] indices) {
+        int size = 0;
+        for (int i = 0; i < scores.length; i++) {
+            if (size < topK) {
+                heap[size] = i;
+                siftUp(scores, size++);
+            } else if (ranksAbove(scores, i, heap[0])) {
+                heap[0] = i;
+                siftDown(scores, 0, size);
+            }
+        }
+
+        // Pop the weakest remaining class into the back of the output.
+        int count = size;
+        while (size > 0) {
+            indices[--size] = heap[0];
+            heap[0] = heap[size];
+            siftDown(scores, 0, size);
+        }
+        return count;
+    }
+
+    private static boolean ranksAbove(float[] scores, int a, int b) {
+        return scores[a] > scores[b] || (scores[a] == scores[b] && a < b);
+    }
+
+    private void siftUp(float[] scores, int position) {
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (!ranksAbove(scores, heap[parent], heap[position])) {
+                return;
+            }
+            swap(parent, position);
+            position = parent;
+        }
+    }
+
+    private void siftDown(float[] scores, int position, int size) {
+        while (true) {
+            int weakest = position;
+            int left = 2 * position + 1;
+            int right = left + 1;
+            if (left < size && ranksAbove(scores, heap[weakest], heap[left])) {
+                weakest = left;
+            }
+            if (right < size && ranksAbove(scores, heap[weakest], heap[right])) {
+                weakest = right;
+            }
+            if (weakest == position) {
+                return;
+            }
+            swap(position, weakest);
+            position = weakest;
+        }
+    }
+
+    private void swap(int a, int b) {
+        int tmp = heap[a];
+        heap[a] = heap[b];
+        heap[b] = tmp;
+    }
+
+    /**
+     * @param classIndex The output class.
+     * @return The confidence the class needs to be reported as recognized.
+     */
+    public float thresholdFor(int classIndex) {
+        return classIndex >= 0 && classIndex < thresholds.length ? thresholds[classIndex] : DEFAULT_THRESHOLD;
+    }
+
+    public int getTopK() {
+        return topK;
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.jomexplore.classifier;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * SharedInstance creates an expensive object once, off the calling thread, and hands it out
+ * to any number of users. Users hold a Lease while they need the instance; the instance stays
+ * loaded after the last lease is closed so the next user gets it immediately, and is only
+ * closed when trim() is called while nobody holds a lease.
+ * @param <T> The type of the shared object.
+ */
+public class SharedInstance<T extends AutoCloseable> {
+
+    /**
+     * Creates the shared object. Runs on the load executor.
+     */
+    public interface Factory<T> {
+        /**
+         * @return The new instance, or null if it could not be created.
+         */
+        T create();
+    }
+
+    /**
+     * Receives the shared object once it is ready. Runs on the callback executor.
+     */
+    public interface Callback<T> {
+        /**
+         * @param instance The shared instance, or null if it could not be created.
+         */
+        void onReady(T instance);
+    }
+
+    /**
+     * A claim on the shared instance. Closing it releases the claim; a callback that has not
+     * been delivered yet is dropped.
+     */
+    public final class Lease implements AutoCloseable {
+        private final Callback<T> callback;
+        private boolean closed;
+
+        private Lease(Callback<T> callback) {
+            this.callback = callback;
+        }
+
+        @Override
+        public void close() {
+            synchronized (SharedInstance.this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                pending.remove(this);
+                refCount--;
+            }
+        }
+    }
+
+    private final Factory<T> factory;
+    private final Executor loadExecutor;
+    private final Executor callbackExecutor;
+
+    private final List<Lease> pending = new ArrayList<>();
+    private T instance;
+    private boolean loading;
+    private int refCount;
+
+    /**
+     * @param factory Creates the instance.
+     * @param loadExecutor The executor the factory runs on.
+     * @param callbackExecutor The executor callbacks are delivered on, typically the main thread.
+     */
+    public SharedInstance(Factory<T> factory, Executor loadExecutor, Executor callbackExecutor) {
+        this.factory = factory;
+        this.loadExecutor = loadExecutor;
+        this.callbackExecutor = callbackExecutor;
+    }
+
+    /**
+     * Starts creating the instance in the background if it is not loaded or loading already.
+     */
+    public synchronized void preload() {
+        if (instance == null && !loading) {
+            startLoad();
+        }
+    }
+
+    /**
+     * Claims the instance. The callback is invoked once it is ready, immediately (on the callback
+     * executor) if it is already loaded.
+     * @param callback Receives the instance.
+     * @return The lease to close when the instance is no longer needed.
+     */
+    public synchronized Lease acquire(Callback<T> callback) {
+        Lease lease = new Lease(callback);
+        refCount++;
+        if (instance != null) {
+            deliver(lease);
+        } else {
+            pending.add(lease);
+            if (!loading) {
+                startLoad();
+            }
+        }
+        return lease;
+    }
+
+    /**
+     * Closes the instance if no lease holds it, e.g. in response to memory pressure.
+     * A later acquire() or preload() creates it again.
+     * @return true if the instance was closed.
+     */
+    public boolean trim() {
+        T released;
+        synchronized (this) {
+            if (refCount > 0 || instance == null) {
+                return false;
+            }
+            released = instance;
+            instance = null;
+        }
+        try {
+            released.close();
+        } catch (Exception e) {
+            // The instance is dropped either way.
+        }
+        return true;
+    }
+
+    public synchronized boolean isLoaded() {
+        return instance != null;
+    }
+
+    public synchronized int getRefCount() {
+        return refCount;
+    }
+
+    private void startLoad() {
+        loading = true;
+        loadExecutor.execute(() -> {
+            T created = null;
+            try {
+                created = factory.create();
+            } catch (RuntimeException e) {
+                // Reported to the waiting users as a null instance; the next acquire retries.
+            }
+            synchronized (this) {
+                loading = false;
+                instance = created;
+                for (Lease lease : pending) {
+                    deliver(lease);
+                }
+                pending.clear();
+            }
+        });
+    }
+
+    private void deliver(Lease lease) {
+        callbackExecutor.execute(() -> {
+            T ready;
+            synchronized (this) {
+                if (lease.closed) {
+                    return;
+                }
+                ready = instance;
+            }
+            lease.callback.onReady(ready);
+        });
+    }
+}
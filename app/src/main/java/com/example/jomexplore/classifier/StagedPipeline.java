@@ -0,0 +1,278 @@
+package com.example.jomexplore.classifier;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * StagedPipeline passes work items through a fixed sequence of stages, each on its own thread,
+ * with a small bounded queue in front of every stage. While one item is in a slow stage (e.g.
+ * inference), the next item can already go through the earlier ones. A full queue blocks the
+ * stage that feeds it, so a slow stage throttles the whole pipeline instead of letting work pile
+ * up; offer() lets the producer drop items instead of waiting.
+ * Every item that leaves the pipeline, whether completed, dropped by a stage, failed or drained
+ * on close, is handed to the Listener exactly once, so pooled items can be recycled.
+ * @param <T> The type of the work items. Stages typically mutate the item in place.
+ */
+public class StagedPipeline<T> implements AutoCloseable {
+
+    /**
+     * One processing step. Runs on the stage's own thread.
+     */
+    public interface Stage<T> {
+        /**
+         * @param item The work item.
+         * @return true to pass the item on, false to drop it.
+         */
+        boolean process(T item) throws Exception;
+    }
+
+    /**
+     * Receives every item that leaves the pipeline.
+     */
+    public interface Listener<T> {
+        /**
+         * @param item The item.
+         * @param error The exception a stage threw, or null.
+         */
+        void onFinished(T item, Exception error);
+    }
+
+    /**
+     * Builds a pipeline. Stages run in the order they are added.
+     */
+    public static class Builder<T> {
+        private final List<StageRunner<T>> stages = new ArrayList<>();
+
+        /**
+         * @param name The stage name, used for its thread and in statistics.
+         * @param queueCapacity The number of items that may wait in front of the stage.
+         * @param stage The processing step.
+         */
+        public Builder<T> addStage(String name, int queueCapacity, Stage<T> stage) {
+            stages.add(new StageRunner<>(name, queueCapacity, stage));
+            return this;
+        }
+
+        /**
+         * Starts the stage threads.
+         * @param listener Receives every item that leaves the pipeline.
+         */
+        public StagedPipeline<T> start(Listener<T> listener) {
+            if (stages.isEmpty()) {
+                throw new IllegalStateException("A pipeline needs at least one stage");
+            }
+            return new StagedPipeline<>(stages, listener);
+        }
+    }
+
+    /**
+     * Statistics of one stage, a snapshot.
+     */
+    public static class StageStats {
+        public final String name;
+        public final int queueDepth;
+        public final long processed;
+        public final long dropped;
+        public final long failed;
+        public final long meanMicros;
+        public final long maxMicros;
+        // Time spent waiting for room in the next stage's queue.
+        public final long blockedMicros;
+
+        StageStats(String name, int queueDepth, long processed, long dropped, long failed,
+                   long meanMicros, long maxMicros, long blockedMicros) {
+            this.name = name;
+            this.queueDepth = queueDepth;
+            this.processed = processed;
+            this.dropped = dropped;
+            this.failed = failed;
+            this.meanMicros = meanMicros;
+            this.maxMicros = maxMicros;
+            this.blockedMicros = blockedMicros;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%s: queue %d, %d done, %d dropped, %d failed, mean %d us, max %d us, blocked %d us",
+                    name, queueDepth, processed, dropped, failed, meanMicros, maxMicros, blockedMicros);
+        }
+    }
+
+    private static class StageRunner<T> {
+        final String name;
+        final Stage<T> stage;
+        final BlockingQueue<T> queue;
+        Thread thread;
+
+        // Written by the stage thread only.
+        volatile long processed;
+        volatile long dropped;
+        volatile long failed;
+        volatile long totalNanos;
+        volatile long maxNanos;
+        volatile long blockedNanos;
+
+        StageRunner(String name, int queueCapacity, Stage<T> stage) {
+            this.name = name;
+            this.stage = stage;
+            this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        }
+
+        StageStats snapshot() {
+            long count = processed + dropped + failed;
+            return new StageStats(name, queue.size(), processed, dropped, failed,
+                    count > 0 ? totalNanos / count / 1000 : 0, maxNanos / 1000, blockedNanos / 1000);
+        }
+    }
+
+    private final List<StageRunner<T>> stages;
+    private final Listener<T> listener;
+    private volatile boolean closed;
+
+    private StagedPipeline(List<StageRunner<T>> stages, Listener<T> listener) {
+        this.stages = new ArrayList<>(stages);
+        this.listener = listener;
+        for (int i = 0; i < this.stages.size(); i++) {
+            StageRunner<T> runner = this.stages.get(i);
+            StageRunner<T> next = i + 1 < this.stages.size() ? this.stages.get(i + 1) : null;
+            runner.thread = new Thread(() -> runStage(runner, next), "pipeline-" + runner.name);
+            runner.thread.start();
+        }
+    }
+
+    /**
+     * Submits an item without waiting.
+     * @param item The work item.
+     * @return false if the first stage's queue is full or the pipeline is closed. The item was
+     * not taken and the Listener is not called for it.
+     */
+    public boolean offer(T item) {
+        if (closed) {
+            return false;
+        }
+        StageRunner<T> first = stages.get(0);
+        if (!first.queue.offer(item)) {
+            return false;
+        }
+        if (closed) {
+            drain(first);
+        }
+        return true;
+    }
+
+    /**
+     * Submits an item, waiting for room in the first stage's queue.
+     * @param item The work item.
+     * @throws InterruptedException If interrupted while waiting.
+     * @throws IllegalStateException If the pipeline is closed.
+     */
+    public void put(T item) throws InterruptedException {
+        if (closed) {
+            throw new IllegalStateException("Pipeline is closed");
+        }
+        StageRunner<T> first = stages.get(0);
+        first.queue.put(item);
+        if (closed) {
+            drain(first);
+        }
+    }
+
+    private void runStage(StageRunner<T> runner, StageRunner<T> next) {
+        try {
+            while (!closed) {
+                T item = runner.queue.take();
+                long startNanos = System.nanoTime();
+                boolean passOn;
+                try {
+                    passOn = runner.stage.process(item);
+                } catch (Exception e) {
+                    record(runner, startNanos);
+                    runner.failed++;
+                    listener.onFinished(item, e);
+                    continue;
+                }
+                record(runner, startNanos);
+                if (!passOn) {
+                    runner.dropped++;
+                    listener.onFinished(item, null);
+                    continue;
+                }
+                runner.processed++;
+                if (next == null || closed) {
+                    listener.onFinished(item, null);
+                    continue;
+                }
+                long waitStartNanos = System.nanoTime();
+                try {
+                    next.queue.put(item);
+                } catch (InterruptedException e) {
+                    // Closed while waiting for room; the item never reached the next queue.
+                    listener.onFinished(item, null);
+                    break;
+                } finally {
+                    runner.blockedNanos += System.nanoTime() - waitStartNanos;
+                }
+                if (closed) {
+                    drain(next);
+                }
+            }
+        } catch (InterruptedException e) {
+            // Closed while waiting.
+        }
+        drain(runner);
+    }
+
+    private static <T> void record(StageRunner<T> runner, long startNanos) {
+        long elapsed = System.nanoTime() - startNanos;
+        runner.totalNanos += elapsed;
+        if (elapsed > runner.maxNanos) {
+            runner.maxNanos = elapsed;
+        }
+    }
+
+    private void drain(StageRunner<T> runner) {
+        T item;
+        while ((item = runner.queue.poll()) != null) {
+            listener.onFinished(item, null);
+        }
+    }
+
+    /**
+     * @return The statistics of every stage, in pipeline order.
+     */
+    public List<StageStats> getStats() {
+        List<StageStats> stats = new ArrayList<>(stages.size());
+        for (StageRunner<T> runner : stages) {
+            stats.add(runner.snapshot());
+        }
+        return stats;
+    }
+
+    /**
+     * Stops the stage threads. Items waiting in queues are handed to the Listener; an item that
+     * is inside a stage is handed over once that stage returns.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (StageRunner<T> runner : stages) {
+            runner.thread.interrupt();
+            drain(runner);
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (StageStats stats : getStats()) {
+            if (builder.length() > 0) {
+                builder.append("; ");
+            }
+            builder.append(stats);
+        }
+        return builder.toString();
+    }
+}
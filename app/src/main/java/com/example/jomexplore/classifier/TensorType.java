@@ -0,0 +1,30 @@
+package com.example.jomexplore.classifier;
+
+/**
+ * The element types the classifier supports for its input and output tensors.
+ */
+public enum TensorType {
+    FLOAT32(4),
+    UINT8(1),
+    INT8(1);
+
+    private final int byteSize;
+
+    TensorType(int byteSize) {
+        this.byteSize = byteSize;
+    }
+
+    /**
+     * @return The number of bytes one element occupies.
+     */
+    public int byteSize() {
+        return byteSize;
+    }
+
+    /**
+     * @return true for the 8-bit quantized types.
+     */
+    public boolean isQuantized() {
+        return this != FLOAT32;
+    }
+}
@@ -0,0 +1,179 @@
+package com.example.jomexplore.classifier;
+
+import java.nio.ByteBuffer;
+
+/**
+ * YuvTensorConverter writes a YUV_420_888 camera frame straight into the model's input tensor.
+ * Rotation, the square center crop, resampling and normalization happen in a single pass over
+ * the output pixels, so no intermediate RGB frame or Bitmap is created.
+ * An instance reuses one row buffer and is not thread-safe.
+ */
+public class YuvTensorConverter {
+
+    /**
+     * How source pixels are sampled when the crop is resized to the tensor size.
+     */
+    public enum Sampling {
+        NEAREST,
+        BILINEAR
+    }
+
+    private final int outputSize;
+    private final Sampling sampling;
+    private final int[] rowPixels;
+
+    // Affine map from upright crop coordinates to sensor coordinates, updated per frame.
+    private float ax, bx, cx;
+    private float ay, by, cy;
+
+    /**
+     * @param outputSize The width and height of the tensor.
+     * @param sampling The resampling mode.
+     */
+    public YuvTensorConverter(int outputSize, Sampling sampling) {
+        this.outputSize = outputSize;
+        this.sampling = sampling;
+        this.rowPixels = new int[outputSize];
+    }
+
+    /**
+     * Converts one frame into the tensor.
+     * The Y plane must have a pixel stride of 1, as YUV_420_888 guarantees.
+     * @param yPlane The luma plane.
+     * @param yRowStride The row stride of the luma plane in bytes.
+     * @param uPlane The Cb plane.
+     * @param vPlane The Cr plane.
+     * @param uvRowStride The row stride of the chroma planes in bytes.
+     * @param uvPixelStride The pixel stride of the chroma planes in bytes (1 for planar, 2 for semi-planar).
+     * @param frameWidth The width of the frame in sensor orientation.
+     * @param frameHeight The height of the frame in sensor orientation.
+     * @param rotationDegrees The clockwise rotation (0, 90, 180 or 270) that makes the frame upright.
+     * @param tensor The tensor to fill. Its width and height must equal the output size.
+     */
+    public void convert(ByteBuffer yPlane, int yRowStride,
+                        ByteBuffer uPlane, ByteBuffer vPlane, int uvRowStride, int uvPixelStride,
+                        int frameWidth, int frameHeight, int rotationDegrees, InputTensor tensor) {
+        if (tensor.getWidth() != outputSize || tensor.getHeight() != outputSize) {
+            throw new IllegalArgumentException("Tensor size does not match converter output size " + outputSize);
+        }
+
+        setUpTransform(frameWidth, frameHeight, rotationDegrees);
+
+        // Centre square of the upright frame, sampled at output pixel centres.
+        int uprightWidth = rotationDegrees % 180 == 0 ? frameWidth : frameHeight;
+        int uprightHeight = rotationDegrees % 180 == 0 ? frameHeight : frameWidth;
+        int cropSize = Math.min(uprightWidth, uprightHeight);
+        float scale = cropSize / (float) outputSize;
+        float originX = (uprightWidth - cropSize) / 2f + scale / 2f - 0.5f;
+        float originY = (uprightHeight - cropSize) / 2f + scale / 2f - 0.5f;
+
+        final int maxX = frameWidth - 1;
+        final int maxY = frameHeight - 1;
+        for (int j = 0; j < outputSize; j++) {
+            float uy = originY + j * scale;
+            // Source position of the row's first pixel and its step per output column.
+            float sx = ax * originX + bx * uy + cx;
+            float sy = ay * originX + by * uy + cy;
+            float stepX = ax * scale;
+            float stepY = ay * scale;
+
+            for (int i = 0; i < outputSize; i++) {
+                if (sampling == Sampling.NEAREST) {
+                    int x = clamp(Math.round(sx), maxX);
+                    int y = clamp(Math.round(sy), maxY);
+                    int luma = yPlane.get(y * yRowStride + x) & 0xFF;
+                    int chroma = (y >> 1) * uvRowStride + (x >> 1) * uvPixelStride;
+                    rowPixels[i] = yuvToArgb(luma, uPlane.get(chroma) & 0xFF, vPlane.get(chroma) & 0xFF);
+                } else {
+                    rowPixels[i] = sampleBilinear(yPlane, yRowStride, uPlane, vPlane, uvRowStride, uvPixelStride,
+                            sx, sy, maxX, maxY);
+                }
+                sx += stepX;
+                sy += stepY;
+            }
+            tensor.putRow(j, rowPixels, 0);
+        }
+    }
+
+    /**
+     * Sets up the map from upright coordinates (ux, uy) to sensor coordinates (sx, sy).
+     */
+    private void setUpTransform(int frameWidth, int frameHeight, int rotationDegrees) {
+        switch (rotationDegrees) {
+            case 90:
+                ax = 0; bx = 1; cx = 0;
+                ay = -1; by = 0; cy = frameHeight - 1;
+                break;
+            case 180:
+                ax = -1; bx = 0; cx = frameWidth - 1;
+                ay = 0; by = -1; cy = frameHeight - 1;
+                break;
+            case 270:
+                ax = 0; bx = -1; cx = frameWidth - 1;
+                ay = 1; by = 0; cy = 0;
+                break;
+            case 0:
+                ax = 1; bx = 0; cx = 0;
+                ay = 0; by = 1; cy = 0;
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported rotation: " + rotationDegrees);
+        }
+    }
+
+    /**
+     * Interpolates Y, U and V between the four neighbouring sensor pixels and converts the result.
+     */
+    private static int sampleBilinear(ByteBuffer yPlane, int yRowStride,
+                                      ByteBuffer uPlane, ByteBuffer vPlane, int uvRowStride, int uvPixelStride,
+                                      float sx, float sy, int maxX, int maxY) {
+        float fx = Math.max(0f, Math.min(sx, maxX));
+        float fy = Math.max(0f, Math.min(sy, maxY));
+        int x0 = (int) fx;
+        int y0 = (int) fy;
+        int x1 = Math.min(x0 + 1, maxX);
+        int y1 = Math.min(y0 + 1, maxY);
+        float wx = fx - x0;
+        float wy = fy - y0;
+
+        float w00 = (1 - wx) * (1 - wy);
+        float w10 = wx * (1 - wy);
+        float w01 = (1 - wx) * wy;
+        float w11 = wx * wy;
+
+        float luma = w00 * (yPlane.get(y0 * yRowStride + x0) & 0xFF)
+                + w10 * (yPlane.get(y0 * yRowStride + x1) & 0xFF)
+                + w01 * (yPlane.get(y1 * yRowStride + x0) & 0xFF)
+                + w11 * (yPlane.get(y1 * yRowStride + x1) & 0xFF);
+
+        int c00 = (y0 >> 1) * uvRowStride + (x0 >> 1) * uvPixelStride;
+        int c10 = (y0 >> 1) * uvRowStride + (x1 >> 1) * uvPixelStride;
+        int c01 = (y1 >> 1) * uvRowStride + (x0 >> 1) * uvPixelStride;
+        int c11 = (y1 >> 1) * uvRowStride + (x1 >> 1) * uvPixelStride;
+        float u = w00 * (uPlane.get(c00) & 0xFF) + w10 * (uPlane.get(c10) & 0xFF)
+                + w01 * (uPlane.get(c01) & 0xFF) + w11 * (uPlane.get(c11) & 0xFF);
+        float v = w00 * (vPlane.get(c00) & 0xFF) + w10 * (vPlane.get(c10) & 0xFF)
+                + w01 * (vPlane.get(c01) & 0xFF) + w11 * (vPlane.get(c11) & 0xFF);
+
+        return yuvToArgb(Math.round(luma), Math.round(u), Math.round(v));
+    }
+
+    /**
+     * Converts full-range (JFIF) YUV to an opaque ARGB pixel using 10-bit fixed-point BT.601 coefficients.
+     */
+    static int yuvToArgb(int y, int u, int v) {
+        int d = u - 128;
+        int e = v - 128;
+        int r = y + ((1436 * e) >> 10);
+        int g = y - ((352 * d + 731 * e) >> 10);
+        int b = y + ((1815 * d) >> 10);
+        r = r < 0 ? 0 : (r > 255 ? 255 : r);
+        g = g < 0 ? 0 : (g > 255 ? 255 : g);
+        b = b < 0 ? 0 : (b > 255 ? 255 : b);
+        return 0xFF000000 | (r << 16) | (g << 8) | b;
+    }
+
+    private static int clamp(int value, int max) {
+        return value < 0 ? 0 : (value > max ? max : value);
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.jomexplore.utils;
+
+import android.content.ComponentCallbacks2;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.util.Log;
+
+import java.nio.ByteBuffer;
+
+/**
+ * BitmapPool recycles bitmap pixel memory across decodes, rotations and crops.
+ * Released bitmaps are kept in a byte-capped, size-bucketed LRU pool; decodes reuse them through
+ * BitmapFactory.Options.inBitmap and transforms draw into them after Bitmap.reconfigure(), so
+ * repeated scans stop allocating new pixel buffers. The pool is shared by the whole process.
+ */
+public final class BitmapPool {
+    private static final String TAG = "BitmapPool";
+
+    private static final SizeBucketPool<Bitmap> pool =
+            new SizeBucketPool<>(Runtime.getRuntime().maxMemory() / 16, Bitmap::recycle);
+
+    private BitmapPool() {
+    }
+
+    /**
+     * Gets a mutable bitmap of the given size, reusing pooled pixel memory when possible.
+     * The contents are undefined; callers are expected to overwrite every pixel.
+     * @param width The bitmap width.
+     * @param height The bitmap height.
+     * @param config The pixel format.
+     * @return A mutable bitmap of exactly the requested size and format.
+     */
+    public static Bitmap acquire(int width, int height, Bitmap.Config config) {
+        Bitmap bitmap = pool.get(byteCount(width, height, config));
+        if (bitmap != null) {
+            bitmap.reconfigure(width, height, config);
+            return bitmap;
+        }
+        return Bitmap.createBitmap(width, height, config);
+    }
+
+    /**
+     * Returns a bitmap to the pool. Immutable bitmaps cannot be reused and are recycled instead.
+     * @param bitmap The bitmap, which the caller must no longer use. May be null.
+     */
+    public static void release(Bitmap bitmap) {
+        if (bitmap == null || bitmap.isRecycled()) {
+            return;
+        }
+        if (!bitmap.isMutable()) {
+            bitmap.recycle();
+            return;
+        }
+        pool.put(bitmap, bitmap.getAllocationByteCount());
+    }
+
+    /**
+     * Prepares decode options to decode into a pooled bitmap.
+     * Call this after the bounds decode, with the expected output size. If no pooled bitmap fits,
+     * the options still request a mutable result, so the decoded bitmap can be pooled later.
+     * @param options The decode options.
+     * @param width The expected decoded width.
+     * @param height The expected decoded height.
+     */
+    public static void prepareDecode(BitmapFactory.Options options, int width, int height) {
+        Bitmap.Config config = options.inPreferredConfig != null ? options.inPreferredConfig : Bitmap.Config.ARGB_8888;
+        options.inMutable = true;
+        // Decoded sizes are rounded by the decoder, so leave a pixel of slack on each side.
+        options.inBitmap = pool.get(byteCount(width + 1, height + 1, config));
+    }
+
+    /**
+     * Decodes with options prepared by prepareDecode(). If the pooled bitmap turns out to be
+     * unsuitable, it is released again and the image is decoded into new memory.
+     * Also usable for bounds-only decodes.
+     * @param data The encoded image, from its position to its limit. Its position is not changed.
+     * @param options The prepared decode options.
+     * @return The decoded bitmap, or null if the data cannot be decoded.
+     */
+    public static Bitmap decode(ByteBuffer data, BitmapFactory.Options options) {
+        try {
+            return BitmapFactory.decodeStream(new ByteBufferInputStream(data), null, options);
+        } catch (IllegalArgumentException e) {
+            Log.w(TAG, "Pooled bitmap could not be reused for decoding", e);
+            release(options.inBitmap);
+            options.inBitmap = null;
+            return BitmapFactory.decodeStream(new ByteBufferInputStream(data), null, options);
+        }
+    }
+
+    /**
+     * Shrinks the pool when the system is low on memory.
+     * @param level The level passed to ComponentCallbacks2.onTrimMemory().
+     */
+    public static void onTrimMemory(int level) {
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_MODERATE
+                || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+            pool.trimToSize(0);
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND
+                || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            pool.trimToSize(pool.getCurrentBytes() / 2);
+        }
+        Log.d(TAG, "Trimmed at level " + level + ": " + pool);
+    }
+
+    /**
+     * @return A summary of the pool size, hit rate and reused bytes, for logging.
+     */
+    public static String getStats() {
+        return pool.toString();
+    }
+
+    private static int byteCount(int width, int height, Bitmap.Config config) {
+        int bytesPerPixel;
+        switch (config) {
+            case ALPHA_8:
+                bytesPerPixel = 1;
+                break;
+            case RGB_565:
+            case ARGB_4444:
+                bytesPerPixel = 2;
+                break;
+            default:
+                bytesPerPixel = 4;
+                break;
+        }
+        return width * height * bytesPerPixel;
+    }
+}
@@ -2,112 +2,333 @@ package com.example.jomexplore.utils;
 
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
+import android.graphics.Canvas;
+import android.graphics.Color;
 import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.PorterDuff;
+import android.graphics.PorterDuffXfermode;
+import android.graphics.RectF;
 import androidx.exifinterface.media.ExifInterface;
 
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 
 /**
  * A utility class for handling Bitmap operations.
  * This class provides methods to load and manipulate bitmaps, such as handling image orientation
- * based on EXIF data and efficiently decoding large images.
+ * based on EXIF data and efficiently decoding large images. Files, byte arrays and camera JPEG
+ * buffers all go through the same ByteBuffer-based decode, with EXIF read by JpegOrientation.
+ * Decodes and transforms take their pixel memory from BitmapPool; callers should hand bitmaps
+ * they are done with back through BitmapPool.release().
  */
 public class BitmapUtils {
 
+    private static final String TAG = "BitmapUtils";
+
     /**
      * Decodes an image file into a Bitmap, ensuring it is correctly oriented.
-     * This method reads the EXIF orientation tag and rotates the image accordingly.
-     * It also scales the image down to the requested dimensions to conserve memory.
+     * The file is opened once and memory-mapped; the EXIF orientation, the bounds and the pixels
+     * are all read from that one mapping. It also scales the image down to the requested
+     * dimensions to conserve memory.
      *
      * @param photoPath The absolute path to the image file.
      * @param reqWidth  The required width of the output bitmap.
      * @param reqHeight The required height of the output bitmap.
      * @return A correctly oriented and scaled Bitmap, or null if the file cannot be decoded.
-     * @throws IOException If an error occurs while reading the image file or its EXIF data.
+     * @throws IOException If an error occurs while reading the image file.
      */
-    private static final String TAG = "BitmapUtils";
-
     public static Bitmap getCorrectlyOrientedBitmap(String photoPath, int reqWidth, int reqHeight) throws IOException {
-        try {
-            android.util.Log.d(TAG, "Loading bitmap from: " + photoPath);
-            
-            if (photoPath == null || photoPath.isEmpty()) {
-                android.util.Log.e(TAG, "Photo path is null or empty");
-                return null;
-            }
-            
-            // First, decode with inJustDecodeBounds=true to check the dimensions of the image without loading it into memory.
-            final BitmapFactory.Options options = new BitmapFactory.Options();
-            options.inJustDecodeBounds = true;
-            BitmapFactory.decodeFile(photoPath, options);
-
-            if (options.outWidth <= 0 || options.outHeight <= 0) {
-                android.util.Log.e(TAG, "Invalid image dimensions: " + options.outWidth + "x" + options.outHeight);
-                return null;
-            }
+        android.util.Log.d(TAG, "Loading bitmap from: " + photoPath);
 
-            // Calculate the inSampleSize to scale the image down.
-            options.inSampleSize = calculateInSampleSize(options, reqWidth, reqHeight);
-            android.util.Log.d(TAG, "Using inSampleSize: " + options.inSampleSize);
-
-            // Decode the bitmap with the calculated inSampleSize.
-            options.inJustDecodeBounds = false;
-            Bitmap bitmap = BitmapFactory.decodeFile(photoPath, options);
-            if (bitmap == null) {
-                android.util.Log.e(TAG, "Failed to decode bitmap from file: " + photoPath);
-                return null; // The file could not be decoded.
-            }
-            
-            android.util.Log.d(TAG, "Bitmap loaded successfully: " + bitmap.getWidth() + "x" + bitmap.getHeight());
-        
-
-            // Read EXIF data to determine the image orientation.
-            ExifInterface exif = new ExifInterface(photoPath);
-            int orientation = exif.getAttributeInt(ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_NORMAL);
-            android.util.Log.d(TAG, "Image orientation: " + orientation);
-
-            // If the orientation is normal, no rotation is needed.
-            if (orientation == ExifInterface.ORIENTATION_NORMAL || orientation == ExifInterface.ORIENTATION_UNDEFINED) {
-                android.util.Log.d(TAG, "No rotation needed");
-                return bitmap;
-            }
+        if (photoPath == null || photoPath.isEmpty()) {
+            android.util.Log.e(TAG, "Photo path is null or empty");
+            return null;
+        }
 
-            // Create a matrix to apply the necessary rotation/flipping.
-            Matrix matrix = new Matrix();
-            switch (orientation) {
-                case ExifInterface.ORIENTATION_ROTATE_90:
-                    matrix.postRotate(90);
-                    android.util.Log.d(TAG, "Rotating 90 degrees");
-                    break;
-                case ExifInterface.ORIENTATION_ROTATE_180:
-                    matrix.postRotate(180);
-                    android.util.Log.d(TAG, "Rotating 180 degrees");
-                    break;
-                case ExifInterface.ORIENTATION_ROTATE_270:
-                    matrix.postRotate(270);
-                    android.util.Log.d(TAG, "Rotating 270 degrees");
-                    break;
-                case ExifInterface.ORIENTATION_FLIP_HORIZONTAL:
-                    matrix.preScale(-1.0f, 1.0f);
-                    android.util.Log.d(TAG, "Flipping horizontally");
-                    break;
-                case ExifInterface.ORIENTATION_FLIP_VERTICAL:
-                    matrix.preScale(1.0f, -1.0f);
-                    android.util.Log.d(TAG, "Flipping vertically");
-                    break;
-            }
+        // The mapping stays valid after the channel is closed.
+        MappedByteBuffer data;
+        try (FileInputStream inputStream = new FileInputStream(photoPath)) {
+            FileChannel channel = inputStream.getChannel();
+            data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
 
-            // Create a new bitmap with the correct orientation.
-            Bitmap orientedBitmap = Bitmap.createBitmap(bitmap, 0, 0, bitmap.getWidth(), bitmap.getHeight(), matrix, true);
-            android.util.Log.d(TAG, "Bitmap orientation corrected successfully");
-            return orientedBitmap;
-            
+        try {
+            return getCorrectlyOrientedBitmap(data, reqWidth, reqHeight);
         } catch (Exception e) {
             android.util.Log.e(TAG, "Error processing bitmap: " + photoPath, e);
             throw new IOException("Failed to process bitmap", e);
         }
     }
 
+    /**
+     * Decodes an encoded image into a Bitmap, oriented according to its own EXIF data.
+     *
+     * @param jpeg      The encoded image, e.g. a byte array, a mapped file or an ImageProxy JPEG
+     *                  plane, from its position to its limit. Its position is not changed.
+     * @param reqWidth  The required width of the output bitmap.
+     * @param reqHeight The required height of the output bitmap.
+     * @return A correctly oriented and scaled Bitmap, or null if the data cannot be decoded.
+     */
+    public static Bitmap getCorrectlyOrientedBitmap(ByteBuffer jpeg, int reqWidth, int reqHeight) {
+        int orientation = JpegOrientation.read(jpeg);
+        android.util.Log.d(TAG, "Image orientation: " + orientation);
+
+        // First, decode with inJustDecodeBounds=true to check the dimensions of the image without loading it into memory.
+        final BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapPool.decode(jpeg, options);
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            android.util.Log.e(TAG, "Invalid image dimensions: " + options.outWidth + "x" + options.outHeight);
+            return null;
+        }
+
+        // Calculate the inSampleSize to scale the image down.
+        options.inSampleSize = calculateInSampleSize(options, reqWidth, reqHeight);
+        android.util.Log.d(TAG, "Using inSampleSize: " + options.inSampleSize);
+
+        // Decode the bitmap with the calculated inSampleSize.
+        options.inJustDecodeBounds = false;
+        BitmapPool.prepareDecode(options, sampledSize(options.outWidth, options.inSampleSize),
+                sampledSize(options.outHeight, options.inSampleSize));
+        Bitmap bitmap = BitmapPool.decode(jpeg, options);
+        if (bitmap == null) {
+            android.util.Log.e(TAG, "Failed to decode bitmap");
+            return null;
+        }
+        android.util.Log.d(TAG, "Bitmap loaded successfully: " + bitmap.getWidth() + "x" + bitmap.getHeight());
+
+        // If the orientation is normal, no rotation is needed.
+        Matrix matrix = orientationMatrix(orientation);
+        if (matrix == null) {
+            return bitmap;
+        }
+
+        // Create a new bitmap with the correct orientation.
+        Bitmap orientedBitmap = transform(bitmap, 0, 0, bitmap.getWidth(), bitmap.getHeight(), matrix);
+        BitmapPool.release(bitmap);
+        return orientedBitmap;
+    }
+
+    /**
+     * Builds the transform that makes an image with the given EXIF orientation upright.
+     *
+     * @param orientation An ExifInterface ORIENTATION_ value.
+     * @return The rotation/flip matrix, or null if the image is already upright.
+     */
+    private static Matrix orientationMatrix(int orientation) {
+        Matrix matrix = new Matrix();
+        switch (orientation) {
+            case ExifInterface.ORIENTATION_ROTATE_90:
+                matrix.postRotate(90);
+                return matrix;
+            case ExifInterface.ORIENTATION_ROTATE_180:
+                matrix.postRotate(180);
+                return matrix;
+            case ExifInterface.ORIENTATION_ROTATE_270:
+                matrix.postRotate(270);
+                return matrix;
+            case ExifInterface.ORIENTATION_FLIP_HORIZONTAL:
+                matrix.preScale(-1.0f, 1.0f);
+                return matrix;
+            case ExifInterface.ORIENTATION_FLIP_VERTICAL:
+                matrix.preScale(1.0f, -1.0f);
+                return matrix;
+            case ExifInterface.ORIENTATION_TRANSPOSE:
+                matrix.postRotate(90);
+                matrix.postScale(-1.0f, 1.0f);
+                return matrix;
+            case ExifInterface.ORIENTATION_TRANSVERSE:
+                matrix.postRotate(-90);
+                matrix.postScale(-1.0f, 1.0f);
+                return matrix;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Decodes an in-memory JPEG, such as one delivered by ImageCapture, into an upright Bitmap.
+     * The image is subsampled while decoding, so the full-resolution pixels are never allocated.
+     *
+     * @param jpeg            The encoded image.
+     * @param rotationDegrees The clockwise rotation that makes the image upright.
+     * @param reqWidth        The required width of the output bitmap.
+     * @param reqHeight       The required height of the output bitmap.
+     * @return A correctly oriented and scaled Bitmap, or null if the data cannot be decoded.
+     */
+    public static Bitmap decodeJpeg(byte[] jpeg, int rotationDegrees, int reqWidth, int reqHeight) {
+        return decodeJpeg(ByteBuffer.wrap(jpeg), rotationDegrees, reqWidth, reqHeight);
+    }
+
+    /**
+     * Same as decodeJpeg(byte[], ...), for a buffer such as an ImageProxy JPEG plane.
+     * The buffer's position is not changed.
+     */
+    public static Bitmap decodeJpeg(ByteBuffer jpeg, int rotationDegrees, int reqWidth, int reqHeight) {
+        final BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapPool.decode(jpeg, options);
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            android.util.Log.e(TAG, "Invalid image dimensions: " + options.outWidth + "x" + options.outHeight);
+            return null;
+        }
+
+        // The requested size applies to the upright image, so swap it for sideways sensors.
+        boolean sideways = rotationDegrees == 90 || rotationDegrees == 270;
+        options.inSampleSize = calculateInSampleSize(options,
+                sideways ? reqHeight : reqWidth, sideways ? reqWidth : reqHeight);
+        options.inJustDecodeBounds = false;
+        BitmapPool.prepareDecode(options, sampledSize(options.outWidth, options.inSampleSize),
+                sampledSize(options.outHeight, options.inSampleSize));
+        Bitmap bitmap = BitmapPool.decode(jpeg, options);
+        if (bitmap == null || rotationDegrees % 360 == 0) {
+            return bitmap;
+        }
+
+        Matrix matrix = new Matrix();
+        matrix.postRotate(rotationDegrees);
+        Bitmap rotated = transform(bitmap, 0, 0, bitmap.getWidth(), bitmap.getHeight(), matrix);
+        BitmapPool.release(bitmap);
+        return rotated;
+    }
+
+    /**
+     * Decodes an in-memory JPEG into an upright Bitmap whose short side is close to shortSide,
+     * e.g. a photo for multi-crop classification. The decoder subsamples by a power of two and
+     * then scales by density for the rest, so a 4032x3024 photo decoded for 448 comes out as
+     * 597x448 rather than the 1008x756 that subsampling alone would give. Images whose short side
+     * is already at most shortSide are decoded as they are.
+     *
+     * @param jpeg            The encoded image.
+     * @param rotationDegrees The clockwise rotation that makes the image upright.
+     * @param shortSide       The short side of the output bitmap.
+     * @return An upright Bitmap, or null if the data cannot be decoded.
+     */
+    public static Bitmap decodeToShortSide(byte[] jpeg, int rotationDegrees, int shortSide) {
+        ByteBuffer buffer = ByteBuffer.wrap(jpeg);
+        final BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapPool.decode(buffer, options);
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            android.util.Log.e(TAG, "Invalid image dimensions: " + options.outWidth + "x" + options.outHeight);
+            return null;
+        }
+
+        options.inSampleSize = sampleSizeFor(Math.min(options.outWidth, options.outHeight), shortSide);
+        int sampledWidth = sampledSize(options.outWidth, options.inSampleSize);
+        int sampledHeight = sampledSize(options.outHeight, options.inSampleSize);
+        int sampledShortSide = Math.min(sampledWidth, sampledHeight);
+        if (sampledShortSide > shortSide) {
+            // Let the decoder do the rest of the downscale instead of a separate scaling pass.
+            options.inScaled = true;
+            options.inDensity = sampledShortSide;
+            options.inTargetDensity = shortSide;
+            sampledWidth = Math.round(sampledWidth * shortSide / (float) sampledShortSide);
+            sampledHeight = Math.round(sampledHeight * shortSide / (float) sampledShortSide);
+        }
+        options.inJustDecodeBounds = false;
+        BitmapPool.prepareDecode(options, sampledWidth, sampledHeight);
+        Bitmap bitmap = BitmapPool.decode(buffer, options);
+        if (bitmap == null || rotationDegrees % 360 == 0) {
+            return bitmap;
+        }
+
+        Matrix matrix = new Matrix();
+        matrix.postRotate(rotationDegrees);
+        Bitmap rotated = transform(bitmap, 0, 0, bitmap.getWidth(), bitmap.getHeight(), matrix);
+        BitmapPool.release(bitmap);
+        return rotated;
+    }
+
+    /**
+     * Draws a region of a bitmap through a matrix into a pooled bitmap, like
+     * Bitmap.createBitmap(source, x, y, width, height, matrix, true) without a new allocation.
+     *
+     * @param source The bitmap to draw. It is not released.
+     * @param x      The left edge of the region.
+     * @param y      The top edge of the region.
+     * @param width  The width of the region.
+     * @param height The height of the region.
+     * @param matrix The transform applied to the region.
+     * @return A pooled bitmap sized to the transformed region.
+     */
+    private static Bitmap transform(Bitmap source, int x, int y, int width, int height, Matrix matrix) {
+        RectF bounds = new RectF(0, 0, width, height);
+        matrix.mapRect(bounds);
+        Matrix drawMatrix = new Matrix();
+        drawMatrix.setTranslate(-x, -y);
+        drawMatrix.postConcat(matrix);
+        drawMatrix.postTranslate(-bounds.left, -bounds.top);
+
+        Bitmap target = BitmapPool.acquire(Math.round(bounds.width()), Math.round(bounds.height()), Bitmap.Config.ARGB_8888);
+        // Pooled pixels are stale; clear them so rounding at the edges cannot leave old content.
+        target.eraseColor(Color.TRANSPARENT);
+        Paint paint = new Paint(Paint.FILTER_BITMAP_FLAG);
+        paint.setXfermode(new PorterDuffXfermode(PorterDuff.Mode.SRC));
+        new Canvas(target).drawBitmap(source, drawMatrix, paint);
+        return target;
+    }
+
+    /**
+     * @return The size of one side after subsampling; decoders round up.
+     */
+    private static int sampledSize(int size, int sampleSize) {
+        return (size + sampleSize - 1) / sampleSize;
+    }
+
+    /**
+     * Finds the largest power-of-two sample size that keeps the short side at least minSide.
+     * JPEG decoders only subsample by powers of two, so other values would be rounded down anyway.
+     *
+     * @param shortSide The short side of the encoded image.
+     * @param minSide   The smallest acceptable short side after subsampling.
+     * @return The sample size, at least 1.
+     */
+    static int sampleSizeFor(int shortSide, int minSide) {
+        int sampleSize = 1;
+        while (shortSide / (sampleSize * 2) >= minSide) {
+            sampleSize *= 2;
+        }
+        return sampleSize;
+    }
+
+    /**
+     * Writes an in-memory JPEG to a file and records its rotation in the EXIF orientation tag,
+     * so that getCorrectlyOrientedBitmap() shows it upright.
+     *
+     * @param jpeg            The encoded image.
+     * @param rotationDegrees The clockwise rotation that makes the image upright.
+     * @param file            The file to write.
+     * @throws IOException If the file cannot be written.
+     */
+    public static void saveJpeg(byte[] jpeg, int rotationDegrees, File file) throws IOException {
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(jpeg);
+        }
+        ExifInterface exif = new ExifInterface(file.getAbsolutePath());
+        exif.setAttribute(ExifInterface.TAG_ORIENTATION, String.valueOf(toExifOrientation(rotationDegrees)));
+        exif.saveAttributes();
+    }
+
+    private static int toExifOrientation(int rotationDegrees) {
+        switch (rotationDegrees) {
+            case 90:
+                return ExifInterface.ORIENTATION_ROTATE_90;
+            case 180:
+                return ExifInterface.ORIENTATION_ROTATE_180;
+            case 270:
+                return ExifInterface.ORIENTATION_ROTATE_270;
+            default:
+                return ExifInterface.ORIENTATION_NORMAL;
+        }
+    }
+
     /**
      * Calculates the `inSampleSize` for downscaling an image to the requested width and height.
      * This helps in decoding large bitmaps efficiently to avoid `OutOfMemoryError`.
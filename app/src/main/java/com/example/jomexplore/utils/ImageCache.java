@@ -0,0 +1,135 @@
+package com.example.jomexplore.utils;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.util.Log;
+import android.util.LruCache;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * ImageCache keeps decoded previews so the result screen does not decode the same photo again
+ * after a rotation or when it is reopened. It has two tiers:
+ * an in-memory LRU of display-sized bitmaps keyed by source and size, and a disk cache of small
+ * upright JPEG thumbnails keyed by source that survives process death and can be shown
+ * immediately while the full preview is decoded.
+ * Bitmaps handed out by the memory tier are shared and must not be recycled or pooled.
+ */
+public class ImageCache {
+    private static final String TAG = "ImageCache";
+
+    // The long side of disk thumbnails, in pixels.
+    public static final int THUMBNAIL_SIZE = 256;
+    private static final int THUMBNAIL_QUALITY = 85;
+    private static final long DISK_CACHE_BYTES = 10L * 1024 * 1024;
+
+    private static ImageCache instance;
+
+    private final LruCache<String, Bitmap> memory;
+    private final ThumbnailDiskCache disk;
+
+    private ImageCache(Context context) {
+        int maxBytes = (int) Math.min(Integer.MAX_VALUE, Runtime.getRuntime().maxMemory() / 8);
+        memory = new LruCache<String, Bitmap>(maxBytes) {
+            @Override
+            protected int sizeOf(String key, Bitmap bitmap) {
+                return bitmap.getAllocationByteCount();
+            }
+        };
+        disk = new ThumbnailDiskCache(new File(context.getCacheDir(), "thumbnails"), DISK_CACHE_BYTES);
+    }
+
+    /**
+     * @param context Any context; the application context is kept.
+     * @return The process-wide cache.
+     */
+    public static synchronized ImageCache getInstance(Context context) {
+        if (instance == null) {
+            instance = new ImageCache(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /**
+     * @param key The source key, see CapturedImage.getCacheKey().
+     * @param width The view width the bitmap was decoded for.
+     * @param height The view height the bitmap was decoded for.
+     * @return The cached bitmap, or null.
+     */
+    public Bitmap getBitmap(String key, int width, int height) {
+        return memory.get(memoryKey(key, width, height));
+    }
+
+    /**
+     * Caches a display-sized bitmap. The cache takes shared ownership of it.
+     */
+    public void putBitmap(String key, int width, int height, Bitmap bitmap) {
+        memory.put(memoryKey(key, width, height), bitmap);
+    }
+
+    /**
+     * Decodes the disk thumbnail of a source. Does disk I/O; call off the main thread.
+     * @param key The source key.
+     * @return The thumbnail, which the caller owns, or null if there is none.
+     */
+    public Bitmap getThumbnail(String key) {
+        File file = disk.get(key);
+        if (file == null) {
+            return null;
+        }
+        try {
+            return BitmapUtils.getCorrectlyOrientedBitmap(file.getAbsolutePath(), THUMBNAIL_SIZE, THUMBNAIL_SIZE);
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to read thumbnail for " + key, e);
+            return null;
+        }
+    }
+
+    /**
+     * Stores a thumbnail of an upright preview on disk. Does disk I/O; call off the main thread.
+     * @param key The source key.
+     * @param preview The upright preview. It is not modified.
+     */
+    public void putThumbnail(String key, Bitmap preview) {
+        float scale = Math.min(1f, THUMBNAIL_SIZE / (float) Math.max(preview.getWidth(), preview.getHeight()));
+        Bitmap thumbnail = Bitmap.createScaledBitmap(preview,
+                Math.max(1, Math.round(preview.getWidth() * scale)),
+                Math.max(1, Math.round(preview.getHeight() * scale)), true);
+        try {
+            disk.put(key, out -> thumbnail.compress(Bitmap.CompressFormat.JPEG, THUMBNAIL_QUALITY, out));
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to write thumbnail for " + key, e);
+        } finally {
+            if (thumbnail != preview) {
+                thumbnail.recycle();
+            }
+        }
+    }
+
+    /**
+     * Drops the memory tier when the system is low on memory. The disk tier is kept.
+     * @param level The level passed to ComponentCallbacks2.onTrimMemory().
+     */
+    public static void onTrimMemory(int level) {
+        ImageCache cache;
+        synchronized (ImageCache.class) {
+            cache = instance;
+        }
+        if (cache == null) {
+            return;
+        }
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_MODERATE
+                || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+            cache.memory.evictAll();
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND
+                || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            cache.memory.trimToSize(cache.memory.size() / 2);
+        }
+    }
+
+    private static String memoryKey(String key, int width, int height) {
+        return key + "@" + width + "x" + height;
+    }
+}
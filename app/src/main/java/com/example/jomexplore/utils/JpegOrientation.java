@@ -0,0 +1,115 @@
+package com.example.jomexplore.utils;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * JpegOrientation reads the EXIF orientation tag straight from the APP1 segment of a JPEG that
+ * is already in memory, so the orientation and the pixels come from the same buffer instead of
+ * opening the file again through ExifInterface. Only the segment headers before the image data
+ * and the first IFD are read. The returned values use the ExifInterface ORIENTATION_ numbering.
+ */
+public final class JpegOrientation {
+    public static final int UNDEFINED = 0;
+
+    private static final int MARKER_APP1 = 0xE1;
+    private static final int MARKER_SOS = 0xDA;
+    private static final int MARKER_EOI = 0xD9;
+    private static final int TAG_ORIENTATION = 0x0112;
+    private static final int TYPE_SHORT = 3;
+    private static final int IFD_ENTRY_SIZE = 12;
+
+    private JpegOrientation() {
+    }
+
+    /**
+     * Reads the orientation of a JPEG. The buffer's position, limit and byte order are not changed.
+     * @param jpeg The encoded image, from its position to its limit.
+     * @return The orientation (1 to 8), or UNDEFINED if the image has no valid orientation tag.
+     */
+    public static int read(ByteBuffer jpeg) {
+        ByteBuffer data = jpeg.slice().order(ByteOrder.BIG_ENDIAN);
+        int limit = data.limit();
+        if (limit < 4 || u8(data, 0) != 0xFF || u8(data, 1) != 0xD8) {
+            return UNDEFINED;
+        }
+
+        int pos = 2;
+        while (pos + 4 <= limit) {
+            if (u8(data, pos) != 0xFF) {
+                return UNDEFINED;
+            }
+            int marker = u8(data, pos + 1);
+            if (marker == 0xFF) {
+                // Fill byte before a marker.
+                pos++;
+                continue;
+            }
+            if (marker == MARKER_SOS || marker == MARKER_EOI) {
+                return UNDEFINED;
+            }
+            // The segment length includes its own two bytes but not the marker.
+            int length = data.getShort(pos + 2) & 0xFFFF;
+            int segmentEnd = pos + 2 + length;
+            if (length < 2 || segmentEnd > limit) {
+                return UNDEFINED;
+            }
+            if (marker == MARKER_APP1 && isExifHeader(data, pos + 4, segmentEnd)) {
+                return readTiff(data, pos + 10, segmentEnd);
+            }
+            pos = segmentEnd;
+        }
+        return UNDEFINED;
+    }
+
+    private static boolean isExifHeader(ByteBuffer data, int pos, int end) {
+        return pos + 6 <= end
+                && data.get(pos) == 'E' && data.get(pos + 1) == 'x' && data.get(pos + 2) == 'i'
+                && data.get(pos + 3) == 'f' && data.get(pos + 4) == 0 && data.get(pos + 5) == 0;
+    }
+
+    /**
+     * Finds the orientation tag in IFD0 of the TIFF structure that starts at tiffStart.
+     */
+    private static int readTiff(ByteBuffer data, int tiffStart, int end) {
+        if (tiffStart + 8 > end) {
+            return UNDEFINED;
+        }
+        int byteOrder = data.getShort(tiffStart) & 0xFFFF;
+        if (byteOrder == 0x4949) {
+            data.order(ByteOrder.LITTLE_ENDIAN);
+        } else if (byteOrder != 0x4D4D) {
+            return UNDEFINED;
+        }
+        if ((data.getShort(tiffStart + 2) & 0xFFFF) != 42) {
+            return UNDEFINED;
+        }
+
+        long ifdOffset = data.getInt(tiffStart + 4) & 0xFFFFFFFFL;
+        long ifd = tiffStart + ifdOffset;
+        if (ifd + 2 > end) {
+            return UNDEFINED;
+        }
+        int entryCount = data.getShort((int) ifd) & 0xFFFF;
+        for (int i = 0; i < entryCount; i++) {
+            int entry = (int) ifd + 2 + i * IFD_ENTRY_SIZE;
+            if (entry + IFD_ENTRY_SIZE > end) {
+                return UNDEFINED;
+            }
+            if ((data.getShort(entry) & 0xFFFF) != TAG_ORIENTATION) {
+                continue;
+            }
+            if ((data.getShort(entry + 2) & 0xFFFF) != TYPE_SHORT) {
+                return UNDEFINED;
+            }
+            // A single SHORT is stored left-aligned in the value field.
+            int orientation = data.getShort(entry + 8) & 0xFFFF;
+            return orientation >= 1 && orientation <= 8 ? orientation : UNDEFINED;
+        }
+        return UNDEFINED;
+    }
+
+    private static int u8(ByteBuffer data, int pos) {
+        return data.get(pos) & 0xFF;
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.jomexplore.utils;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.TreeMap;
+
+/**
+ * SizeBucketPool keeps released objects, grouped by byte size, for reuse by later requests.
+ * A request is served by the smallest pooled object that is large enough and not more than
+ * MAX_OVERSIZE times larger, so small requests do not pin large buffers. The pool is capped in
+ * bytes; when it is full, the least recently released objects are evicted first.
+ * It also counts hits, misses and reused bytes so the effect of pooling can be measured.
+ * @param <T> The type of the pooled objects.
+ */
+public class SizeBucketPool<T> {
+
+    /**
+     * Receives objects that leave the pool without being reused, e.g. to free their memory.
+     */
+    public interface Evictor<T> {
+        void onEvicted(T item);
+    }
+
+    // A pooled object may be at most this many times larger than the request it serves.
+    static final int MAX_OVERSIZE = 2;
+
+    private static final class Entry<T> {
+        final T item;
+        final int size;
+
+        Entry(T item, int size) {
+            this.item = item;
+            this.size = size;
+        }
+    }
+
+    private final Evictor<T> evictor;
+    private final TreeMap<Integer, ArrayDeque<Entry<T>>> buckets = new TreeMap<>();
+    // All pooled entries in release order; the first one is the least recently released.
+    private final LinkedHashSet<Entry<T>> lru = new LinkedHashSet<>();
+    private long maxBytes;
+    private long currentBytes;
+
+    private long hits;
+    private long misses;
+    private long bytesReused;
+    private long evictions;
+
+    /**
+     * @param maxBytes The total size the pool may hold.
+     * @param evictor Receives evicted objects.
+     */
+    public SizeBucketPool(long maxBytes, Evictor<T> evictor) {
+        this.maxBytes = maxBytes;
+        this.evictor = evictor;
+    }
+
+    /**
+     * Takes an object of at least the given size out of the pool.
+     * @param minSize The number of bytes needed.
+     * @return A pooled object, or null if none fits.
+     */
+    public synchronized T get(int minSize) {
+        Integer size = buckets.ceilingKey(minSize);
+        if (size == null || size > (long) minSize * MAX_OVERSIZE) {
+            misses++;
+            return null;
+        }
+        ArrayDeque<Entry<T>> bucket = buckets.get(size);
+        // Reuse the most recently released object of the bucket; the older ones are evicted first.
+        Entry<T> entry = bucket.pollLast();
+        if (bucket.isEmpty()) {
+            buckets.remove(size);
+        }
+        lru.remove(entry);
+        currentBytes -= entry.size;
+        hits++;
+        bytesReused += minSize;
+        return entry.item;
+    }
+
+    /**
+     * Returns an object to the pool. Objects larger than the whole pool are evicted immediately.
+     * @param item The object, which the caller must no longer use.
+     * @param size The byte size of the object.
+     */
+    public synchronized void put(T item, int size) {
+        if (size > maxBytes) {
+            evict(new Entry<>(item, size));
+            return;
+        }
+        Entry<T> entry = new Entry<>(item, size);
+        ArrayDeque<Entry<T>> bucket = buckets.get(size);
+        if (bucket == null) {
+            bucket = new ArrayDeque<>();
+            buckets.put(size, bucket);
+        }
+        bucket.addLast(entry);
+        lru.add(entry);
+        currentBytes += size;
+        trimToSize(maxBytes);
+    }
+
+    /**
+     * Evicts the least recently released objects until the pool holds at most the given size.
+     * @param targetBytes The size to shrink to; 0 empties the pool.
+     */
+    public synchronized void trimToSize(long targetBytes) {
+        Iterator<Entry<T>> oldest = lru.iterator();
+        while (currentBytes > targetBytes && oldest.hasNext()) {
+            Entry<T> entry = oldest.next();
+            oldest.remove();
+            ArrayDeque<Entry<T>> bucket = buckets.get(entry.size);
+            bucket.removeFirstOccurrence(entry);
+            if (bucket.isEmpty()) {
+                buckets.remove(entry.size);
+            }
+            currentBytes -= entry.size;
+            evict(entry);
+        }
+    }
+
+    private void evict(Entry<T> entry) {
+        evictions++;
+        evictor.onEvicted(entry.item);
+    }
+
+    /**
+     * Changes the byte cap, evicting objects if the pool is over the new cap.
+     */
+    public synchronized void setMaxBytes(long maxBytes) {
+        this.maxBytes = maxBytes;
+        trimToSize(maxBytes);
+    }
+
+    public synchronized long getCurrentBytes() {
+        return currentBytes;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * @return The number of requested bytes that were served from the pool instead of allocated.
+     */
+    public synchronized long getBytesReused() {
+        return bytesReused;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * @return The fraction of get() calls served from the pool, or 0 before the first call.
+     */
+    public synchronized float getHitRate() {
+        long requests = hits + misses;
+        return requests > 0 ? hits / (float) requests : 0f;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format(java.util.Locale.ROOT,
+                "%d/%d bytes pooled, hit rate %.2f (%d hits, %d misses), %d bytes reused, %d evictions",
+                currentBytes, maxBytes, getHitRate(), hits, misses, bytesReused, evictions);
+    }
+}
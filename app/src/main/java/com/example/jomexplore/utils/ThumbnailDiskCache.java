@@ -0,0 +1,123 @@
+package com.example.jomexplore.utils;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * ThumbnailDiskCache stores small pre-scaled images in a directory, one file per key.
+ * File names are a hash of the key, so any string (a path, a capture id) can be used.
+ * Writes go to a temporary file that is renamed into place, so a reader never sees a partial
+ * thumbnail. The directory is capped in bytes; reads touch the file's modification time and the
+ * least recently used files are deleted first.
+ */
+public class ThumbnailDiskCache {
+
+    /**
+     * Writes the encoded thumbnail.
+     */
+    public interface Writer {
+        void write(OutputStream out) throws IOException;
+    }
+
+    private final File directory;
+    private final long maxBytes;
+
+    /**
+     * @param directory The cache directory. It is created on first write.
+     * @param maxBytes The total size the directory may hold.
+     */
+    public ThumbnailDiskCache(File directory, long maxBytes) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Looks up a thumbnail and marks it as recently used.
+     * @param key The cache key.
+     * @return The thumbnail file, or null if there is none.
+     */
+    public synchronized File get(String key) {
+        File file = fileFor(key);
+        if (!file.isFile()) {
+            return null;
+        }
+        file.setLastModified(System.currentTimeMillis());
+        return file;
+    }
+
+    /**
+     * Stores a thumbnail, replacing any previous one for the key, then trims the directory.
+     * @param key The cache key.
+     * @param writer Writes the encoded thumbnail.
+     * @throws IOException If the thumbnail cannot be written.
+     */
+    public synchronized void put(String key, Writer writer) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Failed to create " + directory);
+        }
+        File file = fileFor(key);
+        File temp = new File(directory, file.getName() + ".tmp");
+        try (OutputStream out = new FileOutputStream(temp)) {
+            writer.write(out);
+        } catch (IOException e) {
+            temp.delete();
+            throw e;
+        }
+        if (!temp.renameTo(file)) {
+            temp.delete();
+            throw new IOException("Failed to move thumbnail into " + file);
+        }
+        trim();
+    }
+
+    /**
+     * Deletes the least recently used thumbnails until the directory is within its cap.
+     */
+    public synchronized void trim() {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        long total = 0;
+        for (File file : files) {
+            total += file.length();
+        }
+        if (total <= maxBytes) {
+            return;
+        }
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+        for (File file : files) {
+            if (total <= maxBytes) {
+                break;
+            }
+            long length = file.length();
+            if (file.delete()) {
+                total -= length;
+            }
+        }
+    }
+
+    private File fileFor(String key) {
+        return new File(directory, hash(key));
+    }
+
+    private static String hash(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(key.getBytes(StandardCharsets.UTF_8));
+            StringBuilder name = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                name.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return name.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
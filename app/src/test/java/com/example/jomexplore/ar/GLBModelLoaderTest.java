@@ -0,0 +1,153 @@
+package com.example.jomexplore.ar;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Local unit tests for building {@link ModelData} from parsed GLB files, plus a
+ * comparison of heap allocation and load time between reading a file into arrays and mapping it.
+ */
+public class GLBModelLoaderTest {
+    private static final float[] COLOR = {1f, 1f, 1f, 1f};
+
+    @Test
+    public void fromPrimitives_matchesMergedMesh() throws Exception {
+        byte[] glb = grid(8, true);
+        List<GlbParser.Primitive> primitives = GlbParser.parsePrimitives(ByteBuffer.wrap(glb));
+
+        ModelData direct = ModelData.fromPrimitives(primitives, COLOR, "grid");
+        ModelData merged = ModelData.fromMesh(GlbParser.merge(primitives), COLOR, "grid");
+        assertNotNull(direct);
+        // Welded back to the 9 x 9 grid vertices.
+        assertEquals(9 * 9, direct.vertexCount);
+        assertEquals(8 * 8 * 6, direct.indexCount);
+        assertEquals(merged.vertexCount, direct.vertexCount);
+        assertEquals(merged.indexCount, direct.indexCount);
+        float[] expected = new float[3];
+        float[] actual = new float[3];
+        for (int v = 0; v < direct.vertexCount; v++) {
+            merged.vertexData.getPosition(v, expected);
+            direct.vertexData.getPosition(v, actual);
+            assertArrayEquals(expected, actual, 1e-6f);
+            merged.vertexData.getNormal(v, expected);
+            direct.vertexData.getNormal(v, actual);
+            assertArrayEquals(expected, actual, 1e-6f);
+        }
+        ShortBuffer directIndices = (ShortBuffer) direct.indices;
+        ShortBuffer mergedIndices = (ShortBuffer) merged.indices;
+        for (int i = 0; i < direct.indexCount; i++) {
+            assertEquals(mergedIndices.get(i), directIndices.get(i));
+        }
+        // The node translation is applied.
+        direct.vertexData.getPosition(0, actual);
+        assertEquals(0.5f, actual[1], 1e-6f);
+    }
+
+    @Test
+    public void fromPrimitives_needsNormals() throws Exception {
+        List<GlbParser.Primitive> primitives = GlbParser.parsePrimitives(ByteBuffer.wrap(grid(2, false)));
+        assertNull(ModelData.fromPrimitives(primitives, COLOR, "grid"));
+    }
+
+    /**
+     * Loads a 256x256 grid, about the size of a detailed landmark model, by reading the file into
+     * heap arrays and by mapping it and expanding the accessor slices into direct buffers.
+     */
+    @Test
+    public void mappedLoad_keepsVertexDataOffTheHeap() throws Exception {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+        assumeTrue(threadBean.isThreadAllocatedMemorySupported());
+        threadBean.setThreadAllocatedMemoryEnabled(true);
+        long threadId = Thread.currentThread().getId();
+
+        File file = File.createTempFile("grid", ".glb");
+        file.deleteOnExit();
+        Files.write(file.toPath(), grid(256, true));
+
+        // Warm up both paths.
+        readAndMerge(file);
+        mapAndExpand(file);
+
+        long startBytes = threadBean.getThreadAllocatedBytes(threadId);
+        long startNanos = System.nanoTime();
+        ModelData copied = readAndMerge(file);
+        long copyNanos = System.nanoTime() - startNanos;
+        long copyBytes = threadBean.getThreadAllocatedBytes(threadId) - startBytes;
+
+        startBytes = threadBean.getThreadAllocatedBytes(threadId);
+        startNanos = System.nanoTime();
+        ModelData mapped = mapAndExpand(file);
+        long mapNanos = System.nanoTime() - startNanos;
+        long mapBytes = threadBean.getThreadAllocatedBytes(threadId) - startBytes;
+
+        System.out.printf("GLB %d KB, read + merge: %.1f ms, %d KB heap; map + expand: %.1f ms, %d KB heap%n",
+                file.length() / 1024, copyNanos / 1e6, copyBytes / 1024, mapNanos / 1e6, mapBytes / 1024);
+        assertEquals(copied.vertexCount, mapped.vertexCount);
+        // Only index lists and the optimizer's scratch space remain on the heap.
+        assertTrue("Mapped load allocated " + mapBytes + " bytes", mapBytes < copyBytes / 2);
+    }
+
+    private static ModelData readAndMerge(File file) throws Exception {
+        MeshData mesh = GlbParser.parse(ByteBuffer.wrap(Files.readAllBytes(file.toPath())));
+        return ModelData.fromMesh(mesh, COLOR, file.getName());
+    }
+
+    private static ModelData mapAndExpand(File file) throws Exception {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer glb = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return ModelData.fromPrimitives(GlbParser.parsePrimitives(glb), COLOR, file.getName());
+        }
+    }
+
+    /**
+     * A flat grid of size x size quads in the xz plane with uint32 indices, raised by 0.5.
+     */
+    private static byte[] grid(int size, boolean withNormals) throws Exception {
+        int side = size + 1;
+        ByteBuffer positions = GlbParserTest.buffer(side * side * 12);
+        ByteBuffer normals = GlbParserTest.buffer(side * side * 12);
+        for (int z = 0; z < side; z++) {
+            for (int x = 0; x < side; x++) {
+                positions.putFloat(x / (float) size).putFloat(0f).putFloat(z / (float) size);
+                normals.putFloat(0f).putFloat(1f).putFloat(0f);
+            }
+        }
+        ByteBuffer indices = GlbParserTest.buffer(size * size * 6 * 4);
+        for (int z = 0; z < size; z++) {
+            for (int x = 0; x < size; x++) {
+                int corner = z * side + x;
+                indices.putInt(corner).putInt(corner + side).putInt(corner + 1);
+                indices.putInt(corner + 1).putInt(corner + side).putInt(corner + side + 1);
+            }
+        }
+
+        GlbParserTest.GltfBuilder gltf = new GlbParserTest.GltfBuilder();
+        JSONObject attributes = new JSONObject().put("POSITION",
+                gltf.addAccessor(gltf.addView(positions.array(), 0), 0, GlbParser.FLOAT, "VEC3", side * side, false));
+        if (withNormals) {
+            attributes.put("NORMAL",
+                    gltf.addAccessor(gltf.addView(normals.array(), 0), 0, GlbParser.FLOAT, "VEC3", side * side, false));
+        }
+        int indexAccessor = gltf.addAccessor(gltf.addView(indices.array(), 0), 0, GlbParser.UNSIGNED_INT, "SCALAR",
+                size * size * 6, false);
+        gltf.addMesh(attributes, indexAccessor, GlbParser.MODE_TRIANGLES);
+        gltf.addNode(new JSONObject().put("mesh", 0).put("translation", new JSONArray("[0, 0.5, 0]")));
+        return gltf.build();
+    }
+}
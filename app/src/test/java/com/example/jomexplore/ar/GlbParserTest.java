@@ -0,0 +1,263 @@
+package com.example.jomexplore.ar;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link GlbParser}, on the shipped AR assets and on small GLB files built
+ * in memory.
+ */
+public class GlbParserTest {
+    @Test
+    public void shippedAssets_parseOrAreRejected() throws Exception {
+        File[] files = new File("src/main/assets/ar_assets").listFiles((dir, name) -> name.endsWith(".glb"));
+        assertNotNull(files);
+        assertTrue(files.length > 0);
+        for (File file : files) {
+            byte[] bytes = Files.readAllBytes(file.toPath());
+            ByteBuffer data = ByteBuffer.wrap(bytes);
+            if (!GlbParser.isGlb(data)) {
+                // The checked-in files are empty placeholders until the real models are added.
+                assertParseFails(bytes);
+                continue;
+            }
+            MeshData mesh = GlbParser.parse(data);
+            assertTrue(file.getName(), mesh.getTriangleCount() > 0);
+            for (int i = 0; i < 3; i++) {
+                assertTrue(file.getName(), mesh.min[i] <= mesh.max[i]);
+            }
+        }
+    }
+
+    @Test
+    public void parse_interleavedQuadWithNodeTranslation() throws Exception {
+        // Position and normal interleaved with a 24 byte stride.
+        ByteBuffer vertices = buffer(4 * 24);
+        float[][] corners = {{0, 0, 0}, {1, 0, 0}, {1, 1, 0}, {0, 1, 0}};
+        for (float[] corner : corners) {
+            vertices.putFloat(corner[0]).putFloat(corner[1]).putFloat(corner[2]);
+            vertices.putFloat(0).putFloat(0).putFloat(1);
+        }
+        ByteBuffer indices = buffer(12);
+        for (int index : new int[]{0, 1, 2, 0, 2, 3}) {
+            indices.putShort((short) index);
+        }
+
+        GltfBuilder gltf = new GltfBuilder();
+        int vertexView = gltf.addView(vertices.array(), 24);
+        int indexView = gltf.addView(indices.array(), 0);
+        JSONObject attributes = new JSONObject()
+                .put("POSITION", gltf.addAccessor(vertexView, 0, GlbParser.FLOAT, "VEC3", 4, false))
+                .put("NORMAL", gltf.addAccessor(vertexView, 12, GlbParser.FLOAT, "VEC3", 4, false));
+        gltf.addMesh(attributes, gltf.addAccessor(indexView, 0, GlbParser.UNSIGNED_SHORT, "SCALAR", 6, false), 4);
+        gltf.addNode(new JSONObject().put("mesh", 0).put("translation", new JSONArray("[2, 0, -1]")));
+
+        MeshData mesh = GlbParser.parse(ByteBuffer.wrap(gltf.build()));
+        assertEquals(4, mesh.vertexCount);
+        assertEquals(2, mesh.getTriangleCount());
+        assertArrayEquals(new int[]{0, 1, 2, 0, 2, 3}, mesh.indices);
+        assertArrayEquals(new float[]{2, 0, -1}, mesh.min, 1e-6f);
+        assertArrayEquals(new float[]{3, 1, -1}, mesh.max, 1e-6f);
+        assertArrayEquals(new float[]{0, 0, 1}, new float[]{mesh.normals[6], mesh.normals[7], mesh.normals[8]}, 1e-6f);
+        assertNull(mesh.texCoords);
+    }
+
+    @Test
+    public void parse_byteIndicesNormalizedTexCoordsAndRotation() throws Exception {
+        ByteBuffer positions = buffer(36);
+        positions.putFloat(0).putFloat(0).putFloat(0);
+        positions.putFloat(1).putFloat(0).putFloat(0);
+        positions.putFloat(0).putFloat(1).putFloat(0);
+        byte[] texCoords = {0, 0, (byte) 255, 0, 0, (byte) 255, 0, 0};
+        byte[] indices = {0, 1, 2, 0};
+
+        GltfBuilder gltf = new GltfBuilder();
+        JSONObject attributes = new JSONObject()
+                .put("POSITION", gltf.addAccessor(gltf.addView(positions.array(), 0), 0, GlbParser.FLOAT, "VEC3", 3, false))
+                .put("TEXCOORD_0", gltf.addAccessor(gltf.addView(texCoords, 0), 0, GlbParser.UNSIGNED_BYTE, "VEC2", 3, true));
+        gltf.addMesh(attributes, gltf.addAccessor(gltf.addView(indices, 0), 0, GlbParser.UNSIGNED_BYTE, "SCALAR", 3, false), 4);
+        // 90 degrees around z: x -> y, y -> -x.
+        gltf.addNode(new JSONObject().put("mesh", 0).put("rotation", new JSONArray("[0, 0, 0.70710677, 0.70710677]")));
+
+        MeshData mesh = GlbParser.parse(ByteBuffer.wrap(gltf.build()));
+        assertArrayEquals(new float[]{0, 0, 0, 0, 1, 0, -1, 0, 0}, mesh.positions, 1e-6f);
+        assertArrayEquals(new float[]{0, 0, 1, 0, 0, 1}, mesh.texCoords, 1e-6f);
+        // Computed from the counter-clockwise triangle: facing +z.
+        for (int v = 0; v < 3; v++) {
+            assertEquals(1f, mesh.normals[v * 3 + 2], 1e-6f);
+        }
+    }
+
+    @Test
+    public void parse_stripWithoutIndicesBecomesTriangleList() throws Exception {
+        ByteBuffer positions = buffer(48);
+        float[][] strip = {{0, 0, 0}, {1, 0, 0}, {0, 1, 0}, {1, 1, 0}};
+        for (float[] p : strip) {
+            positions.putFloat(p[0]).putFloat(p[1]).putFloat(p[2]);
+        }
+        GltfBuilder gltf = new GltfBuilder();
+        JSONObject attributes = new JSONObject()
+                .put("POSITION", gltf.addAccessor(gltf.addView(positions.array(), 0), 0, GlbParser.FLOAT, "VEC3", 4, false));
+        gltf.addMesh(attributes, -1, 5);
+
+        MeshData mesh = GlbParser.parse(ByteBuffer.wrap(gltf.build()));
+        // The second triangle's winding is flipped to stay counter-clockwise.
+        assertArrayEquals(new int[]{0, 1, 2, 2, 1, 3}, mesh.indices);
+        for (int v = 0; v < 4; v++) {
+            assertEquals(1f, mesh.normals[v * 3 + 2], 1e-6f);
+        }
+    }
+
+    @Test
+    public void toTriangles_fanAndDegenerateStrip() {
+        assertArrayEquals(new int[]{0, 1, 2, 0, 2, 3}, GlbParser.toTriangles(new int[]{0, 1, 2, 3}, 6));
+        // Repeated indices join two strips with degenerate triangles, which are dropped.
+        assertArrayEquals(new int[]{0, 1, 2, 4, 3, 5}, GlbParser.toTriangles(new int[]{0, 1, 2, 2, 3, 3, 4, 5}, 5));
+    }
+
+    @Test
+    public void parse_rejectsBadHeaders() throws Exception {
+        byte[] valid = new GltfBuilder().withTriangle().build();
+        assertNotNull(GlbParser.parse(ByteBuffer.wrap(valid)));
+
+        byte[] badMagic = valid.clone();
+        badMagic[0] = 'x';
+        assertParseFails(badMagic);
+
+        byte[] badVersion = valid.clone();
+        badVersion[4] = 1;
+        assertParseFails(badVersion);
+
+        byte[] truncated = new byte[valid.length - 8];
+        System.arraycopy(valid, 0, truncated, 0, truncated.length);
+        assertParseFails(truncated);
+
+        assertParseFails(new byte[0]);
+        assertParseFails(new byte[]{'g', 'l', 'T', 'F', 2, 0, 0, 0});
+    }
+
+    @Test
+    public void parse_rejectsMissingJsonChunkAndBadAccessors() throws Exception {
+        // A header followed directly by a BIN chunk.
+        ByteBuffer binOnly = buffer(12 + 8 + 4);
+        binOnly.putInt(GlbParser.MAGIC).putInt(GlbParser.VERSION).putInt(24);
+        binOnly.putInt(4).putInt(GlbParser.CHUNK_BIN).putInt(0);
+        assertParseFails(binOnly.array());
+
+        // An index accessor reading past the end of its buffer view.
+        GltfBuilder gltf = new GltfBuilder();
+        ByteBuffer positions = buffer(36);
+        JSONObject attributes = new JSONObject()
+                .put("POSITION", gltf.addAccessor(gltf.addView(positions.array(), 0), 0, GlbParser.FLOAT, "VEC3", 3, false));
+        gltf.addMesh(attributes, gltf.addAccessor(gltf.addView(new byte[]{0, 1}, 0), 0, GlbParser.UNSIGNED_BYTE, "SCALAR", 3, false), 4);
+        assertParseFails(gltf.build());
+    }
+
+    private static void assertParseFails(byte[] bytes) {
+        try {
+            GlbParser.parse(ByteBuffer.wrap(bytes));
+            fail("Expected an IOException");
+        } catch (IOException expected) {
+            // Expected.
+        }
+    }
+
+    static ByteBuffer buffer(int size) {
+        return ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Builds a GLB file with one BIN buffer, appending each buffer view at a 4-byte aligned offset.
+     */
+    static class GltfBuilder {
+        private final ByteArrayOutputStream bin = new ByteArrayOutputStream();
+        private final JSONArray views = new JSONArray();
+        private final JSONArray accessors = new JSONArray();
+        private final JSONArray meshes = new JSONArray();
+        private final JSONArray nodes = new JSONArray();
+
+        int addView(byte[] data, int stride) throws Exception {
+            while (bin.size() % 4 != 0) {
+                bin.write(0);
+            }
+            JSONObject view = new JSONObject().put("buffer", 0).put("byteOffset", bin.size()).put("byteLength", data.length);
+            if (stride > 0) {
+                view.put("byteStride", stride);
+            }
+            bin.write(data);
+            views.put(view);
+            return views.length() - 1;
+        }
+
+        int addAccessor(int view, int offset, int componentType, String type, int count, boolean normalized) throws Exception {
+            accessors.put(new JSONObject().put("bufferView", view).put("byteOffset", offset)
+                    .put("componentType", componentType).put("type", type).put("count", count)
+                    .put("normalized", normalized));
+            return accessors.length() - 1;
+        }
+
+        void addMesh(JSONObject attributes, int indices, int mode) throws Exception {
+            JSONObject primitive = new JSONObject().put("attributes", attributes).put("mode", mode);
+            if (indices >= 0) {
+                primitive.put("indices", indices);
+            }
+            meshes.put(new JSONObject().put("primitives", new JSONArray().put(primitive)));
+        }
+
+        void addNode(JSONObject node) {
+            nodes.put(node);
+        }
+
+        GltfBuilder withTriangle() throws Exception {
+            ByteBuffer positions = buffer(36);
+            positions.putFloat(0).putFloat(0).putFloat(0);
+            positions.putFloat(1).putFloat(0).putFloat(0);
+            positions.putFloat(0).putFloat(1).putFloat(0);
+            addMesh(new JSONObject().put("POSITION",
+                    addAccessor(addView(positions.array(), 0), 0, GlbParser.FLOAT, "VEC3", 3, false)), -1, 4);
+            return this;
+        }
+
+        byte[] build() throws Exception {
+            while (bin.size() % 4 != 0) {
+                bin.write(0);
+            }
+            JSONObject json = new JSONObject()
+                    .put("asset", new JSONObject().put("version", "2.0"))
+                    .put("buffers", new JSONArray().put(new JSONObject().put("byteLength", bin.size())))
+                    .put("bufferViews", views)
+                    .put("accessors", accessors)
+                    .put("meshes", meshes);
+            if (nodes.length() > 0) {
+                JSONArray roots = new JSONArray();
+                for (int i = 0; i < nodes.length(); i++) {
+                    roots.put(i);
+                }
+                json.put("nodes", nodes).put("scene", 0)
+                        .put("scenes", new JSONArray().put(new JSONObject().put("nodes", roots)));
+            }
+            byte[] jsonBytes = json.toString().getBytes(StandardCharsets.UTF_8);
+            int jsonLength = (jsonBytes.length + 3) & ~3;
+
+            ByteBuffer glb = buffer(12 + 8 + jsonLength + 8 + bin.size());
+            glb.putInt(GlbParser.MAGIC).putInt(GlbParser.VERSION).putInt(glb.capacity());
+            glb.putInt(jsonLength).putInt(GlbParser.CHUNK_JSON).put(jsonBytes);
+            while (glb.position() % 4 != 0) {
+                glb.put((byte) ' ');
+            }
+            glb.putInt(bin.size()).putInt(GlbParser.CHUNK_BIN).put(bin.toByteArray());
+            return glb.array();
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.example.jomexplore.ar;
+
+import org.junit.Test;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link MeshOptimizer}, plus a report of vertex reduction and ACMR for the
+ * models the app ships and for a larger synthetic mesh.
+ */
+public class MeshOptimizerTest {
+    private static final float[] COLOR = {1f, 1f, 1f, 1f};
+
+    @Test
+    public void weld_mergesIdenticalVerticesOnly() {
+        // Two triangles sharing an edge, as soup; the last vertex differs only in its normal.
+        FloatBuffer positions = floats(0, 0, 0, 1, 0, 0, 0, 1, 0, 1, 0, 0, 1, 1, 0, 0, 1, 0);
+        FloatBuffer normals = floats(0, 0, 1, 0, 0, 1, 0, 0, 1, 0, 0, 1, 0, 0, 1, 0, 1, 0);
+        int[] indices = {0, 1, 2, 3, 4, 5};
+
+        int unique = MeshOptimizer.weld(indices, 6, positions, normals);
+        assertEquals(5, unique);
+        assertArrayEquals(new int[]{0, 1, 2, 1, 3, 4}, indices);
+        assertEquals(1f, positions.get(3 * 3), 0f);
+        assertEquals(1f, positions.get(3 * 3 + 1), 0f);
+        assertEquals(1f, normals.get(4 * 3 + 1), 0f);
+    }
+
+    @Test
+    public void weld_treatsNegativeZeroAsZero() {
+        FloatBuffer positions = floats(0, 0, 0, -0f, 0, -0f);
+        FloatBuffer normals = floats(0, 1, 0, 0, 1, 0);
+        int[] indices = {0, 1};
+        assertEquals(1, MeshOptimizer.weld(indices, 2, positions, normals));
+        assertArrayEquals(new int[]{0, 0}, indices);
+    }
+
+    @Test
+    public void optimizeVertexCache_keepsTheSameTriangles() {
+        int[] indices = sphereIndices(16, 8);
+        int vertexCount = 17 * 9;
+        int[] optimized = indices.clone();
+        MeshOptimizer.optimizeVertexCache(optimized, vertexCount);
+        assertEquals(sortedTriangles(indices), sortedTriangles(optimized));
+    }
+
+    @Test
+    public void acmr_countsFifoMisses() {
+        // A quad: 4 misses for 2 triangles.
+        assertEquals(2f, MeshOptimizer.acmr(new int[]{0, 1, 2, 2, 1, 3}, 16), 0f);
+        // Vertex 0 is still cached with 5 entries, but evicted with 3.
+        assertEquals(2.5f, MeshOptimizer.acmr(new int[]{0, 1, 2, 3, 4, 0}, 5), 0f);
+        assertEquals(3f, MeshOptimizer.acmr(new int[]{0, 1, 2, 3, 4, 0}, 3), 0f);
+        assertEquals(3f, MeshOptimizer.acmr(new int[]{0, 1, 2, 3, 4, 5}, 16), 0f);
+    }
+
+    @Test
+    public void index_chooses16Or32BitIndices() {
+        assertEquals(MeshOptimizer.UNSIGNED_SHORT, MeshOptimizer.indexType(65536));
+        assertEquals(MeshOptimizer.UNSIGNED_INT, MeshOptimizer.indexType(65537));
+        assertTrue(MeshOptimizer.createIndexBuffer(new int[]{0, 1, 2}, 3) instanceof ShortBuffer);
+        assertTrue(MeshOptimizer.createIndexBuffer(new int[]{0, 1, 70000}, 70001) instanceof IntBuffer);
+
+        // The welded buffers are right-sized copies when vertices were merged.
+        MeshOptimizer.IndexedMesh mesh = MeshOptimizer.index(floats(0, 0, 0, 1, 0, 0, 0, 1, 0, 0, 0, 0),
+                floats(0, 0, 1, 0, 0, 1, 0, 0, 1, 0, 0, 1), 4, new int[]{0, 1, 2, 3, 1, 2});
+        assertEquals(3, mesh.vertexCount);
+        assertEquals(9, mesh.vertices.capacity());
+        assertEquals(6, mesh.indexCount);
+        assertArrayEquals(new int[]{0, 1, 2, 0, 1, 2}, readIndices(mesh.indices, mesh.indexCount));
+    }
+
+    /**
+     * Reports, for each shipped procedural model and a 64x32 sphere built as soup, how many
+     * vertices welding removes and the ACMR of the draw before and after reordering.
+     */
+    @Test
+    public void report_vertexReductionAndAcmr() {
+        List<String> names = new ArrayList<>();
+        List<ModelData> models = new ArrayList<>();
+        names.add("mosque");
+        models.add(ModelLoader.createBlueMosqueModel(COLOR));
+        names.add("caves");
+        models.add(ModelLoader.createBatuCavesModel(COLOR));
+        names.add("square");
+        models.add(ModelLoader.createMerdekaSquareModel(COLOR));
+        names.add("cube");
+        models.add(ModelLoader.createDefaultModel());
+        for (int i = 0; i < models.size(); i++) {
+            ModelData model = models.get(i);
+            int[] indices = readIndices(model.indices, model.indexCount);
+            // Unindexed, every corner of every triangle was transformed.
+            System.out.printf("MeshOptimizer %s: %d -> %d vertices, ACMR 3.00 -> %.2f%n", names.get(i),
+                    model.indexCount, model.vertexCount, MeshOptimizer.acmr(indices, 16));
+            assertTrue(model.vertexCount <= model.indexCount);
+        }
+
+        // A smooth sphere: each vertex is shared by up to six triangles.
+        int slices = 64;
+        int stacks = 32;
+        int[] sphere = sphereIndices(slices, stacks);
+        int gridVertices = (slices + 1) * (stacks + 1);
+        float[] grid = spherePositions(slices, stacks);
+        float[] soupPositions = new float[sphere.length * 3];
+        for (int i = 0; i < sphere.length; i++) {
+            System.arraycopy(grid, sphere[i] * 3, soupPositions, i * 3, 3);
+        }
+        FloatBuffer positions = floats(soupPositions);
+        FloatBuffer normals = floats(soupPositions.clone());
+        int[] welded = new int[sphere.length];
+        for (int i = 0; i < welded.length; i++) {
+            welded[i] = i;
+        }
+        int unique = MeshOptimizer.weld(welded, sphere.length, positions, normals);
+        float weldedAcmr = MeshOptimizer.acmr(welded, 16);
+        int[] optimized = welded.clone();
+        long startNanos = System.nanoTime();
+        MeshOptimizer.optimizeVertexCache(optimized, unique);
+        long optimizeMicros = (System.nanoTime() - startNanos) / 1000;
+        float optimizedAcmr16 = MeshOptimizer.acmr(optimized, 16);
+        float optimizedAcmr32 = MeshOptimizer.acmr(optimized, 32);
+        System.out.printf("MeshOptimizer sphere: %d -> %d vertices, ACMR 3.00 -> %.2f welded -> %.2f reordered "
+                        + "(%.2f with 32 entries), reordering took %d us%n",
+                sphere.length, unique, weldedAcmr, optimizedAcmr16, optimizedAcmr32, optimizeMicros);
+
+        // Poles and the seam repeat positions of the latitude/longitude grid.
+        assertTrue(unique <= gridVertices);
+        assertTrue(unique < sphere.length / 5);
+        assertTrue(optimizedAcmr16 < weldedAcmr);
+        assertTrue(optimizedAcmr16 < 1f);
+    }
+
+    private static FloatBuffer floats(float... values) {
+        FloatBuffer buffer = ByteBuffer.allocateDirect(values.length * 4).order(ByteOrder.nativeOrder()).asFloatBuffer();
+        buffer.put(values).position(0);
+        return buffer;
+    }
+
+    private static int[] readIndices(Buffer buffer, int count) {
+        int[] indices = new int[count];
+        for (int i = 0; i < count; i++) {
+            indices[i] = buffer instanceof ShortBuffer
+                    ? ((ShortBuffer) buffer).get(i) & 0xFFFF : ((IntBuffer) buffer).get(i);
+        }
+        return indices;
+    }
+
+    private static float[] spherePositions(int slices, int stacks) {
+        float[] positions = new float[(slices + 1) * (stacks + 1) * 3];
+        int p = 0;
+        for (int stack = 0; stack <= stacks; stack++) {
+            double phi = Math.PI * stack / stacks;
+            for (int slice = 0; slice <= slices; slice++) {
+                double theta = 2 * Math.PI * (slice % slices) / slices;
+                positions[p++] = (float) (Math.sin(phi) * Math.cos(theta));
+                positions[p++] = (float) Math.cos(phi);
+                positions[p++] = stack == 0 || stack == stacks ? 0f : (float) (Math.sin(phi) * Math.sin(theta));
+            }
+        }
+        return positions;
+    }
+
+    /**
+     * Two triangles per grid cell, row by row, over a (slices + 1) x (stacks + 1) vertex grid.
+     */
+    private static int[] sphereIndices(int slices, int stacks) {
+        int[] indices = new int[slices * stacks * 6];
+        int i = 0;
+        for (int stack = 0; stack < stacks; stack++) {
+            for (int slice = 0; slice < slices; slice++) {
+                int corner = stack * (slices + 1) + slice;
+                indices[i++] = corner;
+                indices[i++] = corner + slices + 1;
+                indices[i++] = corner + 1;
+                indices[i++] = corner + 1;
+                indices[i++] = corner + slices + 1;
+                indices[i++] = corner + slices + 2;
+            }
+        }
+        return indices;
+    }
+
+    private static List<String> sortedTriangles(int[] indices) {
+        List<String> triangles = new ArrayList<>();
+        for (int t = 0; t < indices.length; t += 3) {
+            // Rotate each triangle to start at its smallest index, keeping the winding.
+            int start = t;
+            for (int k = 1; k < 3; k++) {
+                if (indices[t + k] < indices[start]) {
+                    start = t + k;
+                }
+            }
+            int offset = start - t;
+            triangles.add(indices[t + offset] + "," + indices[t + (offset + 1) % 3] + "," + indices[t + (offset + 2) % 3]);
+        }
+        String[] sorted = triangles.toArray(new String[0]);
+        Arrays.sort(sorted);
+        return Arrays.asList(sorted);
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.jomexplore.ar;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Local unit tests for the {@link ModelLoader} cache: a model that was loaded once is shared by
+ * reference, not copied.
+ */
+public class ModelLoaderTest {
+
+    @After
+    public void tearDown() {
+        ModelLoader.loadedModels.clear();
+    }
+
+    @Test
+    public void loadModel_cachedModelAllocatesNoVertexMemory() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+        assumeTrue(threadBean.isThreadAllocatedMemorySupported());
+        threadBean.setThreadAllocatedMemoryEnabled(true);
+        long threadId = Thread.currentThread().getId();
+        BufferPoolMXBean directPool = null;
+        for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+            if (pool.getName().equals("direct")) {
+                directPool = pool;
+            }
+        }
+        assumeTrue(directPool != null);
+
+        ModelData cube = ModelLoader.createDefaultModel();
+        ModelLoader.loadedModels.put("cube", cube);
+        // A cache hit needs no context.
+        assertSame(cube, ModelLoader.loadModel(null, "cube"));
+
+        long startDirect = directPool.getMemoryUsed();
+        long startBytes = threadBean.getThreadAllocatedBytes(threadId);
+        ModelData loaded = null;
+        for (int i = 0; i < 1000; i++) {
+            loaded = ModelLoader.loadModel(null, "cube");
+        }
+        long allocated = threadBean.getThreadAllocatedBytes(threadId) - startBytes;
+        long direct = directPool.getMemoryUsed() - startDirect;
+
+        assertSame(cube, loaded);
+        assertSame(cube.vertexData, loaded.vertexData);
+        assertSame(cube.indices, loaded.indices);
+        assertEquals("Direct bytes allocated by cached loads", 0, direct);
+        assertTrue("Allocated " + allocated + " heap bytes in 1000 cached loads", allocated < 1024);
+    }
+
+    @Test
+    public void clearCache_dropsModels() {
+        ModelLoader.loadedModels.put("cube", ModelLoader.createDefaultModel());
+        ModelLoader.clearCache();
+        assertTrue(ModelLoader.loadedModels.isEmpty());
+    }
+}
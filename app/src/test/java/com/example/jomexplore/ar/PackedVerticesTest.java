@@ -0,0 +1,166 @@
+package com.example.jomexplore.ar;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link PackedVertices}: the round-trip precision of each packed attribute
+ * and the size of the shipped models before and after packing.
+ */
+public class PackedVerticesTest {
+    private static final float[] COLOR = {1f, 1f, 1f, 1f};
+
+    @Test
+    public void pack_positionsRoundTripWithinQuantizationStep() {
+        Random random = new Random(7);
+        int count = 1000;
+        float[] positions = new float[count * 3];
+        for (int i = 0; i < positions.length; i++) {
+            // An off-centre box, 40 x 4 x 0.4 units.
+            positions[i] = 3f + random.nextFloat() * (i % 3 == 0 ? 40f : i % 3 == 1 ? 4f : 0.4f);
+        }
+        PackedVertices packed = PackedVertices.pack(floats(positions), unitNormals(count, random), null, count);
+
+        float[] min = {Float.MAX_VALUE, Float.MAX_VALUE, Float.MAX_VALUE};
+        float[] max = {-Float.MAX_VALUE, -Float.MAX_VALUE, -Float.MAX_VALUE};
+        for (int i = 0; i < positions.length; i++) {
+            min[i % 3] = Math.min(min[i % 3], positions[i]);
+            max[i % 3] = Math.max(max[i % 3], positions[i]);
+        }
+        float[] decoded = new float[3];
+        for (int v = 0; v < count; v++) {
+            packed.getPosition(v, decoded);
+            for (int c = 0; c < 3; c++) {
+                // Half a step of 32767 steps per half extent, plus float rounding at the value.
+                float tolerance = (max[c] - min[c]) / 2f / 32767f / 2f + 2 * Math.ulp(max[c]);
+                assertEquals(positions[v * 3 + c], decoded[c], tolerance);
+            }
+        }
+        assertEquals(12, packed.stride);
+        assertEquals(count * 12, packed.data.capacity());
+    }
+
+    @Test
+    public void pack_normalsRoundTripWithinOneDegree() {
+        Random random = new Random(11);
+        int count = 1000;
+        FloatBuffer normals = unitNormals(count, random);
+        PackedVertices packed = PackedVertices.pack(floats(new float[count * 3]), normals, null, count);
+
+        float[] decoded = new float[3];
+        double worst = 0;
+        for (int v = 0; v < count; v++) {
+            packed.getNormal(v, decoded);
+            double length = Math.sqrt(decoded[0] * decoded[0] + decoded[1] * decoded[1] + decoded[2] * decoded[2]);
+            double dot = (normals.get(v * 3) * decoded[0] + normals.get(v * 3 + 1) * decoded[1]
+                    + normals.get(v * 3 + 2) * decoded[2]) / length;
+            worst = Math.max(worst, Math.toDegrees(Math.acos(Math.min(1.0, dot))));
+        }
+        System.out.printf("PackedVertices worst normal error: %.3f degrees%n", worst);
+        assertTrue("Worst normal error " + worst, worst < 1.0);
+    }
+
+    @Test
+    public void pack_flatAxisKeepsItsValue() {
+        // A quad in the z = 2 plane.
+        FloatBuffer positions = floats(0, 0, 2, 1, 0, 2, 0, 1, 2, 1, 1, 2);
+        FloatBuffer normals = floats(0, 0, 1, 0, 0, 1, 0, 0, 1, 0, 0, 1);
+        PackedVertices packed = PackedVertices.pack(positions, normals, null, 4);
+        float[] decoded = new float[3];
+        packed.getPosition(3, decoded);
+        assertArrayEquals(new float[]{1f, 1f, 2f}, decoded, 0f);
+    }
+
+    @Test
+    public void pack_texCoordsAsHalfFloats() {
+        FloatBuffer positions = floats(0, 0, 0, 1, 1, 1);
+        FloatBuffer normals = floats(0, 1, 0, 0, 1, 0);
+        FloatBuffer texCoords = floats(0.25f, 0.75f, 1f / 3f, 1f);
+        PackedVertices packed = PackedVertices.pack(positions, normals, texCoords, 2);
+        assertTrue(packed.hasTexCoords);
+        assertEquals(16, packed.stride);
+
+        float[] decoded = new float[2];
+        packed.getTexCoord(0, decoded);
+        assertArrayEquals(new float[]{0.25f, 0.75f}, decoded, 0f);
+        packed.getTexCoord(1, decoded);
+        // 11 significant bits.
+        assertEquals(1f / 3f, decoded[0], 1f / 2048f);
+        assertEquals(1f, decoded[1], 0f);
+    }
+
+    @Test
+    public void toHalf_roundTripsSpecialValues() {
+        assertEquals(0x3C00, PackedVertices.toHalf(1f) & 0xFFFF);
+        assertEquals(0xC000, PackedVertices.toHalf(-2f) & 0xFFFF);
+        assertEquals(0x7BFF, PackedVertices.toHalf(65504f) & 0xFFFF);
+        assertEquals(0x7C00, PackedVertices.toHalf(70000f) & 0xFFFF);
+        assertEquals(0xFC00, PackedVertices.toHalf(Float.NEGATIVE_INFINITY) & 0xFFFF);
+        assertTrue(Float.isNaN(PackedVertices.fromHalf(PackedVertices.toHalf(Float.NaN))));
+        assertEquals(0x8000, PackedVertices.toHalf(-0f) & 0xFFFF);
+
+        // The smallest subnormal, and the smallest normal.
+        float smallest = (float) Math.pow(2, -24);
+        assertEquals(1, PackedVertices.toHalf(smallest));
+        assertEquals(smallest, PackedVertices.fromHalf((short) 1), 0f);
+        assertEquals(0x0400, PackedVertices.toHalf((float) Math.pow(2, -14)));
+        // Below half the smallest subnormal flushes to zero; exactly half rounds to even, zero.
+        assertEquals(0, PackedVertices.toHalf(smallest / 4));
+        assertEquals(0, PackedVertices.toHalf(smallest / 2));
+
+        // Every finite half survives the round trip exactly.
+        for (int bits = 0; bits < 0x10000; bits++) {
+            if ((bits & 0x7C00) == 0x7C00) {
+                continue;
+            }
+            float value = PackedVertices.fromHalf((short) bits);
+            assertEquals(Integer.toHexString(bits), bits, PackedVertices.toHalf(value) & 0xFFFF);
+        }
+    }
+
+    /**
+     * Reports the vertex memory of the shipped procedural models with float attributes and packed.
+     */
+    @Test
+    public void report_packedSize() {
+        ModelData[] models = {
+                ModelLoader.createBlueMosqueModel(COLOR),
+                ModelLoader.createBatuCavesModel(COLOR),
+                ModelLoader.createMerdekaSquareModel(COLOR),
+                ModelLoader.createDefaultModel()
+        };
+        for (ModelData model : models) {
+            int floatBytes = model.vertexCount * 24;
+            int packedBytes = model.vertexData.data.capacity();
+            System.out.printf("PackedVertices %s: %d vertices, %d -> %d bytes%n",
+                    model.modelPath, model.vertexCount, floatBytes, packedBytes);
+            assertEquals(floatBytes / 2, packedBytes);
+        }
+    }
+
+    private static FloatBuffer unitNormals(int count, Random random) {
+        float[] normals = new float[count * 3];
+        for (int v = 0; v < count; v++) {
+            double x = random.nextGaussian();
+            double y = random.nextGaussian();
+            double z = random.nextGaussian();
+            double length = Math.sqrt(x * x + y * y + z * z);
+            normals[v * 3] = (float) (x / length);
+            normals[v * 3 + 1] = (float) (y / length);
+            normals[v * 3 + 2] = (float) (z / length);
+        }
+        return floats(normals);
+    }
+
+    private static FloatBuffer floats(float... values) {
+        FloatBuffer buffer = ByteBuffer.allocateDirect(values.length * 4).order(ByteOrder.nativeOrder()).asFloatBuffer();
+        buffer.put(values).position(0);
+        return buffer;
+    }
+}
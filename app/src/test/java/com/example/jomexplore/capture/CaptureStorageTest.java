@@ -0,0 +1,162 @@
+package com.example.jomexplore.capture;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the eviction and re-encoding policy of {@link CaptureStorage}.
+ */
+public class CaptureStorageTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final List<Runnable> scheduled = new ArrayList<>();
+
+    @Test
+    public void compact_evictsOldestOverTheCountBudget() throws IOException {
+        CaptureStorage storage = storage(Long.MAX_VALUE, 2, null);
+        File oldest = photo("captured_image_1.jpg", 10, 1000);
+        File middle = photo("captured_image_2.jpg", 10, 2000);
+        File newest = photo("captured_image_3.jpg", 10, 3000);
+
+        assertEquals(1, storage.compact());
+        assertFalse(oldest.exists());
+        assertTrue(middle.exists());
+        assertTrue(newest.exists());
+    }
+
+    @Test
+    public void compact_evictsOldestOverTheByteBudget() throws IOException {
+        CaptureStorage storage = storage(250, 100, null);
+        // Names do not decide the order; modification times do.
+        File newer = photo("captured_image_1.jpg", 100, 2000);
+        File oldest = photo("captured_image_2.jpg", 100, 1000);
+        photo("captured_image_3.jpg", 100, 3000);
+
+        assertEquals(1, storage.compact());
+        assertFalse(oldest.exists());
+        assertTrue(newer.exists());
+    }
+
+    @Test
+    public void compact_neverDeletesTheNewestPhoto() throws IOException {
+        CaptureStorage storage = storage(10, 100, null);
+        File newest = photo("captured_image_2.jpg", 100, 2000);
+        photo("captured_image_1.jpg", 100, 1000);
+
+        storage.compact();
+        assertEquals(1, storage.listPhotos().size());
+        assertTrue(newest.exists());
+    }
+
+    @Test
+    public void compact_ignoresOtherFiles() throws IOException {
+        CaptureStorage storage = storage(Long.MAX_VALUE, 1, null);
+        File other = photo("notes.txt", 10, 1000);
+        photo("captured_image_1.jpg", 10, 2000);
+
+        assertEquals(0, storage.compact());
+        assertTrue(other.exists());
+    }
+
+    @Test
+    public void compact_recompressesLargePhotosOnce() throws IOException {
+        HalvingRecompressor recompressor = new HalvingRecompressor();
+        CaptureStorage storage = storage(Long.MAX_VALUE, 100, recompressor);
+        photo("captured_image_1.jpg", 400, 1000);
+        File small = photo("captured_image_2.jpg", 50, 2000);
+
+        storage.compact();
+        File compacted = new File(folder.getRoot(), "captured_image_1_c.webp");
+        assertTrue(compacted.exists());
+        assertEquals(200, compacted.length());
+        assertEquals(1000, compacted.lastModified());
+        assertTrue(small.exists());
+
+        // Already re-encoded photos are left alone even if still above the threshold.
+        storage.compact();
+        assertEquals(1, recompressor.calls);
+    }
+
+    @Test
+    public void compact_keepsOriginalIfRecompressionDoesNotHelp() throws IOException {
+        CaptureStorage.Recompressor useless = new CaptureStorage.Recompressor() {
+            @Override
+            public void recompress(File source, File target) throws IOException {
+                Files.write(target.toPath(), new byte[(int) source.length()]);
+            }
+
+            @Override
+            public String getExtension() {
+                return "webp";
+            }
+        };
+        CaptureStorage storage = storage(Long.MAX_VALUE, 100, useless);
+        photo("captured_image_1.jpg", 400, 1000);
+
+        storage.compact();
+        assertEquals(1, storage.listPhotos().size());
+        assertTrue(new File(folder.getRoot(), "captured_image_1_c.jpg").exists());
+    }
+
+    @Test
+    public void onCaptureSaved_compactsOnTheExecutor() throws IOException {
+        CaptureStorage storage = storage(Long.MAX_VALUE, 1, null);
+        photo("captured_image_1.jpg", 10, 1000);
+        photo("captured_image_2.jpg", 10, 2000);
+
+        storage.onCaptureSaved();
+        assertEquals(2, storage.listPhotos().size());
+        assertEquals(1, scheduled.size());
+
+        scheduled.get(0).run();
+        assertEquals(1, storage.listPhotos().size());
+    }
+
+    @Test
+    public void newCaptureFile_createsTheDirectory() throws IOException {
+        File directory = new File(folder.getRoot(), "captured_images");
+        CaptureStorage storage = new CaptureStorage(directory, 100, 1, null, 0, scheduled::add);
+
+        File file = storage.newCaptureFile();
+        assertTrue(directory.isDirectory());
+        assertEquals(directory, file.getParentFile());
+        assertTrue(file.getName().startsWith("captured_image_"));
+    }
+
+    private CaptureStorage storage(long maxBytes, int maxCount, CaptureStorage.Recompressor recompressor) {
+        return new CaptureStorage(folder.getRoot(), maxBytes, maxCount, recompressor, 100, scheduled::add);
+    }
+
+    private File photo(String name, int size, long lastModified) throws IOException {
+        File file = new File(folder.getRoot(), name);
+        Files.write(file.toPath(), new byte[size]);
+        assertTrue(file.setLastModified(lastModified));
+        return file;
+    }
+
+    private static class HalvingRecompressor implements CaptureStorage.Recompressor {
+        int calls;
+
+        @Override
+        public void recompress(File source, File target) throws IOException {
+            calls++;
+            Files.write(target.toPath(), new byte[(int) source.length() / 2]);
+        }
+
+        @Override
+        public String getExtension() {
+            return "webp";
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.jomexplore.capture;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link CapturedImageStore}.
+ */
+public class CapturedImageStoreTest {
+
+    @After
+    public void tearDown() {
+        CapturedImageStore.clear();
+    }
+
+    @Test
+    public void put_returnsDistinctHandles() {
+        CapturedImage first = new CapturedImage(new byte[]{1}, 0);
+        CapturedImage second = new CapturedImage(new byte[]{2}, 90);
+        long a = CapturedImageStore.put(first);
+        long b = CapturedImageStore.put(second);
+
+        assertNotEquals(a, b);
+        assertSame(first, CapturedImageStore.get(a));
+        assertSame(second, CapturedImageStore.get(b));
+    }
+
+    @Test
+    public void remove_forgetsTheCapture() {
+        long handle = CapturedImageStore.put(new CapturedImage(new byte[0], 0));
+        CapturedImageStore.remove(handle);
+        assertNull(CapturedImageStore.get(handle));
+    }
+
+    @Test
+    public void put_evictsTheOldestCapture() {
+        long first = CapturedImageStore.put(new CapturedImage(new byte[0], 0));
+        long last = first;
+        for (int i = 0; i < CapturedImageStore.MAX_ENTRIES; i++) {
+            last = CapturedImageStore.put(new CapturedImage(new byte[0], 0));
+        }
+
+        assertNull(CapturedImageStore.get(first));
+        assertNotNull(CapturedImageStore.get(last));
+    }
+}
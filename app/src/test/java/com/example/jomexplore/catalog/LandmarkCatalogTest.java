@@ -0,0 +1,70 @@
+package com.example.jomexplore.catalog;
+
+import com.example.jomexplore.classifier.Labels;
+
+import org.json.JSONException;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link LandmarkCatalog} and the shipped landmarks.json.
+ */
+public class LandmarkCatalogTest {
+
+    private static LandmarkCatalog parse(String json) throws IOException, JSONException {
+        return LandmarkCatalog.parse(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void shippedCatalog_coversEveryClassifierLabel() throws IOException, JSONException {
+        LandmarkCatalog catalog;
+        try (InputStream in = new FileInputStream("src/main/assets/landmarks.json")) {
+            catalog = LandmarkCatalog.parse(in);
+        }
+        Labels labels;
+        try (InputStream in = new FileInputStream("src/main/assets/models/labels.txt")) {
+            labels = Labels.load(in);
+        }
+
+        for (int i = 0; i < labels.size(); i++) {
+            Landmark landmark = catalog.get(labels.getId(i));
+            assertNotNull("No catalog entry for " + labels.get(i), landmark);
+            assertEquals(labels.get(i), landmark.label);
+            assertFalse(landmark.description.isEmpty());
+        }
+
+        Landmark caves = catalog.get("batu_caves");
+        assertEquals("ar_assets/batu_caves.glb", caves.arModelPath);
+        assertEquals(Landmark.Shape.CAVES, caves.shape);
+        assertEquals(4, caves.color.length);
+    }
+
+    @Test
+    public void parse_appliesDefaultsForOptionalFields() throws IOException, JSONException {
+        LandmarkCatalog catalog = parse("{\"landmarks\": [{\"id\": \"kl_tower\", \"label\": \"KL Tower\"}]}");
+        Landmark tower = catalog.get("kl_tower");
+        assertEquals("KL Tower", tower.label);
+        assertEquals("", tower.description);
+        assertNull(tower.arModelPath);
+        assertEquals(Landmark.Shape.CUBE, tower.shape);
+        assertNull(catalog.get("unknown"));
+        assertNull(catalog.get(null));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parse_rejectsDuplicateIds() throws IOException, JSONException {
+        parse("{\"landmarks\": [{\"id\": \"a\", \"label\": \"A\"}, {\"id\": \"a\", \"label\": \"B\"}]}");
+    }
+
+    @Test(expected = JSONException.class)
+    public void parse_rejectsMalformedColor() throws IOException, JSONException {
+        parse("{\"landmarks\": [{\"id\": \"a\", \"label\": \"A\", \"color\": [1, 0, 0]}]}");
+    }
+}
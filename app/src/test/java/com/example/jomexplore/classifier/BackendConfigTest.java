@@ -0,0 +1,83 @@
+package com.example.jomexplore.classifier;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link BackendConfig} and the thread-count heuristic in {@link CpuTopology}.
+ */
+public class BackendConfigTest {
+
+    @Test
+    public void fallbackOrder_alwaysEndsWithCpu() {
+        BackendConfig config = new BackendConfig(4, true, Arrays.asList(
+                BackendConfig.Accelerator.CPU, BackendConfig.Accelerator.GPU, BackendConfig.Accelerator.GPU));
+        assertEquals(Arrays.asList(BackendConfig.Accelerator.GPU, BackendConfig.Accelerator.CPU), config.fallbackOrder);
+        assertEquals(BackendConfig.Accelerator.GPU, config.preferred());
+    }
+
+    @Test
+    public void encode_roundTripsThroughDecode() {
+        BackendConfig config = BackendConfig.preferring(BackendConfig.Accelerator.NNAPI, 2, false);
+        assertEquals("NNAPI,CPU;2;plain", config.encode());
+
+        BackendConfig decoded = BackendConfig.decode(config.encode());
+        assertNotNull(decoded);
+        assertEquals(config.fallbackOrder, decoded.fallbackOrder);
+        assertEquals(2, decoded.numThreads);
+        assertFalse(decoded.useXnnpack);
+    }
+
+    @Test
+    public void ranked_keepsEveryAcceleratorThatRanFastestFirst() {
+        Map<BackendConfig.Accelerator, Long> nanos = new EnumMap<>(BackendConfig.Accelerator.class);
+        nanos.put(BackendConfig.Accelerator.CPU, 9000L);
+        nanos.put(BackendConfig.Accelerator.NNAPI, 6000L);
+        nanos.put(BackendConfig.Accelerator.GPU, 3000L);
+        BackendConfig config = BackendConfig.ranked(nanos, 4, false);
+        // GPU won, but if it fails to initialize later NNAPI is tried before the CPU.
+        assertEquals(Arrays.asList(BackendConfig.Accelerator.GPU, BackendConfig.Accelerator.NNAPI,
+                BackendConfig.Accelerator.CPU), config.fallbackOrder);
+        assertEquals("GPU,NNAPI,CPU;4;plain", config.encode());
+        assertEquals(config.fallbackOrder, BackendConfig.decode(config.encode()).fallbackOrder);
+
+        // Accelerators that failed the benchmark or lost to the CPU are not tried.
+        nanos.remove(BackendConfig.Accelerator.NNAPI);
+        assertEquals(Arrays.asList(BackendConfig.Accelerator.GPU, BackendConfig.Accelerator.CPU),
+                BackendConfig.ranked(nanos, 4, true).fallbackOrder);
+        nanos.put(BackendConfig.Accelerator.CPU, 1000L);
+        assertEquals(Arrays.asList(BackendConfig.Accelerator.CPU), BackendConfig.ranked(nanos, 4, true).fallbackOrder);
+        assertEquals(Arrays.asList(BackendConfig.Accelerator.CPU),
+                BackendConfig.ranked(new EnumMap<>(BackendConfig.Accelerator.class), 4, true).fallbackOrder);
+    }
+
+    @Test
+    public void decode_rejectsMalformedCacheEntries() {
+        assertNull(BackendConfig.decode(null));
+        assertNull(BackendConfig.decode("GPU,CPU;4"));
+        assertNull(BackendConfig.decode("TPU,CPU;4;xnnpack"));
+        assertNull(BackendConfig.decode("GPU,CPU;four;xnnpack"));
+    }
+
+    @Test
+    public void threadCount_usesOnlyFasterClusters() {
+        // 4 little cores, 3 big cores and 1 prime core.
+        long[] frequencies = {1800000, 1800000, 1800000, 1800000, 2400000, 2400000, 2400000, 3000000};
+        assertEquals(4, CpuTopology.recommendedThreadCount(frequencies, 8));
+
+        long[] sixLittleTwoBig = {1700000, 1700000, 1700000, 1700000, 1700000, 1700000, 2200000, 2200000};
+        assertEquals(2, CpuTopology.recommendedThreadCount(sixLittleTwoBig, 8));
+    }
+
+    @Test
+    public void threadCount_handlesHomogeneousAndUnknownCpus() {
+        assertEquals(2, CpuTopology.recommendedThreadCount(new long[]{2000000, 2000000}, 2));
+        assertEquals(3, CpuTopology.recommendedThreadCount(new long[6], 6));
+        assertEquals(1, CpuTopology.recommendedThreadCount(new long[1], 1));
+    }
+}
@@ -0,0 +1,278 @@
+package com.example.jomexplore.classifier;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link BatchJob}.
+ */
+public class BatchJobTest {
+
+    /** Records every callback of a job. */
+    private static class Recorder implements BatchJob.Listener<Integer, String> {
+        final Map<Integer, String> results = new ConcurrentHashMap<>();
+        final Map<Integer, Exception> errors = new ConcurrentHashMap<>();
+        final List<Integer> progress = Collections.synchronizedList(new ArrayList<>());
+        final CountDownLatch finished = new CountDownLatch(1);
+        volatile boolean cancelled;
+
+        @Override
+        public void onResult(int index, Integer source, String result) {
+            results.put(index, result);
+        }
+
+        @Override
+        public void onError(int index, Integer source, Exception e) {
+            errors.put(index, e);
+        }
+
+        @Override
+        public void onProgress(int completed, int total) {
+            progress.add(completed);
+        }
+
+        @Override
+        public void onFinished(boolean cancelled) {
+            this.cancelled = cancelled;
+            finished.countDown();
+        }
+
+        void await() throws InterruptedException {
+            assertTrue("Job did not finish", finished.await(10, TimeUnit.SECONDS));
+        }
+    }
+
+    private final ExecutorService decodeExecutor = Executors.newFixedThreadPool(4);
+    private final ExecutorService inferenceExecutor = Executors.newSingleThreadExecutor();
+    private final AtomicInteger decoded = new AtomicInteger();
+    private final AtomicInteger recycled = new AtomicInteger();
+    private final List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+
+    @After
+    public void tearDown() {
+        decodeExecutor.shutdownNow();
+        inferenceExecutor.shutdownNow();
+    }
+
+    private static List<Integer> sources(int count) {
+        List<Integer> sources = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            sources.add(i);
+        }
+        return sources;
+    }
+
+    private BatchJob.Builder<Integer, int[], String> builder(BatchJob.Classifier<int[], String> classifier) {
+        return new BatchJob.Builder<Integer, int[], String>(source -> {
+            if (source == 7) {
+                return null;
+            }
+            decoded.incrementAndGet();
+            return new int[]{source};
+        }, classifier).setRecycler(input -> recycled.incrementAndGet());
+    }
+
+    private List<String> label(List<int[]> inputs) {
+        batchSizes.add(inputs.size());
+        List<String> labels = new ArrayList<>();
+        for (int[] input : inputs) {
+            labels.add("image" + input[0]);
+        }
+        return labels;
+    }
+
+    @Test
+    public void classifiesEverySourceInBatches() throws Exception {
+        Recorder recorder = new Recorder();
+        BatchJob<Integer, int[], String> job = builder(this::label)
+                .setBatchSize(4)
+                .setDecodeThreads(3)
+                .start(sources(20), decodeExecutor, inferenceExecutor, Runnable::run, recorder);
+        recorder.await();
+
+        assertFalse(recorder.cancelled);
+        assertEquals(19, recorder.results.size());
+        assertEquals("image12", recorder.results.get(12));
+        // Source 7 cannot be decoded and is reported instead of silently skipped.
+        assertTrue(recorder.errors.get(7) instanceof IOException);
+        assertEquals(Integer.valueOf(20), recorder.progress.get(recorder.progress.size() - 1));
+        for (int size : batchSizes) {
+            assertTrue(size >= 1 && size <= 4);
+        }
+        assertEquals(decoded.get(), recycled.get());
+        assertEquals(20, job.getTotal());
+    }
+
+    @Test
+    public void failedBatchReportsAnErrorForEachOfItsSources() throws Exception {
+        Recorder recorder = new Recorder();
+        builder(inputs -> { throw new IllegalStateException("interpreter failed"); })
+                .setBatchSize(2)
+                .start(sources(5), decodeExecutor, inferenceExecutor, Runnable::run, recorder);
+        recorder.await();
+
+        assertTrue(recorder.results.isEmpty());
+        assertEquals(5, recorder.errors.size());
+        assertEquals("interpreter failed", recorder.errors.get(0).getMessage());
+        assertEquals(decoded.get(), recycled.get());
+    }
+
+    @Test
+    public void cancelStopsDeliveringAndRecyclesQueuedInputs() throws Exception {
+        CountDownLatch classifying = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Recorder recorder = new Recorder();
+        BatchJob<Integer, int[], String> job = builder(inputs -> {
+            classifying.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return label(inputs);
+        }).setBatchSize(2).setDecodeThreads(2)
+                .start(sources(50), decodeExecutor, inferenceExecutor, Runnable::run, recorder);
+
+        assertTrue(classifying.await(5, TimeUnit.SECONDS));
+        job.cancel();
+        release.countDown();
+        recorder.await();
+
+        assertTrue(recorder.cancelled);
+        assertTrue(job.isCancelled());
+        assertTrue(recorder.results.isEmpty());
+        // Give decoders that were mid-decode time to see the cancellation.
+        decodeExecutor.shutdown();
+        assertTrue(decodeExecutor.awaitTermination(5, TimeUnit.SECONDS));
+        assertTrue(decoded.get() < 50);
+        assertEquals(decoded.get(), recycled.get());
+    }
+
+    @Test
+    public void emptyJobFinishesImmediately() throws Exception {
+        Recorder recorder = new Recorder();
+        builder(this::label).start(sources(0), decodeExecutor, inferenceExecutor, Runnable::run, recorder);
+        recorder.await();
+        assertFalse(recorder.cancelled);
+        assertTrue(recorder.progress.isEmpty());
+    }
+
+    @Test
+    public void errorInDecoderIsReportedAndJobFinishes() throws Exception {
+        Recorder recorder = new Recorder();
+        new BatchJob.Builder<Integer, int[], String>(source -> {
+            if (source == 3) {
+                throw new OutOfMemoryError("huge photo");
+            }
+            return new int[]{source};
+        }, this::label).setBatchSize(2).setDecodeThreads(2)
+                .start(sources(6), decodeExecutor, inferenceExecutor, Runnable::run, recorder);
+        recorder.await();
+
+        assertFalse(recorder.cancelled);
+        assertEquals(5, recorder.results.size());
+        assertTrue(recorder.errors.get(3).getCause() instanceof OutOfMemoryError);
+    }
+
+    @Test
+    public void errorInClassifierFailsTheBatchOnly() throws Exception {
+        Recorder recorder = new Recorder();
+        builder(inputs -> {
+            if (inputs.get(0)[0] == 0) {
+                throw new OutOfMemoryError("interpreter");
+            }
+            return label(inputs);
+        }).setBatchSize(1).setDecodeThreads(1)
+                .start(sources(4), decodeExecutor, inferenceExecutor, Runnable::run, recorder);
+        recorder.await();
+
+        assertFalse(recorder.cancelled);
+        assertTrue(recorder.errors.get(0).getCause() instanceof OutOfMemoryError);
+        assertEquals(3, recorder.results.size());
+    }
+
+    @Test
+    public void interruptedDecoderCancelsInsteadOfStallingTheJob() throws Exception {
+        CountDownLatch classifying = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Recorder recorder = new Recorder();
+        // Source 0 blocks inference, so the decoder fills the queue and waits for room.
+        BatchJob<Integer, int[], String> job = builder(inputs -> {
+            classifying.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return label(inputs);
+        }).setBatchSize(1).setDecodeThreads(1)
+                .start(sources(20), decodeExecutor, inferenceExecutor, Runnable::run, recorder);
+        assertTrue(classifying.await(5, TimeUnit.SECONDS));
+        waitFor(() -> decoded.get() >= 3);
+
+        decodeExecutor.shutdownNow();
+        assertTrue(decodeExecutor.awaitTermination(5, TimeUnit.SECONDS));
+        release.countDown();
+        recorder.await();
+
+        assertTrue(recorder.cancelled);
+        assertTrue(job.isCancelled());
+        assertEquals(decoded.get(), recycled.get());
+    }
+
+    /**
+     * The shape of the pipeline, not its speed: decoders run in parallel, keep decoding while a
+     * batch is being classified, and inputs that queue up meanwhile go out as one full batch.
+     * Throughput on a device comes from GalleryClassifierBenchmark.
+     */
+    @Test
+    public void decodersRunInParallelAndOverlapInference() throws Exception {
+        CountDownLatch bothDecoding = new CountDownLatch(2);
+        CountDownLatch classifying = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger firstBatch = new AtomicInteger();
+        Recorder recorder = new Recorder();
+        new BatchJob.Builder<Integer, int[], String>(source -> {
+            if (source < 2) {
+                // Each of the first two sources waits until the other one is being decoded too.
+                bothDecoding.countDown();
+                assertTrue("Decoders did not run in parallel", bothDecoding.await(5, TimeUnit.SECONDS));
+            }
+            decoded.incrementAndGet();
+            return new int[]{source};
+        }, inputs -> {
+            if (classifying.getCount() > 0) {
+                firstBatch.set(inputs.size());
+                classifying.countDown();
+                release.await(5, TimeUnit.SECONDS);
+            }
+            return label(inputs);
+        }).setBatchSize(4).setDecodeThreads(2)
+                .start(sources(12), decodeExecutor, inferenceExecutor, Runnable::run, recorder);
+
+        assertTrue(classifying.await(5, TimeUnit.SECONDS));
+        // Decoding goes on while the first batch is inside the classifier. Each decoder may hold
+        // one input it has not queued yet, so two more than a batch guarantee a full one queued.
+        waitFor(() -> decoded.get() >= firstBatch.get() + 4 + 2);
+        release.countDown();
+        recorder.await();
+
+        assertEquals(12, recorder.results.size());
+        assertTrue(recorder.errors.isEmpty());
+        assertEquals(Integer.valueOf(4), batchSizes.get(1));
+    }
+
+    private static void waitFor(java.util.function.BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertTrue("Condition not reached", System.currentTimeMillis() < deadline);
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.jomexplore.classifier;
+
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link InferenceScheduler}.
+ */
+public class InferenceSchedulerTest {
+
+    /** Runs tasks only when the test asks for it, so requests can pile up mid-flight. */
+    private static class ManualExecutor implements Executor {
+        final Queue<Runnable> tasks = new ArrayDeque<>();
+
+        @Override
+        public void execute(Runnable task) {
+            tasks.add(task);
+        }
+
+        void runNext() {
+            tasks.poll().run();
+        }
+
+        void runAll() {
+            while (!tasks.isEmpty()) {
+                tasks.poll().run();
+            }
+        }
+    }
+
+    private static class Recorder implements InferenceScheduler.Callback<String> {
+        final List<String> results = new ArrayList<>();
+        final List<Exception> errors = new ArrayList<>();
+
+        @Override
+        public void onResult(String result) {
+            results.add(result);
+        }
+
+        @Override
+        public void onError(Exception e) {
+            errors.add(e);
+        }
+    }
+
+    private final ManualExecutor worker = new ManualExecutor();
+    private final InferenceScheduler<String> scheduler = new InferenceScheduler<>(worker, Runnable::run);
+    private final List<String> executed = new ArrayList<>();
+
+    private InferenceScheduler.Task<String> task(String name) {
+        return token -> {
+            executed.add(name);
+            return name;
+        };
+    }
+
+    @Test
+    public void submit_runsAndDeliversResult() {
+        Recorder recorder = new Recorder();
+        scheduler.submit(task("a"), recorder);
+        worker.runAll();
+
+        assertEquals(List.of("a"), recorder.results);
+        assertTrue(scheduler.isIdle());
+    }
+
+    @Test
+    public void burst_runsOnlyTheLatest() {
+        Recorder recorder = new Recorder();
+        for (int i = 0; i < 10; i++) {
+            scheduler.submit(task("tap" + i), recorder);
+        }
+        // One task is handed to the worker at a time.
+        assertEquals(1, worker.tasks.size());
+        worker.runAll();
+
+        // The first request was cancelled before the worker picked it up; the rest were replaced.
+        assertEquals(List.of("tap9"), executed);
+        assertEquals(List.of("tap9"), recorder.results);
+    }
+
+    @Test
+    public void requestSubmittedMidFlightCancelsTheRunningOne() {
+        Recorder oldRecorder = new Recorder();
+        Recorder newRecorder = new Recorder();
+        boolean[] cancelledMidFlight = new boolean[1];
+        scheduler.submit(token -> {
+            scheduler.submit(task("new"), newRecorder);
+            cancelledMidFlight[0] = token.isCancelled();
+            return "old";
+        }, oldRecorder);
+        worker.runAll();
+
+        assertTrue(cancelledMidFlight[0]);
+        assertTrue(oldRecorder.results.isEmpty());
+        assertEquals(List.of("new"), newRecorder.results);
+    }
+
+    @Test
+    public void close_cancelsRunningAndPendingAndRejectsNewRequests() {
+        Recorder recorder = new Recorder();
+        scheduler.submit(task("a"), recorder);
+        scheduler.close();
+        scheduler.submit(task("b"), recorder);
+        worker.runAll();
+
+        assertTrue(executed.isEmpty());
+        assertTrue(recorder.results.isEmpty());
+    }
+
+    @Test
+    public void resultInFlightIsDroppedAfterClose() {
+        ManualExecutor main = new ManualExecutor();
+        InferenceScheduler<String> scheduler = new InferenceScheduler<>(worker, main);
+        Recorder recorder = new Recorder();
+        scheduler.submit(task("a"), recorder);
+        worker.runAll();
+        scheduler.close();
+        main.runAll();
+
+        assertEquals(List.of("a"), executed);
+        assertTrue(recorder.results.isEmpty());
+    }
+
+    @Test
+    public void errorsAreDelivered() {
+        Recorder recorder = new Recorder();
+        scheduler.submit(token -> {
+            throw new IllegalStateException("decode failed");
+        }, recorder);
+        worker.runAll();
+
+        assertEquals(1, recorder.errors.size());
+        assertTrue(recorder.results.isEmpty());
+    }
+}
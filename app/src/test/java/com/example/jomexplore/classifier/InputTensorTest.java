@@ -0,0 +1,169 @@
+package com.example.jomexplore.classifier;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Local unit tests and allocation benchmark for {@link InputTensor}.
+ */
+public class InputTensorTest {
+    private static final int INPUT_SIZE = 224;
+    private static final int IMAGE_MEAN = 128;
+    private static final float IMAGE_STD = 128.0f;
+
+    @Test
+    public void loadPixels_matchesPerPixelNormalization() {
+        int[] pixels = randomPixels(INPUT_SIZE * INPUT_SIZE, 42);
+        InputTensor tensor = new InputTensor(INPUT_SIZE, INPUT_SIZE, IMAGE_MEAN, IMAGE_STD);
+        tensor.loadPixels(pixels);
+
+        // The per-pixel putFloat loop ImageClassifier used before the tensor was reused.
+        ByteBuffer expected = ByteBuffer.allocateDirect(4 * INPUT_SIZE * INPUT_SIZE * 3).order(ByteOrder.nativeOrder());
+        for (int val : pixels) {
+            expected.putFloat((((val >> 16) & 0xFF) - IMAGE_MEAN) / IMAGE_STD);
+            expected.putFloat((((val >> 8) & 0xFF) - IMAGE_MEAN) / IMAGE_STD);
+            expected.putFloat(((val & 0xFF) - IMAGE_MEAN) / IMAGE_STD);
+        }
+        expected.rewind();
+
+        ByteBuffer actual = tensor.getBuffer();
+        assertEquals(0, actual.position());
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void loadPixels_overwritesPreviousFrame() {
+        InputTensor tensor = new InputTensor(2, 2, IMAGE_MEAN, IMAGE_STD);
+        tensor.loadPixels(new int[]{0xFFFFFFFF, 0xFFFFFFFF, 0xFFFFFFFF, 0xFFFFFFFF});
+        tensor.loadPixels(new int[]{0xFF000000, 0xFF000000, 0xFF000000, 0xFF000000});
+
+        FloatBuffer floats = tensor.getBuffer().asFloatBuffer();
+        assertEquals(12, floats.remaining());
+        while (floats.hasRemaining()) {
+            assertEquals(-1.0f, floats.get(), 0.0f);
+        }
+    }
+
+    @Test
+    public void uint8Input_storesRawChannelBytes() {
+        InputTensor tensor = new InputTensor(2, 1, TensorType.UINT8, IMAGE_MEAN, IMAGE_STD, 0.0078125f, 128);
+        tensor.loadPixels(new int[]{0xFF10FF80, 0xFF000102});
+
+        ByteBuffer buffer = tensor.getBuffer();
+        assertEquals(6, buffer.remaining());
+        byte[] bytes = new byte[6];
+        buffer.get(bytes);
+        assertArrayEquals(new byte[]{0x10, (byte) 0xFF, (byte) 0x80, 0x00, 0x01, 0x02}, bytes);
+    }
+
+    @Test
+    public void int8Input_quantizesNormalizedValues() {
+        // Real range [-1, 1) with scale 1/128 and zero point 0 maps pixel v to v - 128.
+        InputTensor tensor = new InputTensor(1, 1, TensorType.INT8, IMAGE_MEAN, IMAGE_STD, 1f / 128f, 0);
+        tensor.loadPixels(new int[]{0xFF00FF80});
+        ByteBuffer buffer = tensor.getBuffer();
+        assertEquals(-128, buffer.get(0));
+        assertEquals(127, buffer.get(1));
+        assertEquals(0, buffer.get(2));
+
+        // A non-zero zero point shifts the stored values and is clamped to the int8 range.
+        assertEquals(-118, InputTensor.quantize(0, TensorType.INT8, IMAGE_MEAN, IMAGE_STD, 1f / 128f, 10));
+        assertEquals(127, InputTensor.quantize(255, TensorType.INT8, IMAGE_MEAN, IMAGE_STD, 1f / 128f, 10));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void loadPixels_rejectsShortFrame() {
+        new InputTensor(4, 4, IMAGE_MEAN, IMAGE_STD).loadPixels(new int[15]);
+    }
+
+    /**
+     * Benchmark: after warm-up, filling the tensor and reading the output scores must not
+     * allocate on the Java heap. Prints the per-frame cost for reference.
+     */
+    @Test
+    public void steadyStateClassificationPath_allocatesNothing() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+        assumeTrue(threadBean.isThreadAllocatedMemorySupported());
+        threadBean.setThreadAllocatedMemoryEnabled(true);
+
+        InputTensor tensor = new InputTensor(INPUT_SIZE, INPUT_SIZE, IMAGE_MEAN, IMAGE_STD);
+        int[] pixels = randomPixels(INPUT_SIZE * INPUT_SIZE, 7);
+        OutputTensor output = new OutputTensor(TensorType.FLOAT32, 3, 0f, 0);
+        float[] scores = new float[3];
+
+        for (int i = 0; i < 2_000; i++) {
+            runOnce(tensor, pixels, output, scores);
+        }
+
+        final int iterations = 1_000;
+        long threadId = Thread.currentThread().getId();
+        long startBytes = threadBean.getThreadAllocatedBytes(threadId);
+        long startNanos = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            runOnce(tensor, pixels, output, scores);
+        }
+        long elapsedNanos = System.nanoTime() - startNanos;
+        long allocated = threadBean.getThreadAllocatedBytes(threadId) - startBytes;
+
+        System.out.printf("InputTensor: %.1f us/frame, %d bytes allocated over %d frames%n",
+                elapsedNanos / 1000.0 / iterations, allocated, iterations);
+        // Leave room for the measurement call itself, but nothing proportional to the frame count.
+        assertTrue("Allocated " + allocated + " bytes in steady state", allocated < 1024);
+    }
+
+    private static void runOnce(InputTensor tensor, int[] pixels, OutputTensor output, float[] scores) {
+        tensor.loadPixels(pixels);
+        ByteBuffer input = tensor.getBuffer();
+        // Stand-in for Interpreter.run: read the input and write into the reused output buffer.
+        ByteBuffer out = output.getBuffer();
+        out.putFloat(0, input.getFloat(0));
+        out.putFloat(4, input.getFloat(4));
+        out.putFloat(8, input.getFloat(8));
+        output.readScores(scores);
+    }
+
+    @Test
+    public void batch_writesEachImageAtItsOwnOffset() {
+        InputTensor tensor = new InputTensor(2, 1, TensorType.UINT8, IMAGE_MEAN, IMAGE_STD, 0f, 0, 3);
+        assertEquals(3, tensor.getBatchSize());
+        tensor.selectImage(2);
+        tensor.loadPixels(new int[]{0xFF030303, 0xFF040404});
+        tensor.selectImage(0);
+        tensor.loadPixels(new int[]{0xFF010101, 0xFF020202});
+
+        ByteBuffer buffer = tensor.getBuffer();
+        assertEquals(18, buffer.remaining());
+        byte[] bytes = new byte[18];
+        buffer.get(bytes);
+        assertArrayEquals(new byte[]{1, 1, 1, 2, 2, 2, 0, 0, 0, 0, 0, 0, 3, 3, 3, 4, 4, 4}, bytes);
+
+        ByteBuffer last = tensor.getImageBuffer(2);
+        assertEquals(6, last.remaining());
+        assertEquals(3, last.get(0));
+        assertEquals(4, last.get(5));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void batch_rejectsImageOutsideTheBatch() {
+        new InputTensor(2, 2, TensorType.FLOAT32, IMAGE_MEAN, IMAGE_STD, 0f, 0, 2).selectImage(2);
+    }
+
+    private static int[] randomPixels(int count, long seed) {
+        Random random = new Random(seed);
+        int[] pixels = new int[count];
+        for (int i = 0; i < count; i++) {
+            pixels[i] = 0xFF000000 | random.nextInt(0x1000000);
+        }
+        return pixels;
+    }
+}
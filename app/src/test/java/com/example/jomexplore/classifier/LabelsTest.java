@@ -0,0 +1,43 @@
+package com.example.jomexplore.classifier;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link Labels}.
+ */
+public class LabelsTest {
+
+    @Test
+    public void shippedLabels_skipCommentsAndKeepOrder() throws IOException {
+        // Unit tests run with the module directory as working directory.
+        try (InputStream in = new FileInputStream("src/main/assets/models/labels.txt")) {
+            Labels labels = Labels.load(in);
+            assertEquals(3, labels.size());
+            assertEquals("Batu Caves", labels.get(0));
+            assertEquals("Merdeka Square", labels.get(2));
+        }
+    }
+
+    @Test
+    public void get_namesClassesBeyondTheLabelFile() throws IOException {
+        Labels labels = Labels.load(new ByteArrayInputStream("A\n\n# comment\nB\n".getBytes(StandardCharsets.UTF_8)));
+        assertEquals(2, labels.size());
+        assertEquals("B", labels.get(1));
+        assertEquals("Class 9", labels.get(9));
+    }
+
+    @Test
+    public void toId_matchesAssetNames() {
+        assertEquals("merdeka_square", Labels.toId("Merdeka Square"));
+        assertEquals("batu_caves", Labels.toId(" Batu Caves "));
+        assertEquals("malacca_red_house", Labels.toId("Malacca Red-House"));
+    }
+}
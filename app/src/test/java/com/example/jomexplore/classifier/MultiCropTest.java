@@ -0,0 +1,104 @@
+package com.example.jomexplore.classifier;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link MultiCrop}.
+ */
+public class MultiCropTest {
+
+    @Test
+    public void landscapePhoto_getsCentreThirdsAndZoom() {
+        List<MultiCrop.Crop> crops = MultiCrop.plan(800, 600, null);
+
+        assertEquals(4, crops.size());
+        assertCrop(crops.get(0), 100, 0, 600);
+        // Squares centred on x = 267 and x = 533, shifted back inside the photo.
+        assertCrop(crops.get(1), 0, 0, 600);
+        assertCrop(crops.get(2), 200, 0, 600);
+        assertCrop(crops.get(3), 250, 150, 300);
+        for (MultiCrop.Crop crop : crops) {
+            assertInside(crop, 800, 600);
+            assertEquals(1f, crop.weight, 0f);
+        }
+    }
+
+    @Test
+    public void portraitPhoto_cropsAlongTheHeight() {
+        List<MultiCrop.Crop> crops = MultiCrop.plan(600, 1200, null);
+
+        assertEquals(4, crops.size());
+        assertCrop(crops.get(0), 0, 300, 600);
+        assertCrop(crops.get(1), 0, 100, 600);
+        assertCrop(crops.get(2), 0, 500, 600);
+    }
+
+    @Test
+    public void squarePhoto_skipsThirdsThatRepeatTheCentre() {
+        List<MultiCrop.Crop> crops = MultiCrop.plan(500, 500, null);
+
+        assertEquals(2, crops.size());
+        assertCrop(crops.get(0), 0, 0, 500);
+        assertCrop(crops.get(1), 125, 125, 250);
+    }
+
+    @Test
+    public void tap_addsWeightedRegionAroundTheTappedPoint() {
+        // A 1000x2000 view filled by an 800x600 photo shows its middle 300x600 columns,
+        // so the view's top-left quarter point maps to (325, 150).
+        MultiCrop.Tap tap = new MultiCrop.Tap(250, 500, 1000, 2000);
+        float[] point = tap.toImage(800, 600);
+        assertEquals(325f, point[0], 1e-3f);
+        assertEquals(150f, point[1], 1e-3f);
+
+        List<MultiCrop.Crop> crops = MultiCrop.plan(800, 600, tap);
+        assertEquals(MultiCrop.MAX_CROPS, crops.size());
+        MultiCrop.Crop roi = crops.get(crops.size() - 1);
+        assertCrop(roi, 175, 0, 300);
+        assertEquals(MultiCrop.ROI_WEIGHT, roi.weight, 0f);
+    }
+
+    @Test
+    public void tapOutsideThePhoto_isClampedToItsEdge() {
+        MultiCrop.Tap tap = new MultiCrop.Tap(-50, 5000, 400, 300);
+        List<MultiCrop.Crop> crops = MultiCrop.plan(800, 600, tap);
+        MultiCrop.Crop roi = crops.get(crops.size() - 1);
+        assertCrop(roi, 0, 300, 300);
+    }
+
+    @Test
+    public void fuse_isTheWeightedMeanOfTheCropScores() {
+        List<MultiCrop.Crop> crops = List.of(
+                new MultiCrop.Crop(0, 0, 10, 1f),
+                new MultiCrop.Crop(0, 0, 5, 1f),
+                new MultiCrop.Crop(0, 0, 5, 2f));
+        float[][] scores = {
+                {0.6f, 0.4f},
+                {0.2f, 0.8f},
+                {0.1f, 0.9f},
+        };
+        float[] fused = {5f, 5f};
+        MultiCrop.fuse(scores, crops, fused);
+        assertArrayEquals(new float[]{0.25f, 0.75f}, fused, 1e-6f);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsEmptyImage() {
+        MultiCrop.plan(0, 100, null);
+    }
+
+    private static void assertCrop(MultiCrop.Crop crop, int left, int top, int size) {
+        assertEquals("left of " + crop, left, crop.left);
+        assertEquals("top of " + crop, top, crop.top);
+        assertEquals("size of " + crop, size, crop.size);
+    }
+
+    private static void assertInside(MultiCrop.Crop crop, int width, int height) {
+        assertTrue(crop.left >= 0 && crop.top >= 0);
+        assertTrue(crop.left + crop.size <= width && crop.top + crop.size <= height);
+    }
+}
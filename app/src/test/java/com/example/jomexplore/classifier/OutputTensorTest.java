@@ -0,0 +1,69 @@
+package com.example.jomexplore.classifier;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link OutputTensor}.
+ */
+public class OutputTensorTest {
+
+    @Test
+    public void float32Output_isCopiedUnchanged() {
+        OutputTensor tensor = new OutputTensor(TensorType.FLOAT32, 3, 0f, 0);
+        ByteBuffer buffer = tensor.getBuffer();
+        buffer.putFloat(0.1f).putFloat(0.7f).putFloat(0.2f);
+
+        float[] scores = new float[3];
+        tensor.readScores(scores);
+        assertArrayEquals(new float[]{0.1f, 0.7f, 0.2f}, scores, 0f);
+    }
+
+    @Test
+    public void uint8Output_isDequantizedWithScaleAndZeroPoint() {
+        OutputTensor tensor = new OutputTensor(TensorType.UINT8, 3, 1f / 256f, 0);
+        tensor.getBuffer().put((byte) 0).put((byte) 128).put((byte) 255);
+
+        float[] scores = new float[3];
+        tensor.readScores(scores);
+        assertArrayEquals(new float[]{0f, 0.5f, 255f / 256f}, scores, 1e-6f);
+    }
+
+    @Test
+    public void int8Output_isDequantizedWithScaleAndZeroPoint() {
+        OutputTensor tensor = new OutputTensor(TensorType.INT8, 2, 1f / 256f, -128);
+        tensor.getBuffer().put((byte) -128).put((byte) 127);
+
+        float[] scores = new float[2];
+        tensor.readScores(scores);
+        assertArrayEquals(new float[]{0f, 255f / 256f}, scores, 1e-6f);
+    }
+
+    @Test
+    public void getBuffer_isRewoundForTheNextInference() {
+        OutputTensor tensor = new OutputTensor(TensorType.UINT8, 4, 1f / 256f, 0);
+        tensor.getBuffer().put(new byte[4]);
+        assertEquals(0, tensor.getBuffer().position());
+        assertEquals(4, tensor.getBuffer().remaining());
+    }
+
+    @Test
+    public void batchedOutput_readsTheScoresOfEachImage() {
+        OutputTensor tensor = new OutputTensor(TensorType.FLOAT32, 2, 0f, 0, 3);
+        tensor.getBuffer().putFloat(0.1f).putFloat(0.9f).putFloat(0.2f).putFloat(0.8f).putFloat(0.3f).putFloat(0.7f);
+
+        float[] scores = new float[2];
+        tensor.readScores(2, scores);
+        assertArrayEquals(new float[]{0.3f, 0.7f}, scores, 0f);
+        tensor.readScores(1, scores);
+        assertArrayEquals(new float[]{0.2f, 0.8f}, scores, 0f);
+
+        OutputTensor quantized = new OutputTensor(TensorType.UINT8, 2, 1f / 256f, 0, 2);
+        quantized.getBuffer().put(new byte[]{0, 64, (byte) 128, 0});
+        quantized.readScores(1, scores);
+        assertArrayEquals(new float[]{0.5f, 0f}, scores, 1e-6f);
+    }
+}
@@ -0,0 +1,217 @@
+package com.example.jomexplore.classifier;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link RecognitionAggregator}, plus an offline evaluation of decision
+ * latency and false-positive rate on synthetic score sequences.
+ */
+public class RecognitionAggregatorTest {
+    private static final int NUM_CLASSES = 10;
+    private static final int MAX_FRAMES = 60;
+
+    @Test
+    public void ema_decidesOnceAverageIsConfidentAndStaysFinal() {
+        RecognitionAggregator aggregator = RecognitionAggregator.ema(0.5f, 0.6f, 0.3f, 2, 0);
+        assertEquals(RecognitionAggregator.UNDECIDED, aggregator.update(new float[]{0.2f, 0.7f, 0.1f}));
+        // The second frame agrees: average {0.15, 0.75, 0.1}.
+        assertEquals(1, aggregator.update(new float[]{0.1f, 0.8f, 0.1f}));
+        assertTrue(aggregator.isFinal());
+
+        // Later frames do not change a final decision.
+        assertEquals(1, aggregator.update(new float[]{1f, 0f, 0f}));
+        assertEquals(2, aggregator.getFrameCount());
+
+        float[] smoothed = new float[3];
+        aggregator.getSmoothedScores(smoothed);
+        assertArrayEquals(new float[]{0.15f, 0.75f, 0.1f}, smoothed, 1e-6f);
+    }
+
+    @Test
+    public void ema_requiresMarginOverRunnerUp() {
+        RecognitionAggregator aggregator = RecognitionAggregator.ema(1f, 0.4f, 0.2f, 1, 0);
+        assertEquals(RecognitionAggregator.UNDECIDED, aggregator.update(new float[]{0.45f, 0.4f, 0.15f}));
+        assertEquals(0, aggregator.update(new float[]{0.7f, 0.2f, 0.1f}));
+    }
+
+    @Test
+    public void vote_countsOnlyConfidentFramesInsideTheWindow() {
+        RecognitionAggregator aggregator = RecognitionAggregator.vote(4, 3, 0.5f, 0);
+        float[] a = {0.9f, 0.1f};
+        float[] b = {0.1f, 0.9f};
+        float[] unsure = {0.4f, 0.45f};
+
+        assertEquals(RecognitionAggregator.UNDECIDED, aggregator.update(a));
+        assertEquals(RecognitionAggregator.UNDECIDED, aggregator.update(a));
+        assertEquals(RecognitionAggregator.UNDECIDED, aggregator.update(b));
+        assertEquals(RecognitionAggregator.UNDECIDED, aggregator.update(unsure));
+        // Window is now [a, b, unsure, b]; the first "a" fell out.
+        assertEquals(RecognitionAggregator.UNDECIDED, aggregator.update(b));
+        // Window [b, unsure, b, b]: three votes for class 1.
+        assertEquals(1, aggregator.update(b));
+    }
+
+    @Test
+    public void givesUpAfterMaxFramesAndResetStartsOver() {
+        RecognitionAggregator aggregator = RecognitionAggregator.vote(3, 3, 0.5f, 4);
+        float[] noise = {0.3f, 0.3f, 0.4f};
+        for (int i = 0; i < 3; i++) {
+            assertEquals(RecognitionAggregator.UNDECIDED, aggregator.update(noise));
+        }
+        assertEquals(RecognitionAggregator.GAVE_UP, aggregator.update(noise));
+        assertTrue(aggregator.isFinal());
+
+        aggregator.reset();
+        assertFalse(aggregator.isFinal());
+        float[] confident = {0.1f, 0.8f, 0.1f};
+        aggregator.update(confident);
+        aggregator.update(confident);
+        assertEquals(1, aggregator.update(confident));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void vote_rejectsImpossibleQuorum() {
+        RecognitionAggregator.vote(3, 4, 0.5f, 0);
+    }
+
+    /**
+     * Offline evaluation: replays sequences with a landmark in view (noisy, with occluded frames)
+     * and sequences without one (noise with short spikes), and compares the live settings against
+     * deciding on a single frame and on the previous five-frame streak.
+     */
+    @Test
+    public void offlineEvaluation_smoothingCutsFalsePositives() {
+        List<float[][]> positives = new ArrayList<>();
+        List<Integer> truth = new ArrayList<>();
+        List<float[][]> negatives = new ArrayList<>();
+        Random random = new Random(2024);
+        for (int i = 0; i < 300; i++) {
+            int label = random.nextInt(NUM_CLASSES);
+            positives.add(landmarkSequence(random, label));
+            truth.add(label);
+            negatives.add(backgroundSequence(random));
+        }
+
+        Evaluation singleFrame = evaluate(RecognitionAggregator.vote(1, 1, 0.5f, MAX_FRAMES), positives, truth, negatives);
+        Evaluation streak = evaluate(RecognitionAggregator.vote(5, 5, 0.5f, MAX_FRAMES), positives, truth, negatives);
+        Evaluation ema = evaluate(RecognitionAggregator.ema(0.3f, 0.6f, 0.3f, 3, MAX_FRAMES), positives, truth, negatives);
+        Evaluation vote = evaluate(RecognitionAggregator.vote(7, 4, 0.5f, MAX_FRAMES), positives, truth, negatives);
+
+        System.out.println("RecognitionAggregator single frame: " + singleFrame);
+        System.out.println("RecognitionAggregator 5-frame streak: " + streak);
+        System.out.println("RecognitionAggregator EMA: " + ema);
+        System.out.println("RecognitionAggregator vote 4/7: " + vote);
+
+        for (Evaluation smoothed : new Evaluation[]{ema, vote}) {
+            assertTrue(smoothed.falsePositiveRate < singleFrame.falsePositiveRate / 4);
+            assertTrue(smoothed.accuracy > 0.97);
+            assertTrue(smoothed.accuracy > singleFrame.accuracy);
+            // Faster than waiting for five clean frames in a row.
+            assertTrue(smoothed.meanLatency < streak.meanLatency);
+        }
+    }
+
+    private static class Evaluation {
+        double accuracy;
+        double meanLatency;
+        double falsePositiveRate;
+
+        @Override
+        public String toString() {
+            return String.format("accuracy %.3f, mean latency %.1f frames, false positives %.3f",
+                    accuracy, meanLatency, falsePositiveRate);
+        }
+    }
+
+    private static Evaluation evaluate(RecognitionAggregator aggregator, List<float[][]> positives,
+                                       List<Integer> truth, List<float[][]> negatives) {
+        int correct = 0;
+        long latency = 0;
+        int decided = 0;
+        for (int i = 0; i < positives.size(); i++) {
+            int decision = replay(aggregator, positives.get(i));
+            if (decision >= 0) {
+                decided++;
+                latency += aggregator.getFrameCount();
+            }
+            if (decision == truth.get(i)) {
+                correct++;
+            }
+        }
+        int falsePositives = 0;
+        for (float[][] sequence : negatives) {
+            if (replay(aggregator, sequence) >= 0) {
+                falsePositives++;
+            }
+        }
+
+        Evaluation evaluation = new Evaluation();
+        evaluation.accuracy = correct / (double) positives.size();
+        evaluation.meanLatency = decided > 0 ? latency / (double) decided : Double.NaN;
+        evaluation.falsePositiveRate = falsePositives / (double) negatives.size();
+        return evaluation;
+    }
+
+    private static int replay(RecognitionAggregator aggregator, float[][] sequence) {
+        aggregator.reset();
+        for (float[] frame : sequence) {
+            if (aggregator.isFinal()) {
+                break;
+            }
+            aggregator.update(frame);
+        }
+        return aggregator.getDecision();
+    }
+
+    /** A landmark in view: its logit leads by a margin, except in blurred or occluded frames. */
+    private static float[][] landmarkSequence(Random random, int label) {
+        float[][] frames = new float[MAX_FRAMES][];
+        for (int f = 0; f < MAX_FRAMES; f++) {
+            float[] logits = noise(random, 1.0f);
+            if (random.nextFloat() >= 0.25f) {
+                logits[label] += 3.5f;
+            }
+            frames[f] = softmax(logits);
+        }
+        return frames;
+    }
+
+    /** No landmark: noise, with an occasional one- or two-frame spike on a random class. */
+    private static float[][] backgroundSequence(Random random) {
+        float[][] frames = new float[MAX_FRAMES][];
+        int spikeClass = -1;
+        int spikeFrames = 0;
+        for (int f = 0; f < MAX_FRAMES; f++) {
+            float[] logits = noise(random, 1.0f);
+            if (spikeFrames == 0 && random.nextFloat() < 0.05f) {
+                spikeClass = random.nextInt(NUM_CLASSES);
+                spikeFrames = 1 + random.nextInt(2);
+            }
+            if (spikeFrames > 0) {
+                logits[spikeClass] += 4f;
+                spikeFrames--;
+            }
+            frames[f] = softmax(logits);
+        }
+        return frames;
+    }
+
+    private static float[] noise(Random random, float sigma) {
+        float[] logits = new float[NUM_CLASSES];
+        for (int i = 0; i < NUM_CLASSES; i++) {
+            logits[i] = (float) random.nextGaussian() * sigma;
+        }
+        return logits;
+    }
+
+    private static float[] softmax(float[] logits) {
+        ScorePostprocessor.softmax(logits, 1f);
+        return logits;
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.jomexplore.classifier;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Properties;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link ScorePostprocessor}.
+ */
+public class ScorePostprocessorTest {
+    private static final Labels LABELS = new Labels(Arrays.asList("Batu Caves", "Blue Mosque", "Merdeka Square"));
+
+    @Test
+    public void topK_matchesFullSortIncludingTies() {
+        Random random = new Random(3);
+        ScorePostprocessor postprocessor = new ScorePostprocessor(ScorePostprocessor.Activation.NONE, 1f, 5, new float[0]);
+        int[] indices = new int[5];
+        for (int trial = 0; trial < 200; trial++) {
+            float[] scores = new float[1 + random.nextInt(40)];
+            for (int i = 0; i < scores.length; i++) {
+                // Few distinct values, so ties are common.
+                scores[i] = random.nextInt(8) / 8f;
+            }
+
+            int count = postprocessor.topK(scores, indices);
+
+            Integer[] expected = new Integer[scores.length];
+            for (int i = 0; i < expected.length; i++) {
+                expected[i] = i;
+            }
+            Arrays.sort(expected, Comparator.<Integer>comparingDouble(i -> -scores[i]).thenComparingInt(i -> i));
+            assertEquals(Math.min(5, scores.length), count);
+            for (int i = 0; i < count; i++) {
+                assertEquals("trial " + trial + " rank " + i, (int) expected[i], indices[i]);
+            }
+        }
+    }
+
+    @Test
+    public void softmax_normalizesLogitsAndTemperatureFlattens() {
+        float[] sharp = {2f, 1f, 0f};
+        ScorePostprocessor.softmax(sharp, 1f);
+        assertEquals(1f, sharp[0] + sharp[1] + sharp[2], 1e-6f);
+        assertEquals(0.6652f, sharp[0], 1e-4f);
+
+        float[] soft = {2f, 1f, 0f};
+        ScorePostprocessor.softmax(soft, 2f);
+        assertTrue(soft[0] < sharp[0]);
+        assertTrue(soft[0] > soft[1] && soft[1] > soft[2]);
+
+        // Large logits must not overflow.
+        float[] large = {1000f, 999f};
+        ScorePostprocessor.softmax(large, 1f);
+        assertEquals(0.7311f, large[0], 1e-4f);
+    }
+
+    @Test
+    public void autoActivation_onlyTouchesLogits() {
+        ScorePostprocessor probabilityModel = new ScorePostprocessor(ScorePostprocessor.Activation.AUTO, 1f, 3, new float[3]);
+        float[] probabilities = {0.7f, 0.2f, 0.1f};
+        probabilityModel.activate(probabilities);
+        assertArrayEquals(new float[]{0.7f, 0.2f, 0.1f}, probabilities, 0f);
+        assertEquals(ScorePostprocessor.Activation.NONE, probabilityModel.getActivation());
+
+        ScorePostprocessor logitModel = new ScorePostprocessor(ScorePostprocessor.Activation.AUTO, 1f, 3, new float[3]);
+        float[] logits = {3f, -1f, 0.5f};
+        logitModel.activate(logits);
+        assertEquals(1f, logits[0] + logits[1] + logits[2], 1e-6f);
+        assertEquals(ScorePostprocessor.Activation.SOFTMAX, logitModel.getActivation());
+    }
+
+    @Test
+    public void autoActivation_firstOutputDecidesForTheModel() {
+        ScorePostprocessor postprocessor = new ScorePostprocessor(ScorePostprocessor.Activation.AUTO, 1f, 3, new float[3]);
+        assertEquals(ScorePostprocessor.Activation.AUTO, postprocessor.getActivation());
+        postprocessor.activate(new float[]{3f, -1f, 0.5f});
+
+        // Logits of a later output that happen to fall in [0, 1], e.g. one crop of a photo,
+        // still get softmax, so they stay on the same scale as the others.
+        float[] inRange = {0.9f, 0.1f, 0.5f};
+        postprocessor.activate(inRange);
+        assertEquals(1f, inRange[0] + inRange[1] + inRange[2], 1e-6f);
+        assertTrue(inRange[0] < 0.9f);
+    }
+
+    @Test
+    public void fromProperties_appliesPerClassThresholds() throws IOException {
+        String config = "activation=softmax\ntemperature=1.5\ntop_k=2\ndefault_threshold=0.4\nthreshold.merdeka_square=0.8\n";
+        Properties properties = ScorePostprocessor.loadProperties(
+                new ByteArrayInputStream(config.getBytes(StandardCharsets.ISO_8859_1)));
+
+        ScorePostprocessor postprocessor = ScorePostprocessor.fromProperties(properties, LABELS, 4);
+        assertEquals(2, postprocessor.getTopK());
+        assertEquals(0.4f, postprocessor.thresholdFor(0), 0f);
+        assertEquals(0.8f, postprocessor.thresholdFor(2), 0f);
+        // Unlabelled classes still get the default threshold.
+        assertEquals(0.4f, postprocessor.thresholdFor(3), 0f);
+    }
+
+    @Test
+    public void fromProperties_defaultsWithoutConfig() {
+        ScorePostprocessor postprocessor = ScorePostprocessor.fromProperties(null, LABELS, 3);
+        assertEquals(ScorePostprocessor.DEFAULT_TOP_K, postprocessor.getTopK());
+        assertEquals(ScorePostprocessor.DEFAULT_THRESHOLD, postprocessor.thresholdFor(1), 0f);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void fromProperties_rejectsUnknownActivation() {
+        Properties properties = new Properties();
+        properties.setProperty("activation", "sigmoid");
+        ScorePostprocessor.fromProperties(properties, LABELS, 3);
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.jomexplore.classifier;
+
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link SharedInstance}.
+ */
+public class SharedInstanceTest {
+
+    private static class Resource implements AutoCloseable {
+        boolean closed;
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    /** Runs tasks only when the test asks for it, so loading can be observed mid-flight. */
+    private static class ManualExecutor implements Executor {
+        final Queue<Runnable> tasks = new ArrayDeque<>();
+
+        @Override
+        public void execute(Runnable task) {
+            tasks.add(task);
+        }
+
+        void runAll() {
+            while (!tasks.isEmpty()) {
+                tasks.poll().run();
+            }
+        }
+    }
+
+    private final List<Resource> created = new ArrayList<>();
+    private final ManualExecutor loader = new ManualExecutor();
+    private final SharedInstance<Resource> shared = new SharedInstance<>(() -> {
+        Resource resource = new Resource();
+        created.add(resource);
+        return resource;
+    }, loader, Runnable::run);
+
+    @Test
+    public void preload_createsInstanceOnceForAllUsers() {
+        shared.preload();
+        shared.preload();
+        List<Resource> received = new ArrayList<>();
+        shared.acquire(received::add);
+        loader.runAll();
+        shared.acquire(received::add);
+
+        assertEquals(1, created.size());
+        assertEquals(2, received.size());
+        assertSame(created.get(0), received.get(0));
+        assertSame(created.get(0), received.get(1));
+        assertEquals(2, shared.getRefCount());
+    }
+
+    @Test
+    public void closedLease_doesNotReceivePendingCallback() {
+        List<Resource> received = new ArrayList<>();
+        SharedInstance<Resource>.Lease lease = shared.acquire(received::add);
+        lease.close();
+        lease.close();
+        loader.runAll();
+
+        assertTrue(received.isEmpty());
+        assertEquals(0, shared.getRefCount());
+        assertTrue(shared.isLoaded());
+    }
+
+    @Test
+    public void trim_onlyClosesUnusedInstance() {
+        SharedInstance<Resource>.Lease lease = shared.acquire(resource -> { });
+        loader.runAll();
+
+        assertFalse(shared.trim());
+        assertFalse(created.get(0).closed);
+
+        lease.close();
+        assertTrue(shared.trim());
+        assertTrue(created.get(0).closed);
+        assertFalse(shared.isLoaded());
+
+        // The next user loads a fresh instance.
+        shared.acquire(resource -> { });
+        loader.runAll();
+        assertEquals(2, created.size());
+    }
+
+    @Test
+    public void failedLoad_deliversNullAndRetries() {
+        int[] attempts = {0};
+        SharedInstance<Resource> failing = new SharedInstance<>(() -> {
+            if (attempts[0]++ == 0) {
+                throw new IllegalStateException("model missing");
+            }
+            return new Resource();
+        }, loader, Runnable::run);
+
+        List<Resource> received = new ArrayList<>();
+        failing.acquire(received::add);
+        loader.runAll();
+        assertEquals(1, received.size());
+        assertNull(received.get(0));
+
+        failing.acquire(received::add);
+        loader.runAll();
+        assertNotNull(received.get(1));
+        assertEquals(2, attempts[0]);
+    }
+}
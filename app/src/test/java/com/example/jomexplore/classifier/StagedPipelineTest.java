@@ -0,0 +1,227 @@
+package com.example.jomexplore.classifier;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link StagedPipeline}.
+ */
+public class StagedPipelineTest {
+
+    /** Records every item that leaves the pipeline. */
+    private static class Finished implements StagedPipeline.Listener<int[]> {
+        final List<Integer> items = Collections.synchronizedList(new ArrayList<>());
+        final List<Exception> errors = Collections.synchronizedList(new ArrayList<>());
+        final CountDownLatch done;
+
+        Finished(int expected) {
+            done = new CountDownLatch(expected);
+        }
+
+        @Override
+        public void onFinished(int[] item, Exception error) {
+            items.add(item[0]);
+            if (error != null) {
+                errors.add(error);
+            }
+            done.countDown();
+        }
+
+        void await() throws InterruptedException {
+            assertTrue("Items did not leave the pipeline", done.await(5, TimeUnit.SECONDS));
+        }
+    }
+
+    private StagedPipeline<int[]> pipeline;
+
+    @After
+    public void tearDown() {
+        if (pipeline != null) {
+            pipeline.close();
+        }
+    }
+
+    @Test
+    public void itemsPassEveryStageInOrder() throws Exception {
+        Finished finished = new Finished(5);
+        pipeline = new StagedPipeline.Builder<int[]>()
+                .addStage("double", 1, item -> { item[0] *= 2; return true; })
+                .addStage("increment", 1, item -> { item[0] += 1; return true; })
+                .start(finished);
+
+        for (int i = 0; i < 5; i++) {
+            pipeline.put(new int[]{i});
+        }
+        finished.await();
+
+        assertEquals(List.of(1, 3, 5, 7, 9), finished.items);
+        assertTrue(finished.errors.isEmpty());
+        List<StagedPipeline.StageStats> stats = pipeline.getStats();
+        assertEquals("double", stats.get(0).name);
+        assertEquals(5, stats.get(0).processed);
+        assertEquals(5, stats.get(1).processed);
+    }
+
+    @Test
+    public void earlierStageRunsWhileLaterStageIsBusy() throws Exception {
+        CountDownLatch inferring = new CountDownLatch(1);
+        CountDownLatch secondPreprocessed = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Finished finished = new Finished(2);
+        pipeline = new StagedPipeline.Builder<int[]>()
+                .addStage("preprocess", 1, item -> {
+                    if (item[0] == 2) {
+                        secondPreprocessed.countDown();
+                    }
+                    return true;
+                })
+                .addStage("infer", 1, item -> {
+                    inferring.countDown();
+                    return release.await(5, TimeUnit.SECONDS);
+                })
+                .start(finished);
+
+        pipeline.put(new int[]{1});
+        assertTrue(inferring.await(5, TimeUnit.SECONDS));
+        pipeline.put(new int[]{2});
+        // Item 2 is preprocessed while item 1 is still inside the infer stage.
+        assertTrue(secondPreprocessed.await(5, TimeUnit.SECONDS));
+        release.countDown();
+        finished.await();
+        assertEquals(List.of(1, 2), finished.items);
+    }
+
+    @Test
+    public void fullQueuesPushBackOnTheProducer() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Finished finished = new Finished(4);
+        pipeline = new StagedPipeline.Builder<int[]>()
+                .addStage("first", 1, item -> true)
+                .addStage("slow", 1, item -> release.await(5, TimeUnit.SECONDS))
+                .start(finished);
+
+        // One item inside "slow", one in its queue, one blocked in "first" and one in the
+        // first queue: the pipeline holds four items before offer() starts to refuse.
+        int accepted = 0;
+        long deadline = System.currentTimeMillis() + 5000;
+        while (accepted < 4 && System.currentTimeMillis() < deadline) {
+            if (pipeline.offer(new int[]{accepted})) {
+                accepted++;
+            }
+        }
+        assertEquals(4, accepted);
+        waitFor(() -> pipeline.getStats().get(0).queueDepth == 1);
+        assertFalse(pipeline.offer(new int[]{99}));
+        assertEquals(1, pipeline.getStats().get(1).queueDepth);
+
+        release.countDown();
+        finished.await();
+        assertEquals(List.of(0, 1, 2, 3), finished.items);
+        assertTrue(pipeline.getStats().get(0).blockedMicros > 0);
+    }
+
+    @Test
+    public void droppedAndFailedItemsStillReachTheListener() throws Exception {
+        Finished finished = new Finished(3);
+        IllegalStateException failure = new IllegalStateException("bad frame");
+        pipeline = new StagedPipeline.Builder<int[]>()
+                .addStage("filter", 1, item -> item[0] != 1)
+                .addStage("check", 1, item -> {
+                    if (item[0] == 2) {
+                        throw failure;
+                    }
+                    return true;
+                })
+                .start(finished);
+
+        for (int i = 0; i < 3; i++) {
+            pipeline.put(new int[]{i});
+        }
+        finished.await();
+
+        assertEquals(3, finished.items.size());
+        assertEquals(List.of(failure), finished.errors);
+        List<StagedPipeline.StageStats> stats = pipeline.getStats();
+        assertEquals(1, stats.get(0).dropped);
+        assertEquals(2, stats.get(0).processed);
+        assertEquals(1, stats.get(1).failed);
+        assertEquals(1, stats.get(1).processed);
+    }
+
+    @Test
+    public void closeHandsBackQueuedItemsAndRejectsNewOnes() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Finished finished = new Finished(2);
+        pipeline = new StagedPipeline.Builder<int[]>()
+                .addStage("slow", 1, item -> {
+                    started.countDown();
+                    release.await(5, TimeUnit.SECONDS);
+                    return true;
+                })
+                .addStage("last", 1, item -> true)
+                .start(finished);
+
+        pipeline.put(new int[]{0});
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        pipeline.put(new int[]{1});
+        pipeline.close();
+        assertFalse(pipeline.offer(new int[]{2}));
+
+        finished.await();
+        assertEquals(2, finished.items.size());
+        assertTrue(finished.items.containsAll(List.of(0, 1)));
+    }
+
+    @Test
+    public void closeFinishesItemBlockedOnFullQueueExactlyOnce() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Finished finished = new Finished(4);
+        pipeline = new StagedPipeline.Builder<int[]>()
+                .addStage("first", 1, item -> true)
+                .addStage("slow", 1, item -> {
+                    release.await(5, TimeUnit.SECONDS);
+                    return true;
+                })
+                .start(finished);
+
+        // Item 0 is inside "slow", item 1 fills its queue, item 2 is blocked in "first" on the
+        // full queue and item 3 waits in the first queue.
+        for (int i = 0; i < 4; i++) {
+            pipeline.put(new int[]{i});
+        }
+        waitFor(() -> pipeline.getStats().get(0).processed == 3 && pipeline.getStats().get(0).queueDepth == 1
+                && pipeline.getStats().get(1).queueDepth == 1);
+        pipeline.close();
+        release.countDown();
+
+        finished.await();
+        // Give a duplicate hand-over the chance to show up.
+        Thread.sleep(50);
+        List<Integer> items = new ArrayList<>(finished.items);
+        Collections.sort(items);
+        // Item 0 may finish with the interrupt as its error; each item is handed over once.
+        assertEquals(List.of(0, 1, 2, 3), items);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void rejectsPipelineWithoutStages() {
+        new StagedPipeline.Builder<int[]>().start((item, error) -> { });
+    }
+
+    private static void waitFor(java.util.function.BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertTrue("Condition not reached", System.currentTimeMillis() < deadline);
+            Thread.sleep(5);
+        }
+    }
+}
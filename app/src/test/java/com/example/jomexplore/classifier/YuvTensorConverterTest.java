@@ -0,0 +1,230 @@
+package com.example.jomexplore.classifier;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link YuvTensorConverter}, checked against a straightforward
+ * convert-rotate-crop-resize reference, plus a per-frame cost benchmark.
+ */
+public class YuvTensorConverterTest {
+    private static final int INPUT_SIZE = 224;
+    private static final int IMAGE_MEAN = 128;
+    private static final float IMAGE_STD = 128.0f;
+    // Two 8-bit levels after normalization; covers fixed-point vs. floating-point rounding.
+    private static final float TOLERANCE = 2.01f / IMAGE_STD;
+
+    @Test
+    public void nearest_matchesReference_forAllRotations() {
+        YuvFrame frame = YuvFrame.random(320, 240, 2, 11);
+        for (int rotation : new int[]{0, 90, 180, 270}) {
+            assertMatchesReference(frame, rotation, YuvTensorConverter.Sampling.NEAREST);
+        }
+    }
+
+    @Test
+    public void bilinear_matchesReference_forAllRotations() {
+        YuvFrame frame = YuvFrame.gradient(320, 240, 1);
+        for (int rotation : new int[]{0, 90, 180, 270}) {
+            assertMatchesReference(frame, rotation, YuvTensorConverter.Sampling.BILINEAR);
+        }
+    }
+
+    @Test
+    public void handlesPlanarChromaAndPaddedRows() {
+        YuvFrame frame = YuvFrame.random(300, 500, 1, 5);
+        assertMatchesReference(frame, 90, YuvTensorConverter.Sampling.NEAREST);
+    }
+
+    @Test
+    public void yuvToArgb_convertsGreyAndPrimaries() {
+        assertEquals(0xFF808080, YuvTensorConverter.yuvToArgb(128, 128, 128));
+        assertEquals(0xFF000000, YuvTensorConverter.yuvToArgb(0, 128, 128));
+        assertEquals(0xFFFFFFFF, YuvTensorConverter.yuvToArgb(255, 128, 128));
+        // Pure red in JFIF YCbCr.
+        int red = YuvTensorConverter.yuvToArgb(76, 85, 255);
+        assertTrue(((red >> 16) & 0xFF) > 250);
+        assertTrue(((red >> 8) & 0xFF) < 5);
+        assertTrue((red & 0xFF) < 5);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsUnsupportedRotation() {
+        YuvFrame frame = YuvFrame.random(64, 48, 2, 1);
+        convert(frame, 45, YuvTensorConverter.Sampling.NEAREST);
+    }
+
+    /**
+     * Benchmark: per-frame cost of converting a 640x480 analysis frame.
+     */
+    @Test
+    public void benchmark_perFrameCost() {
+        YuvFrame frame = YuvFrame.random(640, 480, 2, 3);
+        InputTensor tensor = new InputTensor(INPUT_SIZE, INPUT_SIZE, IMAGE_MEAN, IMAGE_STD);
+        for (YuvTensorConverter.Sampling sampling : YuvTensorConverter.Sampling.values()) {
+            YuvTensorConverter converter = new YuvTensorConverter(INPUT_SIZE, sampling);
+            for (int i = 0; i < 200; i++) {
+                frame.convertInto(converter, 90, tensor);
+            }
+            final int iterations = 200;
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                frame.convertInto(converter, 90, tensor);
+            }
+            double msPerFrame = (System.nanoTime() - start) / 1e6 / iterations;
+            System.out.printf("YuvTensorConverter %s: %.3f ms/frame (640x480 -> %dx%d)%n",
+                    sampling, msPerFrame, INPUT_SIZE, INPUT_SIZE);
+        }
+    }
+
+    private void assertMatchesReference(YuvFrame frame, int rotation, YuvTensorConverter.Sampling sampling) {
+        FloatBuffer actual = convert(frame, rotation, sampling);
+        float[] expected = reference(frame, rotation, sampling);
+        assertEquals(expected.length, actual.remaining());
+        for (int i = 0; i < expected.length; i++) {
+            float value = actual.get(i);
+            if (Math.abs(expected[i] - value) > TOLERANCE) {
+                fail("rotation " + rotation + " " + sampling + ": element " + i
+                        + " expected " + expected[i] + " but was " + value);
+            }
+        }
+    }
+
+    private FloatBuffer convert(YuvFrame frame, int rotation, YuvTensorConverter.Sampling sampling) {
+        InputTensor tensor = new InputTensor(INPUT_SIZE, INPUT_SIZE, IMAGE_MEAN, IMAGE_STD);
+        frame.convertInto(new YuvTensorConverter(INPUT_SIZE, sampling), rotation, tensor);
+        return tensor.getBuffer().asFloatBuffer();
+    }
+
+    /**
+     * Reference pipeline: full RGB frame, rotate, centre crop, resize, normalize.
+     */
+    private static float[] reference(YuvFrame frame, int rotation, YuvTensorConverter.Sampling sampling) {
+        int w = frame.width;
+        int h = frame.height;
+        float[][] rgb = new float[w * h][];
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) {
+                int luma = frame.y[y * frame.yRowStride + x] & 0xFF;
+                int chroma = (y / 2) * frame.uvRowStride + (x / 2) * frame.uvPixelStride;
+                float u = (frame.u[chroma] & 0xFF) - 128f;
+                float v = (frame.v[chroma] & 0xFF) - 128f;
+                rgb[y * w + x] = new float[]{
+                        clamp(luma + 1.402f * v),
+                        clamp(luma - 0.344136f * u - 0.714136f * v),
+                        clamp(luma + 1.772f * u)};
+            }
+        }
+
+        boolean swap = rotation % 180 != 0;
+        int uw = swap ? h : w;
+        int uh = swap ? w : h;
+        float[][] upright = new float[uw * uh][];
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) {
+                int ux, uy;
+                switch (rotation) {
+                    case 90: ux = h - 1 - y; uy = x; break;
+                    case 180: ux = w - 1 - x; uy = h - 1 - y; break;
+                    case 270: ux = y; uy = w - 1 - x; break;
+                    default: ux = x; uy = y; break;
+                }
+                upright[uy * uw + ux] = rgb[y * w + x];
+            }
+        }
+
+        int crop = Math.min(uw, uh);
+        int ox = (uw - crop) / 2;
+        int oy = (uh - crop) / 2;
+        float scale = crop / (float) INPUT_SIZE;
+        float[] out = new float[INPUT_SIZE * INPUT_SIZE * 3];
+        int o = 0;
+        for (int j = 0; j < INPUT_SIZE; j++) {
+            for (int i = 0; i < INPUT_SIZE; i++) {
+                float sx = ox + (i + 0.5f) * scale - 0.5f;
+                float sy = oy + (j + 0.5f) * scale - 0.5f;
+                float[] px;
+                if (sampling == YuvTensorConverter.Sampling.NEAREST) {
+                    int x = Math.min(Math.max(Math.round(sx), 0), uw - 1);
+                    int y = Math.min(Math.max(Math.round(sy), 0), uh - 1);
+                    px = upright[y * uw + x];
+                } else {
+                    sx = Math.max(0, Math.min(sx, uw - 1));
+                    sy = Math.max(0, Math.min(sy, uh - 1));
+                    int x0 = (int) sx, y0 = (int) sy;
+                    int x1 = Math.min(x0 + 1, uw - 1), y1 = Math.min(y0 + 1, uh - 1);
+                    float fx = sx - x0, fy = sy - y0;
+                    px = new float[3];
+                    for (int c = 0; c < 3; c++) {
+                        px[c] = (1 - fx) * (1 - fy) * upright[y0 * uw + x0][c] + fx * (1 - fy) * upright[y0 * uw + x1][c]
+                                + (1 - fx) * fy * upright[y1 * uw + x0][c] + fx * fy * upright[y1 * uw + x1][c];
+                    }
+                }
+                for (int c = 0; c < 3; c++) {
+                    out[o++] = (px[c] - IMAGE_MEAN) / IMAGE_STD;
+                }
+            }
+        }
+        return out;
+    }
+
+    private static float clamp(float value) {
+        return Math.max(0f, Math.min(255f, value));
+    }
+
+    /**
+     * A YUV_420_888 frame held in arrays, with padded rows like real camera buffers.
+     */
+    private static class YuvFrame {
+        final int width, height, yRowStride, uvRowStride, uvPixelStride;
+        final byte[] y, u, v;
+
+        YuvFrame(int width, int height, int uvPixelStride) {
+            this.width = width;
+            this.height = height;
+            this.uvPixelStride = uvPixelStride;
+            this.yRowStride = width + 16;
+            this.uvRowStride = ((width + 1) / 2) * uvPixelStride + 8;
+            int chromaRows = (height + 1) / 2;
+            this.y = new byte[yRowStride * height];
+            this.u = new byte[uvRowStride * chromaRows];
+            this.v = new byte[uvRowStride * chromaRows];
+        }
+
+        static YuvFrame random(int width, int height, int uvPixelStride, long seed) {
+            YuvFrame frame = new YuvFrame(width, height, uvPixelStride);
+            Random random = new Random(seed);
+            random.nextBytes(frame.y);
+            random.nextBytes(frame.u);
+            random.nextBytes(frame.v);
+            return frame;
+        }
+
+        static YuvFrame gradient(int width, int height, int uvPixelStride) {
+            YuvFrame frame = new YuvFrame(width, height, uvPixelStride);
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    frame.y[y * frame.yRowStride + x] = (byte) (40 + (x * 150) / width + (y * 50) / height);
+                }
+            }
+            for (int y = 0; y < (height + 1) / 2; y++) {
+                for (int x = 0; x < (width + 1) / 2; x++) {
+                    int index = y * frame.uvRowStride + x * uvPixelStride;
+                    frame.u[index] = (byte) (110 + (x * 40) / width);
+                    frame.v[index] = (byte) (140 - (y * 40) / height);
+                }
+            }
+            return frame;
+        }
+
+        void convertInto(YuvTensorConverter converter, int rotation, InputTensor tensor) {
+            converter.convert(ByteBuffer.wrap(y), yRowStride, ByteBuffer.wrap(u), ByteBuffer.wrap(v),
+                    uvRowStride, uvPixelStride, width, height, rotation, tensor);
+        }
+    }
+}
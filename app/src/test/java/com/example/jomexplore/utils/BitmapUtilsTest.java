@@ -0,0 +1,27 @@
+package com.example.jomexplore.utils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the sizing logic of {@link BitmapUtils}.
+ */
+public class BitmapUtilsTest {
+
+    @Test
+    public void sampleSizeFor_keepsShortSideAtLeastTheModelInput() {
+        // A 4000x3000 photo: 3000 / 8 = 375 is the last step above 224.
+        assertEquals(8, BitmapUtils.sampleSizeFor(3000, 224));
+        assertEquals(4, BitmapUtils.sampleSizeFor(1080, 224));
+        assertEquals(2, BitmapUtils.sampleSizeFor(448, 224));
+        // A 12 MP photo decoded for multi-crop: subsample to 756, density scaling does the rest.
+        assertEquals(4, BitmapUtils.sampleSizeFor(3024, 448));
+    }
+
+    @Test
+    public void sampleSizeFor_neverUpsamples() {
+        assertEquals(1, BitmapUtils.sampleSizeFor(447, 224));
+        assertEquals(1, BitmapUtils.sampleSizeFor(100, 224));
+    }
+}
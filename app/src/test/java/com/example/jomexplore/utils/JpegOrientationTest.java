@@ -0,0 +1,101 @@
+package com.example.jomexplore.utils;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link JpegOrientation}, on hand-built JPEG headers.
+ */
+public class JpegOrientationTest {
+
+    @Test
+    public void read_bigEndianExif() {
+        assertEquals(6, JpegOrientation.read(ByteBuffer.wrap(jpeg(exif(ByteOrder.BIG_ENDIAN, 6), true))));
+    }
+
+    @Test
+    public void read_littleEndianExifAfterApp0() {
+        assertEquals(8, JpegOrientation.read(ByteBuffer.wrap(jpeg(exif(ByteOrder.LITTLE_ENDIAN, 8), true))));
+    }
+
+    @Test
+    public void read_leavesBufferPositionUnchanged() {
+        byte[] data = jpeg(exif(ByteOrder.BIG_ENDIAN, 3), false);
+        // The image starts at offset 2 of a larger buffer, like a sliced camera plane.
+        byte[] padded = new byte[data.length + 2];
+        System.arraycopy(data, 0, padded, 2, data.length);
+        ByteBuffer buffer = ByteBuffer.wrap(padded);
+        buffer.position(2);
+
+        assertEquals(3, JpegOrientation.read(buffer));
+        assertEquals(2, buffer.position());
+    }
+
+    @Test
+    public void read_withoutExifIsUndefined() {
+        assertEquals(JpegOrientation.UNDEFINED, JpegOrientation.read(ByteBuffer.wrap(jpeg(null, true))));
+    }
+
+    @Test
+    public void read_rejectsNonJpegAndTruncatedData() {
+        assertEquals(JpegOrientation.UNDEFINED, JpegOrientation.read(ByteBuffer.wrap(new byte[]{'P', 'N', 'G', 0})));
+        byte[] data = jpeg(exif(ByteOrder.BIG_ENDIAN, 6), false);
+        byte[] truncated = new byte[20];
+        System.arraycopy(data, 0, truncated, 0, truncated.length);
+        assertEquals(JpegOrientation.UNDEFINED, JpegOrientation.read(ByteBuffer.wrap(truncated)));
+    }
+
+    @Test
+    public void read_ignoresOutOfRangeValues() {
+        assertEquals(JpegOrientation.UNDEFINED, JpegOrientation.read(ByteBuffer.wrap(jpeg(exif(ByteOrder.BIG_ENDIAN, 9), false))));
+    }
+
+    /**
+     * Builds SOI, an optional JFIF APP0, the given APP1 payload, and the start of the scan.
+     */
+    private static byte[] jpeg(byte[] app1Payload, boolean withApp0) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(0xFF);
+        out.write(0xD8);
+        if (withApp0) {
+            segment(out, 0xE0, new byte[]{'J', 'F', 'I', 'F', 0, 1, 1, 0, 0, 1, 0, 1, 0, 0});
+        }
+        if (app1Payload != null) {
+            segment(out, 0xE1, app1Payload);
+        }
+        segment(out, 0xDA, new byte[]{1, 2, 3});
+        return out.toByteArray();
+    }
+
+    private static void segment(ByteArrayOutputStream out, int marker, byte[] payload) {
+        int length = payload.length + 2;
+        out.write(0xFF);
+        out.write(marker);
+        out.write(length >> 8);
+        out.write(length & 0xFF);
+        out.write(payload, 0, payload.length);
+    }
+
+    /**
+     * Builds an EXIF APP1 payload whose IFD0 holds an unrelated tag followed by the orientation.
+     */
+    private static byte[] exif(ByteOrder order, int orientation) {
+        ByteBuffer tiff = ByteBuffer.allocate(6 + 8 + 2 + 2 * 12 + 4).order(order);
+        tiff.put(new byte[]{'E', 'x', 'i', 'f', 0, 0});
+        tiff.put(order == ByteOrder.BIG_ENDIAN ? new byte[]{'M', 'M'} : new byte[]{'I', 'I'});
+        tiff.putShort((short) 42);
+        tiff.putInt(8);
+        tiff.putShort((short) 2);
+        // ImageWidth, LONG.
+        tiff.putShort((short) 0x0100).putShort((short) 4).putInt(1).putInt(4000);
+        // Orientation, SHORT, left-aligned in the value field.
+        tiff.putShort((short) 0x0112).putShort((short) 3).putInt(1).putShort((short) orientation).putShort((short) 0);
+        tiff.putInt(0);
+        return tiff.array();
+    }
+}
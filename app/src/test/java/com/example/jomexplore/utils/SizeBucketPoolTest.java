@@ -0,0 +1,71 @@
+package com.example.jomexplore.utils;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link SizeBucketPool}.
+ */
+public class SizeBucketPoolTest {
+    private final List<String> evicted = new ArrayList<>();
+    private final SizeBucketPool<String> pool = new SizeBucketPool<>(1000, evicted::add);
+
+    @Test
+    public void get_returnsSmallestObjectThatFits() {
+        pool.put("small", 100);
+        pool.put("medium", 300);
+        pool.put("large", 500);
+
+        assertEquals("medium", pool.get(250));
+        assertEquals("small", pool.get(100));
+        assertEquals(500, pool.getCurrentBytes());
+        assertEquals(2, pool.getHits());
+        assertEquals(350, pool.getBytesReused());
+    }
+
+    @Test
+    public void get_rejectsObjectsFarLargerThanTheRequest() {
+        pool.put("large", 500);
+
+        assertNull(pool.get(200));
+        assertEquals(1, pool.getMisses());
+        assertEquals("large", pool.get(250));
+        assertEquals(0.5f, pool.getHitRate(), 1e-6f);
+    }
+
+    @Test
+    public void put_evictsLeastRecentlyReleasedWhenFull() {
+        pool.put("a", 400);
+        pool.put("b", 400);
+        pool.put("c", 400);
+
+        assertEquals(1, evicted.size());
+        assertEquals("a", evicted.get(0));
+        assertEquals(800, pool.getCurrentBytes());
+        // The most recently released object of a bucket is reused first.
+        assertEquals("c", pool.get(400));
+    }
+
+    @Test
+    public void put_evictsObjectsLargerThanThePool() {
+        pool.put("huge", 2000);
+
+        assertEquals(1, evicted.size());
+        assertEquals(0, pool.getCurrentBytes());
+    }
+
+    @Test
+    public void trimToSize_zeroEmptiesThePool() {
+        pool.put("a", 100);
+        pool.put("b", 200);
+        pool.trimToSize(0);
+
+        assertEquals(2, evicted.size());
+        assertEquals(0, pool.getCurrentBytes());
+        assertNull(pool.get(100));
+    }
+}
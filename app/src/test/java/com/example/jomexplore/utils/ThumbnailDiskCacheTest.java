@@ -0,0 +1,66 @@
+package com.example.jomexplore.utils;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link ThumbnailDiskCache}.
+ */
+public class ThumbnailDiskCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void put_thenGetReturnsTheWrittenFile() throws IOException {
+        ThumbnailDiskCache cache = new ThumbnailDiskCache(new File(folder.getRoot(), "thumbs"), 1000);
+        assertNull(cache.get("file:/a.jpg"));
+
+        cache.put("file:/a.jpg", out -> out.write(new byte[]{1, 2, 3}));
+
+        File file = cache.get("file:/a.jpg");
+        assertNotNull(file);
+        assertArrayEquals(new byte[]{1, 2, 3}, Files.readAllBytes(file.toPath()));
+        assertNull(cache.get("file:/b.jpg"));
+    }
+
+    @Test
+    public void put_failedWriteLeavesNoFile() {
+        File directory = new File(folder.getRoot(), "thumbs");
+        ThumbnailDiskCache cache = new ThumbnailDiskCache(directory, 1000);
+        try {
+            cache.put("key", out -> {
+                out.write(1);
+                throw new IOException("encoder failed");
+            });
+            fail();
+        } catch (IOException expected) {
+            // The partial file must not be visible.
+        }
+        assertNull(cache.get("key"));
+        assertEquals(0, directory.listFiles().length);
+    }
+
+    @Test
+    public void put_evictsLeastRecentlyUsedOverTheCap() throws IOException {
+        ThumbnailDiskCache cache = new ThumbnailDiskCache(new File(folder.getRoot(), "thumbs"), 250);
+        cache.put("a", out -> out.write(new byte[100]));
+        cache.put("b", out -> out.write(new byte[100]));
+        // Make "a" older than "b" regardless of file system timestamp resolution.
+        cache.get("a").setLastModified(1000);
+        cache.get("b");
+
+        cache.put("c", out -> out.write(new byte[100]));
+
+        assertNotNull(cache.get("b"));
+        assertNotNull(cache.get("c"));
+        assertNull(cache.get("a"));
+    }
+}